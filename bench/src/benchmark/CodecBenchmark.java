@@ -0,0 +1,200 @@
+package benchmark;
+
+import huffman.BlockCompressor;
+import huffman.CodeTable;
+import huffman.ContextHuffman;
+import huffman.DirectCodec;
+import huffman.Format;
+import huffman.FrequencyReader;
+import huffman.HuffmanInputStream;
+import huffman.HuffmanOutputStream;
+import huffman.HuffmanTree;
+import huffman.ParallelEncoder;
+import io.BinaryReader;
+import io.MappedFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la compression et de la décompression, de fichier à fichier et en mémoire
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    /**
+     * Compression d'un fichier en un seul flux : comptage des octets, arbre puis encodage
+     */
+    @Benchmark
+    public void compress(CorpusState state, Throughput throughput) throws IOException {
+        long[] frequencies = new FrequencyReader().readBytes(state.source.getPath());
+        new HuffmanTree(frequencies).compress(state.source.getPath(), state.compressed.getPath());
+        throughput.add(state.size);
+    }
+
+    /**
+     * Compression d'un fichier en blocs ({@link BlockCompressor})
+     */
+    @Benchmark
+    public void compressBlocks(CorpusState state, Throughput throughput) throws IOException {
+        new BlockCompressor().compress(state.source.getPath(), state.compressed.getPath());
+        throughput.add(state.size);
+    }
+
+    /**
+     * Décompression d'un fichier compressé en un seul flux
+     */
+    @Benchmark
+    public void decompress(CorpusState state, Throughput throughput) throws IOException {
+        BinaryReader br = new BinaryReader(state.stream.getPath());
+        Format format = Format.read(br);
+        HuffmanTree tree = new HuffmanTree();
+        tree.setCodeTable(CodeTable.readLengths(br, format.getAlphabetSize()));
+        tree.decompressBytes(br, state.decompressed.getPath(), Format.readLong(br));
+        br.close();
+        throughput.add(state.size);
+    }
+
+    /**
+     * Encodage d'un fichier projeté en mémoire en un seul flux, dans un tampon direct ({@link DirectCodec})
+     */
+    @Benchmark
+    public void compressDirect(CorpusState state, Throughput throughput) throws IOException {
+        try (MappedFile mapped = new MappedFile(state.source.getPath())) {
+            DirectCodec.compress(new HuffmanTree(state.frequencies).getCodeTable(), mapped, state.compressed.getPath());
+        }
+
+        throughput.add(state.size);
+    }
+
+    /**
+     * Encodage d'un fichier en un seul flux sur un thread par coeur ({@link ParallelEncoder}), identique à {@link CodecBenchmark#compressDirect}
+     */
+    @Benchmark
+    public void compressParallel(CorpusState state, Throughput throughput) throws IOException {
+        try (MappedFile mapped = new MappedFile(state.source.getPath())) {
+            new ParallelEncoder().compress(new HuffmanTree(state.frequencies).getCodeTable(), mapped, state.compressed.getPath());
+        }
+
+        throughput.add(state.size);
+    }
+
+    /**
+     * Décompression d'un fichier compressé en un seul flux, lu dans un tampon direct ({@link DirectCodec})
+     */
+    @Benchmark
+    public void decompressDirect(CorpusState state, Throughput throughput) throws IOException {
+        BinaryReader br = new BinaryReader(state.stream.getPath());
+        Format format = Format.read(br);
+        CodeTable table = CodeTable.readLengths(br, format.getAlphabetSize());
+        long length = Format.readLong(br);
+        long bitOffset = br.getBitCount();
+        br.close();
+        DirectCodec.decompress(table, state.stream.getPath(), bitOffset, state.decompressed.getPath(), length);
+        throughput.add(state.size);
+    }
+
+    /**
+     * Décompression d'un fichier compressé en blocs, grâce à son index
+     */
+    @Benchmark
+    public void decompressBlocks(CorpusState state, Throughput throughput) throws IOException {
+        new BlockCompressor().decompress(state.blocks.getPath(), state.decompressed.getPath());
+        throughput.add(state.size);
+    }
+
+    /**
+     * Décompression sur un thread d'un fichier compressé en blocs d'un seul flux, pour comparer avec
+     * {@link CodecBenchmark#decompressInterleaved(CorpusState, Throughput)}
+     */
+    @Benchmark
+    public void decompressBlocksSingleThread(CorpusState state, Throughput throughput) throws IOException {
+        new BlockCompressor(BlockCompressor.DEFAULT_BLOCK_SIZE, 1).decompress(state.blocks.getPath(), state.decompressed.getPath());
+        throughput.add(state.size);
+    }
+
+    /**
+     * Décompression sur un thread d'un fichier compressé en blocs de 4 flux entrelacés
+     */
+    @Benchmark
+    public void decompressInterleaved(CorpusState state, Throughput throughput) throws IOException {
+        new BlockCompressor(BlockCompressor.DEFAULT_BLOCK_SIZE, 1).decompress(state.interleaved.getPath(), state.decompressed.getPath());
+        throughput.add(state.size);
+    }
+
+    /**
+     * Compression d'un fichier avec une table par contexte ({@link ContextHuffman}) : comptage, tables puis encodage
+     */
+    @Benchmark
+    public void compressContext(CorpusState state, Throughput throughput) throws IOException {
+        try (MappedFile mapped = new MappedFile(state.source.getPath())) {
+            ContextHuffman.compress(mapped, state.compressed.getPath());
+        }
+        throughput.add(state.size);
+    }
+
+    /**
+     * Décompression d'un fichier compressé avec une table par contexte
+     */
+    @Benchmark
+    public void decompressContext(CorpusState state, Throughput throughput) throws IOException {
+        BinaryReader br = new BinaryReader(state.context.getPath());
+        Format.read(br);
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(state.decompressed))) {
+            ContextHuffman.decompress(br, out);
+        }
+        br.close();
+        throughput.add(state.size);
+    }
+
+    /**
+     * Compression en mémoire avec {@link HuffmanOutputStream}
+     */
+    @Benchmark
+    public byte[] outputStream(CorpusState state, Throughput throughput) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(state.size);
+        HuffmanOutputStream huffman = new HuffmanOutputStream(out);
+        huffman.write(state.data);
+        huffman.close();
+        throughput.add(state.size);
+        return out.toByteArray();
+    }
+
+    /**
+     * Décompression en mémoire avec {@link HuffmanInputStream}
+     */
+    @Benchmark
+    public byte[] inputStream(CorpusState state, Throughput throughput) throws IOException {
+        byte[] result = new byte[state.size];
+        InputStream in = new HuffmanInputStream(new ByteArrayInputStream(state.huffmanStream));
+        int offset = 0;
+        int n;
+
+        while (offset < result.length && (n = in.read(result, offset, result.length - offset)) > 0)
+            offset += n;
+
+        in.close();
+        throughput.add(state.size);
+        return result;
+    }
+}
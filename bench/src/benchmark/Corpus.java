@@ -0,0 +1,145 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Corpus synthétiques des benchmarks, générés à partir d'une graine fixe pour être reproductibles
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public enum Corpus {
+    /**
+     * Caractères imprimables tirés uniformément (64 symboles, 6 bits d'entropie)
+     */
+    UNIFORM,
+
+    /**
+     * Octets tirés selon une loi de Zipf (s = 1) sur 256 symboles
+     */
+    ZIPF,
+
+    /**
+     * Texte anglais synthétique : mots courants tirés selon une loi de Zipf, ponctuation et retours à la ligne
+     */
+    ENGLISH,
+
+    /**
+     * Octets aléatoires (8 bits d'entropie, incompressible)
+     */
+    RANDOM;
+
+    /**
+     * Caractères de {@link Corpus#UNIFORM}
+     */
+    private static final String UNIFORM_ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 .";
+
+    /**
+     * Mots de {@link Corpus#ENGLISH}, du plus fréquent au moins fréquent
+     */
+    private static final String[] WORDS = ("the of and to a in is it you that he was for on are with as I his they be at one "
+            + "have this from or had by hot word but what some we can out other were all there when up use your how said "
+            + "an each she which do their time if will way about many then them write would like so these her long make "
+            + "thing see him two has look more day could go come did number sound no most people my over know water than "
+            + "call first who may down side been now find any new work part take get place made live where after back "
+            + "little only round man year came show every good me give our under name very through just form sentence "
+            + "great think say help low line differ turn cause much mean before move right boy old too same tell does "
+            + "set three want air well also play small end put home read hand port large spell add even land here must "
+            + "big high such follow act why ask men change went light kind off need house picture try us again animal "
+            + "point mother world near build self earth father head stand own page should country found answer school "
+            + "grow study still learn plant cover food sun four between state keep eye never last let thought city tree "
+            + "cross farm hard start might story saw far sea draw left late run while press close night real life few").split(" ");
+
+    /**
+     * Génère le corpus
+     *
+     * @param size nombre d'octets
+     * @param seed graine
+     * @return les octets du corpus
+     */
+    public byte[] generate(int size, long seed) {
+        Random random = new Random(seed);
+        byte[] data = new byte[size];
+
+        switch (this) {
+            case UNIFORM:
+                for (int i = 0; i < size; i++)
+                    data[i] = (byte) UNIFORM_ALPHABET.charAt(random.nextInt(UNIFORM_ALPHABET.length()));
+                break;
+            case ZIPF:
+                double[] cumulative = zipf(1 << Byte.SIZE);
+                for (int i = 0; i < size; i++)
+                    data[i] = (byte) sample(cumulative, random);
+                break;
+            case ENGLISH:
+                english(data, random);
+                break;
+            case RANDOM:
+                random.nextBytes(data);
+                break;
+        }
+
+        return data;
+    }
+
+    /**
+     * Remplit un tableau de texte anglais synthétique
+     *
+     * @param data   tableau à remplir
+     * @param random générateur
+     */
+    private static void english(byte[] data, Random random) {
+        double[] cumulative = zipf(WORDS.length);
+        boolean sentenceStart = true;
+        int i = 0;
+
+        while (i < data.length) {
+            String word = WORDS[sample(cumulative, random)];
+
+            for (int c = 0; c < word.length() && i < data.length; c++)
+                data[i++] = (byte) (sentenceStart && c == 0 ? Character.toUpperCase(word.charAt(c)) : word.charAt(c));
+
+            sentenceStart = random.nextInt(12) == 0;
+
+            if (i < data.length)
+                data[i++] = (byte) (!sentenceStart ? ' ' : random.nextInt(8) == 0 ? '\n' : '.');
+
+            if (sentenceStart && i < data.length && data[i - 1] == '.')
+                data[i++] = ' ';
+        }
+    }
+
+    /**
+     * Calcule la fonction de répartition d'une loi de Zipf (s = 1)
+     *
+     * @param n nombre de rangs
+     * @return la probabilité cumulée de chaque rang
+     */
+    private static double[] zipf(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / (k + 1);
+            cumulative[k] = sum;
+        }
+
+        for (int k = 0; k < n; k++)
+            cumulative[k] /= sum;
+
+        return cumulative;
+    }
+
+    /**
+     * Tire un rang selon une fonction de répartition
+     *
+     * @param cumulative probabilité cumulée de chaque rang
+     * @param random     générateur
+     * @return le rang tiré
+     */
+    private static int sample(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+
+        return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,204 @@
+package benchmark;
+
+import huffman.BlockCompressor;
+import huffman.CodeTable;
+import huffman.ContextHuffman;
+import huffman.FlatTree;
+import huffman.FrequencyReader;
+import huffman.HuffmanOutputStream;
+import huffman.HuffmanTree;
+import huffman.TreeElement;
+import io.BinaryWriter;
+import io.MappedFile;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.zip.Deflater;
+
+/**
+ * Données partagées par les benchmarks : un corpus, écrit dans un fichier temporaire,
+ * et tout ce qui se prépare avant la mesure (fréquences, arbre, fichiers compressés...)
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+    /**
+     * Corpus
+     */
+    @Param({"UNIFORM", "ZIPF", "ENGLISH", "RANDOM"})
+    public Corpus corpus;
+
+    /**
+     * Nombre d'octets du corpus
+     */
+    @Param({"65536", "1048576", "16777216"})
+    public int size;
+
+    /**
+     * Octets du corpus
+     */
+    public byte[] data;
+
+    /**
+     * Fichier contenant le corpus
+     */
+    public File source;
+
+    /**
+     * Fichier recevant les compressions
+     */
+    public File compressed;
+
+    /**
+     * Fichier compressé en un seul flux ({@link HuffmanTree#compress(String, String)})
+     */
+    public File stream;
+
+    /**
+     * Fichier compressé en blocs ({@link BlockCompressor})
+     */
+    public File blocks;
+
+    /**
+     * Fichier compressé en blocs de 4 flux entrelacés ({@link BlockCompressor#BlockCompressor(int, int, int)})
+     */
+    public File interleaved;
+
+    /**
+     * Fichier compressé avec une table par contexte ({@link ContextHuffman})
+     */
+    public File context;
+
+    /**
+     * Fichier recevant les décompressions
+     */
+    public File decompressed;
+
+    /**
+     * Fréquence de chaque octet
+     */
+    public long[] frequencies;
+
+    /**
+     * Feuilles lues par {@link FrequencyReader#readFile(String)}
+     */
+    public ArrayList<TreeElement> leaves;
+
+    /**
+     * Arbre encodé au format d'origine, lu par {@link HuffmanTree#decodeTree(io.BinaryReader)}
+     */
+    public byte[] legacyTree;
+
+    /**
+     * Longueurs des codes écrites par {@link CodeTable#writeLengths(BinaryWriter)}
+     */
+    public byte[] codeLengths;
+
+    /**
+     * Corpus compressé par {@link HuffmanOutputStream}
+     */
+    public byte[] huffmanStream;
+
+    /**
+     * Corpus compressé par {@link Deflater} (stratégie {@link Deflater#HUFFMAN_ONLY})
+     */
+    public byte[] deflated;
+
+    /**
+     * Prépare le corpus et les fichiers compressés
+     *
+     * @throws IOException si un fichier temporaire ne peut pas être écrit
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.data = this.corpus.generate(this.size, 42);
+        this.source = File.createTempFile("bench", ".bin");
+        this.compressed = File.createTempFile("bench", ".huf");
+        this.stream = File.createTempFile("bench", ".huf");
+        this.blocks = File.createTempFile("bench", ".huf");
+        this.context = File.createTempFile("bench", ".huf");
+        this.interleaved = File.createTempFile("bench", ".huf");
+        this.decompressed = File.createTempFile("bench", ".out");
+        Files.write(this.source.toPath(), this.data);
+
+        FrequencyReader reader = new FrequencyReader();
+        this.frequencies = reader.readBytes(this.source.getPath());
+        this.leaves = reader.readFile(this.source.getPath());
+
+        new HuffmanTree(this.frequencies).compress(this.source.getPath(), this.stream.getPath());
+        new BlockCompressor().compress(this.source.getPath(), this.blocks.getPath());
+        new BlockCompressor(BlockCompressor.DEFAULT_BLOCK_SIZE, 1, 4).compress(this.source.getPath(), this.interleaved.getPath());
+
+        try (MappedFile mapped = new MappedFile(this.source.getPath())) {
+            ContextHuffman.compress(mapped, this.context.getPath());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out);
+        FlatTree.build(this.leaves).encode(bw);
+        bw.close();
+        this.legacyTree = out.toByteArray();
+
+        out = new ByteArrayOutputStream();
+        bw = new BinaryWriter(out);
+        new HuffmanTree(this.frequencies).getCodeTable().writeLengths(bw);
+        bw.close();
+        this.codeLengths = out.toByteArray();
+
+        out = new ByteArrayOutputStream();
+        HuffmanOutputStream huffman = new HuffmanOutputStream(out);
+        huffman.write(this.data);
+        huffman.close();
+        this.huffmanStream = out.toByteArray();
+
+        this.deflated = deflate(this.data, Deflater.HUFFMAN_ONLY, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Supprime les fichiers temporaires
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.source.delete();
+        this.compressed.delete();
+        this.stream.delete();
+        this.blocks.delete();
+        this.context.delete();
+        this.interleaved.delete();
+        this.decompressed.delete();
+    }
+
+    /**
+     * Compresse des octets avec {@link Deflater}
+     *
+     * @param data     octets
+     * @param strategy stratégie de {@link Deflater}
+     * @param level    niveau de compression
+     * @return les octets compressés
+     */
+    public static byte[] deflate(byte[] data, int strategy, int level) {
+        Deflater deflater = new Deflater(level);
+        deflater.setStrategy(strategy);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] buffer = new byte[1 << 16];
+
+        while (!deflater.finished())
+            out.write(buffer, 0, deflater.deflate(buffer));
+
+        deflater.end();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Référence : {@link Deflater} et {@link Inflater} du JDK (zlib) sur les mêmes corpus, en mémoire
+ * La stratégie {@link Deflater#HUFFMAN_ONLY} n'utilise que le codage de Huffman, sans recherche de répétitions,
+ * et se compare donc directement à {@link CodecBenchmark#outputStream}
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeflateBenchmark {
+
+    /**
+     * Compression avec les paramètres par défaut (LZ77 et Huffman)
+     */
+    @Benchmark
+    public byte[] deflate(CorpusState state, Throughput throughput) {
+        throughput.add(state.size);
+        return CorpusState.deflate(state.data, Deflater.DEFAULT_STRATEGY, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Compression par le codage de Huffman seul
+     */
+    @Benchmark
+    public byte[] deflateHuffmanOnly(CorpusState state, Throughput throughput) {
+        throughput.add(state.size);
+        return CorpusState.deflate(state.data, Deflater.HUFFMAN_ONLY, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Décompression d'un contenu compressé par le codage de Huffman seul
+     */
+    @Benchmark
+    public byte[] inflate(CorpusState state, Throughput throughput) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(state.deflated);
+        byte[] result = new byte[state.size];
+        int offset = 0;
+
+        while (offset < result.length && !inflater.finished())
+            offset += inflater.inflate(result, offset, result.length - offset);
+
+        inflater.end();
+        throughput.add(state.size);
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import huffman.FrequencyReader;
+import huffman.TreeElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks du comptage des fréquences ({@link FrequencyReader}) et du tri des feuilles
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrequencyBenchmark {
+
+    /**
+     * Comptage des caractères, décodés avec le jeu de caractères de la plateforme
+     */
+    @Benchmark
+    public ArrayList<TreeElement> readFile(CorpusState state, Throughput throughput) throws IOException {
+        throughput.add(state.size);
+        return new FrequencyReader().readFile(state.source.getPath());
+    }
+
+    /**
+     * Comptage des octets sur le fichier projeté en mémoire
+     */
+    @Benchmark
+    public long[] readBytes(CorpusState state, Throughput throughput) throws IOException {
+        throughput.add(state.size);
+        return new FrequencyReader().readBytes(state.source.getPath());
+    }
+
+    /**
+     * Comptage des octets d'un tableau déjà en mémoire, sans entrées-sorties
+     */
+    @Benchmark
+    public int[] countBytes(CorpusState state, Throughput throughput) {
+        //4 histogrammes entrelacés, voir FrequencyReader#countBytes
+        int[] counts = new int[4 << Byte.SIZE];
+        FrequencyReader.countBytes(state.data, state.data.length, counts);
+        throughput.add(state.size);
+        return FrequencyReader.mergeCounts(counts);
+    }
+
+    /**
+     * Tri par tas des feuilles lues par {@link FrequencyReader#readFile(String)}
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ArrayList<TreeElement> heapSort(CorpusState state) {
+        return new FrequencyReader().heapSort(new ArrayList<>(state.leaves));
+    }
+}
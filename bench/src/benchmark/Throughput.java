@@ -0,0 +1,44 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compteur des mégaoctets traités, que JMH divise par la durée de l'itération pour obtenir un débit en Mo/s
+ * Chaque benchmark ajoute la taille du contenu non compressé, à la compression comme à la décompression
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+    /**
+     * Nombre d'octets dans un mégaoctet
+     */
+    private static final double MEGABYTE = 1_000_000.0;
+
+    /**
+     * Mégaoctets traités pendant l'itération
+     */
+    public double megabytes;
+
+    /**
+     * Remet le compteur à zéro avant chaque itération
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        this.megabytes = 0;
+    }
+
+    /**
+     * Ajoute des octets traités
+     *
+     * @param bytes nombre d'octets
+     */
+    public void add(long bytes) {
+        this.megabytes += bytes / MEGABYTE;
+    }
+}
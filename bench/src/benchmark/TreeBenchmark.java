@@ -0,0 +1,74 @@
+package benchmark;
+
+import huffman.CodeLengths;
+import huffman.CodeTable;
+import huffman.DecodingTable;
+import huffman.FlatTree;
+import huffman.Format;
+import huffman.HuffmanTree;
+import io.BinaryReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la construction de l'arbre et de la lecture des tables, indépendants de la taille du contenu
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmark {
+
+    /**
+     * Construction de l'arbre à partir des feuilles ({@link HuffmanTree#setTree(ArrayList)})
+     */
+    @Benchmark
+    public HuffmanTree setTree(CorpusState state) {
+        return new HuffmanTree(new ArrayList<>(state.leaves));
+    }
+
+    /**
+     * Construction de l'arbre puis de la table canonique des octets
+     */
+    @Benchmark
+    public CodeTable codeTable(CorpusState state) {
+        return new HuffmanTree(state.frequencies).getCodeTable();
+    }
+
+    /**
+     * Calcul des longueurs des codes sans créer de noeud
+     */
+    @Benchmark
+    public int[] codeLengths(CorpusState state) {
+        return CodeLengths.compute(state.frequencies);
+    }
+
+    /**
+     * Lecture d'un arbre au format {@link Format#LEGACY}
+     */
+    @Benchmark
+    public FlatTree decodeTree(CorpusState state) {
+        return HuffmanTree.decodeTree(new BinaryReader(new ByteArrayInputStream(state.legacyTree)));
+    }
+
+    /**
+     * Lecture des longueurs des codes au format {@link Format#CANONICAL} puis construction de la table de décodage
+     */
+    @Benchmark
+    public DecodingTable readLengths(CorpusState state) {
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(state.codeLengths));
+        return CodeTable.readLengths(br, Format.alphabetSize(Format.BYTES)).toDecodingTable();
+    }
+}
@@ -0,0 +1,1094 @@
+package cli;
+
+import huffman.Archive;
+import huffman.Codec;
+import huffman.SharedTable;
+import huffman.TableCache;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Interface non interactive, pour les scripts : compresse ou décompresse des fichiers, des dossiers ou des motifs glob
+ * en parallèle, ou l'entrée standard vers la sortie standard
+ * <pre>
+ * compress|decompress [-j N] [-o DOSSIER] [-f] [-t TABLE] [FICHIER|DOSSIER|MOTIF|-]...
+ * compress -c|-i [-j N] [-o DOSSIER] [-f] [FICHIER|DOSSIER|MOTIF]...
+ * train [-f] TABLE|DOSSIER [FICHIER|DOSSIER|MOTIF]...
+ * archive [-f] ARCHIVE [FICHIER|DOSSIER|MOTIF]...
+ * extract [-j N] [-o DOSSIER] [-f] ARCHIVE [ENTREE]...
+ * list ARCHIVE
+ * </pre>
+ * Pour chaque fichier, une ligne JSON donne les octets lus et écrits, le taux de compression, la durée et le débit,
+ * puis une dernière ligne donne le total. Ces lignes sont écrites sur la sortie standard,
+ * ou sur la sortie d'erreur lorsque la sortie standard reçoit le contenu
+ * Les archives ({@link Archive}) regroupent plusieurs fichiers, chacun pouvant être extrait seul
+ * L'entraînement produit une table partagée ({@link SharedTable}) à partir d'un échantillon : les fichiers compressés
+ * avec -t ne portent alors que l'identifiant de la table, et sont décompressés avec -t et la table ou son dossier
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class BatchCompressor {
+    /**
+     * Commande pour compresser
+     */
+    public static final String COMPRESS_COMMAND = "compress";
+
+    /**
+     * Commande pour décompresser
+     */
+    public static final String DECOMPRESS_COMMAND = "decompress";
+
+    /**
+     * Commande pour entraîner une table partagée
+     */
+    public static final String TRAIN_COMMAND = "train";
+
+    /**
+     * Commande pour créer une archive
+     */
+    public static final String ARCHIVE_COMMAND = "archive";
+
+    /**
+     * Commande pour extraire les entrées d'une archive
+     */
+    public static final String EXTRACT_COMMAND = "extract";
+
+    /**
+     * Commande pour lister les entrées d'une archive
+     */
+    public static final String LIST_COMMAND = "list";
+
+    /**
+     * Entrée désignant l'entrée et la sortie standard
+     */
+    public static final String STDIO = "-";
+
+    /**
+     * Extension des fichiers compressés
+     */
+    public static final String SUFFIX = ".huf";
+
+    /**
+     * Extension ajoutée à un fichier décompressé dont le nom ne finit pas par {@link BatchCompressor#SUFFIX}
+     */
+    public static final String DECOMPRESSED_SUFFIX = ".out";
+
+    /**
+     * Code de sortie : tous les fichiers ont été traités
+     */
+    public static final int SUCCESS = 0;
+
+    /**
+     * Code de sortie : au moins un fichier n'a pas pu être traité
+     */
+    public static final int FAILURE = 1;
+
+    /**
+     * Code de sortie : arguments invalides
+     */
+    public static final int USAGE = 2;
+
+    /**
+     * Usage affiché en cas d'arguments invalides
+     */
+    private static final String USAGE_MESSAGE = "Usage: compress|decompress [-j N] [-o DIRECTORY] [-f] [-t TABLE] [FILE|DIRECTORY|GLOB|-]...\n"
+            + "       compress -c|-i [-j N] [-o DIRECTORY] [-f] [FILE|DIRECTORY|GLOB]...\n"
+            + "       compress -a [-j N] [-o DIRECTORY] [-f] [FILE|DIRECTORY|GLOB|-]...\n"
+            + "       train [-f] TABLE|DIRECTORY [FILE|DIRECTORY|GLOB]...\n"
+            + "       archive [-f] ARCHIVE [FILE|DIRECTORY|GLOB]...\n"
+            + "       extract [-j N] [-o DIRECTORY] [-f] ARCHIVE [ENTRY]...\n"
+            + "       list ARCHIVE\n"
+            + "  -j N          number of files processed in parallel (default: number of processors)\n"
+            + "  -o DIRECTORY  output directory (default: next to each input)\n"
+            + "  -f            overwrite existing outputs\n"
+            + "  -c            one code table per previous byte, smaller on text (files only)\n"
+            + "  -i            4 interleaved bitstreams per block, faster to decompress (files only)\n"
+            + "  -a            adaptive codes in a single pass, output follows input (live streams)\n"
+            + "  -t TABLE      shared table trained by train, or a directory of tables to decompress\n"
+            + "  -             or no input: read standard input, write standard output";
+
+    /**
+     * Nombre d'octets dans un mégaoctet, pour les débits
+     */
+    private static final double MEGABYTE = 1_000_000.0;
+
+    /**
+     * Entrée standard
+     */
+    private final InputStream in;
+
+    /**
+     * Sortie standard
+     */
+    private final PrintStream out;
+
+    /**
+     * Sortie d'erreur
+     */
+    private final PrintStream err;
+
+    /**
+     * Commande
+     */
+    private String command;
+
+    /**
+     * true si la commande lit du contenu non compressé (compression, archive ou entraînement)
+     */
+    private boolean compress;
+
+    /**
+     * Nombre de fichiers traités en parallèle
+     */
+    private int jobs;
+
+    /**
+     * Dossier recevant les fichiers produits, null pour les placer à côté des fichiers lus
+     */
+    private File outputFolder;
+
+    /**
+     * true pour remplacer les fichiers existants
+     */
+    private boolean force;
+
+    /**
+     * Fichiers, dossiers ou motifs à traiter, ou entrées à extraire
+     */
+    private List<String> inputs;
+
+    /**
+     * Archive des commandes d'archive
+     */
+    private File archive;
+
+    /**
+     * Table partagée produite par l'entraînement ou donnée par -t (fichier ou dossier de tables), sinon null
+     */
+    private File table;
+
+    /**
+     * true pour compresser avec une table par contexte (option -c)
+     */
+    private boolean context;
+
+    /**
+     * true pour compresser en blocs de 4 flux entrelacés (option -i)
+     */
+    private boolean interleaved;
+
+    /**
+     * true pour compresser en un seul passage avec des codes adaptatifs (option -a)
+     */
+    private boolean adaptive;
+
+    /**
+     * Table partagée chargée pour compresser, sinon null
+     */
+    private SharedTable sharedTable;
+
+    /**
+     * Tables partagées connues pour décompresser, sinon null
+     */
+    private TableCache tables;
+
+    /**
+     * Constructeur
+     *
+     * @param in  entrée standard
+     * @param out sortie standard
+     * @param err sortie d'erreur
+     */
+    public BatchCompressor(InputStream in, PrintStream out, PrintStream err) {
+        this.in = in;
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Exécute une commande
+     *
+     * @param args commande, options et entrées
+     * @return {@link BatchCompressor#SUCCESS}, {@link BatchCompressor#FAILURE} ou {@link BatchCompressor#USAGE}
+     */
+    public int run(String[] args) {
+        try {
+            this.parse(args);
+        } catch (IllegalArgumentException e) {
+            this.err.println(e.getMessage());
+            this.err.println(USAGE_MESSAGE);
+            return USAGE;
+        }
+
+        if (this.command.equals(LIST_COMMAND))
+            return this.runList();
+
+        if (this.command.equals(EXTRACT_COMMAND))
+            return this.runExtract();
+
+        try {
+            this.loadTables();
+        } catch (IOException | RuntimeException e) {
+            this.err.println("Error occurs while loading the table : " + e.getMessage());
+            return FAILURE;
+        }
+
+        if (this.inputs.isEmpty() || this.inputs.equals(List.of(STDIO)))
+            return this.runStdio();
+
+        List<Job> jobs;
+
+        try {
+            jobs = this.expand();
+        } catch (IOException e) {
+            this.err.println("Error occurs while listing files : " + e.getMessage());
+            return FAILURE;
+        }
+
+        if (this.command.equals(TRAIN_COMMAND))
+            return this.runTrain(jobs);
+
+        return this.command.equals(ARCHIVE_COMMAND) ? this.runArchive(jobs) : this.runFiles(jobs);
+    }
+
+    /**
+     * Lit la commande et les options
+     *
+     * @param args commande, options et entrées
+     * @throws IllegalArgumentException si un argument est invalide
+     */
+    private void parse(String[] args) {
+        if (args.length == 0 || !List.of(COMPRESS_COMMAND, DECOMPRESS_COMMAND, TRAIN_COMMAND, ARCHIVE_COMMAND, EXTRACT_COMMAND,
+                LIST_COMMAND).contains(args[0]))
+            throw new IllegalArgumentException("Missing command");
+
+        this.command = args[0];
+        this.compress = this.command.equals(COMPRESS_COMMAND) || this.command.equals(ARCHIVE_COMMAND)
+                || this.command.equals(TRAIN_COMMAND);
+        this.archive = null;
+        this.table = null;
+        this.jobs = Runtime.getRuntime().availableProcessors();
+        this.outputFolder = null;
+        this.force = false;
+        this.context = false;
+        this.interleaved = false;
+        this.adaptive = false;
+        this.inputs = new ArrayList<>();
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+
+            if (arg.equals("-j") || arg.equals("-o") || arg.equals("-t")) {
+                if (++i == args.length)
+                    throw new IllegalArgumentException("Missing value for " + arg);
+
+                if (arg.equals("-o")) {
+                    this.outputFolder = new File(args[i]);
+                } else if (arg.equals("-t")) {
+                    if (!this.command.equals(COMPRESS_COMMAND) && !this.command.equals(DECOMPRESS_COMMAND))
+                        throw new IllegalArgumentException("Option -t is only for " + COMPRESS_COMMAND + " and " + DECOMPRESS_COMMAND);
+
+                    this.table = new File(args[i]);
+                } else {
+                    try {
+                        this.jobs = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException e) {
+                        this.jobs = 0;
+                    }
+
+                    if (this.jobs < 1)
+                        throw new IllegalArgumentException("Invalid number of jobs " + args[i]);
+                }
+            } else if (arg.equals("-f")) {
+                this.force = true;
+            } else if (arg.equals("-c") || arg.equals("-i") || arg.equals("-a")) {
+                if (!this.command.equals(COMPRESS_COMMAND))
+                    throw new IllegalArgumentException("Option " + arg + " is only for " + COMPRESS_COMMAND);
+
+                if (arg.equals("-c"))
+                    this.context = true;
+                else if (arg.equals("-i"))
+                    this.interleaved = true;
+                else
+                    this.adaptive = true;
+            } else if (arg.startsWith("-") && !arg.equals(STDIO)) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                this.inputs.add(arg);
+            }
+        }
+
+        if (this.inputs.contains(STDIO) && this.inputs.size() > 1)
+            throw new IllegalArgumentException("Standard input cannot be mixed with files");
+
+        //Le contexte a besoin de deux passages sur le fichier : les fréquences, puis les codes
+        if (this.context && (this.inputs.isEmpty() || this.inputs.contains(STDIO)))
+            throw new IllegalArgumentException("Option -c needs files");
+
+        if (this.interleaved && (this.inputs.isEmpty() || this.inputs.contains(STDIO)))
+            throw new IllegalArgumentException("Option -i needs files");
+
+        if ((this.context ? 1 : 0) + (this.interleaved ? 1 : 0) + (this.adaptive ? 1 : 0) + (this.table != null ? 1 : 0) > 1)
+            throw new IllegalArgumentException("Options -c, -i, -a and -t cannot be mixed");
+
+        //L'archive est la première entrée des commandes d'archive
+        if (this.command.equals(ARCHIVE_COMMAND) || this.command.equals(EXTRACT_COMMAND) || this.command.equals(LIST_COMMAND)) {
+            if (this.inputs.isEmpty() || this.inputs.get(0).equals(STDIO))
+                throw new IllegalArgumentException("Missing archive");
+
+            this.archive = new File(this.inputs.remove(0));
+        }
+
+        //La table est la première entrée de l'entraînement, qui a besoin d'au moins un échantillon
+        if (this.command.equals(TRAIN_COMMAND)) {
+            if (this.inputs.isEmpty() || this.inputs.get(0).equals(STDIO))
+                throw new IllegalArgumentException("Missing table");
+
+            this.table = new File(this.inputs.remove(0));
+
+            if (this.inputs.isEmpty() || this.inputs.contains(STDIO))
+                throw new IllegalArgumentException("Tables are trained on files");
+        }
+
+        if (this.outputFolder != null && this.outputFolder.exists() && !this.outputFolder.isDirectory())
+            throw new IllegalArgumentException(this.outputFolder + " is not a directory");
+    }
+
+    /**
+     * Charge la table donnée par -t : la table à utiliser pour compresser, ou les tables connues pour décompresser
+     * Un dossier de tables n'est lu qu'à la demande, chaque table n'étant chargée qu'une fois pour tous les fichiers
+     *
+     * @throws IOException           si la table ne peut pas être lue
+     * @throws IllegalStateException si le fichier n'est pas une table
+     */
+    private void loadTables() throws IOException {
+        this.sharedTable = null;
+        this.tables = null;
+
+        if (this.table == null || this.command.equals(TRAIN_COMMAND))
+            return;
+
+        if (this.compress)
+            this.sharedTable = SharedTable.load(this.table.getPath());
+        else if (this.table.isDirectory())
+            this.tables = new TableCache(this.table.getPath());
+        else
+            this.tables = new TableCache().add(SharedTable.load(this.table.getPath()));
+    }
+
+    /**
+     * Traite l'entrée standard vers la sortie standard, le résumé étant écrit sur la sortie d'erreur
+     *
+     * @return {@link BatchCompressor#SUCCESS} ou {@link BatchCompressor#FAILURE}
+     */
+    private int runStdio() {
+        CountingInputStream source = new CountingInputStream(this.in);
+        CountingOutputStream destination = new CountingOutputStream(this.out);
+        Result result = new Result(STDIO, STDIO, this.compress);
+        long start = System.nanoTime();
+
+        try {
+            if (this.adaptive)
+                Codec.compressAdaptive(source, destination);
+            else if (this.compress)
+                Codec.compress(source, destination, this.sharedTable);
+            else
+                Codec.decompress(source, destination, this.jobs, this.tables);
+        } catch (IOException | RuntimeException e) {
+            result.error = String.valueOf(e.getMessage());
+        }
+
+        result.read = source.count;
+        result.written = destination.count;
+        result.nanos = System.nanoTime() - start;
+
+        this.err.println(result.toJson());
+        this.err.println(Result.totalJson(List.of(result), result.nanos));
+        this.err.flush();
+
+        return result.error == null ? SUCCESS : FAILURE;
+    }
+
+    /**
+     * Traite des fichiers en parallèle, sur {@link BatchCompressor#jobs} threads
+     * Si les fichiers sont moins nombreux que les threads, les threads restants sont répartis
+     * entre les fichiers pour compresser ou décompresser leurs blocs
+     *
+     * @param jobs fichiers à traiter
+     * @return {@link BatchCompressor#SUCCESS} ou {@link BatchCompressor#FAILURE}
+     */
+    private int runFiles(List<Job> jobs) {
+        int threads = Math.max(1, this.jobs / Math.max(1, jobs.size()));
+        List<Callable<Result>> tasks = new ArrayList<>();
+
+        for (Job job : jobs)
+            tasks.add(() -> this.process(job, threads));
+
+        return this.runTasks(tasks);
+    }
+
+    /**
+     * Exécute des tâches sur {@link BatchCompressor#jobs} threads et écrit leurs résultats dans l'ordre
+     *
+     * @param tasks tâches
+     * @return {@link BatchCompressor#SUCCESS} ou {@link BatchCompressor#FAILURE}
+     */
+    private int runTasks(List<Callable<Result>> tasks) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.jobs, Math.max(1, tasks.size())));
+        List<Future<Result>> futures = new ArrayList<>();
+        List<Result> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (Callable<Result> task : tasks)
+            futures.add(pool.submit(task));
+
+        try {
+            //Résultats dans l'ordre des fichiers, écrits dès qu'ils sont disponibles
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                results.add(result);
+                this.out.println(result.toJson());
+                this.out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.err.println("Error occurs while waiting for a file : " + e.getMessage());
+            return FAILURE;
+        } catch (ExecutionException e) {
+            this.err.println("Error occurs while processing a file : " + e.getCause());
+            return FAILURE;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        this.out.println(Result.totalJson(results, System.nanoTime() - start));
+        this.out.flush();
+
+        return results.stream().allMatch(r -> r.error == null) ? SUCCESS : FAILURE;
+    }
+
+    /**
+     * Entraîne une table partagée sur les fichiers listés et l'enregistre
+     * Si la table désignée est un dossier, elle y est enregistrée sous le nom tiré de son identifiant,
+     * comme attendu par -t à la décompression
+     *
+     * @param jobs fichiers de l'échantillon
+     * @return {@link BatchCompressor#SUCCESS} ou {@link BatchCompressor#FAILURE}
+     */
+    private int runTrain(List<Job> jobs) {
+        try {
+            List<String> samples = new ArrayList<>();
+            long bytes = 0;
+
+            for (Job job : jobs) {
+                if (!job.source.isFile())
+                    throw new IOException("No such file " + job.source);
+
+                samples.add(job.source.getPath());
+                bytes += job.source.length();
+            }
+
+            SharedTable trained = SharedTable.train(samples);
+            File destination = this.table.isDirectory() ? new File(this.table, SharedTable.fileName(trained.getId())) : this.table;
+
+            if (destination.exists() && !this.force)
+                throw new IOException("Output " + destination + " already exists, use -f to overwrite it");
+
+            trained.save(destination.getPath());
+
+            this.out.println("{\"table\":" + Result.quote(destination.getPath())
+                    + ",\"id\":" + Result.quote(trained.getName())
+                    + ",\"samples\":" + samples.size()
+                    + ",\"bytes\":" + bytes + "}");
+            this.out.flush();
+
+            return SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            this.err.println("Error occurs while training the table : " + e.getMessage());
+            return FAILURE;
+        }
+    }
+
+    /**
+     * Crée une archive avec les fichiers listés, nommés par leur chemin relatif à leur entrée
+     * Le résumé contient une seule ligne pour l'archive, puis le total
+     *
+     * @param jobs fichiers à archiver
+     * @return {@link BatchCompressor#SUCCESS} ou {@link BatchCompressor#FAILURE}
+     */
+    private int runArchive(List<Job> jobs) {
+        Result result = new Result(String.join(" ", this.inputs), this.archive.getPath(), true);
+        long start = System.nanoTime();
+
+        try {
+            if (this.archive.exists() && !this.force)
+                throw new IOException("Output " + this.archive + " already exists, use -f to overwrite it");
+
+            List<String> sources = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+
+            for (Job job : jobs) {
+                if (!job.source.isFile())
+                    throw new IOException("No such file " + job.source);
+
+                sources.add(job.source.getPath());
+                names.add(job.name);
+            }
+
+            for (Archive.Entry entry : Archive.create(this.archive.getPath(), sources, names))
+                result.read += entry.getSize();
+
+            result.written = this.archive.length();
+        } catch (IOException | RuntimeException e) {
+            result.error = String.valueOf(e.getMessage());
+        }
+
+        result.nanos = System.nanoTime() - start;
+        this.out.println(result.toJson());
+        this.out.println(Result.totalJson(List.of(result), result.nanos));
+        this.out.flush();
+
+        return result.error == null ? SUCCESS : FAILURE;
+    }
+
+    /**
+     * Extrait en parallèle les entrées d'une archive, toutes ou celles données, sous le dossier de sortie
+     * (le dossier courant par défaut)
+     *
+     * @return {@link BatchCompressor#SUCCESS} ou {@link BatchCompressor#FAILURE}
+     */
+    private int runExtract() {
+        try (Archive archive = new Archive(this.archive.getPath())) {
+            Path root = (this.outputFolder != null ? this.outputFolder : new File(".")).toPath().toAbsolutePath().normalize();
+            List<Callable<Result>> tasks = new ArrayList<>();
+            List<String> names = new ArrayList<>(this.inputs);
+
+            if (names.isEmpty())
+                for (Archive.Entry entry : archive.getEntries())
+                    names.add(entry.getName());
+
+            for (String name : names)
+                tasks.add(() -> this.extract(archive, name, root));
+
+            return this.runTasks(tasks);
+        } catch (IOException | RuntimeException e) {
+            this.err.println("Error occurs while reading the archive : " + e.getMessage());
+            return FAILURE;
+        }
+    }
+
+    /**
+     * Extrait une entrée d'une archive
+     *
+     * @param archive archive
+     * @param name    nom de l'entrée
+     * @param root    dossier de sortie
+     * @return le résultat
+     */
+    private Result extract(Archive archive, String name, Path root) {
+        Path destination = root.resolve(name).normalize();
+        Result result = new Result(name, destination.toString(), false);
+        long start = System.nanoTime();
+
+        try {
+            Archive.Entry entry = archive.getEntry(name);
+
+            if (entry == null)
+                throw new IOException("No such entry");
+
+            //Un nom d'entrée ne doit pas sortir du dossier de sortie
+            if (!destination.startsWith(root) || destination.equals(root))
+                throw new IOException("Invalid entry name");
+
+            if (Files.exists(destination) && !this.force)
+                throw new IOException("Output " + destination + " already exists, use -f to overwrite it");
+
+            Files.createDirectories(destination.getParent());
+            archive.extract(entry, destination.toString());
+
+            result.read = entry.getCompressedSize();
+            result.written = entry.getSize();
+        } catch (IOException | RuntimeException e) {
+            result.error = String.valueOf(e.getMessage());
+        }
+
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Liste les entrées d'une archive : une ligne JSON par entrée, puis le total
+     *
+     * @return {@link BatchCompressor#SUCCESS} ou {@link BatchCompressor#FAILURE}
+     */
+    private int runList() {
+        try (Archive archive = new Archive(this.archive.getPath())) {
+            long size = 0;
+            long compressedSize = 0;
+
+            for (Archive.Entry entry : archive.getEntries()) {
+                size += entry.getSize();
+                compressedSize += entry.getCompressedSize();
+                this.out.println("{\"name\":" + Result.quote(entry.getName())
+                        + ",\"size\":" + entry.getSize()
+                        + ",\"compressed_size\":" + entry.getCompressedSize()
+                        + ",\"table\":" + entry.getTable() + "}");
+            }
+
+            this.out.println("{\"total\":true,\"entries\":" + archive.getEntries().size()
+                    + ",\"tables\":" + archive.getTableCount()
+                    + ",\"size\":" + size
+                    + ",\"compressed_size\":" + compressedSize + "}");
+            this.out.flush();
+
+            return SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            this.err.println("Error occurs while reading the archive : " + e.getMessage());
+            return FAILURE;
+        }
+    }
+
+    /**
+     * Compresse ou décompresse un fichier
+     * Le résultat est écrit dans un fichier temporaire à côté de la destination, puis renommé une fois complet :
+     * en cas d'erreur, aucune sortie partielle ne reste, et relancer la commande ne demande pas -f
+     *
+     * @param job     fichier à traiter
+     * @param threads nombre de threads pour les blocs du fichier
+     * @return le résultat
+     */
+    private Result process(Job job, int threads) {
+        Result result = new Result(job.source.getPath(), job.destination.getPath(), this.compress);
+        long start = System.nanoTime();
+
+        try {
+            if (!job.source.isFile())
+                throw new IOException("No such file");
+
+            if (job.destination.exists() && !this.force)
+                throw new IOException("Output " + job.destination + " already exists, use -f to overwrite it");
+
+            File parent = job.destination.getAbsoluteFile().getParentFile();
+            Files.createDirectories(parent.toPath());
+            File temporary = File.createTempFile(job.destination.getName() + ".", ".tmp", parent);
+
+            try {
+                if (this.context)
+                    Codec.compressContext(job.source.getPath(), temporary.getPath());
+                else if (this.interleaved)
+                    Codec.compressInterleaved(job.source.getPath(), temporary.getPath(), threads);
+                else if (this.adaptive)
+                    Codec.compressAdaptive(job.source.getPath(), temporary.getPath());
+                else if (this.compress)
+                    Codec.compress(job.source.getPath(), temporary.getPath(), threads, this.sharedTable);
+                else
+                    Codec.decompress(job.source.getPath(), temporary.getPath(), threads, this.tables);
+
+                Files.move(temporary.toPath(), job.destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                temporary.delete();
+            }
+
+            result.read = job.source.length();
+            result.written = job.destination.length();
+        } catch (IOException | RuntimeException e) {
+            result.error = String.valueOf(e.getMessage());
+        }
+
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Liste les fichiers à traiter
+     * Un dossier est parcouru récursivement : à la compression, tous ses fichiers sauf ceux finissant par
+     * {@link BatchCompressor#SUFFIX}, à la décompression, uniquement ceux-là. Un motif glob (*, ?, [...] ou {...})
+     * est résolu depuis la partie de son chemin qui ne contient pas de joker, ** traversant les dossiers
+     *
+     * @return les fichiers à traiter, avec leur destination
+     * @throws IOException si un dossier ne peut pas être parcouru
+     */
+    private List<Job> expand() throws IOException {
+        List<Job> jobs = new ArrayList<>();
+
+        for (String input : this.inputs) {
+            File file = new File(input);
+
+            if (isGlob(input)) {
+                Path base = globBase(input);
+                String pattern = base.relativize(Paths.get(input)).toString();
+
+                if (base.toString().isEmpty())
+                    base = Paths.get(".");
+
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+                Path root = base;
+
+                for (Path path : walk(base))
+                    if (matcher.matches(root.relativize(path)))
+                        jobs.add(this.job(path.toFile(), root.relativize(path)));
+            } else if (file.isDirectory()) {
+                Path root = file.toPath();
+
+                for (Path path : walk(root))
+                    if (path.toString().endsWith(SUFFIX) != this.compress)
+                        jobs.add(this.job(path.toFile(), root.relativize(path)));
+            } else {
+                jobs.add(this.job(file, Paths.get(file.getName())));
+            }
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Liste récursivement les fichiers d'un dossier, dans l'ordre alphabétique
+     *
+     * @param root dossier
+     * @return les fichiers
+     * @throws IOException si le dossier ne peut pas être parcouru
+     */
+    private static List<Path> walk(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Indique si une entrée est un motif glob
+     *
+     * @param input entrée
+     * @return true si l'entrée contient un joker
+     */
+    private static boolean isGlob(String input) {
+        return input.indexOf('*') >= 0 || input.indexOf('?') >= 0 || input.indexOf('[') >= 0 || input.indexOf('{') >= 0;
+    }
+
+    /**
+     * Obtenir le dossier à partir duquel un motif est résolu : ses premiers éléments qui ne contiennent pas de joker
+     *
+     * @param glob motif
+     * @return le dossier, vide pour le dossier courant
+     */
+    private static Path globBase(String glob) {
+        Path path = Paths.get(glob);
+        Path base = path.getRoot() != null ? path.getRoot() : Paths.get("");
+
+        for (Path name : path) {
+            if (isGlob(name.toString()))
+                break;
+
+            base = base.resolve(name);
+        }
+
+        return base;
+    }
+
+    /**
+     * Associe un fichier à sa destination
+     *
+     * @param source   fichier à traiter
+     * @param relative chemin du fichier relatif à son entrée, conservé sous le dossier de sortie
+     * @return le fichier à traiter
+     */
+    private Job job(File source, Path relative) {
+        File destination = this.outputFolder != null
+                ? new File(this.outputFolder, relative.toString())
+                : source;
+        String name = destination.getName();
+
+        if (this.compress)
+            name += SUFFIX;
+        else if (name.endsWith(SUFFIX) && name.length() > SUFFIX.length())
+            name = name.substring(0, name.length() - SUFFIX.length());
+        else
+            name += DECOMPRESSED_SUFFIX;
+
+        return new Job(source, new File(destination.getParentFile(), name), relative.toString().replace(File.separatorChar, '/'));
+    }
+
+    /**
+     * Fichier à traiter et sa destination
+     */
+    private static class Job {
+        /**
+         * Fichier lu
+         */
+        private final File source;
+
+        /**
+         * Fichier écrit
+         */
+        private final File destination;
+
+        /**
+         * Chemin relatif à l'entrée dont le fichier provient, nom de l'entrée dans une archive
+         */
+        private final String name;
+
+        /**
+         * Constructeur
+         *
+         * @param source      fichier lu
+         * @param destination fichier écrit
+         * @param name        chemin relatif à l'entrée dont le fichier provient
+         */
+        private Job(File source, File destination, String name) {
+            this.source = source;
+            this.destination = destination;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Résultat du traitement d'un fichier
+     */
+    private static class Result {
+        /**
+         * Fichier lu
+         */
+        private final String source;
+
+        /**
+         * Fichier écrit
+         */
+        private final String destination;
+
+        /**
+         * true pour une compression, false pour une décompression
+         */
+        private final boolean compress;
+
+        /**
+         * Octets lus
+         */
+        private long read;
+
+        /**
+         * Octets écrits
+         */
+        private long written;
+
+        /**
+         * Durée en nanosecondes
+         */
+        private long nanos;
+
+        /**
+         * Message d'erreur, null si le fichier a été traité
+         */
+        private String error;
+
+        /**
+         * Constructeur
+         *
+         * @param source      fichier lu
+         * @param destination fichier écrit
+         * @param compress    true pour une compression, false pour une décompression
+         */
+        private Result(String source, String destination, boolean compress) {
+            this.source = source;
+            this.destination = destination;
+            this.compress = compress;
+        }
+
+        /**
+         * Obtenir la taille du contenu non compressé, sur laquelle est calculé le débit
+         *
+         * @return les octets lus à la compression, les octets écrits à la décompression
+         */
+        private long uncompressed() {
+            return this.compress ? this.read : this.written;
+        }
+
+        /**
+         * Obtenir la taille du contenu compressé
+         *
+         * @return les octets écrits à la compression, les octets lus à la décompression
+         */
+        private long compressed() {
+            return this.compress ? this.written : this.read;
+        }
+
+        /**
+         * Convertit le résultat en une ligne JSON
+         *
+         * @return la ligne
+         */
+        private String toJson() {
+            return "{\"file\":" + quote(this.source)
+                    + ",\"output\":" + quote(this.destination)
+                    + ",\"status\":" + quote(this.error == null ? "ok" : "error")
+                    + statistics(this.read, this.written, this.compressed(), this.uncompressed(), this.nanos)
+                    + (this.error == null ? "" : ",\"error\":" + quote(this.error))
+                    + "}";
+        }
+
+        /**
+         * Convertit le total de plusieurs résultats en une ligne JSON
+         * Le débit total est calculé sur la durée totale, les fichiers étant traités en parallèle
+         *
+         * @param results résultats
+         * @param nanos   durée totale en nanosecondes
+         * @return la ligne
+         */
+        private static String totalJson(List<Result> results, long nanos) {
+            long read = 0;
+            long written = 0;
+            long compressed = 0;
+            long uncompressed = 0;
+            int failed = 0;
+
+            for (Result result : results) {
+                read += result.read;
+                written += result.written;
+                compressed += result.compressed();
+                uncompressed += result.uncompressed();
+
+                if (result.error != null)
+                    failed++;
+            }
+
+            return "{\"total\":true,\"files\":" + results.size() + ",\"failed\":" + failed
+                    + statistics(read, written, compressed, uncompressed, nanos) + "}";
+        }
+
+        /**
+         * Convertit des statistiques en champs JSON
+         *
+         * @param read         octets lus
+         * @param written      octets écrits
+         * @param compressed   taille du contenu compressé
+         * @param uncompressed taille du contenu non compressé
+         * @param nanos        durée en nanosecondes
+         * @return les champs, chacun précédé d'une virgule
+         */
+        private static String statistics(long read, long written, long compressed, long uncompressed, long nanos) {
+            double seconds = nanos / 1e9;
+
+            return ",\"bytes_in\":" + read
+                    + ",\"bytes_out\":" + written
+                    + ",\"ratio\":" + String.format(Locale.ROOT, "%.4f", uncompressed == 0 ? 0.0 : (double) compressed / uncompressed)
+                    + ",\"seconds\":" + String.format(Locale.ROOT, "%.6f", seconds)
+                    + ",\"mb_per_s\":" + String.format(Locale.ROOT, "%.3f", seconds == 0 ? 0.0 : uncompressed / MEGABYTE / seconds);
+        }
+
+        /**
+         * Entoure une chaine de guillemets en échappant les caractères spéciaux du JSON
+         *
+         * @param s chaine
+         * @return la chaine JSON
+         */
+        private static String quote(String s) {
+            StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+
+            for (char c : s.toCharArray()) {
+                if (c == '"' || c == '\\')
+                    sb.append('\\').append(c);
+                else if (c < 0x20)
+                    sb.append(String.format("\\u%04x", (int) c));
+                else
+                    sb.append(c);
+            }
+
+            return sb.append('"').toString();
+        }
+    }
+
+    /**
+     * Flux comptant les octets lus
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        /**
+         * Octets lus
+         */
+        private long count;
+
+        /**
+         * Constructeur
+         *
+         * @param in flux lu
+         */
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+
+            if (b >= 0)
+                this.count++;
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int n = super.read(bytes, offset, length);
+
+            if (n > 0)
+                this.count += n;
+
+            return n;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Flux comptant les octets écrits
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        /**
+         * Octets écrits
+         */
+        private long count;
+
+        /**
+         * Constructeur
+         *
+         * @param out flux écrit
+         */
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            this.out.write(bytes, offset, length);
+            this.count += length;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Codage de Huffman adaptatif (algorithme FGK : Faller, Gallager et Knuth), mode {@link Format#ADAPTIVE}
+ * L'arbre est mis à jour après chaque symbole, de la même façon à la compression et à la décompression :
+ * aucune fréquence n'est comptée à l'avance, le fichier est lu une seule fois et chaque octet est écrit dès qu'il est lu
+ *
+ * L'arbre est stocké à plat, dans des tableaux indexés par position. Les positions sont numérotées depuis la racine (0)
+ * et les poids ne croissent jamais avec la position (propriété de fratrie). Avant d'incrémenter le poids d'un noeud,
+ * il est échangé avec le premier noeud de même poids (sauf son parent), ce qui conserve la propriété
+ * Un symbole jamais vu est codé par le chemin vers la feuille NYT (not yet transmitted) suivi de sa valeur sur
+ * {@link AdaptiveHuffman#SYMBOL_BITS} bits, puis la feuille NYT est séparée en une nouvelle feuille NYT et la feuille du symbole
+ * Le symbole {@link AdaptiveHuffman#END} termine le contenu
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class AdaptiveHuffman {
+    /**
+     * Symbole de fin de contenu, après les 256 valeurs d'octets
+     */
+    public static final int END = 1 << Byte.SIZE;
+
+    /**
+     * Nombre de symboles : les octets et {@link AdaptiveHuffman#END}
+     */
+    public static final int ALPHABET_SIZE = END + 1;
+
+    /**
+     * Nombre de bits écrits après le code de la feuille NYT pour un nouveau symbole
+     */
+    public static final int SYMBOL_BITS = Byte.SIZE + 1;
+
+    /**
+     * Valeur d'un noeud interne
+     */
+    private static final int INTERNAL = -1;
+
+    /**
+     * Valeur de la feuille NYT
+     */
+    private static final int NYT = -2;
+
+    /**
+     * Taille du tampon de lecture et d'écriture
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Poids de chaque position
+     */
+    private long[] weights;
+
+    /**
+     * Parent de chaque position, -1 pour la racine
+     */
+    private int[] parents;
+
+    /**
+     * Fils gauche (bit 0) de chaque position interne
+     */
+    private int[] lefts;
+
+    /**
+     * Fils droit (bit 1) de chaque position interne
+     */
+    private int[] rights;
+
+    /**
+     * Symbole de chaque position, {@link AdaptiveHuffman#INTERNAL} ou {@link AdaptiveHuffman#NYT}
+     */
+    private int[] symbols;
+
+    /**
+     * Position de la feuille de chaque symbole, -1 si le symbole n'a pas encore été vu
+     */
+    private int[] leaves;
+
+    /**
+     * Position de la feuille NYT
+     */
+    private int nyt;
+
+    /**
+     * Chemin d'une feuille jusqu'à la racine, réutilisé à chaque symbole
+     */
+    private int[] path;
+
+    /**
+     * Constructeur
+     * L'arbre ne contient que la feuille NYT
+     */
+    public AdaptiveHuffman() {
+        //Une feuille par symbole, la feuille NYT et un noeud interne par séparation
+        int size = 2 * ALPHABET_SIZE + 1;
+
+        this.weights = new long[size];
+        this.parents = new int[size];
+        this.lefts = new int[size];
+        this.rights = new int[size];
+        this.symbols = new int[size];
+        this.leaves = new int[ALPHABET_SIZE];
+        this.path = new int[size];
+
+        Arrays.fill(this.leaves, -1);
+        this.parents[0] = -1;
+        this.symbols[0] = NYT;
+        this.nyt = 0;
+    }
+
+    /**
+     * Encode un symbole puis met à jour l'arbre
+     *
+     * @param symbol symbole, entre 0 et {@link AdaptiveHuffman#END}
+     * @param bw     écrivain
+     * @throws IllegalArgumentException si le symbole est invalide
+     */
+    public void encode(int symbol, BinaryWriter bw) {
+        if (symbol < 0 || symbol > END)
+            throw new IllegalArgumentException("Symbol must be between 0 and " + END);
+
+        int leaf = this.leaves[symbol];
+
+        if (leaf < 0) {
+            this.writePath(this.nyt, bw);
+            bw.writeBits(symbol, SYMBOL_BITS);
+            leaf = this.split(symbol);
+        } else {
+            this.writePath(leaf, bw);
+        }
+
+        this.update(leaf);
+    }
+
+    /**
+     * Décode un symbole puis met à jour l'arbre
+     *
+     * @param br lecteur
+     * @return le symbole, entre 0 et {@link AdaptiveHuffman#END}
+     * @throws IllegalStateException si le fichier ne contient pas assez de bits ou si le symbole est invalide
+     */
+    public int decode(BinaryReader br) {
+        int position = 0;
+
+        //Parcours de l'arbre par paquets de 32 bits consultés d'un coup
+        while (this.symbols[position] == INTERNAL) {
+            int bits = br.peekBits(BinaryReader.MAX_PEEK_LENGTH);
+            int used = 0;
+
+            while (this.symbols[position] == INTERNAL && used < BinaryReader.MAX_PEEK_LENGTH) {
+                position = ((bits >>> (BinaryReader.MAX_PEEK_LENGTH - 1 - used)) & 1) == 0
+                        ? this.lefts[position] : this.rights[position];
+                used++;
+            }
+
+            br.skipBits(used);
+        }
+
+        int symbol;
+
+        if (this.symbols[position] == NYT) {
+            symbol = br.readBits(SYMBOL_BITS);
+
+            if (symbol > END || this.leaves[symbol] >= 0)
+                throw new IllegalStateException("Invalid symbol " + symbol);
+
+            position = this.split(symbol);
+        } else {
+            symbol = this.symbols[position];
+        }
+
+        this.update(position);
+
+        return symbol;
+    }
+
+    /**
+     * Ecrit le code d'une position : le chemin depuis la racine
+     *
+     * @param position position
+     * @param bw       écrivain
+     */
+    private void writePath(int position, BinaryWriter bw) {
+        int length = 0;
+
+        while (this.parents[position] >= 0) {
+            this.path[length++] = position;
+            position = this.parents[position];
+        }
+
+        int code = 0;
+        int bits = 0;
+
+        for (int i = length - 1; i >= 0; i--) {
+            int node = this.path[i];
+            code = (code << 1) | (this.rights[this.parents[node]] == node ? 1 : 0);
+
+            if (++bits == BinaryWriter.MAX_CODE_LENGTH) {
+                bw.writeBits(code, bits);
+                code = 0;
+                bits = 0;
+            }
+        }
+
+        bw.writeBits(code, bits);
+    }
+
+    /**
+     * Sépare la feuille NYT en une nouvelle feuille NYT (à gauche) et la feuille d'un nouveau symbole (à droite)
+     * Les deux nouvelles positions sont les deux suivantes, de poids 0
+     *
+     * @param symbol nouveau symbole
+     * @return la position de la feuille du symbole
+     */
+    private int split(int symbol) {
+        int parent = this.nyt;
+        int leaf = parent + 1;
+        int nyt = parent + 2;
+
+        this.symbols[parent] = INTERNAL;
+        this.lefts[parent] = nyt;
+        this.rights[parent] = leaf;
+
+        this.parents[leaf] = parent;
+        this.symbols[leaf] = symbol;
+        this.leaves[symbol] = leaf;
+
+        this.parents[nyt] = parent;
+        this.symbols[nyt] = NYT;
+        this.nyt = nyt;
+
+        return leaf;
+    }
+
+    /**
+     * Incrémente le poids d'une feuille et de ses ancêtres en conservant la propriété de fratrie
+     *
+     * @param position position de la feuille
+     */
+    private void update(int position) {
+        while (position >= 0) {
+            long weight = this.weights[position];
+            int leader = position;
+
+            //Premier noeud du bloc de même poids
+            while (leader > 0 && this.weights[leader - 1] == weight)
+                leader--;
+
+            //Un noeud ne peut pas être échangé avec son parent, qui est alors le premier du bloc
+            if (leader == this.parents[position])
+                leader++;
+
+            if (leader != position) {
+                this.swap(leader, position);
+                position = leader;
+            }
+
+            this.weights[position]++;
+            position = this.parents[position];
+        }
+    }
+
+    /**
+     * Echange les sous-arbres de deux positions de même poids
+     * Chaque position garde son parent, seuls les contenus sont échangés
+     *
+     * @param a première position
+     * @param b seconde position
+     */
+    private void swap(int a, int b) {
+        int symbol = this.symbols[a];
+        this.symbols[a] = this.symbols[b];
+        this.symbols[b] = symbol;
+
+        int left = this.lefts[a];
+        this.lefts[a] = this.lefts[b];
+        this.lefts[b] = left;
+
+        int right = this.rights[a];
+        this.rights[a] = this.rights[b];
+        this.rights[b] = right;
+
+        this.attach(a);
+        this.attach(b);
+    }
+
+    /**
+     * Met à jour les références vers le contenu d'une position après un échange
+     *
+     * @param position position
+     */
+    private void attach(int position) {
+        int symbol = this.symbols[position];
+
+        if (symbol == INTERNAL) {
+            this.parents[this.lefts[position]] = position;
+            this.parents[this.rights[position]] = position;
+        } else if (symbol == NYT) {
+            this.nyt = position;
+        } else {
+            this.leaves[symbol] = position;
+        }
+    }
+
+    /**
+     * Compresse un flux en un seul passage, chaque octet étant encodé dès qu'il est lu
+     * Les octets complets sont transmis à out après chaque lecture ({@link BinaryWriter#flushBytes()}) :
+     * la sortie suit l'entrée, même si celle-ci n'est jamais fermée
+     *
+     * @param in  flux à compresser
+     * @param out flux recevant le contenu compressé, fermé à la fin
+     * @throws IOException si le flux ne peut pas être lu
+     */
+    public static void compress(InputStream in, OutputStream out) throws IOException {
+        long start = Metrics.start();
+        AdaptiveHuffman model = new AdaptiveHuffman();
+        BinaryWriter bw = new BinaryWriter(out);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        long symbols = 0;
+        int n;
+
+        try {
+            new Format(Format.ADAPTIVE, Format.BYTES).write(bw);
+            written = bw.getByteCount();
+
+            while ((n = in.read(buffer)) > 0) {
+                for (int i = 0; i < n; i++)
+                    model.encode(buffer[i] & 0xFF, bw);
+
+                //Un flux continu (journaux...) est transmis après chaque lecture, pas seulement quand le tampon est plein
+                bw.flushBytes();
+                symbols += n;
+            }
+
+            model.encode(END, bw);
+        } finally {
+            bw.close();
+        }
+
+        Metrics.phase(Phase.PAYLOAD_ENCODE, start, bw.getByteCount() - written, symbols);
+    }
+
+    /**
+     * Décompresse un contenu compressé en mode {@link Format#ADAPTIVE}
+     *
+     * @param br  lecteur positionné après l'en-tête ({@link Format#read(BinaryReader)})
+     * @param out flux recevant le contenu décompressé, qui n'est pas fermé
+     * @throws IOException           si le flux ne peut pas être écrit
+     * @throws IllegalStateException si le contenu est invalide
+     */
+    public static void decompress(BinaryReader br, OutputStream out) throws IOException {
+        long start = Metrics.start();
+        long read = br.getByteCount();
+        AdaptiveHuffman model = new AdaptiveHuffman();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long symbols = 0;
+        int n = 0;
+        int symbol;
+
+        while ((symbol = model.decode(br)) != END) {
+            buffer[n++] = (byte) symbol;
+
+            if (n == buffer.length) {
+                out.write(buffer, 0, n);
+                symbols += n;
+                n = 0;
+            }
+        }
+
+        out.write(buffer, 0, n);
+        out.flush();
+
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, br.getByteCount() - read, symbols + n);
+    }
+}
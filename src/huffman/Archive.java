@@ -0,0 +1,629 @@
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+import io.MappedFile;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Archive de plusieurs fichiers (mode {@link Format#ARCHIVE}, alphabet {@link Format#BYTES})
+ * Les entrées ne portent pas leurs propres longueurs de codes : elles référencent une table de codes,
+ * qui peut être partagée par plusieurs entrées. Une entrée réutilise une table existante si la coder avec
+ * coûte moins de bits que ses propres codes et leurs longueurs, ce qui évite de répéter une table
+ * pour chacun des nombreux petits fichiers d'une même nature
+ * Le répertoire central, à la fin du fichier, donne la position de chaque table et de chaque entrée :
+ * une entrée est extraite en lisant directement sa table et son contenu, sans parcourir l'archive
+ *
+ * Format du fichier :
+ * - en-tête ({@link Format#write(BinaryWriter)})
+ * - les tables : longueurs des codes ({@link CodeTable#writeLengths(BinaryWriter)}), chacune alignée sur un octet
+ * - le contenu de chaque entrée, codé avec sa table et aligné sur un octet
+ * - le répertoire : nombre de tables sur 32 bits, position de chaque table sur 64 bits, nombre d'entrées sur 32 bits,
+ * puis pour chaque entrée : longueur du nom en UTF-8 sur 16 bits, le nom, numéro de la table sur 32 bits
+ * (-1 pour une entrée vide), position, nombre d'octets compressés et nombre d'octets de l'entrée sur 64 bits
+ * - la position du répertoire sur 64 bits, dans les 8 derniers octets du fichier
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class Archive implements Closeable {
+    /**
+     * Nombre d'octets de l'en-tête : {@link Format#MAGIC} et format
+     */
+    private static final int HEADER_SIZE = 2;
+
+    /**
+     * Longueur maximale d'un nom d'entrée, en octets UTF-8
+     */
+    public static final int MAX_NAME_LENGTH = (1 << 16) - 1;
+
+    /**
+     * Nombre maximal de tables existantes essayées pour chaque entrée, les plus récentes
+     */
+    private static final int MAX_CANDIDATES = 256;
+
+    /**
+     * Taille du tampon de décodage
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Archive ouverte en lecture
+     */
+    private final FileChannel channel;
+
+    /**
+     * Position de chaque table
+     */
+    private final long[] tableOffsets;
+
+    /**
+     * Tables de décodage déjà lues, null tant qu'une table n'a pas servi
+     */
+    private final DecodingTable[] tables;
+
+    /**
+     * Entrées, dans l'ordre de l'archive
+     */
+    private final List<Entry> entries;
+
+    /**
+     * Entrées par nom
+     */
+    private final HashMap<String, Entry> entriesByName;
+
+    /**
+     * Ouvre une archive et lit son répertoire
+     *
+     * @param path chemin de l'archive
+     * @throws IOException           si l'archive ne peut pas être lue
+     * @throws IllegalStateException si l'archive est invalide
+     */
+    public Archive(String path) throws IOException {
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        this.entries = new ArrayList<>();
+        this.entriesByName = new HashMap<>();
+
+        try {
+            long size = this.channel.size();
+
+            if (size < HEADER_SIZE + 2 * Integer.BYTES + Long.BYTES)
+                throw new IllegalStateException("Not an archive");
+
+            BinaryReader br = new BinaryReader(new ChannelInputStream(this.channel, 0, HEADER_SIZE));
+
+            if (Format.read(br).getMode() != Format.ARCHIVE)
+                throw new IllegalStateException("Not an archive");
+
+            ByteBuffer footer = ByteBuffer.allocate(Long.BYTES);
+            readFully(this.channel, footer, size - Long.BYTES);
+            long start = footer.getLong(0);
+
+            if (start < HEADER_SIZE || start > size - Long.BYTES - 2 * Integer.BYTES
+                    || size - Long.BYTES - start > Integer.MAX_VALUE)
+                throw new IllegalStateException("Invalid archive directory");
+
+            ByteBuffer directory = ByteBuffer.allocate((int) (size - Long.BYTES - start));
+            readFully(this.channel, directory, start);
+            directory.flip();
+
+            int tableCount = directory.getInt();
+
+            if (tableCount < 0 || tableCount > directory.remaining() / Long.BYTES)
+                throw new IllegalStateException("Invalid archive directory");
+
+            this.tableOffsets = new long[tableCount];
+            this.tables = new DecodingTable[tableCount];
+
+            for (int t = 0; t < tableCount; t++) {
+                this.tableOffsets[t] = directory.getLong();
+
+                if (this.tableOffsets[t] < HEADER_SIZE || this.tableOffsets[t] >= start)
+                    throw new IllegalStateException("Invalid table " + t);
+            }
+
+            int entryCount = directory.getInt();
+
+            for (int i = 0; i < entryCount; i++) {
+                byte[] name = new byte[directory.getShort() & 0xFFFF];
+                directory.get(name);
+                Entry entry = new Entry(new String(name, StandardCharsets.UTF_8), directory.getInt(),
+                        directory.getLong(), directory.getLong(), directory.getLong());
+
+                if (entry.table < -1 || entry.table >= tableCount || (entry.table < 0 && entry.size != 0)
+                        || entry.size < 0 || entry.compressedSize < 0 || entry.offset < HEADER_SIZE
+                        || entry.offset + entry.compressedSize > start)
+                    throw new IllegalStateException("Invalid entry " + entry.name);
+
+                this.entries.add(entry);
+                this.entriesByName.put(entry.name, entry);
+            }
+        } catch (BufferUnderflowException e) {
+            this.channel.close();
+            throw new IllegalStateException("Invalid archive directory", e);
+        } catch (RuntimeException | IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Obtenir les entrées
+     *
+     * @return les entrées, dans l'ordre de l'archive
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(this.entries);
+    }
+
+    /**
+     * Obtenir une entrée
+     *
+     * @param name nom de l'entrée
+     * @return l'entrée, null si l'archive ne contient pas ce nom
+     */
+    public Entry getEntry(String name) {
+        return this.entriesByName.get(name);
+    }
+
+    /**
+     * Obtenir le nombre de tables de codes
+     *
+     * @return le nombre de tables, partagées entre les entrées
+     */
+    public int getTableCount() {
+        return this.tableOffsets.length;
+    }
+
+    /**
+     * Extrait une entrée dans un flux
+     * Seules sa table et son contenu sont lus. Plusieurs entrées peuvent être extraites en même temps
+     *
+     * @param entry entrée de cette archive
+     * @param out   flux recevant le contenu de l'entrée, qui n'est pas fermé
+     * @throws IOException           si l'archive ne peut pas être lue ou le flux écrit
+     * @throws IllegalStateException si le contenu est invalide
+     */
+    public void extract(Entry entry, OutputStream out) throws IOException {
+        if (entry.size == 0)
+            return;
+
+        long start = Metrics.start();
+        DecodingTable table = this.getTable(entry.table);
+        BinaryReader br = new BinaryReader(new ChannelInputStream(this.channel, entry.offset, entry.offset + entry.compressedSize));
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, entry.size)];
+        int n = 0;
+
+        for (long i = 0; i < entry.size; i++) {
+            buffer[n++] = (byte) table.decode(br);
+
+            if (n == buffer.length) {
+                out.write(buffer, 0, n);
+                n = 0;
+            }
+        }
+
+        out.write(buffer, 0, n);
+        out.flush();
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, br.getByteCount(), entry.size);
+    }
+
+    /**
+     * Extrait une entrée dans un fichier
+     *
+     * @param entry       entrée de cette archive
+     * @param destination chemin vers le fichier qui va recevoir le contenu de l'entrée
+     * @throws IOException           si l'archive ne peut pas être lue ou le fichier écrit
+     * @throws IllegalStateException si le contenu est invalide
+     */
+    public void extract(Entry entry, String destination) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(destination), BUFFER_SIZE)) {
+            this.extract(entry, out);
+        }
+    }
+
+    /**
+     * Obtenir une table de décodage, lue à sa première utilisation
+     *
+     * @param t numéro de la table
+     * @return la table de décodage
+     * @throws IllegalStateException si la table est invalide
+     */
+    private synchronized DecodingTable getTable(int t) {
+        if (this.tables[t] == null) {
+            BinaryReader br = new BinaryReader(new ChannelInputStream(this.channel, this.tableOffsets[t], Long.MAX_VALUE));
+            this.tables[t] = CodeTable.readLengths(br, Format.alphabetSize(Format.BYTES)).toDecodingTable();
+        }
+
+        return this.tables[t];
+    }
+
+    /**
+     * Ferme l'archive
+     *
+     * @throws IOException si l'archive ne peut pas être fermée
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Crée une archive
+     * Les fichiers sont lus deux fois : pour compter leurs octets et choisir leurs tables, puis pour les coder
+     *
+     * @param destination chemin de l'archive
+     * @param sources     chemins des fichiers à archiver
+     * @param names       nom de chaque fichier dans l'archive
+     * @return les entrées écrites
+     * @throws IOException              si un fichier ne peut pas être lu ou l'archive écrite
+     * @throws IllegalArgumentException si les listes n'ont pas la même taille, si un nom est répété ou trop long
+     */
+    public static List<Entry> create(String destination, List<String> sources, List<String> names) throws IOException {
+        if (sources.size() != names.size())
+            throw new IllegalArgumentException("Each source needs a name");
+
+        HashSet<String> distinct = new HashSet<>();
+        byte[][] encodedNames = new byte[names.size()][];
+
+        for (int i = 0; i < names.size(); i++) {
+            encodedNames[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+
+            if (!distinct.add(names.get(i)))
+                throw new IllegalArgumentException("Duplicate name " + names.get(i));
+
+            if (encodedNames[i].length > MAX_NAME_LENGTH)
+                throw new IllegalArgumentException("Name too long " + names.get(i));
+        }
+
+        //1er passage : fréquences de chaque fichier
+        FrequencyReader reader = new FrequencyReader();
+        long[][] histograms = new long[sources.size()][];
+
+        for (int i = 0; i < sources.size(); i++)
+            try (MappedFile mapped = new MappedFile(sources.get(i))) {
+                histograms[i] = reader.readBytes(mapped);
+            }
+
+        ArrayList<int[]> tables = new ArrayList<>();
+        int[] assignments = shareTables(histograms, tables);
+
+        //2e passage : tables puis contenus
+        List<Entry> entries = new ArrayList<>();
+        long[] tableOffsets = new long[tables.size()];
+        BinaryWriter bw = new BinaryWriter(new BufferedOutputStream(new FileOutputStream(destination), BUFFER_SIZE));
+
+        //Les erreurs d'écriture, y compris à la fermeture, sont remontées comme celles des fichiers lus
+        try {
+            try {
+                new Format(Format.ARCHIVE, Format.BYTES).write(bw);
+
+                for (int t = 0; t < tables.size(); t++) {
+                    tableOffsets[t] = bw.getByteCount();
+                    new CodeTable(tables.get(t)).writeLengths(bw);
+                    bw.alignToByte();
+                }
+
+                for (int i = 0; i < sources.size(); i++) {
+                    long offset = bw.getByteCount();
+                    long size = 0;
+
+                    try (MappedFile mapped = new MappedFile(sources.get(i))) {
+                        if (assignments[i] >= 0) {
+                            HuffmanTree tree = new HuffmanTree();
+                            tree.setCodeTable(new CodeTable(tables.get(assignments[i])));
+
+                            for (int w = 0; w < mapped.getWindowCount(); w++)
+                                tree.encode(mapped.getWindow(w), bw);
+                        }
+
+                        size = mapped.length();
+                    }
+
+                    bw.alignToByte();
+                    entries.add(new Entry(names.get(i), assignments[i], offset, bw.getByteCount() - offset, size));
+                }
+
+                //Répertoire central
+                long directory = bw.getByteCount();
+                bw.writeBits(tables.size(), Integer.SIZE);
+
+                for (long tableOffset : tableOffsets)
+                    Format.writeLong(bw, tableOffset);
+
+                bw.writeBits(entries.size(), Integer.SIZE);
+
+                for (int i = 0; i < entries.size(); i++) {
+                    Entry entry = entries.get(i);
+                    bw.writeBits(encodedNames[i].length, Short.SIZE);
+                    bw.writeBytes(encodedNames[i], 0, encodedNames[i].length);
+                    bw.writeBits(entry.table, Integer.SIZE);
+                    Format.writeLong(bw, entry.offset);
+                    Format.writeLong(bw, entry.compressedSize);
+                    Format.writeLong(bw, entry.size);
+                }
+
+                Format.writeLong(bw, directory);
+            } finally {
+                bw.close();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return entries;
+    }
+
+    /**
+     * Choisit la table de chaque entrée
+     * Pour chaque entrée, dans l'ordre, la table existante qui code ses octets avec le moins de bits est réutilisée
+     * si elle coûte moins que ses propres codes et leurs longueurs, sinon une nouvelle table est créée.
+     * Chaque table est enfin recalculée sur les fréquences cumulées des entrées qui l'utilisent :
+     * ces codes de Huffman coûtent au plus autant que la table choisie, qui code déjà toutes leurs valeurs
+     *
+     * @param histograms fréquences de chaque entrée
+     * @param tables     reçoit la longueur des codes de chaque table
+     * @return le numéro de la table de chaque entrée, -1 pour une entrée vide
+     */
+    static int[] shareTables(long[][] histograms, List<int[]> tables) {
+        int[] assignments = new int[histograms.length];
+        ArrayList<long[]> merged = new ArrayList<>();
+
+        for (int i = 0; i < histograms.length; i++) {
+            long[] histogram = histograms[i];
+            assignments[i] = -1;
+
+            if (isEmpty(histogram))
+                continue;
+
+            int[] own = CodeLengths.compute(histogram, CodeTable.MAX_CODE_LENGTH);
+            long best = CodeLengths.cost(histogram, own) + tableBits(own);
+
+            for (int t = Math.max(0, tables.size() - MAX_CANDIDATES); t < tables.size(); t++) {
+                if (!covers(tables.get(t), histogram))
+                    continue;
+
+                long cost = CodeLengths.cost(histogram, tables.get(t));
+
+                if (cost < best) {
+                    best = cost;
+                    assignments[i] = t;
+                }
+            }
+
+            if (assignments[i] < 0) {
+                assignments[i] = tables.size();
+                tables.add(own);
+                merged.add(new long[histogram.length]);
+            }
+
+            long[] counts = merged.get(assignments[i]);
+            for (int s = 0; s < histogram.length; s++)
+                counts[s] += histogram[s];
+        }
+
+        for (int t = 0; t < tables.size(); t++)
+            tables.set(t, CodeLengths.compute(merged.get(t), CodeTable.MAX_CODE_LENGTH));
+
+        return assignments;
+    }
+
+    /**
+     * Indique si des fréquences sont toutes nulles
+     *
+     * @param histogram fréquences
+     * @return true si aucun symbole n'est présent
+     */
+    private static boolean isEmpty(long[] histogram) {
+        for (long count : histogram)
+            if (count != 0)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Indique si une table code tous les symboles présents
+     *
+     * @param lengths   longueur du code de chaque symbole
+     * @param histogram fréquences
+     * @return true si chaque symbole présent a un code
+     */
+    private static boolean covers(int[] lengths, long[] histogram) {
+        for (int s = 0; s < histogram.length; s++)
+            if (histogram[s] != 0 && lengths[s] == 0)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Obtenir le nombre de bits d'une table écrite dans l'archive
+     *
+     * @param lengths longueur du code de chaque symbole
+     * @return le nombre de bits, aligné sur un octet
+     */
+    private static long tableBits(int[] lengths) {
+        BinaryWriter bw = new BinaryWriter(OutputStream.nullOutputStream());
+        new CodeTable(lengths).writeLengths(bw);
+        bw.alignToByte();
+
+        return bw.getByteCount() * Byte.SIZE;
+    }
+
+    /**
+     * Remplit un tampon depuis une position d'un fichier
+     *
+     * @param channel  fichier
+     * @param buffer   tampon à remplir
+     * @param position position du premier octet
+     * @throws IOException           si le fichier ne peut pas être lu
+     * @throws IllegalStateException si le fichier est trop court
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IllegalStateException("Unexpected end of file");
+    }
+
+    /**
+     * Entrée d'une archive
+     */
+    public static class Entry {
+        /**
+         * Nom
+         */
+        private final String name;
+
+        /**
+         * Numéro de la table de codes, -1 pour une entrée vide
+         */
+        private final int table;
+
+        /**
+         * Position du contenu compressé
+         */
+        private final long offset;
+
+        /**
+         * Nombre d'octets compressés
+         */
+        private final long compressedSize;
+
+        /**
+         * Nombre d'octets de l'entrée
+         */
+        private final long size;
+
+        /**
+         * Constructeur
+         *
+         * @param name           nom
+         * @param table          numéro de la table de codes
+         * @param offset         position du contenu compressé
+         * @param compressedSize nombre d'octets compressés
+         * @param size           nombre d'octets de l'entrée
+         */
+        Entry(String name, int table, long offset, long compressedSize, long size) {
+            this.name = name;
+            this.table = table;
+            this.offset = offset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+        /**
+         * Obtenir le nom
+         *
+         * @return le nom
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Obtenir le numéro de la table de codes
+         *
+         * @return le numéro de la table, -1 pour une entrée vide
+         */
+        public int getTable() {
+            return this.table;
+        }
+
+        /**
+         * Obtenir le nombre d'octets compressés
+         *
+         * @return le nombre d'octets compressés, sans la table
+         */
+        public long getCompressedSize() {
+            return this.compressedSize;
+        }
+
+        /**
+         * Obtenir le nombre d'octets de l'entrée
+         *
+         * @return le nombre d'octets
+         */
+        public long getSize() {
+            return this.size;
+        }
+    }
+
+    /**
+     * Flux lisant une partie d'un fichier par lectures positionnées, sans déplacer la position du fichier
+     * Plusieurs flux peuvent ainsi lire le même fichier en même temps
+     */
+    private static class ChannelInputStream extends InputStream {
+        /**
+         * Fichier
+         */
+        private final FileChannel channel;
+
+        /**
+         * Position du prochain octet lu
+         */
+        private long position;
+
+        /**
+         * Position de fin de lecture
+         */
+        private final long end;
+
+        /**
+         * Constructeur
+         *
+         * @param channel fichier
+         * @param start   position du premier octet
+         * @param end     position de fin de lecture
+         */
+        ChannelInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+
+            return this.read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (this.position >= this.end)
+                return -1;
+
+            int n = this.channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, this.end - this.position)), this.position);
+
+            if (n > 0)
+                this.position += n;
+
+            return n;
+        }
+
+        @Override
+        public void close() {
+            //Le fichier reste ouvert pour les autres entrées
+        }
+    }
+}
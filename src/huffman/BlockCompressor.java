@@ -0,0 +1,733 @@
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+import io.MappedFile;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compression d'un fichier en blocs indépendants (mode {@link Format#BLOCKS}, alphabet {@link Format#BYTES})
+ * Le fichier est projeté en mémoire ({@link MappedFile}) et chaque bloc est une vue de ses pages, sans copie.
+ * Chaque bloc est compté puis encodé avec ses propres codes,
+ * par un groupe de threads : les blocs sont compressés en parallèle et écrits dans l'ordre
+ * Seuls 2 blocs par thread sont en cours à la fois, la mémoire utilisée ne dépend pas de la taille du fichier
+ * Grâce à l'index placé à la fin du fichier, les blocs sont aussi décompressés en parallèle,
+ * chacun écrit directement à sa position dans le fichier décompressé
+ *
+ * Format du fichier :
+ * - en-tête ({@link Format#write(BinaryWriter)}) puis taille des blocs sur 32 bits
+ * - pour chaque bloc : nombre d'octets du bloc sur 32 bits, nombre d'octets compressés sur 32 bits,
+ * puis les longueurs des codes ({@link CodeTable#writeLengths(BinaryWriter)}) et les codes, complétés jusqu'à l'octet suivant.
+ * En mode {@link Format#INTERLEAVED}, les codes sont répartis sur 4 flux, précédés de leur table de sauts ({@link InterleavedStreams})
+ * - un bloc de 0 octet termine les blocs
+ * - l'index : pour chaque bloc, position du contenu compressé sur 64 bits, nombre d'octets compressés sur 32 bits
+ * et nombre d'octets du bloc sur 32 bits, puis le nombre de blocs sur 32 bits
+ * - la position de l'index sur 64 bits, dans les 8 derniers octets du fichier
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class BlockCompressor {
+    /**
+     * Taille des blocs par défaut
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Taille minimale d'un bloc
+     */
+    public static final int MIN_BLOCK_SIZE = 1 << 10;
+
+    /**
+     * Taille maximale d'un bloc
+     */
+    public static final int MAX_BLOCK_SIZE = 1 << 30;
+
+    /**
+     * Nombre d'octets de l'en-tête : {@link Format#MAGIC}, format et taille des blocs
+     */
+    static final int HEADER_SIZE = 2 + Integer.BYTES;
+
+    /**
+     * Nombre d'octets précédant le contenu compressé d'un bloc : ses deux longueurs
+     */
+    static final int BLOCK_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * Nombre d'octets d'une entrée de l'index
+     */
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES + 2 * Integer.BYTES;
+
+    /**
+     * Marge au-delà de la taille des blocs pour le contenu compressé d'un bloc
+     * Les codes de Huffman ne font pas plus de 8 bits par octet en moyenne, seules les longueurs des codes s'ajoutent
+     */
+    static final int MAX_OVERHEAD = 1 << 12;
+
+    /**
+     * Nombre de blocs en cours par thread
+     */
+    private static final int BLOCKS_PER_THREAD = 2;
+
+    /**
+     * Taille des blocs
+     */
+    private int blockSize;
+
+    /**
+     * Nombre de threads compressant les blocs
+     */
+    private int threads;
+
+    /**
+     * Nombre de flux de bits par bloc, 1 ou {@link InterleavedStreams#STREAMS}
+     */
+    private int streams;
+
+    /**
+     * Constructeur
+     * Blocs de {@link BlockCompressor#DEFAULT_BLOCK_SIZE} octets, un thread par coeur
+     */
+    public BlockCompressor() {
+        this(DEFAULT_BLOCK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructeur
+     *
+     * @param blockSize taille des blocs, entre {@link BlockCompressor#MIN_BLOCK_SIZE} et {@link BlockCompressor#MAX_BLOCK_SIZE}
+     * @param threads   nombre de threads compressant les blocs
+     * @throws IllegalArgumentException si la taille des blocs ou le nombre de threads est invalide
+     */
+    public BlockCompressor(int blockSize, int threads) {
+        this(blockSize, threads, 1);
+    }
+
+    /**
+     * Constructeur
+     *
+     * @param blockSize taille des blocs, entre {@link BlockCompressor#MIN_BLOCK_SIZE} et {@link BlockCompressor#MAX_BLOCK_SIZE}
+     * @param threads   nombre de threads compressant les blocs
+     * @param streams   nombre de flux de bits par bloc : 1 ({@link Format#BLOCKS})
+     *                  ou {@link InterleavedStreams#STREAMS} ({@link Format#INTERLEAVED}), sans effet sur la décompression
+     * @throws IllegalArgumentException si la taille des blocs, le nombre de threads ou le nombre de flux est invalide
+     */
+    public BlockCompressor(int blockSize, int threads, int streams) {
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE)
+            throw new IllegalArgumentException("Block size must be between " + MIN_BLOCK_SIZE + " and " + MAX_BLOCK_SIZE);
+
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be superior or equal to 1");
+
+        if (streams != 1 && streams != InterleavedStreams.STREAMS)
+            throw new IllegalArgumentException("Streams must be 1 or " + InterleavedStreams.STREAMS);
+
+        this.blockSize = blockSize;
+        this.threads = threads;
+        this.streams = streams;
+    }
+
+    /**
+     * Obtenir la taille des blocs
+     *
+     * @return la taille des blocs
+     */
+    public int getBlockSize() {
+        return this.blockSize;
+    }
+
+    /**
+     * Obtenir le nombre de threads
+     *
+     * @return le nombre de threads compressant les blocs
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Obtenir le nombre de flux de bits par bloc
+     *
+     * @return 1 ou {@link InterleavedStreams#STREAMS}
+     */
+    public int getStreams() {
+        return this.streams;
+    }
+
+    /**
+     * Compresse un fichier en blocs
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu encodé
+     * @throws IOException si un fichier ne peut pas être lu ou écrit, ou si la compression est interrompue
+     */
+    public void compress(String source, String destination) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        Index index = new Index();
+        BinaryWriter bw = null;
+
+        try (MappedFile in = new MappedFile(source)) {
+            byte[] header = header(this.blockSize, this.streams);
+            bw = new BinaryWriter(new FileOutputStream(destination));
+            bw.writeBytes(header, 0, header.length);
+
+            for (long position = 0; position < in.length(); position += this.blockSize) {
+                ByteBuffer block = in.slice(position, (int) Math.min(this.blockSize, in.length() - position));
+
+                pending.add(pool.submit(() -> compressBlock(block, this.streams)));
+
+                //Ecrire les blocs terminés dans l'ordre, sans dépasser le nombre de blocs en cours
+                if (pending.size() >= this.threads * BLOCKS_PER_THREAD)
+                    writeBlock(bw, pending.poll(), index);
+            }
+
+            while (!pending.isEmpty())
+                writeBlock(bw, pending.poll(), index);
+
+            //Bloc vide : fin des blocs
+            bw.writeBits(0, Integer.SIZE);
+            index.write(bw);
+        } finally {
+            pool.shutdownNow();
+
+            if (bw != null)
+                bw.close();
+        }
+    }
+
+    /**
+     * Construit l'en-tête d'un fichier compressé en blocs
+     *
+     * @param blockSize taille des blocs
+     * @param streams   nombre de flux de bits par bloc
+     * @return les {@link BlockCompressor#HEADER_SIZE} octets de l'en-tête
+     */
+    static byte[] header(int blockSize, int streams) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE);
+        BinaryWriter bw = new BinaryWriter(out);
+
+        new Format(streams == 1 ? Format.BLOCKS : Format.INTERLEAVED, Format.BYTES).write(bw);
+        bw.writeBits(blockSize, Integer.SIZE);
+        bw.close();
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Compresse un bloc avec ses propres codes
+     *
+     * @param block   octets du bloc, de la position à la limite
+     * @param streams nombre de flux de bits
+     * @return le bloc compressé, précédé de sa longueur et de sa longueur compressée
+     */
+    static byte[] compressBlock(ByteBuffer block, int streams) {
+        int length = block.remaining();
+        long start = Metrics.start();
+        int[] counts = new int[4 << Byte.SIZE];
+        FrequencyReader.countBytes(block, 0, length, counts);
+        Metrics.phase(Phase.FREQUENCY_COUNT, start, length, length);
+
+        HuffmanTree tree = new HuffmanTree(FrequencyReader.mergeCounts(counts));
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 1024);
+        BinaryWriter bw = new BinaryWriter(out);
+
+        //Réserve la place des longueurs
+        bw.writeBits(0, Integer.SIZE);
+        bw.writeBits(0, Integer.SIZE);
+        tree.getCodeTable().writeLengths(bw);
+
+        if (streams == 1)
+            tree.encode(block, bw);
+        else
+            InterleavedStreams.encode(block, tree.getCodeTable(), bw);
+
+        bw.close();
+
+        byte[] compressed = out.toByteArray();
+        writeInt(compressed, 0, length);
+        writeInt(compressed, Integer.BYTES, compressed.length - 2 * Integer.BYTES);
+
+        return compressed;
+    }
+
+    /**
+     * Ecrit un entier sur 32 bits, octet de poids fort en premier
+     *
+     * @param bytes  tableau
+     * @param offset position du premier octet
+     * @param value  entier
+     */
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Lit un entier écrit par {@link BlockCompressor#writeInt(byte[], int, int)}
+     *
+     * @param bytes  tableau
+     * @param offset position du premier octet
+     * @return l'entier
+     */
+    static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Attend la fin de la compression d'un bloc, l'écrit et l'ajoute à l'index
+     *
+     * @param bw    écrivain
+     * @param block bloc en cours de compression
+     * @param index index des blocs écrits
+     * @throws IOException si la compression a été interrompue
+     */
+    private static void writeBlock(BinaryWriter bw, Future<byte[]> block, Index index) throws IOException {
+        try {
+            byte[] compressed = block.get();
+            bw.writeBytes(compressed, 0, compressed.length);
+            index.add(readInt(compressed, Integer.BYTES), readInt(compressed, 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Compression interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Décompresse un fichier compressé en blocs, en parallèle grâce à l'index
+     * Le fichier décompressé est créé à sa taille finale, puis chaque bloc y est écrit à sa position
+     *
+     * @param source      chemin vers le fichier compressé
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @throws IOException           si un fichier ne peut pas être lu ou écrit, ou si la décompression est interrompue
+     * @throws IllegalStateException si le fichier est invalide
+     */
+    public void decompress(String source, String destination) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+
+        try (FileChannel in = FileChannel.open(Paths.get(source), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(destination), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] header = readHeader(in);
+            int blockSize = readHeader(header);
+            int streams = readStreams(header);
+            Index index = Index.read(in);
+            ArrayList<Future<?>> blocks = new ArrayList<>(index.size());
+            long position = 0;
+
+            //Le fichier décompressé a directement sa taille finale
+            if (index.getLength() > 0)
+                out.write(ByteBuffer.allocate(1), index.getLength() - 1);
+
+            for (int i = 0; i < index.size(); i++) {
+                long offset = index.getOffset(i);
+                int compressedLength = index.getCompressedLength(i);
+                int length = index.getLength(i);
+                long destinationOffset = position;
+
+                if (length <= 0 || length > blockSize || compressedLength < 0 || compressedLength > blockSize + MAX_OVERHEAD
+                        || offset < HEADER_SIZE || offset + compressedLength > in.size())
+                    throw new IllegalStateException("Invalid block " + i);
+
+                blocks.add(pool.submit(() -> {
+                    decompressBlock(in, offset, compressedLength, out, destinationOffset, length, streams);
+                    return null;
+                }));
+                position += length;
+            }
+
+            for (Future<?> block : blocks)
+                waitFor(block);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Lit l'en-tête d'un fichier compressé en blocs
+     *
+     * @param in fichier compressé
+     * @return les {@link BlockCompressor#HEADER_SIZE} premiers octets du fichier
+     * @throws IOException           si le fichier ne peut pas être lu
+     * @throws IllegalStateException si le fichier est trop court
+     */
+    private static byte[] readHeader(FileChannel in) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        readFully(in, ByteBuffer.wrap(header), 0);
+
+        return header;
+    }
+
+    /**
+     * Lit et vérifie l'en-tête d'un fichier compressé en blocs
+     *
+     * @param header les {@link BlockCompressor#HEADER_SIZE} premiers octets du fichier
+     * @return la taille des blocs
+     * @throws IllegalStateException si l'en-tête est invalide
+     */
+    static int readHeader(byte[] header) {
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(header));
+        Format format = Format.read(br);
+
+        if (format.getMode() != Format.BLOCKS && format.getMode() != Format.INTERLEAVED)
+            throw new IllegalStateException("Not a block compressed file");
+
+        int blockSize = br.readBits(Integer.SIZE);
+
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE)
+            throw new IllegalStateException("Invalid block size " + blockSize);
+
+        return blockSize;
+    }
+
+    /**
+     * Obtenir le nombre de flux de bits par bloc d'un fichier compressé en blocs
+     *
+     * @param header les {@link BlockCompressor#HEADER_SIZE} premiers octets du fichier, vérifiés par {@link BlockCompressor#readHeader(byte[])}
+     * @return 1 ou {@link InterleavedStreams#STREAMS}
+     */
+    static int readStreams(byte[] header) {
+        return streams(Format.read(new BinaryReader(new ByteArrayInputStream(header), header.length)));
+    }
+
+    /**
+     * Obtenir le nombre de flux de bits par bloc d'un format
+     *
+     * @param format {@link Format#BLOCKS} ou {@link Format#INTERLEAVED}
+     * @return 1 ou {@link InterleavedStreams#STREAMS}
+     */
+    private static int streams(Format format) {
+        return format.getMode() == Format.INTERLEAVED ? InterleavedStreams.STREAMS : 1;
+    }
+
+    /**
+     * Décompresse un bloc et l'écrit à sa position
+     *
+     * @param in                fichier compressé
+     * @param offset            position du contenu compressé du bloc
+     * @param compressedLength  nombre d'octets compressés
+     * @param out               fichier décompressé
+     * @param destinationOffset position du bloc dans le fichier décompressé
+     * @param length            nombre d'octets du bloc
+     * @param streams           nombre de flux de bits
+     * @throws IOException si un fichier ne peut pas être lu ou écrit
+     */
+    private static void decompressBlock(FileChannel in, long offset, int compressedLength,
+                                        FileChannel out, long destinationOffset, int length, int streams) throws IOException {
+        byte[] compressed = new byte[compressedLength];
+        readFully(in, ByteBuffer.wrap(compressed), offset);
+
+        byte[] block = new byte[length];
+        decompressBlock(compressed, compressedLength, block, length, streams);
+
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        while (buffer.hasRemaining())
+            out.write(buffer, destinationOffset + buffer.position());
+    }
+
+    /**
+     * Décompresse un bloc en mémoire
+     *
+     * @param compressed       contenu compressé du bloc : longueurs des codes puis codes
+     * @param compressedLength nombre d'octets compressés
+     * @param block            reçoit les octets du bloc
+     * @param length           nombre d'octets du bloc
+     * @param streams          nombre de flux de bits
+     * @throws IllegalStateException si le bloc est invalide
+     */
+    static void decompressBlock(byte[] compressed, int compressedLength, byte[] block, int length, int streams) {
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(compressed, 0, compressedLength));
+        CodeTable table = CodeTable.readLengths(br, Format.alphabetSize(Format.BYTES));
+
+        if (streams == 1) {
+            HuffmanTree tree = new HuffmanTree();
+            tree.setCodeTable(table);
+            tree.decode(br, block, 0, length);
+        } else {
+            //Les flux sont décodés en place, le lecteur n'a servi qu'aux longueurs des codes
+            br.alignToByte();
+            InterleavedStreams.decode(compressed, (int) br.getByteCount(), compressedLength, table.toDecodingTable(), block, length);
+        }
+    }
+
+    /**
+     * Remplit un tampon depuis une position d'un fichier
+     *
+     * @param channel  fichier
+     * @param buffer   tampon à remplir
+     * @param position position du premier octet
+     * @throws IOException           si le fichier ne peut pas être lu
+     * @throws IllegalStateException si le fichier est trop court
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IllegalStateException("Unexpected end of file");
+    }
+
+    /**
+     * Attend la fin d'une tâche
+     *
+     * @param task tâche
+     * @throws IOException si la tâche a échoué sur une erreur d'entrée/sortie ou si elle a été interrompue
+     */
+    private static void waitFor(Future<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Decompression interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Décompresse un fichier compressé en blocs ({@link Format#BLOCKS}), sans l'index, bloc après bloc
+     *
+     * @param br          lecteur positionné après l'en-tête ({@link Format#read(BinaryReader)})
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @throws IOException           si le fichier décompressé ne peut pas être créé ou écrit
+     * @throws IllegalStateException si le fichier est invalide
+     */
+    public static void decompress(BinaryReader br, String destination) throws IOException {
+        decompress(br, new Format(Format.BLOCKS, Format.BYTES), destination);
+    }
+
+    /**
+     * Décompresse un fichier compressé en blocs, sans l'index, bloc après bloc
+     *
+     * @param br          lecteur positionné après l'en-tête ({@link Format#read(BinaryReader)})
+     * @param format      format lu, {@link Format#BLOCKS} ou {@link Format#INTERLEAVED}
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @throws IOException           si le fichier décompressé ne peut pas être créé ou écrit
+     * @throws IllegalStateException si le fichier est invalide
+     */
+    public static void decompress(BinaryReader br, Format format, String destination) throws IOException {
+        int streams = streams(format);
+        int blockSize = br.readBits(Integer.SIZE);
+
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE)
+            throw new IllegalStateException("Invalid block size " + blockSize);
+
+        byte[] block = new byte[blockSize];
+        byte[] compressed = new byte[blockSize + MAX_OVERHEAD];
+        int length;
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(destination))) {
+            while ((length = br.readBits(Integer.SIZE)) != 0) {
+                if (length < 0 || length > blockSize)
+                    throw new IllegalStateException("Invalid block length " + length);
+
+                int compressedLength = br.readBits(Integer.SIZE);
+
+                if (compressedLength < 0 || compressedLength > blockSize + MAX_OVERHEAD)
+                    throw new IllegalStateException("Invalid compressed block length " + compressedLength);
+
+                br.readBytes(compressed, 0, compressedLength);
+                decompressBlock(compressed, compressedLength, block, length, streams);
+
+                out.write(block, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Index des blocs, placé à la fin du fichier
+     */
+    static class Index {
+        /**
+         * Position du contenu compressé de chaque bloc
+         */
+        private long[] offsets = new long[16];
+
+        /**
+         * Nombre d'octets compressés de chaque bloc
+         */
+        private int[] compressedLengths = new int[16];
+
+        /**
+         * Nombre d'octets de chaque bloc
+         */
+        private int[] lengths = new int[16];
+
+        /**
+         * Nombre de blocs
+         */
+        private int size;
+
+        /**
+         * Position du prochain bloc ajouté
+         */
+        private long position = HEADER_SIZE;
+
+        /**
+         * Ajoute un bloc écrit après les précédents
+         *
+         * @param compressedLength nombre d'octets compressés
+         * @param length           nombre d'octets du bloc
+         */
+        void add(int compressedLength, int length) {
+            if (this.size == this.offsets.length) {
+                this.offsets = Arrays.copyOf(this.offsets, 2 * this.size);
+                this.compressedLengths = Arrays.copyOf(this.compressedLengths, 2 * this.size);
+                this.lengths = Arrays.copyOf(this.lengths, 2 * this.size);
+            }
+
+            this.offsets[this.size] = this.position + BLOCK_HEADER_SIZE;
+            this.compressedLengths[this.size] = compressedLength;
+            this.lengths[this.size++] = length;
+            this.position += BLOCK_HEADER_SIZE + compressedLength;
+        }
+
+        /**
+         * Ecrit l'index, après le bloc vide qui termine les blocs
+         *
+         * @param bw écrivain
+         */
+        void write(BinaryWriter bw) {
+            for (int i = 0; i < this.size; i++) {
+                Format.writeLong(bw, this.offsets[i]);
+                bw.writeBits(this.compressedLengths[i], Integer.SIZE);
+                bw.writeBits(this.lengths[i], Integer.SIZE);
+            }
+
+            bw.writeBits(this.size, Integer.SIZE);
+            //Position de l'index : après les blocs et le bloc vide
+            Format.writeLong(bw, this.position + Integer.BYTES);
+        }
+
+        /**
+         * Lit l'index à la fin d'un fichier
+         *
+         * @param in fichier compressé
+         * @return l'index
+         * @throws IOException           si le fichier ne peut pas être lu
+         * @throws IllegalStateException si l'index est invalide
+         */
+        static Index read(FileChannel in) throws IOException {
+            long size = in.size();
+
+            if (size < HEADER_SIZE + Integer.BYTES + Integer.BYTES + Long.BYTES)
+                throw new IllegalStateException("Invalid block index");
+
+            ByteBuffer footer = ByteBuffer.allocate(Long.BYTES);
+            readFully(in, footer, size - Long.BYTES);
+            long start = footer.getLong(0);
+            long indexLength = size - Long.BYTES - Integer.BYTES - start;
+
+            if (start < HEADER_SIZE || indexLength < 0 || indexLength % INDEX_ENTRY_SIZE != 0
+                    || indexLength / INDEX_ENTRY_SIZE > Integer.MAX_VALUE)
+                throw new IllegalStateException("Invalid block index");
+
+            ByteBuffer entries = ByteBuffer.allocate((int) indexLength + Integer.BYTES);
+            readFully(in, entries, start);
+            entries.flip();
+
+            Index index = new Index();
+            int count = (int) (indexLength / INDEX_ENTRY_SIZE);
+
+            if (entries.getInt((int) indexLength) != count)
+                throw new IllegalStateException("Invalid block index");
+
+            index.offsets = new long[count];
+            index.compressedLengths = new int[count];
+            index.lengths = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                index.offsets[i] = entries.getLong();
+                index.compressedLengths[i] = entries.getInt();
+                index.lengths[i] = entries.getInt();
+            }
+
+            index.size = count;
+            return index;
+        }
+
+        /**
+         * Obtenir le nombre de blocs
+         *
+         * @return le nombre de blocs
+         */
+        int size() {
+            return this.size;
+        }
+
+        /**
+         * Obtenir la position du contenu compressé d'un bloc
+         *
+         * @param i numéro du bloc
+         * @return la position dans le fichier compressé
+         */
+        long getOffset(int i) {
+            return this.offsets[i];
+        }
+
+        /**
+         * Obtenir le nombre d'octets compressés d'un bloc
+         *
+         * @param i numéro du bloc
+         * @return le nombre d'octets compressés
+         */
+        int getCompressedLength(int i) {
+            return this.compressedLengths[i];
+        }
+
+        /**
+         * Obtenir le nombre d'octets d'un bloc
+         *
+         * @param i numéro du bloc
+         * @return le nombre d'octets du bloc
+         */
+        int getLength(int i) {
+            return this.lengths[i];
+        }
+
+        /**
+         * Obtenir le nombre d'octets du fichier décompressé
+         *
+         * @return la somme des tailles des blocs
+         */
+        long getLength() {
+            long length = 0;
+
+            for (int i = 0; i < this.size; i++)
+                length += this.lengths[i];
+
+            return length;
+        }
+    }
+}
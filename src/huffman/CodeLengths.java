@@ -0,0 +1,374 @@
+package huffman;
+
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.util.Arrays;
+
+/**
+ * Calcul des longueurs des codes de Huffman sans construire d'arbre
+ * Les symboles sont triés selon le même ordre que {@link TreeElement#comparedTo} (fréquence puis valeur),
+ * puis les longueurs sont calculées en place dans un seul tableau (Moffat et Katajainen, 1995) :
+ * - 1er passage : fusion des deux plus petits poids, chaque case devient le poids d'un noeud puis l'index de son parent
+ * - 2e passage : profondeur de chaque noeud interne
+ * - 3e passage : profondeur de chaque feuille
+ * Aucun {@link Node} ni {@link Leaf} n'est créé, le coût est celui du tri
+ *
+ * Les longueurs peuvent être limitées à une longueur maximale par l'algorithme package-merge (Larmore et Hirschberg, 1990),
+ * qui donne les codes optimaux parmi ceux ne dépassant pas cette longueur
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class CodeLengths {
+    /**
+     * Nombre de bits réservés à la valeur d'un symbole et à son indice dans les clés de tri
+     */
+    private static final int SYMBOL_BITS = Character.SIZE;
+
+    /**
+     * Calcule la longueur du code de chaque symbole
+     *
+     * @param frequencies fréquence de chaque symbole, indexée par symbole, 0 si le symbole est absent
+     * @return la longueur du code de chaque symbole, 0 si le symbole est absent. Un symbole seul reçoit un code de 1 bit
+     * @throws IllegalArgumentException si une fréquence est négative ou si l'alphabet dépasse 65536 symboles
+     */
+    public static int[] compute(int[] frequencies) {
+        return compute(widen(frequencies));
+    }
+
+    /**
+     * Calcule la longueur du code de chaque symbole
+     * Les fréquences sont sur 64 bits : un symbole peut apparaître plus de 2^31 fois dans un contenu de plusieurs Go
+     *
+     * @param frequencies fréquence de chaque symbole, indexée par symbole, 0 si le symbole est absent
+     * @return la longueur du code de chaque symbole, 0 si le symbole est absent. Un symbole seul reçoit un code de 1 bit
+     * @throws IllegalArgumentException si une fréquence est négative ou si l'alphabet dépasse 65536 symboles
+     */
+    public static int[] compute(long[] frequencies) {
+        if (frequencies.length > 1 << SYMBOL_BITS)
+            throw new IllegalArgumentException("Alphabet cannot exceed " + (1 << SYMBOL_BITS) + " symbols");
+
+        long[] weights = new long[frequencies.length];
+        char[] symbols = new char[frequencies.length];
+        int n = 0;
+
+        for (int s = 0; s < frequencies.length; s++) {
+            if (frequencies[s] < 0)
+                throw new IllegalArgumentException("Frequency must be superior or equal to 0");
+
+            if (frequencies[s] > 0) {
+                weights[n] = frequencies[s];
+                symbols[n++] = (char) s;
+            }
+        }
+
+        //Fréquence puis symbole, comme TreeElement#comparedTo
+        int[] order = sort(weights, symbols, n);
+
+        long[] a = new long[n];
+        for (int i = 0; i < n; i++)
+            a[i] = weights[order[i]];
+
+        computeInPlace(a, n);
+
+        int[] lengths = new int[frequencies.length];
+        for (int i = 0; i < n; i++)
+            lengths[symbols[order[i]]] = (int) a[i];
+
+        return lengths;
+    }
+
+    /**
+     * Trie des éléments selon le même ordre que {@link TreeElement#comparedTo} : par poids puis par valeur
+     * Tant que les poids tiennent sur 31 bits, le poids, la valeur et l'indice forment une seule clé triée sans objet ;
+     * au-delà, les indices sont triés avec un comparateur
+     *
+     * @param weights poids de chaque élément, positifs
+     * @param values  valeur de chaque élément
+     * @param n       nombre d'éléments, au plus 65536
+     * @return les indices des éléments, triés
+     */
+    static int[] sort(long[] weights, char[] values, int n) {
+        int[] order = new int[n];
+        long max = 0;
+
+        for (int i = 0; i < n; i++)
+            max = Math.max(max, weights[i]);
+
+        if (max <= Integer.MAX_VALUE) {
+            long[] keys = new long[n];
+
+            for (int i = 0; i < n; i++)
+                keys[i] = (weights[i] << (2 * SYMBOL_BITS)) | ((long) values[i] << SYMBOL_BITS) | i;
+
+            Arrays.sort(keys);
+
+            for (int i = 0; i < n; i++)
+                order[i] = (int) (keys[i] & ((1 << SYMBOL_BITS) - 1));
+
+            return order;
+        }
+
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++)
+            boxed[i] = i;
+
+        Arrays.sort(boxed, (x, y) -> weights[x] != weights[y] ? Long.compare(weights[x], weights[y]) : values[x] - values[y]);
+
+        for (int i = 0; i < n; i++)
+            order[i] = boxed[i];
+
+        return order;
+    }
+
+    /**
+     * Convertit des fréquences sur 32 bits
+     *
+     * @param frequencies fréquences
+     * @return les mêmes fréquences sur 64 bits
+     */
+    private static long[] widen(int[] frequencies) {
+        long[] wide = new long[frequencies.length];
+
+        for (int s = 0; s < frequencies.length; s++)
+            wide[s] = frequencies[s];
+
+        return wide;
+    }
+
+    /**
+     * Calcule la longueur du code de chaque symbole, sans dépasser une longueur maximale
+     * Si les codes de Huffman respectent déjà la limite, ils sont retournés tels quels,
+     * sinon les longueurs sont calculées par package-merge
+     *
+     * @param frequencies fréquence de chaque symbole, indexée par symbole, 0 si le symbole est absent
+     * @param maxLength   longueur maximale d'un code
+     * @return la longueur du code de chaque symbole, 0 si le symbole est absent
+     * @throws IllegalArgumentException si une fréquence est négative, si l'alphabet dépasse 65536 symboles
+     *                                  ou si 2^maxLength est inférieur au nombre de symboles présents
+     */
+    public static int[] compute(int[] frequencies, int maxLength) {
+        return compute(widen(frequencies), maxLength);
+    }
+
+    /**
+     * Calcule la longueur du code de chaque symbole, sans dépasser une longueur maximale, à partir de fréquences sur 64 bits
+     * Si les codes de Huffman respectent déjà la limite, ils sont retournés tels quels,
+     * sinon les longueurs sont calculées par package-merge
+     *
+     * @param frequencies fréquence de chaque symbole, indexée par symbole, 0 si le symbole est absent
+     * @param maxLength   longueur maximale d'un code
+     * @return la longueur du code de chaque symbole, 0 si le symbole est absent
+     * @throws IllegalArgumentException si une fréquence est négative, si l'alphabet dépasse 65536 symboles
+     *                                  ou si 2^maxLength est inférieur au nombre de symboles présents
+     */
+    public static int[] compute(long[] frequencies, int maxLength) {
+        long start = Metrics.start();
+        int[] lengths = limit(frequencies, maxLength);
+        int symbols = 0;
+
+        for (int length : lengths)
+            if (length > 0)
+                symbols++;
+
+        Metrics.phase(Phase.TREE_BUILD, start, 0, symbols);
+        Metrics.codes(lengths);
+
+        return lengths;
+    }
+
+    /**
+     * Calcule la longueur du code de chaque symbole, par package-merge si les codes de Huffman dépassent la limite
+     *
+     * @param frequencies fréquence de chaque symbole, indexée par symbole, 0 si le symbole est absent
+     * @param maxLength   longueur maximale d'un code
+     * @return la longueur du code de chaque symbole, 0 si le symbole est absent
+     * @throws IllegalArgumentException si 2^maxLength est inférieur au nombre de symboles présents
+     */
+    private static int[] limit(long[] frequencies, int maxLength) {
+        int[] lengths = compute(frequencies);
+        int n = 0;
+        boolean fits = true;
+
+        for (int length : lengths) {
+            if (length > 0)
+                n++;
+
+            if (length > maxLength)
+                fits = false;
+        }
+
+        if (fits)
+            return lengths;
+
+        if (maxLength < 1 || (maxLength < Integer.SIZE - 1 && n > 1 << maxLength))
+            throw new IllegalArgumentException(n + " symbols cannot be coded with " + maxLength + " bits");
+
+        //Symboles triés comme dans compute(long[])
+        long[] present = new long[n];
+        char[] symbols = new char[n];
+        n = 0;
+
+        for (int s = 0; s < frequencies.length; s++)
+            if (frequencies[s] > 0) {
+                present[n] = frequencies[s];
+                symbols[n++] = (char) s;
+            }
+
+        int[] order = sort(present, symbols, n);
+
+        long[] weights = new long[n];
+        for (int i = 0; i < n; i++)
+            weights[i] = present[order[i]];
+
+        int[] limited = packageMerge(weights, maxLength);
+
+        for (int i = 0; i < n; i++)
+            lengths[symbols[order[i]]] = limited[i];
+
+        return lengths;
+    }
+
+    /**
+     * Calcule des longueurs de codes optimales ne dépassant pas une longueur maximale (package-merge)
+     * La liste du niveau le plus profond contient les feuilles. Pour chaque niveau suivant, les éléments de la liste
+     * précédente sont groupés deux à deux en paquets, fusionnés avec les feuilles (une feuille avant un paquet de même poids)
+     * Les 2n - 2 premiers éléments de la dernière liste sont retenus : un paquet retenu retient les deux éléments
+     * qui le composent, et la longueur du code d'une feuille est le nombre de fois où elle est retenue
+     * Comme les listes sont triées, il suffit de savoir combien de feuilles et de paquets sont retenus à chaque niveau
+     *
+     * @param weights   poids triés par ordre croissant, au moins 2
+     * @param maxLength longueur maximale, telle que 2^maxLength >= nombre de poids
+     * @return la longueur du code de chaque poids
+     */
+    private static int[] packageMerge(long[] weights, int maxLength) {
+        int n = weights.length;
+        //isPackage[level][i] : le i-ème élément de la liste du niveau est un paquet (niveau 0 = le moins profond)
+        boolean[][] isPackage = new boolean[maxLength][];
+        long[] list = weights.clone();
+
+        isPackage[maxLength - 1] = new boolean[n];
+
+        for (int level = maxLength - 2; level >= 0; level--) {
+            int packages = list.length / 2;
+            long[] merged = new long[n + packages];
+            boolean[] flags = new boolean[n + packages];
+            int leaf = 0;
+            int pack = 0;
+
+            for (int i = 0; i < merged.length; i++) {
+                long packageWeight = pack < packages ? list[2 * pack] + list[2 * pack + 1] : Long.MAX_VALUE;
+
+                if (leaf < n && weights[leaf] <= packageWeight) {
+                    merged[i] = weights[leaf++];
+                } else {
+                    merged[i] = packageWeight;
+                    flags[i] = true;
+                    pack++;
+                }
+            }
+
+            list = merged;
+            isPackage[level] = flags;
+        }
+
+        //Nombre de feuilles retenues à chaque niveau : ce sont toujours les plus légères
+        int[] lengths = new int[n];
+        int selected = 2 * n - 2;
+
+        for (int level = 0; level < maxLength && selected > 0; level++) {
+            int leaves = 0;
+
+            for (int i = 0; i < selected; i++)
+                if (!isPackage[level][i])
+                    leaves++;
+
+            for (int i = 0; i < leaves; i++)
+                lengths[i]++;
+
+            selected = 2 * (selected - leaves);
+        }
+
+        return lengths;
+    }
+
+    /**
+     * Calcule la taille du contenu encodé
+     * Permet de mesurer ce que coûte une longueur maximale par rapport aux codes de Huffman sans limite
+     *
+     * @param frequencies fréquence de chaque symbole
+     * @param lengths     longueur du code de chaque symbole
+     * @return le nombre de bits du contenu encodé
+     */
+    public static long cost(long[] frequencies, int[] lengths) {
+        long bits = 0;
+
+        for (int s = 0; s < frequencies.length; s++)
+            bits += frequencies[s] * lengths[s];
+
+        return bits;
+    }
+
+    /**
+     * Remplace des poids triés par ordre croissant par la longueur de leur code, sans autre mémoire
+     *
+     * @param a poids triés par ordre croissant, reçoit les longueurs (décroissantes)
+     * @param n nombre de poids
+     */
+    public static void computeInPlace(long[] a, int n) {
+        if (n == 0)
+            return;
+
+        if (n == 1) {
+            a[0] = 1;
+            return;
+        }
+
+        //1er passage : a[next] reçoit le poids du noeud créé, a[root] devient l'index du parent du noeud fusionné
+        a[0] += a[1];
+        int root = 0;
+        int leaf = 2;
+
+        for (int next = 1; next < n - 1; next++) {
+            if (leaf >= n || a[root] < a[leaf]) {
+                a[next] = a[root];
+                a[root++] = next;
+            } else
+                a[next] = a[leaf++];
+
+            if (leaf >= n || (root < next && a[root] < a[leaf])) {
+                a[next] += a[root];
+                a[root++] = next;
+            } else
+                a[next] += a[leaf++];
+        }
+
+        //2e passage : profondeur des noeuds internes, la racine est en n - 2
+        a[n - 2] = 0;
+        for (int next = n - 3; next >= 0; next--)
+            a[next] = a[(int) a[next]] + 1;
+
+        //3e passage : profondeur des feuilles, les plus lourdes (à droite) reçoivent les codes les plus courts
+        int available = 1;
+        int used = 0;
+        int depth = 0;
+        root = n - 2;
+        int next = n - 1;
+
+        while (available > 0) {
+            while (root >= 0 && a[root] == depth) {
+                used++;
+                root--;
+            }
+
+            while (available > used) {
+                a[next--] = depth;
+                available--;
+            }
+
+            available = 2 * used;
+            depth++;
+            used = 0;
+        }
+    }
+}
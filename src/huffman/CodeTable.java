@@ -0,0 +1,354 @@
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+import metrics.Metrics;
+import metrics.Phase;
+
+/**
+ * Table des codes de Huffman
+ * Contient le code et la longueur du code de chaque symbole dans des tableaux primitifs indexés par symbole,
+ * ce qui évite toute recherche dans l'arbre, toute chaîne et tout objet lors de l'encodage
+ *
+ * Les codes peuvent être canoniques : ils se déduisent alors uniquement de leurs longueurs.
+ * Les symboles sont triés par longueur de code puis par valeur, et chacun reçoit le code suivant celui du précédent
+ * (décalé à gauche quand la longueur augmente). Seules les longueurs ont besoin d'être écrites dans le fichier compressé
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class CodeTable {
+    /**
+     * Longueur maximale d'un code représentable dans la table
+     */
+    public static final int MAX_CODE_LENGTH = Integer.SIZE;
+
+    /**
+     * Code de chaque symbole, les bits de poids faible sont les seuls valides
+     */
+    private int[] codes;
+
+    /**
+     * Longueur du code de chaque symbole, 0 si le symbole est absent
+     */
+    private byte[] lengths;
+
+    /**
+     * Longueur du plus long code
+     */
+    private int maxLength;
+
+    /**
+     * Constructeur
+     * Construit la table d'un arbre de {@link TreeElement}, converti en {@link FlatTree}
+     *
+     * @param root         racine de l'arbre
+     * @param alphabetSize nombre de symboles possibles
+     * @throws NullPointerException si root vaut null
+     */
+    public CodeTable(TreeElement root, int alphabetSize) {
+        this(FlatTree.of(root), alphabetSize);
+    }
+
+    /**
+     * Constructeur
+     * Construit la table d'un arbre en un seul passage sur ses indices, de la racine vers les feuilles :
+     * le code et la longueur d'un élément sont connus avant ceux de ses enfants, sans récursion
+     *
+     * @param tree         arbre
+     * @param alphabetSize nombre de symboles possibles
+     * @throws NullPointerException si tree vaut null
+     */
+    public CodeTable(FlatTree tree, int alphabetSize) {
+        if (tree == null)
+            throw new NullPointerException("Tree cannot be null");
+
+        this.codes = new int[alphabetSize];
+        this.lengths = new byte[alphabetSize];
+
+        int[] code = new int[tree.size()];
+        int[] length = new int[tree.size()];
+
+        for (int i = tree.getRoot(); i >= 0; i--) {
+            if (tree.isLeaf(i)) {
+                this.codes[tree.getValue(i)] = code[i];
+                this.lengths[tree.getValue(i)] = (byte) Math.min(length[i], Byte.MAX_VALUE);
+                this.maxLength = Math.max(this.maxLength, length[i]);
+                continue;
+            }
+
+            code[tree.getLeft(i)] = code[i] << 1;
+            code[tree.getRight(i)] = (code[i] << 1) | 1;
+            length[tree.getLeft(i)] = length[i] + 1;
+            length[tree.getRight(i)] = length[i] + 1;
+        }
+    }
+
+    /**
+     * Constructeur
+     * Construit les codes canoniques correspondant à des longueurs
+     *
+     * @param lengths longueur du code de chaque symbole, 0 si le symbole est absent
+     * @throws IllegalArgumentException si une longueur dépasse {@link CodeTable#MAX_CODE_LENGTH} bits
+     *                                  ou si les longueurs ne forment pas un code préfixe
+     */
+    public CodeTable(byte[] lengths) {
+        int[] count = new int[MAX_CODE_LENGTH + 1];
+
+        for (byte length : lengths) {
+            if (length < 0 || length > MAX_CODE_LENGTH)
+                throw new IllegalArgumentException("Code length must be between 0 and " + MAX_CODE_LENGTH);
+
+            count[length]++;
+            this.maxLength = Math.max(this.maxLength, length);
+        }
+
+        //Premier code de chaque longueur, en vérifiant l'inégalité de Kraft
+        long[] next = new long[MAX_CODE_LENGTH + 1];
+        long code = 0;
+        count[0] = 0;
+
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            code = (code + count[length - 1]) << 1;
+            next[length] = code;
+
+            if (code + count[length] > 1L << length)
+                throw new IllegalArgumentException("Code lengths do not form a prefix code");
+        }
+
+        this.codes = new int[lengths.length];
+        this.lengths = lengths.clone();
+
+        for (int s = 0; s < lengths.length; s++)
+            if (lengths[s] > 0)
+                this.codes[s] = (int) next[lengths[s]]++;
+    }
+
+    /**
+     * Constructeur
+     * Construit les codes canoniques correspondant à des longueurs
+     *
+     * @param lengths longueur du code de chaque symbole, 0 si le symbole est absent
+     * @throws IllegalArgumentException si une longueur dépasse {@link CodeTable#MAX_CODE_LENGTH} bits
+     *                                  ou si les longueurs ne forment pas un code préfixe
+     * @see CodeLengths#compute(int[], int)
+     */
+    public CodeTable(int[] lengths) {
+        this(toBytes(lengths));
+    }
+
+    /**
+     * Convertit des longueurs en octets
+     *
+     * @param lengths longueurs
+     * @return les mêmes longueurs en octets
+     * @throws IllegalArgumentException si une longueur dépasse {@link CodeTable#MAX_CODE_LENGTH} bits
+     */
+    private static byte[] toBytes(int[] lengths) {
+        byte[] bytes = new byte[lengths.length];
+
+        for (int s = 0; s < lengths.length; s++) {
+            if (lengths[s] < 0 || lengths[s] > MAX_CODE_LENGTH)
+                throw new IllegalArgumentException("Code length must be between 0 and " + MAX_CODE_LENGTH);
+
+            bytes[s] = (byte) lengths[s];
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Les codes sont-ils tous représentables sur {@link CodeTable#MAX_CODE_LENGTH} bits
+     *
+     * @return true si aucun code ne dépasse {@link CodeTable#MAX_CODE_LENGTH} bits
+     */
+    public boolean isUsable() {
+        return this.maxLength <= MAX_CODE_LENGTH;
+    }
+
+    /**
+     * Obtenir le code de chaque symbole, à utiliser directement dans les boucles d'encodage
+     *
+     * @return les codes indexés par symbole
+     */
+    public int[] getCodes() {
+        return this.codes;
+    }
+
+    /**
+     * Obtenir la longueur du code de chaque symbole, à utiliser directement dans les boucles d'encodage
+     *
+     * @return les longueurs indexées par symbole, 0 si le symbole est absent
+     */
+    public byte[] getLengths() {
+        return this.lengths;
+    }
+
+    /**
+     * Obtenir la longueur du plus long code
+     *
+     * @return la longueur du plus long code
+     */
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    /**
+     * Obtenir le nombre de symboles possibles
+     *
+     * @return le nombre de symboles possibles
+     */
+    public int getAlphabetSize() {
+        return this.lengths.length;
+    }
+
+    /**
+     * Obtenir les codes canoniques ayant les mêmes longueurs
+     *
+     * @return une table de codes canoniques
+     * @throws IllegalArgumentException si un code dépasse {@link CodeTable#MAX_CODE_LENGTH} bits
+     */
+    public CodeTable toCanonical() {
+        return new CodeTable(this.lengths);
+    }
+
+    /**
+     * Ecrit les longueurs des codes, dans l'ordre des symboles
+     * Les longueurs alternent des suites de symboles absents et des suites de symboles présents :
+     * - une suite de n symboles absents (n >= 0) donne n + 1 en gamma d'Elias
+     * - une suite de n symboles présents (n >= 1) donne n en gamma d'Elias,
+     * suivi pour chaque symbole de la différence avec la longueur précédente (en zigzag, + 1) en gamma d'Elias
+     * L'écriture s'arrête au dernier symbole de l'alphabet
+     *
+     * @param bw écrivain
+     */
+    public void writeLengths(BinaryWriter bw) {
+        long begin = Metrics.start();
+        long written = bw.getByteCount();
+        int symbols = 0;
+        int previous = 0;
+        int s = 0;
+
+        while (s < this.lengths.length) {
+            int start = s;
+            while (s < this.lengths.length && this.lengths[s] == 0)
+                s++;
+
+            bw.writeGamma(s - start + 1);
+
+            if (s == this.lengths.length)
+                break;
+
+            start = s;
+            while (s < this.lengths.length && this.lengths[s] != 0)
+                s++;
+
+            bw.writeGamma(s - start);
+            symbols += s - start;
+
+            for (int i = start; i < s; i++) {
+                int delta = this.lengths[i] - previous;
+                bw.writeGamma(((delta << 1) ^ (delta >> 31)) + 1);
+                previous = this.lengths[i];
+            }
+        }
+
+        Metrics.phase(Phase.HEADER_ENCODE, begin, bw.getByteCount() - written, symbols);
+    }
+
+    /**
+     * Lit des longueurs écrites par {@link CodeTable#writeLengths(BinaryWriter)} et construit les codes canoniques
+     * Aucun noeud ni aucune feuille n'est créé
+     *
+     * @param br           lecteur
+     * @param alphabetSize nombre de symboles possibles
+     * @return la table des codes canoniques
+     * @throws IllegalStateException si les longueurs sont invalides
+     */
+    public static CodeTable readLengths(BinaryReader br, int alphabetSize) {
+        long start = Metrics.start();
+        long read = br.getByteCount();
+        byte[] lengths = new byte[alphabetSize];
+        int symbols = 0;
+        int previous = 0;
+        int s = 0;
+
+        while (s < alphabetSize) {
+            int zeros = br.readGamma() - 1;
+
+            if (zeros > alphabetSize - s)
+                throw new IllegalStateException("Invalid code lengths");
+
+            s += zeros;
+
+            if (s == alphabetSize)
+                break;
+
+            int count = br.readGamma();
+
+            if (s + count > alphabetSize)
+                throw new IllegalStateException("Invalid code lengths");
+
+            symbols += count;
+
+            for (int i = 0; i < count; i++) {
+                int zigzag = br.readGamma() - 1;
+                previous += (zigzag >>> 1) ^ -(zigzag & 1);
+
+                if (previous <= 0 || previous > MAX_CODE_LENGTH)
+                    throw new IllegalStateException("Invalid code lengths");
+
+                lengths[s++] = (byte) previous;
+            }
+        }
+
+        CodeTable table;
+
+        try {
+            table = new CodeTable(lengths);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid code lengths", e);
+        }
+
+        Metrics.phase(Phase.HEADER_DECODE, start, br.getByteCount() - read, symbols);
+        Metrics.codes(lengths);
+
+        return table;
+    }
+
+    /**
+     * Construit la table de décodage correspondante
+     *
+     * @return la table de décodage
+     * @throws IllegalStateException si un code dépasse {@link CodeTable#MAX_CODE_LENGTH} bits
+     */
+    public DecodingTable toDecodingTable() {
+        if (!this.isUsable())
+            throw new IllegalStateException("Codes longer than " + MAX_CODE_LENGTH + " bits");
+
+        return new DecodingTable(this.codes, this.lengths);
+    }
+
+    /**
+     * Retourne la valeur binaire d'un symbole
+     *
+     * @param symbol symbole
+     * @return une chaine de 0 et 1 correspondant à la valeur binaire du symbole,
+     * sinon une chaine vide si le symbole n'est pas présent dans la table
+     */
+    public String getCharCode(int symbol) {
+        if (symbol < 0 || symbol >= this.lengths.length)
+            return "";
+
+        int length = this.lengths[symbol];
+
+        if (length == 0 || length > MAX_CODE_LENGTH)
+            return "";
+
+        StringBuilder code = new StringBuilder(length);
+
+        for (int i = length - 1; i >= 0; i--)
+            code.append((this.codes[symbol] >>> i) & 1);
+
+        return code.toString();
+    }
+}
@@ -0,0 +1,424 @@
+package huffman;
+
+import io.BinaryReader;
+import io.MappedFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Compression et décompression de fichiers et de flux, quel que soit leur format
+ * Contrairement à l'interface interactive, les erreurs sont remontées par exception et rien n'est affiché :
+ * les fichiers sont ouverts ici, et les {@link UncheckedIOException} des lecteurs et écrivains de bits redeviennent des {@link IOException}
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class Codec {
+    /**
+     * Taille du tampon de copie des flux
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Compresse un fichier octet par octet (alphabet {@link Format#BYTES})
+     * Un fichier plus grand que {@link BlockCompressor#DEFAULT_BLOCK_SIZE} est compressé en blocs ({@link Format#BLOCKS}),
+     * sinon en un seul flux ({@link Format#CANONICAL})
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu compressé
+     * @param threads     nombre de threads compressant les blocs
+     * @throws IOException si un fichier ne peut pas être lu ou écrit
+     */
+    public static void compress(String source, String destination, int threads) throws IOException {
+        compress(source, destination, threads, null);
+    }
+
+    /**
+     * Compresse un fichier octet par octet (alphabet {@link Format#BYTES}), avec une table partagée si elle est donnée
+     * ({@link Format#SHARED}), sinon comme {@link Codec#compress(String, String, int)}
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu compressé
+     * @param threads     nombre de threads compressant les blocs
+     * @param table       table partagée, ou null
+     * @throws IOException si un fichier ne peut pas être lu ou écrit
+     */
+    public static void compress(String source, String destination, int threads, SharedTable table) throws IOException {
+        try {
+            if (table != null) {
+                try (MappedFile mapped = new MappedFile(source)) {
+                    table.compress(mapped, new FileOutputStream(destination));
+                }
+                return;
+            }
+
+            if (Files.size(new File(source).toPath()) > BlockCompressor.DEFAULT_BLOCK_SIZE) {
+                new BlockCompressor(BlockCompressor.DEFAULT_BLOCK_SIZE, threads).compress(source, destination);
+                return;
+            }
+
+            try (MappedFile mapped = new MappedFile(source)) {
+                new HuffmanTree(new FrequencyReader().readBytes(mapped)).compress(mapped, new FileOutputStream(destination));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Compresse un fichier en blocs dont les codes sont répartis sur 4 flux ({@link Format#INTERLEAVED}),
+     * quelle que soit sa taille : la décompression décode les 4 flux de chaque bloc ensemble
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu compressé
+     * @param threads     nombre de threads compressant les blocs
+     * @throws IOException si un fichier ne peut pas être lu ou écrit
+     */
+    public static void compressInterleaved(String source, String destination, int threads) throws IOException {
+        try {
+            new BlockCompressor(BlockCompressor.DEFAULT_BLOCK_SIZE, threads, InterleavedStreams.STREAMS).compress(source, destination);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Compresse un fichier en un seul flux ({@link Format#CANONICAL}), quelle que soit sa taille, pour les lecteurs
+     * ne connaissant pas les blocs : le résultat est identique à {@link HuffmanTree#compress(MappedFile, String)},
+     * mais l'encodage est réparti sur plusieurs threads ({@link ParallelEncoder})
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu compressé
+     * @param threads     nombre de threads encodant le contenu
+     * @throws IOException si un fichier ne peut pas être lu ou écrit
+     */
+    public static void compressSingleStream(String source, String destination, int threads) throws IOException {
+        try (MappedFile mapped = new MappedFile(source)) {
+            CodeTable table = new HuffmanTree(new FrequencyReader().readBytes(mapped)).getCodeTable();
+            new ParallelEncoder(ParallelEncoder.DEFAULT_SEGMENT_SIZE, threads).compress(table, mapped, destination);
+        }
+    }
+
+    /**
+     * Compresse un fichier avec une table par contexte ({@link ContextHuffman}, mode {@link Format#CONTEXT}),
+     * plus petit que {@link Codec#compress(String, String, int)} sur du texte, mais sans blocs parallèles
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu compressé
+     * @throws IOException si un fichier ne peut pas être lu ou écrit
+     */
+    public static void compressContext(String source, String destination) throws IOException {
+        try (MappedFile mapped = new MappedFile(source)) {
+            ContextHuffman.compress(mapped, destination);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Compresse un fichier en un seul passage avec le codage de Huffman adaptatif ({@link AdaptiveHuffman},
+     * mode {@link Format#ADAPTIVE}), sans table dans l'en-tête
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu compressé
+     * @throws IOException si un fichier ne peut pas être lu ou écrit
+     */
+    public static void compressAdaptive(String source, String destination) throws IOException {
+        try (InputStream in = new FileInputStream(source)) {
+            AdaptiveHuffman.compress(in, new FileOutputStream(destination));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Décompresse un fichier, quel que soit son format
+     *
+     * @param source      chemin vers le fichier compressé
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @param threads     nombre de threads décompressant les blocs
+     * @throws IOException           si un fichier ne peut pas être lu ou écrit
+     * @throws IllegalStateException si le contenu est invalide
+     */
+    public static void decompress(String source, String destination, int threads) throws IOException {
+        decompress(source, destination, threads, null);
+    }
+
+    /**
+     * Décompresse un fichier, quel que soit son format
+     *
+     * @param source      chemin vers le fichier compressé
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @param threads     nombre de threads décompressant les blocs
+     * @param tables      tables partagées connues, ou null
+     * @throws IOException           si un fichier ou une table ne peut pas être lu ou écrit
+     * @throws IllegalStateException si le contenu est invalide, ou s'il utilise une table partagée inconnue
+     */
+    public static void decompress(String source, String destination, int threads, TableCache tables) throws IOException {
+        if (!new File(source).isFile())
+            throw new FileNotFoundException(source);
+
+        BinaryReader br = new BinaryReader(new FileInputStream(source));
+
+        try {
+            Format format = Format.read(br);
+
+            if (format.getMode() == Format.BLOCKS || format.getMode() == Format.INTERLEAVED) {
+                //Décode les blocs en parallèle grâce à l'index
+                new BlockCompressor(BlockCompressor.DEFAULT_BLOCK_SIZE, threads).decompress(source, destination);
+            } else if (format.getMode() == Format.ADAPTIVE) {
+                //Reconstruit l'arbre au fil du décodage
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(destination))) {
+                    AdaptiveHuffman.decompress(br, out);
+                }
+            } else if (format.getMode() == Format.CONTEXT) {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(destination))) {
+                    ContextHuffman.decompress(br, out);
+                }
+            } else if (format.getMode() == Format.SHARED) {
+                TableCache known = knownTables(tables);
+
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(destination))) {
+                    SharedTable.decompress(br, known, out);
+                }
+            } else {
+                checkDecompressible(format);
+
+                HuffmanTree tree = new HuffmanTree();
+
+                if (format.getMode() == Format.LEGACY)
+                    tree.setTree(HuffmanTree.decodeTree(br));
+                else
+                    tree.setCodeTable(CodeTable.readLengths(br, format.getAlphabetSize()));
+
+                if (format.getAlphabet() == Format.BYTES) {
+                    tree.decompressBytes(br, destination, Format.readLong(br));
+                } else if (format.getMode() == Format.SIZED) {
+                    br.alignToByte();
+                    tree.decompressChars(br, destination, Format.readLong(br));
+                } else {
+                    tree.decompress(br, destination);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            br.close();
+        }
+    }
+
+    /**
+     * Compresse un flux en blocs ({@link HuffmanOutputStream}), sans connaître sa taille à l'avance
+     *
+     * @param in  flux à compresser
+     * @param out flux recevant le contenu compressé, qui n'est pas fermé
+     * @throws IOException si un flux ne peut pas être lu ou écrit
+     */
+    public static void compress(InputStream in, OutputStream out) throws IOException {
+        compress(in, out, null);
+    }
+
+    /**
+     * Compresse un flux avec une table partagée si elle est donnée ({@link Format#SHARED}), le flux étant alors lu
+     * en entier avant d'être compressé, sinon comme {@link Codec#compress(InputStream, OutputStream)}
+     *
+     * @param in    flux à compresser
+     * @param out   flux recevant le contenu compressé, qui n'est pas fermé
+     * @param table table partagée, ou null
+     * @throws IOException si un flux ne peut pas être lu ou écrit
+     */
+    public static void compress(InputStream in, OutputStream out, SharedTable table) throws IOException {
+        if (table != null) {
+            out.write(table.compress(in.readAllBytes()));
+            out.flush();
+            return;
+        }
+
+        HuffmanOutputStream huffman = new HuffmanOutputStream(new UnclosedOutputStream(out));
+
+        try {
+            copy(in, huffman);
+        } finally {
+            huffman.close();
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Compresse un flux en un seul passage ({@link AdaptiveHuffman}) : contrairement aux blocs, chaque lecture est
+     * encodée et transmise aussitôt, ce qui convient aux flux qui ne se terminent pas
+     *
+     * @param in  flux à compresser
+     * @param out flux recevant le contenu compressé, qui n'est pas fermé
+     * @throws IOException si un flux ne peut pas être lu ou écrit
+     */
+    public static void compressAdaptive(InputStream in, OutputStream out) throws IOException {
+        try {
+            AdaptiveHuffman.compress(in, new UnclosedOutputStream(out));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Décompresse un flux, quel que soit son format, sans table partagée
+     * ({@link Codec#decompress(InputStream, OutputStream, int, TableCache)})
+     *
+     * @param in      flux compressé
+     * @param out     flux recevant le contenu décompressé, qui n'est pas fermé
+     * @param threads nombre de threads décompressant les blocs d'un fichier temporaire
+     * @throws IOException           si un flux ou un fichier temporaire ne peut pas être lu ou écrit
+     * @throws IllegalStateException si le contenu est invalide
+     */
+    public static void decompress(InputStream in, OutputStream out, int threads) throws IOException {
+        decompress(in, out, threads, null);
+    }
+
+    /**
+     * Décompresse un flux, quel que soit son format
+     * Les formats {@link Format#BLOCKS}, {@link Format#INTERLEAVED}, {@link Format#ADAPTIVE}, {@link Format#CONTEXT}
+     * et {@link Format#SHARED} sont décompressés au fil de la lecture, les autres passent par des fichiers temporaires
+     *
+     * @param in      flux compressé
+     * @param out     flux recevant le contenu décompressé, qui n'est pas fermé
+     * @param threads nombre de threads décompressant les blocs d'un fichier temporaire
+     * @param tables  tables partagées connues, ou null
+     * @throws IOException           si un flux, un fichier temporaire ou une table ne peut pas être lu ou écrit
+     * @throws IllegalStateException si le contenu est invalide, ou s'il utilise une table partagée inconnue
+     */
+    public static void decompress(InputStream in, OutputStream out, int threads, TableCache tables) throws IOException {
+        InputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        Format format = Format.peek(buffered);
+
+        try {
+            if (format.getMode() == Format.BLOCKS || format.getMode() == Format.INTERLEAVED) {
+                copy(new HuffmanInputStream(buffered), out);
+            } else if (format.getMode() == Format.ADAPTIVE) {
+                BinaryReader br = new BinaryReader(buffered);
+                Format.read(br);
+                AdaptiveHuffman.decompress(br, out);
+            } else if (format.getMode() == Format.CONTEXT) {
+                BinaryReader br = new BinaryReader(buffered);
+                Format.read(br);
+                ContextHuffman.decompress(br, out);
+            } else if (format.getMode() == Format.SHARED) {
+                BinaryReader br = new BinaryReader(buffered);
+                Format.read(br);
+                SharedTable.decompress(br, knownTables(tables), out);
+            } else {
+                checkDecompressible(format);
+                File source = File.createTempFile("huffman", ".huf");
+                File destination = File.createTempFile("huffman", ".out");
+
+                try {
+                    Files.copy(buffered, source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    decompress(source.getPath(), destination.getPath(), threads);
+                    Files.copy(destination.toPath(), out);
+                } finally {
+                    source.delete();
+                    destination.delete();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Vérifie que des tables partagées sont connues
+     *
+     * @param tables tables partagées, ou null
+     * @return les tables
+     * @throws IllegalStateException si aucune table n'est connue
+     */
+    private static TableCache knownTables(TableCache tables) {
+        if (tables == null)
+            throw new IllegalStateException("Compressed with a shared table, but no table was given");
+
+        return tables;
+    }
+
+    /**
+     * Vérifie qu'un format est un contenu compressé seul, et non une archive ou une table
+     *
+     * @param format format lu
+     * @throws IllegalStateException si le format n'est pas décompressable seul
+     */
+    private static void checkDecompressible(Format format) {
+        if (format.getMode() == Format.ARCHIVE)
+            throw new IllegalStateException("Archives are extracted, not decompressed");
+
+        if (format.getMode() == Format.TABLE)
+            throw new IllegalStateException("Table files cannot be decompressed");
+    }
+
+    /**
+     * Copie un flux dans un autre
+     *
+     * @param in  flux lu jusqu'à la fin
+     * @param out flux recevant les octets
+     * @throws IOException si un flux ne peut pas être lu ou écrit
+     */
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+
+        while ((n = in.read(buffer)) > 0)
+            out.write(buffer, 0, n);
+    }
+
+    /**
+     * Flux transmettant tout à un autre flux, sauf sa fermeture
+     * Permet de terminer un {@link HuffmanOutputStream} sans fermer, par exemple, la sortie standard
+     */
+    private static class UnclosedOutputStream extends OutputStream {
+        /**
+         * Flux recevant les octets
+         */
+        private final OutputStream out;
+
+        /**
+         * Constructeur
+         *
+         * @param out flux recevant les octets
+         */
+        UnclosedOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            this.out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.out.flush();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+import io.MappedFile;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codage de Huffman d'ordre 1, mode {@link Format#CONTEXT} : chaque octet est codé avec la table de son contexte,
+ * l'octet qui le précède. Sur du texte, un octet dépend fortement du précédent (une lettre après une lettre,
+ * un espace après une ponctuation...) et ses codes sont plus courts qu'avec une seule table
+ * Les contextes aux fréquences proches partagent une table ({@link Archive#shareTables(long[][], List)}) :
+ * un contexte n'a sa propre table que si elle coûte moins que ses codes avec une table existante
+ *
+ * Format : en-tête, nombre d'octets sur 64 bits, nombre de tables sur 9 bits, table de chacun des 256 contextes
+ * (numéro + 1 sur le nombre de bits du nombre de tables, 0 pour un contexte jamais suivi d'un octet),
+ * longueurs des codes de chaque table ({@link CodeTable#writeLengths(BinaryWriter)}), puis les codes
+ * Le contexte du premier octet est 0
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class ContextHuffman {
+    /**
+     * Nombre de contextes : un par valeur de l'octet précédent
+     */
+    public static final int CONTEXTS = 1 << Byte.SIZE;
+
+    /**
+     * Nombre de bits du nombre de tables (au plus une par contexte)
+     */
+    private static final int TABLE_COUNT_BITS = Byte.SIZE + 1;
+
+    /**
+     * Taille du tampon d'écriture
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Table de chaque contexte, -1 pour un contexte jamais suivi d'un octet
+     */
+    private final int[] assignments;
+
+    /**
+     * Codes de chaque table
+     */
+    private final CodeTable[] tables;
+
+    /**
+     * Constructeur
+     *
+     * @param assignments table de chaque contexte, -1 pour un contexte jamais suivi d'un octet
+     * @param tables      codes de chaque table
+     */
+    private ContextHuffman(int[] assignments, CodeTable[] tables) {
+        this.assignments = assignments;
+        this.tables = tables;
+    }
+
+    /**
+     * Construit les tables à partir des fréquences des octets dans chaque contexte
+     *
+     * @param counts fréquence de chaque octet (second indice) après chaque octet (premier indice)
+     * @return le modèle
+     */
+    public static ContextHuffman build(long[][] counts) {
+        List<int[]> lengths = new ArrayList<>();
+        int[] assignments = Archive.shareTables(counts, lengths);
+        CodeTable[] tables = new CodeTable[lengths.size()];
+
+        for (int t = 0; t < tables.length; t++)
+            tables[t] = new CodeTable(lengths.get(t));
+
+        return new ContextHuffman(assignments, tables);
+    }
+
+    /**
+     * Compte la fréquence de chaque octet dans chaque contexte
+     *
+     * @param file fichier projeté en mémoire
+     * @return fréquence de chaque octet (second indice) après chaque octet (premier indice)
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public static long[][] count(MappedFile file) throws IOException {
+        long[][] counts = new long[CONTEXTS][Format.alphabetSize(Format.BYTES)];
+        int previous = 0;
+
+        for (int w = 0; w < file.getWindowCount(); w++) {
+            ByteBuffer window = file.getWindow(w);
+
+            for (int i = window.position(); i < window.limit(); i++) {
+                int b = window.get(i) & 0xFF;
+                counts[previous][b]++;
+                previous = b;
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Obtenir le nombre de tables
+     *
+     * @return le nombre de tables, au plus {@link ContextHuffman#CONTEXTS}
+     */
+    public int getTableCount() {
+        return this.tables.length;
+    }
+
+    /**
+     * Compresse un fichier : compte les octets de chaque contexte, construit les tables puis encode le fichier
+     *
+     * @param source      fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu compressé
+     * @return le modèle utilisé
+     * @throws IOException si le fichier ne peut pas être lu ou écrit
+     */
+    public static ContextHuffman compress(MappedFile source, String destination) throws IOException {
+        ContextHuffman model = build(count(source));
+        BinaryWriter bw = new BinaryWriter(new FileOutputStream(destination));
+
+        try {
+            new Format(Format.CONTEXT, Format.BYTES).write(bw);
+            Format.writeLong(bw, source.length());
+            model.writeTables(bw);
+            model.encode(source, bw);
+        } finally {
+            bw.close();
+        }
+
+        return model;
+    }
+
+    /**
+     * Ecrit la table de chaque contexte puis les longueurs des codes de chaque table
+     *
+     * @param bw écrivain
+     */
+    private void writeTables(BinaryWriter bw) {
+        int bits = indexBits(this.tables.length);
+
+        bw.writeBits(this.tables.length, TABLE_COUNT_BITS);
+        for (int assignment : this.assignments)
+            bw.writeBits(assignment + 1, bits);
+
+        for (CodeTable table : this.tables)
+            table.writeLengths(bw);
+    }
+
+    /**
+     * Encode un fichier, chaque octet avec la table de l'octet précédent
+     *
+     * @param source fichier projeté en mémoire
+     * @param bw     écrivain
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    private void encode(MappedFile source, BinaryWriter bw) throws IOException {
+        long start = Metrics.start();
+        long written = bw.getByteCount();
+        //Une seule indirection par octet : les codes et les longueurs de chaque contexte
+        int[][] codes = new int[CONTEXTS][];
+        byte[][] lengths = new byte[CONTEXTS][];
+
+        for (int c = 0; c < CONTEXTS; c++) {
+            if (this.assignments[c] < 0)
+                continue;
+
+            codes[c] = this.tables[this.assignments[c]].getCodes();
+            lengths[c] = this.tables[this.assignments[c]].getLengths();
+        }
+
+        int previous = 0;
+
+        for (int w = 0; w < source.getWindowCount(); w++) {
+            ByteBuffer window = source.getWindow(w);
+
+            for (int i = window.position(); i < window.limit(); i++) {
+                int b = window.get(i) & 0xFF;
+                bw.writeBits(codes[previous][b], lengths[previous][b]);
+                previous = b;
+            }
+        }
+
+        Metrics.phase(Phase.PAYLOAD_ENCODE, start, bw.getByteCount() - written, source.length());
+    }
+
+    /**
+     * Décompresse un contenu compressé en mode {@link Format#CONTEXT}
+     *
+     * @param br  lecteur positionné après l'en-tête ({@link Format#read(BinaryReader)})
+     * @param out flux recevant le contenu décompressé, qui n'est pas fermé
+     * @throws IOException           si le flux ne peut pas être écrit
+     * @throws IllegalStateException si le contenu est invalide
+     */
+    public static void decompress(BinaryReader br, OutputStream out) throws IOException {
+        long size = Format.readLong(br);
+        ContextHuffman model = readTables(br);
+        DecodingTable[] decoders = new DecodingTable[CONTEXTS];
+        DecodingTable[] tables = new DecodingTable[model.tables.length];
+
+        for (int t = 0; t < tables.length; t++)
+            tables[t] = model.tables[t].toDecodingTable();
+
+        for (int c = 0; c < CONTEXTS; c++)
+            if (model.assignments[c] >= 0)
+                decoders[c] = tables[model.assignments[c]];
+
+        long start = Metrics.start();
+        long read = br.getByteCount();
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(1, size))];
+        int previous = 0;
+        int n = 0;
+
+        for (long i = 0; i < size; i++) {
+            if (decoders[previous] == null)
+                throw new IllegalStateException("No table for context " + previous);
+
+            previous = decoders[previous].decode(br);
+            buffer[n++] = (byte) previous;
+
+            if (n == buffer.length) {
+                out.write(buffer, 0, n);
+                n = 0;
+            }
+        }
+
+        out.write(buffer, 0, n);
+        out.flush();
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, br.getByteCount() - read, size);
+    }
+
+    /**
+     * Lit la table de chaque contexte et les longueurs des codes de chaque table
+     *
+     * @param br lecteur
+     * @return le modèle
+     * @throws IllegalStateException si les tables sont invalides
+     */
+    private static ContextHuffman readTables(BinaryReader br) {
+        int count = br.readBits(TABLE_COUNT_BITS);
+
+        if (count > CONTEXTS)
+            throw new IllegalStateException("Invalid table count " + count);
+
+        int bits = indexBits(count);
+        int[] assignments = new int[CONTEXTS];
+
+        for (int c = 0; c < CONTEXTS; c++) {
+            assignments[c] = br.readBits(bits) - 1;
+
+            if (assignments[c] >= count)
+                throw new IllegalStateException("Invalid table " + assignments[c] + " for context " + c);
+        }
+
+        CodeTable[] tables = new CodeTable[count];
+
+        for (int t = 0; t < count; t++)
+            tables[t] = CodeTable.readLengths(br, Format.alphabetSize(Format.BYTES));
+
+        return new ContextHuffman(assignments, tables);
+    }
+
+    /**
+     * Obtenir le nombre de bits du numéro de table d'un contexte
+     *
+     * @param count nombre de tables
+     * @return le nombre de bits pour écrire 0 (aucune table) à count
+     */
+    private static int indexBits(int count) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(count);
+    }
+}
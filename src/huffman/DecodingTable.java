@@ -0,0 +1,259 @@
+package huffman;
+
+import io.BinaryReader;
+
+import java.util.Arrays;
+
+/**
+ * Table de décodage de Huffman
+ * Remplace le parcours de l'arbre bit par bit : on consulte {@link DecodingTable#PRIMARY_BITS} bits d'un coup
+ * et une seule lecture dans un tableau donne le symbole et la longueur de son code
+ * Les codes plus longs que {@link DecodingTable#PRIMARY_BITS} bits sont résolus par des sous-tables (autant de niveaux que nécessaire)
+ *
+ * Chaque entrée est un entier :
+ * - feuille : (symbole << 8) | nombre de bits à consommer à ce niveau (0 si l'entrée est invalide)
+ * - sous-table : bit de signe à 1 | (position de la sous-table << 5) | nombre de bits indexant la sous-table
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class DecodingTable {
+    /**
+     * Nombre de bits indexant la table principale
+     */
+    public static final int PRIMARY_BITS = 11;
+
+    /**
+     * Nombre maximal de bits indexant une sous-table
+     */
+    public static final int SECONDARY_BITS = 8;
+
+    /**
+     * Longueur maximale d'un code pouvant être décodé par table
+     */
+    public static final int MAX_CODE_LENGTH = BinaryReader.MAX_PEEK_LENGTH;
+
+    /**
+     * Bit indiquant une sous-table
+     */
+    private static final int SUBTABLE_FLAG = 0x80000000;
+
+    /**
+     * Masque du nombre de bits d'une sous-table
+     */
+    private static final int SUBTABLE_BITS_MASK = 0x1F;
+
+    /**
+     * Masque de la longueur d'une feuille
+     */
+    private static final int LENGTH_MASK = 0xFF;
+
+    /**
+     * Table principale suivie de toutes les sous-tables
+     */
+    private int[] table;
+
+    /**
+     * Nombre d'entrées utilisées dans la table
+     */
+    private int size;
+
+    /**
+     * Constructeur
+     *
+     * @param codes   code de chaque symbole, indexé par symbole
+     * @param lengths longueur du code de chaque symbole, 0 si le symbole est absent
+     * @throws IllegalArgumentException si un code dépasse {@link DecodingTable#MAX_CODE_LENGTH} bits
+     */
+    public DecodingTable(int[] codes, byte[] lengths) {
+        int count = 0;
+
+        for (byte length : lengths) {
+            if (length > MAX_CODE_LENGTH)
+                throw new IllegalArgumentException("Code length cannot exceed " + MAX_CODE_LENGTH + " bits");
+
+            if (length > 0)
+                count++;
+        }
+
+        int[] symbols = new int[count];
+        count = 0;
+
+        for (int s = 0; s < lengths.length; s++)
+            if (lengths[s] > 0)
+                symbols[count++] = s;
+
+        this.table = new int[1 << PRIMARY_BITS];
+        this.size = 1 << PRIMARY_BITS;
+        this.fill(0, PRIMARY_BITS, 0, symbols, count, codes, lengths);
+        this.table = Arrays.copyOf(this.table, this.size);
+    }
+
+    /**
+     * Remplit une table et crée ses sous-tables
+     *
+     * @param offset   position de la table
+     * @param bits     nombre de bits indexant la table
+     * @param consumed nombre de bits déjà consommés par les niveaux précédents
+     * @param symbols  symboles dont le code commence par le préfixe de cette table
+     * @param count    nombre de symboles
+     * @param codes    code de chaque symbole
+     * @param lengths  longueur du code de chaque symbole
+     */
+    private void fill(int offset, int bits, int consumed, int[] symbols, int count, int[] codes, byte[] lengths) {
+        //Nombre de codes continuant dans une sous-table, par préfixe (décalé de 1 pour les sommes cumulées)
+        int[] groupStart = null;
+
+        for (int i = 0; i < count; i++) {
+            int s = symbols[i];
+            int remaining = lengths[s] - consumed;
+
+            if (remaining <= bits) {
+                //Le code se termine dans cette table : toutes les entrées commençant par la fin du code mènent au symbole
+                int suffix = codes[s] & ((1 << remaining) - 1);
+                int start = suffix << (bits - remaining);
+                int end = start + (1 << (bits - remaining));
+
+                Arrays.fill(this.table, offset + start, offset + end, (s << 8) | remaining);
+            } else {
+                if (groupStart == null)
+                    groupStart = new int[(1 << bits) + 1];
+
+                groupStart[this.prefix(codes[s], remaining, bits) + 1]++;
+            }
+        }
+
+        if (groupStart == null)
+            return;
+
+        //Regroupe les codes longs par préfixe
+        for (int prefix = 0; prefix < 1 << bits; prefix++)
+            groupStart[prefix + 1] += groupStart[prefix];
+
+        int[] next = Arrays.copyOf(groupStart, groupStart.length);
+        int[] grouped = new int[groupStart[1 << bits]];
+
+        for (int i = 0; i < count; i++) {
+            int s = symbols[i];
+            int remaining = lengths[s] - consumed;
+
+            if (remaining > bits)
+                grouped[next[this.prefix(codes[s], remaining, bits)]++] = s;
+        }
+
+        for (int prefix = 0; prefix < 1 << bits; prefix++) {
+            int from = groupStart[prefix];
+            int to = groupStart[prefix + 1];
+
+            if (from == to)
+                continue;
+
+            int maxRemaining = 0;
+            for (int i = from; i < to; i++)
+                maxRemaining = Math.max(maxRemaining, lengths[grouped[i]] - consumed - bits);
+
+            int subBits = Math.min(maxRemaining, SECONDARY_BITS);
+            int subOffset = this.allocate(1 << subBits);
+
+            this.table[offset + prefix] = SUBTABLE_FLAG | (subOffset << 5) | subBits;
+            this.fill(subOffset, subBits, consumed + bits, Arrays.copyOfRange(grouped, from, to), to - from, codes, lengths);
+        }
+    }
+
+    /**
+     * Extrait les prochains bits d'un code
+     *
+     * @param code      code
+     * @param remaining nombre de bits du code pas encore consommés
+     * @param bits      nombre de bits à extraire
+     * @return les bits demandés
+     */
+    private int prefix(int code, int remaining, int bits) {
+        return (int) ((code & 0xFFFFFFFFL) >>> (remaining - bits)) & ((1 << bits) - 1);
+    }
+
+    /**
+     * Réserve de la place pour une sous-table
+     *
+     * @param entries nombre d'entrées
+     * @return position de la sous-table
+     */
+    private int allocate(int entries) {
+        if (this.size + entries > this.table.length)
+            this.table = Arrays.copyOf(this.table, Math.max(this.table.length * 2, this.size + entries));
+
+        int offset = this.size;
+        this.size += entries;
+
+        return offset;
+    }
+
+    /**
+     * Décode un symbole
+     *
+     * @param br lecteur positionné au début d'un code
+     * @return le symbole décodé
+     * @throws IllegalStateException si les bits lus ne correspondent à aucun code
+     */
+    public int decode(BinaryReader br) {
+        int bits = PRIMARY_BITS;
+        int entry = this.table[br.peekBits(bits)];
+
+        while (entry < 0) {
+            br.skipBits(bits);
+            bits = entry & SUBTABLE_BITS_MASK;
+            entry = this.table[((entry & ~SUBTABLE_FLAG) >>> 5) + br.peekBits(bits)];
+        }
+
+        int length = entry & LENGTH_MASK;
+
+        if (length == 0)
+            throw new IllegalStateException("Invalid code");
+
+        br.skipBits(length);
+
+        return entry >>> 8;
+    }
+
+    /**
+     * Décode un symbole à partir des prochains bits, sans lecteur
+     *
+     * @param bits les 32 prochains bits, le premier bit du code étant le bit de poids fort (0 au-delà de la fin)
+     * @return (symbole << 8) | longueur totale du code
+     * @throws IllegalStateException si les bits ne correspondent à aucun code
+     */
+    public int lookup(int bits) {
+        int entry = this.table[bits >>> (Integer.SIZE - PRIMARY_BITS)];
+
+        //Cas courant : le code se termine dans la table principale, l'entrée est déjà le résultat
+        if (entry > 0)
+            return entry;
+
+        return this.lookup(bits, entry);
+    }
+
+    /**
+     * Termine le décodage d'un symbole dont le code continue dans une sous-table
+     *
+     * @param bits  les 32 prochains bits
+     * @param entry entrée de la table principale
+     * @return (symbole << 8) | longueur totale du code
+     * @throws IllegalStateException si les bits ne correspondent à aucun code
+     */
+    private int lookup(int bits, int entry) {
+        int consumed = 0;
+        int level = PRIMARY_BITS;
+
+        while (entry < 0) {
+            consumed += level;
+            level = entry & SUBTABLE_BITS_MASK;
+            entry = this.table[((entry & ~SUBTABLE_FLAG) >>> 5) + ((bits << consumed) >>> (Integer.SIZE - level))];
+        }
+
+        int length = entry & LENGTH_MASK;
+
+        if (length == 0)
+            throw new IllegalStateException("Invalid code");
+
+        return (entry & ~LENGTH_MASK) | (consumed + length);
+    }
+}
@@ -0,0 +1,336 @@
+package huffman;
+
+import io.BinaryWriter;
+import io.MappedFile;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Encodage et décodage directement dans des tampons hors du tas : fenêtres d'un {@link MappedFile},
+ * tampons alloués par {@link ByteBuffer#allocateDirect(int)} ou mémoire native fournie par l'appelant
+ * (JNI, ou {@code MemorySegment.asByteBuffer()} d'une arène qu'il gère)
+ * Les noyaux n'allouent rien et ne passent ni par {@link BinaryWriter} ni par un tableau du tas :
+ * ils lisent et écrivent par accès absolus, 32 ou 64 bits à la fois, à partir d'une position exprimée en bits
+ * Le flux produit est identique à celui de {@link HuffmanTree#compress(MappedFile, String)}
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class DirectCodec {
+    /**
+     * Taille du tampon direct utilisé pour lire et écrire les fichiers
+     */
+    public static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Encode les octets d'un tampon à la suite des bits déjà présents dans un autre tampon
+     * Les bits de poids fort du premier octet (avant bitOffset) sont conservés, les bits non utilisés du dernier octet sont mis à 0
+     *
+     * @param table       table des codes, avec l'alphabet {@link Format#BYTES}
+     * @param source      octets à encoder, de la position à la limite du tampon
+     * @param destination tampon recevant les codes, indexé à partir de 0 jusqu'à sa limite
+     * @param bitOffset   position en bits du premier code dans destination
+     * @return la position en bits suivant le dernier code
+     * @throws UnsupportedOperationException si un octet est inconnu de la table
+     * @throws IndexOutOfBoundsException     si destination est trop petit
+     */
+    public static long encode(CodeTable table, ByteBuffer source, ByteBuffer destination, long bitOffset) {
+        int[] codes = table.getCodes();
+        byte[] lengths = table.getLengths();
+        ByteBuffer out = bigEndian(destination);
+        int index = (int) (bitOffset >>> 3);
+        int count = (int) (bitOffset & 7);
+        long accumulator = count == 0 ? 0 : (out.get(index) & 0xFF) >>> (Byte.SIZE - count);
+        long position = bitOffset;
+
+        for (int i = source.position(); i < source.limit(); i++) {
+            int b = source.get(i) & 0xFF;
+            int length = lengths[b];
+
+            //Vérifier que l'octet existe dans l'arbre
+            if (length == 0)
+                throw new UnsupportedOperationException("Tree does not contain the value " + b);
+
+            accumulator = (accumulator << length) | (codes[b] & 0xFFFFFFFFL);
+            count += length;
+            position += length;
+
+            if (count >= Integer.SIZE) {
+                count -= Integer.SIZE;
+                out.putInt(index, (int) (accumulator >>> count));
+                index += Integer.BYTES;
+            }
+        }
+
+        while (count >= Byte.SIZE) {
+            count -= Byte.SIZE;
+            out.put(index++, (byte) (accumulator >>> count));
+        }
+
+        if (count > 0)
+            out.put(index, (byte) (accumulator << (Byte.SIZE - count)));
+
+        return position;
+    }
+
+    /**
+     * Décode des octets jusqu'à remplir un tampon
+     *
+     * @param table       table de décodage, avec l'alphabet {@link Format#BYTES}
+     * @param source      codes, indexés à partir de 0 jusqu'à la limite du tampon
+     * @param bitOffset   position en bits du premier code dans source
+     * @param destination tampon recevant les octets décodés, de sa position à sa limite
+     * @return la position en bits suivant le dernier code lu
+     * @throws IllegalStateException si les bits ne correspondent à aucun code ou si source se termine avant
+     */
+    public static long decode(DecodingTable table, ByteBuffer source, long bitOffset, ByteBuffer destination) {
+        ByteBuffer in = bigEndian(source);
+        int fastLimit = in.limit() - Long.BYTES;
+        int index = (int) (bitOffset >>> 3);
+        int shift = (int) (bitOffset & 7);
+        int i = destination.position();
+        int to = destination.limit();
+
+        //Tant que 8 octets peuvent être lus, une seule lecture donne au moins 57 bits, décodés tant qu'il en reste 32
+        while (i < to && index <= fastLimit) {
+            long bits = in.getLong(index) << shift;
+            int consumed = shift;
+
+            do {
+                int entry = table.lookup((int) (bits >>> Integer.SIZE));
+                int length = entry & 0xFF;
+                destination.put(i++, (byte) (entry >>> 8));
+                bits <<= length;
+                consumed += length;
+            } while (consumed <= Integer.SIZE && i < to);
+
+            index += consumed >>> 3;
+            shift = consumed & 7;
+        }
+
+        long position = (long) index * Byte.SIZE + shift;
+
+        for (; i < to; i++) {
+            int entry = table.lookup(peek(in, position));
+            destination.put(i, (byte) (entry >>> 8));
+            position += entry & 0xFF;
+        }
+
+        if (position > (long) in.limit() * Byte.SIZE)
+            throw new IllegalStateException("Not enough bits");
+
+        return position;
+    }
+
+    /**
+     * Lit les 32 bits suivant une position, octet par octet, avec des 0 au-delà de la limite
+     *
+     * @param source   tampon
+     * @param position position en bits
+     * @return les 32 bits, le premier étant le bit de poids fort
+     */
+    static int peek(ByteBuffer source, long position) {
+        int index = (int) (position >>> 3);
+        long window = 0;
+
+        for (int k = 0; k < Long.BYTES; k++)
+            window = (window << Byte.SIZE) | (index + k < source.limit() ? source.get(index + k) & 0xFF : 0);
+
+        return (int) ((window << (position & 7)) >>> Integer.SIZE);
+    }
+
+    /**
+     * Obtenir un tampon lisant et écrivant les entiers octet de poids fort en tête, comme {@link BinaryWriter}
+     *
+     * @param buffer tampon
+     * @return buffer, ou une copie indépendante si son ordre est différent
+     */
+    private static ByteBuffer bigEndian(ByteBuffer buffer) {
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? buffer : buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Compresse un fichier projeté en mémoire au format {@link Format#CANONICAL} avec l'alphabet {@link Format#BYTES}
+     * Les codes sont écrits dans un tampon direct de {@link DirectCodec#BUFFER_SIZE} octets, vidé dans le fichier à chaque remplissage
+     *
+     * @param table       table des codes
+     * @param source      fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu encodé
+     * @throws IOException                   si le fichier ne peut pas être écrit
+     * @throws UnsupportedOperationException si le contenu à compresser contient un octet inconnu de la table
+     */
+    public static void compress(CodeTable table, MappedFile source, String destination) throws IOException {
+        long start = Metrics.start();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = header(table, source.length(), buffer);
+        //Nombre d'octets à encoder par appel pour ne jamais dépasser le tampon (qui commence par au plus un octet entamé)
+        int chunk = (BUFFER_SIZE - Long.BYTES) / Math.max(1, table.getMaxLength()) * Byte.SIZE;
+        long written = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            position = flush(channel, buffer, position);
+
+            for (int w = 0; w < source.getWindowCount(); w++) {
+                ByteBuffer window = source.getWindow(w);
+
+                for (int i = 0; i < window.limit(); i += chunk) {
+                    position = encode(table, window.slice(i, Math.min(chunk, window.limit() - i)), buffer, position);
+                    written += position >>> 3;
+                    position = flush(channel, buffer, position);
+                }
+            }
+
+            written += write(channel, buffer, (int) ((position + 7) >>> 3));
+        }
+
+        Metrics.phase(Phase.PAYLOAD_ENCODE, start, written, source.length());
+    }
+
+    /**
+     * Écrit au début d'un tampon l'en-tête d'un contenu au format {@link Format#CANONICAL} avec l'alphabet {@link Format#BYTES}
+     * Les codes suivent l'en-tête sans alignement, comme avec {@link HuffmanTree#compress(MappedFile, String)}
+     *
+     * @param table  table des codes
+     * @param length nombre d'octets du contenu
+     * @param buffer tampon recevant l'en-tête
+     * @return la position en bits suivant l'en-tête
+     */
+    static long header(CodeTable table, long length, ByteBuffer buffer) {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(header);
+        new Format(Format.CANONICAL, Format.BYTES).write(bw);
+        table.writeLengths(bw);
+        Format.writeLong(bw, length);
+        long position = bw.getBitCount();
+        bw.close();
+
+        buffer.clear();
+        buffer.put(header.toByteArray());
+
+        return position;
+    }
+
+    /**
+     * Écrit les octets complets d'un tampon dans un fichier et garde l'octet entamé en tête du tampon
+     *
+     * @param channel  fichier
+     * @param buffer   tampon
+     * @param position position en bits suivant le dernier code du tampon
+     * @return la position en bits suivant le dernier code, une fois le tampon vidé (moins de 8)
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int full = (int) (position >>> 3);
+        byte partial = buffer.get(full);
+        write(channel, buffer, full);
+
+        if ((position & 7) != 0)
+            buffer.put(0, partial);
+
+        return position & 7;
+    }
+
+    /**
+     * Écrit le début d'un tampon dans un fichier
+     *
+     * @param channel fichier
+     * @param buffer  tampon
+     * @param length  nombre d'octets à écrire depuis le début du tampon
+     * @return length
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    static int write(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        buffer.limit(length).position(0);
+
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+
+        buffer.clear();
+
+        return length;
+    }
+
+    /**
+     * Décompresse un contenu compressé avec l'alphabet {@link Format#BYTES}
+     * Le fichier compressé est lu par blocs de {@link DirectCodec#BUFFER_SIZE} octets dans un tampon direct
+     * et les octets décodés sont écrits directement dans les pages du fichier décompressé ({@link MappedFile#create(String, long)})
+     *
+     * @param table       table des codes
+     * @param source      chemin vers le fichier compressé
+     * @param bitOffset   position en bits du premier code dans le fichier
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @param length      nombre d'octets à décompresser
+     * @throws IOException           si un fichier ne peut pas être lu ou écrit
+     * @throws IllegalStateException si le contenu est invalide ou tronqué
+     */
+    public static void decompress(CodeTable table, String source, long bitOffset, String destination, long length) throws IOException {
+        long start = Metrics.start();
+        DecodingTable decodingTable = table.toDecodingTable();
+        int maxLength = Math.max(1, table.getMaxLength());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long read = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ);
+             MappedFile output = MappedFile.create(destination, length)) {
+            channel.position(bitOffset >>> 3);
+            long position = bitOffset & 7;
+            boolean end = fill(channel, buffer);
+            read += buffer.limit();
+
+            for (int w = 0; w < output.getWindowCount(); w++) {
+                ByteBuffer window = output.getWindow(w);
+                int size = window.limit();
+                int i = 0;
+
+                while (i < size) {
+                    if (!end && position >>> 3 >= buffer.limit() / 2) {
+                        //Garde les octets non consommés et complète le tampon
+                        buffer.position((int) (position >>> 3));
+                        buffer.compact();
+                        position &= 7;
+                        int kept = buffer.position();
+                        end = fill(channel, buffer);
+                        read += buffer.limit() - kept;
+                        continue;
+                    }
+
+                    //Nombre d'octets dont les codes sont forcément dans le tampon
+                    long available = ((long) buffer.limit() * Byte.SIZE - position) / maxLength;
+                    int n = end ? size - i : (int) Math.min(size - i, available);
+
+                    position = decode(decodingTable, buffer, position, window.limit(i + n).position(i));
+                    i += n;
+                }
+            }
+        }
+
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, read, length);
+    }
+
+    /**
+     * Complète un tampon depuis un fichier puis le prépare à la lecture (position 0, limite à la fin des octets lus)
+     *
+     * @param channel fichier
+     * @param buffer  tampon, en écriture
+     * @return true si la fin du fichier a été atteinte
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        boolean end = false;
+
+        while (buffer.hasRemaining() && !end)
+            end = channel.read(buffer) < 0;
+
+        buffer.flip();
+
+        return end;
+    }
+}
@@ -0,0 +1,503 @@
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Arbre de Huffman à plat : chaque élément est un indice dans des tableaux de types primitifs
+ * (enfant gauche, enfant droit, parent, valeur et fréquence), sans aucun objet par élément
+ * Un enfant a toujours un indice inférieur à celui de son parent et la racine est le dernier élément :
+ * parcourir les indices en décroissant visite chaque parent avant ses enfants, sans pile ni récursion
+ * {@link Node} et {@link Leaf} ne servent plus qu'à l'affichage ({@link FlatTree#toElement()})
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class FlatTree {
+    /**
+     * Absence d'enfant ou de parent
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Nombre maximal d'éléments : une feuille par caractère et un noeud de moins
+     */
+    private static final int MAX_SIZE = 2 * (Character.MAX_VALUE + 1) - 1;
+
+    /**
+     * Enfant gauche (bit 0) de chaque élément, {@link FlatTree#NONE} pour une feuille
+     */
+    private int[] left;
+
+    /**
+     * Enfant droit (bit 1) de chaque élément, {@link FlatTree#NONE} pour une feuille
+     */
+    private int[] right;
+
+    /**
+     * Parent de chaque élément, {@link FlatTree#NONE} pour la racine
+     */
+    private int[] parent;
+
+    /**
+     * Valeur de chaque élément. Celle d'un noeud est la valeur de son enfant droit
+     */
+    private char[] values;
+
+    /**
+     * Fréquence de chaque élément, sur 64 bits. Celle d'un noeud est la somme de celles de ses enfants
+     */
+    private long[] frequencies;
+
+    /**
+     * Nombre d'éléments
+     */
+    private int size;
+
+    /**
+     * Constructeur
+     *
+     * @param capacity nombre d'éléments prévus
+     */
+    private FlatTree(int capacity) {
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.parent = new int[capacity];
+        this.values = new char[capacity];
+        this.frequencies = new long[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Ajoute une feuille
+     *
+     * @param value     valeur
+     * @param frequency fréquence
+     * @return l'indice de la feuille
+     */
+    private int addLeaf(char value, long frequency) {
+        if (this.size == this.left.length)
+            this.grow();
+
+        int i = this.size++;
+        this.left[i] = NONE;
+        this.right[i] = NONE;
+        this.parent[i] = NONE;
+        this.values[i] = value;
+        this.frequencies[i] = frequency;
+
+        return i;
+    }
+
+    /**
+     * Ajoute un noeud au-dessus de deux éléments déjà ajoutés
+     *
+     * @param x enfant gauche
+     * @param y enfant droit
+     * @return l'indice du noeud
+     * @throws ArithmeticException si la somme des fréquences dépasse {@link Long#MAX_VALUE}
+     */
+    private int addNode(int x, int y) {
+        if (this.size == this.left.length)
+            this.grow();
+
+        int i = this.size++;
+        this.left[i] = x;
+        this.right[i] = y;
+        this.parent[i] = NONE;
+        this.parent[x] = i;
+        this.parent[y] = i;
+        this.values[i] = this.values[y];
+        this.frequencies[i] = Math.addExact(this.frequencies[x], this.frequencies[y]);
+
+        return i;
+    }
+
+    /**
+     * Double la capacité des tableaux
+     */
+    private void grow() {
+        int capacity = Math.max(16, this.left.length * 2);
+
+        this.left = Arrays.copyOf(this.left, capacity);
+        this.right = Arrays.copyOf(this.right, capacity);
+        this.parent = Arrays.copyOf(this.parent, capacity);
+        this.values = Arrays.copyOf(this.values, capacity);
+        this.frequencies = Arrays.copyOf(this.frequencies, capacity);
+    }
+
+    /**
+     * Contruit un arbre depuis des feuilles
+     * cf. Algorithme de construction de l’arbre de Huffman
+     * Les feuilles sont triées une seule fois ({@link CodeLengths#sort(long[], char[], int)}) et les noeuds créés
+     * sont placés dans un tas binaire d'indices :
+     * les deux plus petits éléments, selon {@link TreeElement#comparedTo}, sont trouvés en O(log n)
+     * En cas d'égalité, une feuille est prise avant un noeud créé : l'arbre est le même qu'avec des {@link Node}
+     *
+     * @param leaves feuilles, la liste n'est pas modifiée
+     * @return l'arbre
+     * @throws NullPointerException     si la liste est null
+     * @throws IllegalArgumentException si la liste contient 1 élément ou moins ou plus de 65536 éléments
+     */
+    public static FlatTree build(List<? extends TreeElement> leaves) {
+        int n = leaves.size();
+
+        if (n <= 1)
+            throw new IllegalArgumentException("The heap must contain more than one element");
+
+        if (n > Character.MAX_VALUE + 1)
+            throw new IllegalArgumentException("Alphabet cannot exceed " + (Character.MAX_VALUE + 1) + " symbols");
+
+        //Trier les feuilles par fréquence puis par valeur
+        long[] weights = new long[n];
+        char[] symbols = new char[n];
+
+        for (int i = 0; i < n; i++) {
+            weights[i] = leaves.get(i).getFrequency();
+            symbols[i] = leaves.get(i).getValue();
+        }
+
+        FlatTree tree = new FlatTree(2 * n - 1);
+
+        for (int i : CodeLengths.sort(weights, symbols, n))
+            tree.addLeaf(symbols[i], weights[i]);
+
+        //Tas binaire des noeuds créés
+        int[] heap = new int[n];
+        int heapSize = 0;
+        int next = 0;
+
+        for (int i = 1; i < n; i++) {
+            int x;
+            int y;
+
+            if (next < n && (heapSize == 0 || tree.compare(next, heap[0]) <= 0))
+                x = next++;
+            else
+                x = tree.poll(heap, heapSize--);
+
+            if (next < n && (heapSize == 0 || tree.compare(next, heap[0]) <= 0))
+                y = next++;
+            else
+                y = tree.poll(heap, heapSize--);
+
+            tree.push(heap, heapSize++, tree.addNode(x, y));
+        }
+
+        return tree;
+    }
+
+    /**
+     * Compare deux éléments comme {@link TreeElement#comparedTo} : par fréquence puis par valeur
+     *
+     * @param a premier élément
+     * @param b second élément
+     * @return 0 si les éléments sont égaux, < 0 si b est supérieur, > 0 si b est inférieur
+     */
+    private int compare(int a, int b) {
+        if (this.frequencies[a] != this.frequencies[b])
+            return Long.compare(this.frequencies[a], this.frequencies[b]);
+
+        return this.values[a] - this.values[b];
+    }
+
+    /**
+     * Ajoute un élément au tas
+     *
+     * @param heap    tas
+     * @param size    taille du tas avant l'ajout
+     * @param element élément à ajouter
+     */
+    private void push(int[] heap, int size, int element) {
+        int i = size;
+
+        while (i > 0) {
+            int p = (i - 1) >> 1;
+
+            if (this.compare(heap[p], element) <= 0)
+                break;
+
+            heap[i] = heap[p];
+            i = p;
+        }
+
+        heap[i] = element;
+    }
+
+    /**
+     * Retire le plus petit élément du tas
+     *
+     * @param heap tas
+     * @param size taille du tas avant le retrait
+     * @return le plus petit élément
+     */
+    private int poll(int[] heap, int size) {
+        int min = heap[0];
+        int last = heap[--size];
+        int i = 0;
+
+        while (true) {
+            int child = 2 * i + 1;
+
+            if (child >= size)
+                break;
+
+            if (child + 1 < size && this.compare(heap[child + 1], heap[child]) < 0)
+                child++;
+
+            if (this.compare(last, heap[child]) <= 0)
+                break;
+
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        heap[i] = last;
+
+        return min;
+    }
+
+    /**
+     * Décode un arbre au format {@link Format#LEGACY} : 0 pour un noeud suivi de ses enfants, 1 pour une feuille suivi de sa valeur
+     * Sans récursion : un noeud n'est créé qu'une fois ses deux enfants lus, après eux
+     * Les feuilles lues n'ont pas de fréquence
+     *
+     * @param br lecteur du fichier compressé
+     * @return l'arbre
+     * @throws IllegalStateException si l'arbre contient plus d'éléments que possible
+     */
+    public static FlatTree decode(BinaryReader br) {
+        FlatTree tree = new FlatTree(64);
+        //Enfant gauche déjà lu de chaque noeud en attente, NONE si son enfant gauche est en cours de lecture
+        int[] pending = new int[64];
+        int depth = 0;
+
+        while (true) {
+            if (tree.size + depth >= MAX_SIZE)
+                throw new IllegalStateException("Invalid tree");
+
+            if (!br.readBit()) {
+                //Node
+                if (depth == pending.length)
+                    pending = Arrays.copyOf(pending, depth * 2);
+
+                pending[depth++] = NONE;
+                continue;
+            }
+
+            //Leaf
+            int element = tree.addLeaf(br.readChar(), TreeElement.UNSET_FREQUENCY);
+
+            //Remonter les noeuds dont les deux enfants sont lus
+            while (depth > 0 && pending[depth - 1] != NONE)
+                element = tree.addNode(pending[--depth], element);
+
+            if (depth == 0)
+                return tree;
+
+            pending[depth - 1] = element;
+        }
+    }
+
+    /**
+     * Encode l'arbre au format {@link Format#LEGACY} : 0 pour un noeud suivi de ses enfants, 1 pour une feuille suivi de sa valeur
+     *
+     * @param bw écrivain
+     */
+    public void encode(BinaryWriter bw) {
+        int[] stack = new int[this.size];
+        int top = 0;
+        stack[top++] = this.getRoot();
+
+        while (top > 0) {
+            int i = stack[--top];
+
+            if (this.isLeaf(i)) {
+                bw.writeBit(true);
+                bw.writeChar(this.values[i]);
+            } else {
+                bw.writeBit(false);
+                stack[top++] = this.right[i];
+                stack[top++] = this.left[i];
+            }
+        }
+    }
+
+    /**
+     * Convertit un arbre de {@link TreeElement}
+     *
+     * @param root racine
+     * @return l'arbre à plat
+     * @throws NullPointerException si root vaut null
+     */
+    public static FlatTree of(TreeElement root) {
+        if (root == null)
+            throw new NullPointerException("Root cannot be null");
+
+        //Parcours suffixe : (racine, droite, gauche) inversé donne (gauche, droite, racine)
+        ArrayDeque<TreeElement> stack = new ArrayDeque<>();
+        ArrayDeque<TreeElement> order = new ArrayDeque<>();
+        stack.push(root);
+
+        while (!stack.isEmpty()) {
+            TreeElement element = stack.pop();
+            order.push(element);
+
+            if (element instanceof Node) {
+                stack.push(((Node) element).getLeftChild());
+                stack.push(((Node) element).getRightChild());
+            }
+        }
+
+        FlatTree tree = new FlatTree(order.size());
+        IdentityHashMap<TreeElement, Integer> indices = new IdentityHashMap<>();
+
+        for (TreeElement element : order) {
+            int i;
+
+            if (element instanceof Node) {
+                Node node = (Node) element;
+                i = tree.addNode(indices.get(node.getLeftChild()), indices.get(node.getRightChild()));
+                tree.values[i] = node.getValue();
+                tree.frequencies[i] = node.getFrequency();
+            } else
+                i = tree.addLeaf(element.getValue(), element.getFrequency());
+
+            indices.put(element, i);
+        }
+
+        return tree;
+    }
+
+    /**
+     * Construit la vue en {@link Node} et {@link Leaf} de l'arbre, pour l'affichage
+     *
+     * @return la racine
+     */
+    public TreeElement toElement() {
+        TreeElement[] elements = new TreeElement[this.size];
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.isLeaf(i))
+                elements[i] = new Leaf(this.values[i], this.frequencies[i]);
+            else
+                elements[i] = new Node(this.values[i], this.frequencies[i], elements[this.left[i]], elements[this.right[i]]);
+        }
+
+        return elements[this.getRoot()];
+    }
+
+    /**
+     * Retourne la valeur binaire d'un caractère en remontant de sa feuille à la racine
+     *
+     * @param c caractère
+     * @return une chaine de 0 et 1 correspondant à la valeur binaire de c,
+     * sinon une chaine vide si le caractère n'est pas présent dans l'arbre
+     */
+    public String getCharCode(char c) {
+        for (int i = 0; i < this.size; i++) {
+            if (!this.isLeaf(i) || this.values[i] != c)
+                continue;
+
+            StringBuilder code = new StringBuilder();
+
+            for (int child = i, p = this.parent[i]; p != NONE; child = p, p = this.parent[p])
+                code.append(this.right[p] == child ? '1' : '0');
+
+            return code.reverse().toString();
+        }
+
+        return "";
+    }
+
+    /**
+     * Obtenir le nombre d'éléments
+     *
+     * @return le nombre de feuilles et de noeuds
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Obtenir la racine
+     *
+     * @return l'indice de la racine, le dernier élément
+     */
+    public int getRoot() {
+        return this.size - 1;
+    }
+
+    /**
+     * L'élément est-il une feuille
+     *
+     * @param i indice de l'élément
+     * @return true si l'élément n'a pas d'enfant
+     */
+    public boolean isLeaf(int i) {
+        return this.left[i] == NONE;
+    }
+
+    /**
+     * Obtenir l'enfant gauche
+     *
+     * @param i indice de l'élément
+     * @return l'indice de l'enfant gauche, {@link FlatTree#NONE} pour une feuille
+     */
+    public int getLeft(int i) {
+        return this.left[i];
+    }
+
+    /**
+     * Obtenir l'enfant droit
+     *
+     * @param i indice de l'élément
+     * @return l'indice de l'enfant droit, {@link FlatTree#NONE} pour une feuille
+     */
+    public int getRight(int i) {
+        return this.right[i];
+    }
+
+    /**
+     * Obtenir le parent
+     *
+     * @param i indice de l'élément
+     * @return l'indice du parent, {@link FlatTree#NONE} pour la racine
+     */
+    public int getParent(int i) {
+        return this.parent[i];
+    }
+
+    /**
+     * Obtenir la valeur
+     *
+     * @param i indice de l'élément
+     * @return la valeur de l'élément
+     */
+    public char getValue(int i) {
+        return this.values[i];
+    }
+
+    /**
+     * Obtenir la fréquence
+     *
+     * @param i indice de l'élément
+     * @return la fréquence de l'élément
+     */
+    public long getFrequency(int i) {
+        return this.frequencies[i];
+    }
+
+    /**
+     * Les fréquences sont-elles définies, ce qui n'est pas le cas d'un arbre décodé
+     *
+     * @return true si la racine a une fréquence
+     */
+    public boolean isFrequencySet() {
+        return this.frequencies[this.getRoot()] != TreeElement.UNSET_FREQUENCY;
+    }
+}
@@ -0,0 +1,287 @@
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * En-tête et format des fichiers compressés
+ * Un fichier compressé commence par l'octet {@link Format#MAGIC} suivi d'un octet identifiant son format :
+ * les 4 bits de poids faible donnent le mode de compression, les suivants l'alphabet
+ * Les premiers fichiers n'avaient pas d'en-tête et commencent directement par l'arbre encodé :
+ * la racine étant toujours un noeud, leur premier bit vaut 0, alors que celui de {@link Format#MAGIC} vaut 1
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class Format {
+    /**
+     * Premier octet des fichiers ayant un en-tête
+     */
+    public static final int MAGIC = 0xE5;
+
+    /**
+     * Mode sans en-tête : arbre encodé bit par bit ({@link HuffmanTree#decodeTree(BinaryReader)}) puis contenu terminé par EOF
+     */
+    public static final int LEGACY = 0;
+
+    /**
+     * Codes canoniques : seules les longueurs des codes sont écrites ({@link CodeTable#writeLengths(BinaryWriter)}),
+     * puis le contenu. Avec l'alphabet {@link Format#CHARS} le contenu est terminé par EOF (anciens fichiers, voir {@link Format#SIZED}),
+     * avec l'alphabet {@link Format#BYTES} le nombre d'octets est écrit sur 64 bits avant le contenu
+     */
+    public static final int CANONICAL = 1;
+
+    /**
+     * Conteneur de blocs ({@link BlockCompressor}) : le fichier est découpé en blocs de taille fixe,
+     * chacun avec ses propres longueurs de codes et son contenu aligné sur un octet
+     * Uniquement avec l'alphabet {@link Format#BYTES}
+     */
+    public static final int BLOCKS = 2;
+
+    /**
+     * Huffman adaptatif ({@link AdaptiveHuffman}) : aucune table n'est écrite, l'arbre est reconstruit au fil du décodage
+     * Le contenu est terminé par {@link AdaptiveHuffman#END}. Uniquement avec l'alphabet {@link Format#BYTES}
+     */
+    public static final int ADAPTIVE = 3;
+
+    /**
+     * Archive de plusieurs fichiers ({@link Archive}) : tables de codes partagées entre les entrées,
+     * contenu de chaque entrée aligné sur un octet, puis répertoire central à la fin du fichier
+     * Uniquement avec l'alphabet {@link Format#BYTES}
+     */
+    public static final int ARCHIVE = 4;
+
+    /**
+     * Table partagée ({@link SharedTable}) : seul l'identifiant d'une table entraînée précède le contenu,
+     * la table étant connue à l'avance du compresseur et du décompresseur. Uniquement avec l'alphabet {@link Format#BYTES}
+     */
+    public static final int SHARED = 5;
+
+    /**
+     * Fichier de table entraînée ({@link SharedTable#save(String)}), et non contenu compressé
+     * Uniquement avec l'alphabet {@link Format#BYTES}
+     */
+    public static final int TABLE = 6;
+
+    /**
+     * Huffman d'ordre 1 ({@link ContextHuffman}) : une table par contexte (l'octet précédent), les contextes
+     * proches partageant une table. Uniquement avec l'alphabet {@link Format#BYTES}
+     */
+    public static final int CONTEXT = 7;
+
+    /**
+     * Blocs comme {@link Format#BLOCKS}, les codes de chaque bloc étant répartis sur 4 flux entrelacés
+     * ({@link InterleavedStreams}) décodés ensemble. Uniquement avec l'alphabet {@link Format#BYTES}
+     */
+    public static final int INTERLEAVED = 8;
+
+    /**
+     * Codes canoniques comme {@link Format#CANONICAL}, sans EOF : après les longueurs des codes, le nombre de caractères
+     * est écrit sur 64 bits, aligné sur un octet, avant le contenu. Un caractère nul est donc un caractère comme un autre
+     * Uniquement avec l'alphabet {@link Format#CHARS}, le mode {@link Format#CANONICAL} écrivant déjà le nombre d'octets
+     */
+    public static final int SIZED = 9;
+
+    /**
+     * Alphabet des caractères (16 bits), lus avec le jeu de caractères de la plateforme
+     */
+    public static final int CHARS = 0;
+
+    /**
+     * Alphabet des octets (8 bits), lus tels quels : tout fichier est restitué à l'identique
+     */
+    public static final int BYTES = 1;
+
+    /**
+     * Nombre de bits du mode dans l'octet de format
+     */
+    private static final int MODE_BITS = 4;
+
+    /**
+     * Mode de compression
+     */
+    private int mode;
+
+    /**
+     * Alphabet
+     */
+    private int alphabet;
+
+    /**
+     * Constructeur
+     *
+     * @param mode     mode de compression
+     * @param alphabet alphabet, {@link Format#CHARS} ou {@link Format#BYTES}
+     * @throws IllegalArgumentException si le mode ou l'alphabet est inconnu
+     */
+    public Format(int mode, int alphabet) {
+        if (mode < LEGACY || mode > SIZED)
+            throw new IllegalArgumentException("Unknown mode " + mode);
+
+        if (alphabet != CHARS && alphabet != BYTES)
+            throw new IllegalArgumentException("Unknown alphabet " + alphabet);
+
+        if (mode == LEGACY && alphabet != CHARS)
+            throw new IllegalArgumentException("Legacy mode only supports chars");
+
+        if ((mode == BLOCKS || mode == INTERLEAVED) && alphabet != BYTES)
+            throw new IllegalArgumentException("Blocks mode only supports bytes");
+
+        if (mode == ADAPTIVE && alphabet != BYTES)
+            throw new IllegalArgumentException("Adaptive mode only supports bytes");
+
+        if (mode == ARCHIVE && alphabet != BYTES)
+            throw new IllegalArgumentException("Archive mode only supports bytes");
+
+        if ((mode == SHARED || mode == TABLE) && alphabet != BYTES)
+            throw new IllegalArgumentException("Shared tables only support bytes");
+
+        if (mode == CONTEXT && alphabet != BYTES)
+            throw new IllegalArgumentException("Context mode only supports bytes");
+
+        if (mode == SIZED && alphabet != CHARS)
+            throw new IllegalArgumentException("Sized mode only supports chars");
+
+        this.mode = mode;
+        this.alphabet = alphabet;
+    }
+
+    /**
+     * Obtenir le mode de compression
+     *
+     * @return le mode de compression
+     */
+    public int getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Obtenir l'alphabet
+     *
+     * @return l'alphabet, {@link Format#CHARS} ou {@link Format#BYTES}
+     */
+    public int getAlphabet() {
+        return this.alphabet;
+    }
+
+    /**
+     * Obtenir le nombre de symboles de l'alphabet
+     *
+     * @return 65536 pour {@link Format#CHARS}, 256 pour {@link Format#BYTES}
+     */
+    public int getAlphabetSize() {
+        return alphabetSize(this.alphabet);
+    }
+
+    /**
+     * Obtenir le nombre de symboles d'un alphabet
+     *
+     * @param alphabet alphabet, {@link Format#CHARS} ou {@link Format#BYTES}
+     * @return 65536 pour {@link Format#CHARS}, 256 pour {@link Format#BYTES}
+     */
+    public static int alphabetSize(int alphabet) {
+        return alphabet == BYTES ? 1 << Byte.SIZE : 1 << Character.SIZE;
+    }
+
+    /**
+     * Ecrit l'en-tête d'un fichier compressé
+     * Rien n'est écrit pour le mode {@link Format#LEGACY}
+     *
+     * @param bw écrivain
+     */
+    public void write(BinaryWriter bw) {
+        if (this.mode == LEGACY)
+            return;
+
+        bw.writeBits(MAGIC, Byte.SIZE);
+        bw.writeBits((this.alphabet << MODE_BITS) | this.mode, Byte.SIZE);
+    }
+
+    /**
+     * Lit l'en-tête d'un fichier compressé
+     * Ne consomme rien si le fichier n'a pas d'en-tête
+     *
+     * @param br lecteur
+     * @return le format du fichier, de mode {@link Format#LEGACY} s'il n'a pas d'en-tête
+     * @throws IllegalStateException si l'en-tête ou le format est inconnu
+     */
+    public static Format read(BinaryReader br) {
+        if (br.peekBits(1) == 0)
+            return new Format(LEGACY, CHARS);
+
+        if (br.readBits(Byte.SIZE) != MAGIC)
+            throw new IllegalStateException("Not a compressed file");
+
+        return Format.of(br.readBits(Byte.SIZE));
+    }
+
+    /**
+     * Lit l'en-tête d'un flux compressé sans le consommer, pour choisir comment le décompresser
+     *
+     * @param in flux supportant {@link InputStream#mark(int)}, par exemple un {@link java.io.BufferedInputStream}
+     * @return le format du flux, de mode {@link Format#LEGACY} s'il n'a pas d'en-tête
+     * @throws IOException              si le flux ne peut pas être lu
+     * @throws IllegalArgumentException si le flux ne supporte pas {@link InputStream#mark(int)}
+     * @throws IllegalStateException    si le flux est vide ou si l'en-tête ou le format est inconnu
+     */
+    public static Format peek(InputStream in) throws IOException {
+        if (!in.markSupported())
+            throw new IllegalArgumentException("Stream does not support mark");
+
+        in.mark(2);
+        int magic = in.read();
+        int format = in.read();
+        in.reset();
+
+        if (magic < 0)
+            throw new IllegalStateException("Not a compressed file");
+
+        if ((magic & 0x80) == 0)
+            return new Format(LEGACY, CHARS);
+
+        if (magic != MAGIC || format < 0)
+            throw new IllegalStateException("Not a compressed file");
+
+        return Format.of(format);
+    }
+
+    /**
+     * Décode l'octet de format qui suit {@link Format#MAGIC}
+     *
+     * @param format octet de format
+     * @return le format
+     * @throws IllegalStateException si le format est inconnu
+     */
+    private static Format of(int format) {
+        try {
+            return new Format(format & ((1 << MODE_BITS) - 1), format >>> MODE_BITS);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown format " + format, e);
+        }
+    }
+
+    /**
+     * Ecrit un entier sur 64 bits
+     *
+     * @param bw    écrivain
+     * @param value entier
+     */
+    public static void writeLong(BinaryWriter bw, long value) {
+        bw.writeBits((int) (value >>> Integer.SIZE), Integer.SIZE);
+        bw.writeBits((int) value, Integer.SIZE);
+    }
+
+    /**
+     * Lit un entier écrit par {@link Format#writeLong(BinaryWriter, long)}
+     *
+     * @param br lecteur
+     * @return l'entier
+     */
+    public static long readLong(BinaryReader br) {
+        long high = br.readBits(Integer.SIZE) & 0xFFFFFFFFL;
+
+        return (high << Integer.SIZE) | (br.readBits(Integer.SIZE) & 0xFFFFFFFFL);
+    }
+}
@@ -1,142 +1,337 @@
-package huffman;
-
-import io.BinaryReader;
-import io.ReadFile;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-
-/**
- * Read file, construct a heap and sort its characters
- *
- * @author louka DOZ, Wissam AIT KHEDDACHE
- */
-public class FrequencyReader {
-
-    /**
-     * Caractère de fin de fichier
-     */
-    public static final char EOF = '\0';
-
-    /**
-     * Method to read a file and and get the its characters with their number of occurences
-     *
-     * @param A file (path)
-     * @return an arrayList of treeElement, each element has its character and its frequency
-     **/
-
-    public ArrayList<TreeElement> readFile(String file) throws IOException {
-        File f = new File(file);
-        FileReader fileReader = new FileReader(f);
-        BufferedReader bufferedReader = new BufferedReader(fileReader);
-        int c = 0;
-
-        Map<Character, Integer> frequencyMap = new HashMap<>();
-        String line;
-        Character character;
-        ReadFile br = new ReadFile(file);
-
-        //READ THE FILE LINE BY LINE
-        while ((character = br.readChar()) != null) {
-                // for each line check if is already readen, if true,
-                // increase its frequency else add it to the array
-                if (frequencyMap.containsKey(character)) {
-                    int frequency = frequencyMap.get(character) + 1;
-                    frequencyMap.put(character, frequency);
-                } else
-                    frequencyMap.put(character, 1);
-        }
-        ArrayList<TreeElement> frequencyArray = new ArrayList<>();
-        for (Map.Entry m : frequencyMap.entrySet()) {
-            TreeElement treeElement = new Leaf((Character) m.getKey(), (Integer) m.getValue());
-            frequencyArray.add(treeElement);
-        }
-        frequencyArray.add(new Leaf(FrequencyReader.EOF, 1));
-        return frequencyArray;
-    }
-
-    /**
-     * Method to heap an ArrayList of TreeElements according to their frequencies
-     *
-     * @param An    arrayList of treeElements
-     * @param size  of the array
-     * @param index of root od a subtree
-     * @return the arrayList represinting the heap
-     **/
-
-    public void heapifyTree(ArrayList<TreeElement> frequencyArray, int size, int index) {
-
-        int indexOfGreater = index;
-        int leftChildIndex = 2 * index + 1;
-        int rightChildIndex = 2 * index + 2;
-
-        int indexOfGreatestFrequency = frequencyArray.get(indexOfGreater).getFrequency();
-
-        // If left child is greater than greater
-        if (leftChildIndex < size && frequencyArray.get(leftChildIndex).getFrequency() > indexOfGreatestFrequency)
-            indexOfGreater = leftChildIndex;
-
-        indexOfGreatestFrequency = frequencyArray.get(indexOfGreater).getFrequency();
-        // If right child is greater than greater so far
-        if (rightChildIndex < size && frequencyArray.get(rightChildIndex).getFrequency() > indexOfGreatestFrequency)
-            indexOfGreater = rightChildIndex;
-
-        // If greatest is not root
-        if (indexOfGreater != index) {
-            TreeElement swap = frequencyArray.get(index);
-            frequencyArray.set(index, frequencyArray.get(indexOfGreater));
-            frequencyArray.set(indexOfGreater, swap);
-            heapifyTree(frequencyArray, size, indexOfGreater);
-
-        }
-    }
-
-    /**
-     * Method to  build a heap of  TreeElements according to their frequencies
-     *
-     * @param An arrayList of treeElements
-     * @return the arrayList representing the heap
-     **/
-
-    public ArrayList<TreeElement> buildHeap(ArrayList<TreeElement> frequencyArray) {
-
-        // Index of last non-leaf node
-        int startIndex = (frequencyArray.size() / 2) - 1;
-        // begin from last non-leaf node and heapify
-        // each node
-        for (int i = startIndex; i >= 0; i--) {
-            heapifyTree(frequencyArray, frequencyArray.size(), i);
-        }
-        return frequencyArray;
-    }
-
-
-    /**
-     * Method to sort an ArrayList of TreeElements according to their frequencies
-     *
-     * @param An arrayList of treeElements
-     * @return the arrayList sorted with heapsort method
-     **/
-
-    public ArrayList<TreeElement> heapSort(ArrayList<TreeElement> treeArray) {
-        // build a heap from the array on parameters
-        ArrayList<TreeElement> heapTree = buildHeap(treeArray);
-        //browse the array starting by the last element
-        // and each time swap the first element and the last one of the array
-        // then heap the subtree
-        for (int i = heapTree.size() - 1; i >= 0; i--) {
-            TreeElement temp = heapTree.get(0);
-            heapTree.set(0, heapTree.get(i));
-            heapTree.set(i, temp);
-            heapifyTree(heapTree, i, 0);
-        }
-        return heapTree;
-
-    }
-
-}
+package huffman;
+
+import io.BinaryReader;
+import io.MappedFile;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Read file, construct a heap and sort its characters
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class FrequencyReader {
+
+    /**
+     * Caractère de fin de fichier des formats {@link Format#LEGACY} et {@link Format#CANONICAL} avec l'alphabet {@link Format#CHARS}
+     * Il se confond avec un caractère nul : le format {@link Format#SIZED} écrit à la place le nombre de caractères
+     */
+    public static final char EOF = '\0';
+
+    /**
+     * Size of the byte ranges counted by a single task
+     */
+    public static final int RANGE_SIZE = 1 << 22;
+
+    /**
+     * Method to read a file and and get the its characters with their number of occurences
+     *
+     * No EOF is added, the compressed file holds the number of characters instead ({@link Format#SIZED}).
+     * A tree needs two leaves: an absent character with a frequency of 0 completes a file of a single character
+     *
+     * @param A file (path)
+     * @return an arrayList of treeElement, each element has its character and its frequency
+     **/
+
+    public ArrayList<TreeElement> readFile(String file) throws IOException {
+        long[] frequencies = this.readChars(file);
+
+        ArrayList<TreeElement> frequencyArray = new ArrayList<>();
+        for (int c = 0; c < frequencies.length; c++) {
+            if (frequencies[c] > 0)
+                frequencyArray.add(new Leaf((char) c, frequencies[c]));
+        }
+        for (int c = 0; frequencyArray.size() < 2; c++) {
+            if (frequencies[c] == 0)
+                frequencyArray.add(new Leaf((char) c, 0));
+        }
+        return frequencyArray;
+    }
+
+    /**
+     * Method to count the characters of a file, decoded with the platform charset
+     *
+     * @param file A file (path)
+     * @return the number of occurrences of each character, indexed by character (65536 entries), on 64 bits
+     * @throws IOException if the file cannot be read
+     **/
+    public long[] readChars(String file) throws IOException {
+        long start = Metrics.start();
+        long[] frequencies = new long[1 << Character.SIZE];
+        char[] buffer = new char[BinaryReader.BUFFER_SIZE];
+        long symbols = 0;
+        int n;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            while ((n = reader.read(buffer, 0, buffer.length)) > 0) {
+                for (int i = 0; i < n; i++)
+                    frequencies[buffer[i]]++;
+
+                symbols += n;
+            }
+        }
+
+        Metrics.phase(Phase.FREQUENCY_COUNT, start, new File(file).length(), symbols);
+
+        return frequencies;
+    }
+
+    /**
+     * Method to count the bytes of a file, without any charset decoding
+     *
+     * @param file A file (path)
+     * @return the number of occurrences of each byte value, indexed by unsigned byte value (256 entries), on 64 bits
+     * @throws IOException if the file cannot be read
+     * @see FrequencyReader#readBytes(MappedFile)
+     **/
+    public long[] readBytes(String file) throws IOException {
+        try (MappedFile mapped = new MappedFile(file)) {
+            return this.readBytes(mapped);
+        }
+    }
+
+    /**
+     * Method to count the bytes of a memory-mapped file, without copying them
+     * Each window of the file is split into ranges of {@link FrequencyReader#RANGE_SIZE} bytes, counted in parallel
+     * by the common fork/join pool, each task with its own histogram, merged at the end.
+     * A window holds less than 2^31 bytes, so its histogram fits in ints; the windows are summed on 64 bits,
+     * so that files of several GB do not overflow.
+     * The pages stay mapped, so a following pass over the same {@link MappedFile} is served from the page cache
+     *
+     * @param file A memory-mapped file
+     * @return the number of occurrences of each byte value, indexed by unsigned byte value (256 entries), on 64 bits
+     * @throws IOException if the file cannot be mapped
+     **/
+    public long[] readBytes(MappedFile file) throws IOException {
+        long start = Metrics.start();
+        long[] frequencies = new long[1 << Byte.SIZE];
+
+        for (int w = 0; w < file.getWindowCount(); w++) {
+            ByteBuffer window = file.getWindow(w);
+            int[] windowFrequencies = ForkJoinPool.commonPool().invoke(new ByteCounter(window, 0, window.limit()));
+
+            for (int b = 0; b < frequencies.length; b++)
+                frequencies[b] += windowFrequencies[b];
+        }
+
+        Metrics.phase(Phase.FREQUENCY_COUNT, start, file.length(), file.length());
+
+        return frequencies;
+    }
+
+    /**
+     * Method to count bytes into four interleaved histograms
+     * Consecutive bytes go to different histograms so that runs of identical bytes do not wait for each other
+     *
+     * @param buffer bytes
+     * @param length number of bytes to count
+     * @param counts four histograms of 256 entries one after the other, see {@link FrequencyReader#mergeCounts(int[])}
+     **/
+    public static void countBytes(byte[] buffer, int length, int[] counts) {
+        int i = 0;
+
+        for (; i + 3 < length; i += 4) {
+            counts[buffer[i] & 0xFF]++;
+            counts[0x100 | (buffer[i + 1] & 0xFF)]++;
+            counts[0x200 | (buffer[i + 2] & 0xFF)]++;
+            counts[0x300 | (buffer[i + 3] & 0xFF)]++;
+        }
+
+        for (; i < length; i++)
+            counts[buffer[i] & 0xFF]++;
+    }
+
+    /**
+     * Method to count bytes of a buffer into four interleaved histograms, with absolute reads (no copy)
+     *
+     * @param buffer bytes, for instance a window of a {@link MappedFile}
+     * @param from   first byte to count
+     * @param to     byte following the last byte to count
+     * @param counts four histograms of 256 entries one after the other, see {@link FrequencyReader#mergeCounts(int[])}
+     **/
+    public static void countBytes(ByteBuffer buffer, int from, int to, int[] counts) {
+        int i = from;
+
+        for (; i + 3 < to; i += 4) {
+            counts[buffer.get(i) & 0xFF]++;
+            counts[0x100 | (buffer.get(i + 1) & 0xFF)]++;
+            counts[0x200 | (buffer.get(i + 2) & 0xFF)]++;
+            counts[0x300 | (buffer.get(i + 3) & 0xFF)]++;
+        }
+
+        for (; i < to; i++)
+            counts[buffer.get(i) & 0xFF]++;
+    }
+
+    /**
+     * Method to merge the four histograms filled by {@link FrequencyReader#countBytes(byte[], int, int[])}
+     *
+     * @param counts four histograms of 256 entries one after the other
+     * @return the merged histogram (256 entries)
+     **/
+    public static int[] mergeCounts(int[] counts) {
+        int[] frequencies = new int[1 << Byte.SIZE];
+
+        for (int i = 0; i < counts.length; i++)
+            frequencies[i & 0xFF] += counts[i];
+
+        return frequencies;
+    }
+
+    /**
+     * Fork/join task counting the bytes of a range of a buffer
+     */
+    private static class ByteCounter extends RecursiveTask<int[]> {
+        /**
+         * Serialization version, required by {@link RecursiveTask}
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Bytes, only read with absolute reads so that tasks can share them
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * First byte of the range
+         */
+        private final int from;
+
+        /**
+         * Byte following the range
+         */
+        private final int to;
+
+        /**
+         * Constructor
+         *
+         * @param buffer bytes
+         * @param from first byte of the range
+         * @param to byte following the range
+         */
+        ByteCounter(ByteBuffer buffer, int from, int to) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Count the range, or split it in two halves counted in parallel
+         *
+         * @return the histogram of the range
+         */
+        @Override
+        protected int[] compute() {
+            if (this.to - this.from > RANGE_SIZE) {
+                int middle = this.from + (this.to - this.from) / 2;
+                ByteCounter left = new ByteCounter(this.buffer, this.from, middle);
+                ByteCounter right = new ByteCounter(this.buffer, middle, this.to);
+
+                left.fork();
+                int[] frequencies = right.compute();
+                int[] leftFrequencies = left.join();
+
+                for (int b = 0; b < frequencies.length; b++)
+                    frequencies[b] += leftFrequencies[b];
+
+                return frequencies;
+            }
+
+            int[] counts = new int[4 << Byte.SIZE];
+            countBytes(this.buffer, this.from, this.to, counts);
+
+            return mergeCounts(counts);
+        }
+    }
+
+    /**
+     * Method to heap an ArrayList of TreeElements according to their frequencies
+     *
+     * @param An    arrayList of treeElements
+     * @param size  of the array
+     * @param index of root od a subtree
+     * @return the arrayList represinting the heap
+     **/
+
+    public void heapifyTree(ArrayList<TreeElement> frequencyArray, int size, int index) {
+
+        int indexOfGreater = index;
+        int leftChildIndex = 2 * index + 1;
+        int rightChildIndex = 2 * index + 2;
+
+        long indexOfGreatestFrequency = frequencyArray.get(indexOfGreater).getFrequency();
+
+        // If left child is greater than greater
+        if (leftChildIndex < size && frequencyArray.get(leftChildIndex).getFrequency() > indexOfGreatestFrequency)
+            indexOfGreater = leftChildIndex;
+
+        indexOfGreatestFrequency = frequencyArray.get(indexOfGreater).getFrequency();
+        // If right child is greater than greater so far
+        if (rightChildIndex < size && frequencyArray.get(rightChildIndex).getFrequency() > indexOfGreatestFrequency)
+            indexOfGreater = rightChildIndex;
+
+        // If greatest is not root
+        if (indexOfGreater != index) {
+            TreeElement swap = frequencyArray.get(index);
+            frequencyArray.set(index, frequencyArray.get(indexOfGreater));
+            frequencyArray.set(indexOfGreater, swap);
+            heapifyTree(frequencyArray, size, indexOfGreater);
+
+        }
+    }
+
+    /**
+     * Method to  build a heap of  TreeElements according to their frequencies
+     *
+     * @param An arrayList of treeElements
+     * @return the arrayList representing the heap
+     **/
+
+    public ArrayList<TreeElement> buildHeap(ArrayList<TreeElement> frequencyArray) {
+
+        // Index of last non-leaf node
+        int startIndex = (frequencyArray.size() / 2) - 1;
+        // begin from last non-leaf node and heapify
+        // each node
+        for (int i = startIndex; i >= 0; i--) {
+            heapifyTree(frequencyArray, frequencyArray.size(), i);
+        }
+        return frequencyArray;
+    }
+
+
+    /**
+     * Method to sort an ArrayList of TreeElements according to their frequencies
+     *
+     * @param An arrayList of treeElements
+     * @return the arrayList sorted with heapsort method
+     **/
+
+    public ArrayList<TreeElement> heapSort(ArrayList<TreeElement> treeArray) {
+        long start = Metrics.start();
+        // build a heap from the array on parameters
+        ArrayList<TreeElement> heapTree = buildHeap(treeArray);
+        //browse the array starting by the last element
+        // and each time swap the first element and the last one of the array
+        // then heap the subtree
+        for (int i = heapTree.size() - 1; i >= 0; i--) {
+            TreeElement temp = heapTree.get(0);
+            heapTree.set(0, heapTree.get(i));
+            heapTree.set(i, temp);
+            heapifyTree(heapTree, i, 0);
+        }
+        Metrics.phase(Phase.HEAP_SORT, start, 0, heapTree.size());
+        return heapTree;
+
+    }
+
+}
@@ -0,0 +1,226 @@
+package huffman;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Flux décompressant à la volée un contenu compressé en blocs ({@link BlockCompressor}, {@link HuffmanOutputStream})
+ * Les blocs sont lus et décodés un par un, au fur et à mesure de la lecture :
+ * la mémoire utilisée dépend de la taille des blocs, pas de la taille du contenu
+ * La lecture s'arrête au bloc vide qui termine les blocs, l'index qui le suit n'est pas lu
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class HuffmanInputStream extends InputStream {
+    /**
+     * Flux fournissant le contenu compressé
+     */
+    private InputStream in;
+
+    /**
+     * Taille des blocs, lue dans l'en-tête
+     */
+    private int blockSize;
+
+    /**
+     * Nombre de flux de bits par bloc, lu dans l'en-tête
+     */
+    private int streams;
+
+    /**
+     * Octets du bloc en cours
+     */
+    private byte[] block;
+
+    /**
+     * Nombre d'octets du bloc en cours
+     */
+    private int length;
+
+    /**
+     * Position du prochain octet à lire dans le bloc en cours
+     */
+    private int position;
+
+    /**
+     * Contenu compressé du bloc en cours
+     */
+    private byte[] compressed;
+
+    /**
+     * Le bloc vide qui termine les blocs a-t-il été lu
+     */
+    private boolean finished;
+
+    /**
+     * Le flux est-il fermé
+     */
+    private boolean closed;
+
+    /**
+     * Constructeur
+     * Lit l'en-tête du contenu compressé
+     *
+     * @param in flux fournissant le contenu compressé, fermé par {@link HuffmanInputStream#close()}
+     * @throws IOException           si l'en-tête ne peut pas être lu
+     * @throws IllegalStateException si le contenu n'est pas compressé en blocs
+     */
+    public HuffmanInputStream(InputStream in) throws IOException {
+        this.in = in;
+
+        byte[] header = new byte[BlockCompressor.HEADER_SIZE];
+        this.readFully(header, 0, header.length);
+        this.blockSize = BlockCompressor.readHeader(header);
+        this.streams = BlockCompressor.readStreams(header);
+        this.block = new byte[0];
+        this.compressed = new byte[0];
+    }
+
+    /**
+     * Lit un octet
+     *
+     * @return l'octet, entre 0 et 255, ou -1 à la fin du contenu
+     * @throws IOException si le flux est fermé ou si un bloc ne peut pas être lu
+     */
+    @Override
+    public int read() throws IOException {
+        this.ensureOpen();
+
+        if (this.position == this.length && !this.nextBlock())
+            return -1;
+
+        return this.block[this.position++] & 0xFF;
+    }
+
+    /**
+     * Lit plusieurs octets, au plus jusqu'à la fin du bloc en cours
+     *
+     * @param bytes  reçoit les octets lus
+     * @param offset position du premier octet
+     * @param length nombre maximal d'octets
+     * @return le nombre d'octets lus, ou -1 à la fin du contenu
+     * @throws IOException si le flux est fermé ou si un bloc ne peut pas être lu
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        this.ensureOpen();
+
+        if (offset < 0 || length < 0 || offset + length > bytes.length)
+            throw new IndexOutOfBoundsException("Range is out of the array");
+
+        if (length == 0)
+            return 0;
+
+        if (this.position == this.length && !this.nextBlock())
+            return -1;
+
+        int n = Math.min(length, this.length - this.position);
+        System.arraycopy(this.block, this.position, bytes, offset, n);
+        this.position += n;
+
+        return n;
+    }
+
+    /**
+     * Nombre d'octets lisibles sans lire de nouveau bloc
+     *
+     * @return le nombre d'octets restants dans le bloc en cours
+     * @throws IOException si le flux est fermé
+     */
+    @Override
+    public int available() throws IOException {
+        this.ensureOpen();
+
+        return this.length - this.position;
+    }
+
+    /**
+     * Ferme le flux compressé
+     *
+     * @throws IOException si le flux ne peut pas être fermé
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed)
+            return;
+
+        this.closed = true;
+        this.block = null;
+        this.compressed = null;
+        this.in.close();
+    }
+
+    /**
+     * Lit et décode le bloc suivant
+     *
+     * @return false si le bloc vide qui termine les blocs a été atteint
+     * @throws IOException           si le bloc ne peut pas être lu
+     * @throws IllegalStateException si le bloc est invalide
+     */
+    private boolean nextBlock() throws IOException {
+        if (this.finished)
+            return false;
+
+        byte[] header = new byte[BlockCompressor.BLOCK_HEADER_SIZE];
+        this.readFully(header, 0, Integer.BYTES);
+        int length = BlockCompressor.readInt(header, 0);
+
+        if (length == 0) {
+            this.finished = true;
+            return false;
+        }
+
+        this.readFully(header, Integer.BYTES, Integer.BYTES);
+        int compressedLength = BlockCompressor.readInt(header, Integer.BYTES);
+
+        if (length < 0 || length > this.blockSize
+                || compressedLength < 0 || compressedLength > this.blockSize + BlockCompressor.MAX_OVERHEAD)
+            throw new IllegalStateException("Invalid block");
+
+        //Les tampons grandissent avec les blocs, sans dépasser la taille des blocs
+        if (this.compressed.length < compressedLength)
+            this.compressed = new byte[compressedLength];
+
+        if (this.block.length < length)
+            this.block = new byte[length];
+
+        this.readFully(this.compressed, 0, compressedLength);
+        BlockCompressor.decompressBlock(this.compressed, compressedLength, this.block, length, this.streams);
+        this.length = length;
+        this.position = 0;
+
+        return true;
+    }
+
+    /**
+     * Lit exactement un nombre d'octets
+     *
+     * @param bytes  reçoit les octets
+     * @param offset position du premier octet
+     * @param length nombre d'octets
+     * @throws IOException si le flux se termine avant
+     */
+    private void readFully(byte[] bytes, int offset, int length) throws IOException {
+        int read = 0;
+
+        while (read < length) {
+            int n = this.in.read(bytes, offset + read, length - read);
+
+            if (n < 0)
+                throw new EOFException("Unexpected end of compressed stream");
+
+            read += n;
+        }
+    }
+
+    /**
+     * Vérifie que le flux n'est pas fermé
+     *
+     * @throws IOException si le flux est fermé
+     */
+    private void ensureOpen() throws IOException {
+        if (this.closed)
+            throw new IOException("Stream closed");
+    }
+}
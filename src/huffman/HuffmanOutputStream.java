@@ -0,0 +1,186 @@
+package huffman;
+
+import io.BinaryWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Flux compressant à la volée les octets qui lui sont écrits
+ * Les octets sont accumulés dans un bloc, compressé dès qu'il est plein avec ses propres codes :
+ * la mémoire utilisée dépend de la taille des blocs, pas de la quantité d'octets écrits
+ * Le flux produit est un fichier compressé en blocs ({@link BlockCompressor}), index compris,
+ * lisible par {@link HuffmanInputStream} comme par {@link BlockCompressor#decompress(String, String)}
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class HuffmanOutputStream extends OutputStream {
+    /**
+     * Flux recevant le contenu compressé
+     */
+    private OutputStream out;
+
+    /**
+     * Octets du bloc en cours
+     */
+    private byte[] block;
+
+    /**
+     * Nombre d'octets du bloc en cours
+     */
+    private int length;
+
+    /**
+     * Index des blocs écrits
+     */
+    private BlockCompressor.Index index;
+
+    /**
+     * Le flux est-il fermé
+     */
+    private boolean closed;
+
+    /**
+     * Constructeur
+     * Blocs de {@link BlockCompressor#DEFAULT_BLOCK_SIZE} octets
+     *
+     * @param out flux recevant le contenu compressé, fermé par {@link HuffmanOutputStream#close()}
+     * @throws IOException si l'en-tête ne peut pas être écrit
+     */
+    public HuffmanOutputStream(OutputStream out) throws IOException {
+        this(out, BlockCompressor.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructeur
+     *
+     * @param out       flux recevant le contenu compressé, fermé par {@link HuffmanOutputStream#close()}
+     * @param blockSize taille des blocs, entre {@link BlockCompressor#MIN_BLOCK_SIZE} et {@link BlockCompressor#MAX_BLOCK_SIZE}
+     * @throws IOException              si l'en-tête ne peut pas être écrit
+     * @throws IllegalArgumentException si la taille des blocs est invalide
+     */
+    public HuffmanOutputStream(OutputStream out, int blockSize) throws IOException {
+        if (blockSize < BlockCompressor.MIN_BLOCK_SIZE || blockSize > BlockCompressor.MAX_BLOCK_SIZE)
+            throw new IllegalArgumentException("Block size must be between " + BlockCompressor.MIN_BLOCK_SIZE
+                    + " and " + BlockCompressor.MAX_BLOCK_SIZE);
+
+        this.out = out;
+        this.block = new byte[blockSize];
+        this.index = new BlockCompressor.Index();
+        this.out.write(BlockCompressor.header(blockSize, 1));
+    }
+
+    /**
+     * Ecrit un octet
+     *
+     * @param b octet, seuls les 8 bits de poids faible sont pris en compte
+     * @throws IOException si le flux est fermé ou si un bloc ne peut pas être écrit
+     */
+    @Override
+    public void write(int b) throws IOException {
+        this.ensureOpen();
+
+        if (this.length == this.block.length)
+            this.writeBlock();
+
+        this.block[this.length++] = (byte) b;
+    }
+
+    /**
+     * Ecrit plusieurs octets
+     *
+     * @param bytes  octets
+     * @param offset position du premier octet
+     * @param length nombre d'octets
+     * @throws IOException si le flux est fermé ou si un bloc ne peut pas être écrit
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        this.ensureOpen();
+
+        if (offset < 0 || length < 0 || offset + length > bytes.length)
+            throw new IndexOutOfBoundsException("Range is out of the array");
+
+        while (length > 0) {
+            if (this.length == this.block.length)
+                this.writeBlock();
+
+            int n = Math.min(length, this.block.length - this.length);
+            System.arraycopy(bytes, offset, this.block, this.length, n);
+            this.length += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Compresse les octets en attente dans un bloc plus court, puis vide le flux compressé
+     * Tous les octets écrits jusqu'ici peuvent alors être lus par {@link HuffmanInputStream}
+     * Chaque appel termine un bloc : des appels trop fréquents dégradent le taux de compression
+     *
+     * @throws IOException si le flux est fermé ou si le bloc ne peut pas être écrit
+     */
+    @Override
+    public void flush() throws IOException {
+        this.ensureOpen();
+
+        if (this.length > 0)
+            this.writeBlock();
+
+        this.out.flush();
+    }
+
+    /**
+     * Compresse les octets en attente, écrit la fin des blocs et l'index, puis ferme le flux compressé
+     *
+     * @throws IOException si la fin du flux ne peut pas être écrite
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed)
+            return;
+
+        try {
+            if (this.length > 0)
+                this.writeBlock();
+
+            //Bloc vide : fin des blocs, puis index
+            ByteArrayOutputStream end = new ByteArrayOutputStream();
+            BinaryWriter bw = new BinaryWriter(end);
+            bw.writeBits(0, Integer.SIZE);
+            this.index.write(bw);
+            bw.close();
+
+            this.out.write(end.toByteArray());
+        } finally {
+            this.closed = true;
+            this.block = null;
+            this.out.close();
+        }
+    }
+
+    /**
+     * Compresse et écrit le bloc en cours
+     *
+     * @throws IOException si le bloc ne peut pas être écrit
+     */
+    private void writeBlock() throws IOException {
+        byte[] compressed = BlockCompressor.compressBlock(ByteBuffer.wrap(this.block, 0, this.length), 1);
+
+        this.out.write(compressed);
+        this.index.add(compressed.length - BlockCompressor.BLOCK_HEADER_SIZE, this.length);
+        this.length = 0;
+    }
+
+    /**
+     * Vérifie que le flux n'est pas fermé
+     *
+     * @throws IOException si le flux est fermé
+     */
+    private void ensureOpen() throws IOException {
+        if (this.closed)
+            throw new IOException("Stream closed");
+    }
+}
@@ -1,278 +1,738 @@
-package huffman;
-
-import io.BinaryReader;
-import io.BinaryWriter;
-import io.ReadFile;
-import io.WriteFile;
-import utils.Utils;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-
-/**
- * Gère l'arbre de Huffman
- *
- * @author louka DOZ, Wissam AIT KHEDDACHE
- */
-public class HuffmanTree {
-    /**
-     * Racine
-     */
-    private Node root;
-
-
-    /**
-     * Constructeur
-     * Construit un arbre vide
-     */
-    public HuffmanTree() {
-        this.root = null;
-    }
-
-    /**
-     * Constructeur
-     *
-     * @param root racine, utilise {@link HuffmanTree#setTree(Node)}
-     **/
-    public HuffmanTree(Node root) {
-        this.setTree(root);
-    }
-
-    /**
-     * Constructeur
-     *
-     * @param heap tas, utilise {@link HuffmanTree#setTree(ArrayList)}. Le tas sera modifiée, donner une copie pour éviter cela
-     **/
-    public HuffmanTree(ArrayList<TreeElement> heap) {
-        this.setTree(heap);
-    }
-
-    /**
-     * Définir l'arbre
-     *
-     * @param root racine du nouvel arbre
-     * @throws NullPointerException si root vaut null
-     **/
-    public void setTree(Node root) {
-        if (root == null)
-            throw new NullPointerException("Root cannot be null");
-
-        this.root = root;
-    }
-
-    /**
-     * Trouve et supprime le plus petit {@link TreeElement} de le tas, selon la comparaison {@link TreeElement#comparedTo}
-     *
-     * @param heap tas
-     * @return le plus petit élément
-     */
-    private TreeElement getSmaller(ArrayList<TreeElement> heap) {
-        TreeElement min = heap.get(0);
-
-        for (int i = 1; i < heap.size(); i++) {
-            TreeElement te = heap.get(i);
-
-            if (te.comparedTo(min) < 0)
-                min = te;
-        }
-
-        heap.remove(min);
-        return min;
-    }
-
-    /**
-     * Contruit un arbre depuis un tas de {@link TreeElement}
-     * cf. Algorithme de construction de l’arbre de Huffman
-     *
-     * @param heap tas. Le tas sera modifiée, donner une copie pour éviter cela
-     * @throws NullPointerException     si le tas est null
-     * @throws IllegalArgumentException si le tas contient 1 élément ou moins
-     **/
-    public void setTree(ArrayList<TreeElement> heap) {
-        int n = heap.size();
-
-        if (n <= 1)
-            throw new IllegalArgumentException("The heap must contain more than one element");
-
-        new FrequencyReader().heapSort(heap);
-        for (int i = 1; i < n; i++) {
-            TreeElement x = this.getSmaller(heap);
-            TreeElement y = this.getSmaller(heap);
-
-            Node z = new Node(y.getValue(), x.getFrequency() + y.getFrequency(), x, y);
-
-            heap.add(z);
-        }
-
-        this.root = (Node) heap.get(0);
-    }
-
-    /**
-     * Retourne la valeur binaire d'un caractère
-     *
-     * @param c caractère
-     * @return une chaine de 0 et 1 correspondant à la valeur binaire de c,
-     * sinon une chaine vide si le caractère n'est pas présent dans l'arbre
-     * @throws NullPointerException pour tout noeud n'ayant pas 2 enfants ou si l'arbre est vide
-     */
-    public String getCharCode(char c) {
-        return this.root.getCharCode(c);
-    }
-
-    /**
-     * Encode l'arbre en une chaîne de bit à partir du noeud actuel, afin de pouvoir le reconstruire lors du décompressage
-     * 0 représente un noeud, 1 une feuille
-     * Parcours en profondeur l'abre en priorisant l'enfant de gauche
-     * Chaque feuille donne 1 suivit de l'octet correspondant à sa valeur : 1xxxxxxxx
-     * Ainsi, 001xxxxxxxxxxxxxxxx1yyyyyyyyyyyyyyyy1zzzzzzzzzzzzzzzz correspond à une arbre :
-     *
-     * Noeud (racine)
-     * \_gauche_ noeud
-     * .....\_gauche_ feuille (valeur en binaire = xxxxxxxxxxxxxxxx)
-     * .....\_droite_ feuille (valeur en binaire = yyyyyyyyyyyyyyyy)
-     * \_droite_ feuille (valeur en binaire = zzzzzzzzzzzzzzzz)     *
-     *
-     * @param bw   écrivain
-     * @param node noeud actuel
-     */
-    private void encodeTree(BinaryWriter bw, Node node) {
-        TreeElement[] children = new TreeElement[2];
-        children[0] = node.getLeftChild(); //Enfant gauche
-        children[1] = node.getRightChild(); //Enfant droit
-        bw.write("0"); //Ajouter 0 car noeud
-
-        for (TreeElement child : children) {
-            if (child instanceof Node)
-                this.encodeTree(bw, (Node) child);
-            else {
-                //Ajouter 1 suivit de la valeur de la feuille en binaire
-                //On doit s'assurer, à la décompression, de bien récupérer les 2 octets correpondant à la valeur (caractère)
-                //de la feuille
-                //Pour cela, on ajoute autant de 0 que nécessaire pour être sûr d'avoir une suite de 16 bits exactement
-                StringBuilder binaryValue = new StringBuilder(Utils.charToBinaryString(child.getValue()));
-                Utils.completeBinaryStringBefore16(binaryValue);
-                bw.write("1");
-                bw.write(binaryValue.toString());
-            }
-        }
-    }
-
-    /**
-     * Compresse un contenu dans un fichier, à l'aide le l'arbre de Huffman et à l'aide de {@link BinaryWriter}
-     *
-     * @param source      chemin vers le fichier à compresser
-     * @param destination chemin vers le fichier qui va recevoir le contenu encodé
-     * @throws IllegalStateException         si l'arbre vaut null
-     * @throws UnsupportedOperationException si le contenu à compresser contient un caractère unconnu de l'arbre
-     */
-    public void compress(String source, String destination) {
-        if (this.root == null)
-            throw new IllegalStateException("Tree is null");
-
-        ReadFile rf = new ReadFile(source);
-        BinaryWriter bw = new BinaryWriter(destination);
-        Character c;
-
-        //Encoder l'arbre
-        this.encodeTree(bw, this.root);
-
-        //Convertir chaque caractère en une suite de bit basé sur l'arbre et construire une chaîne avec
-        //Cette map stocke le code des caractères déjà rencontrés dans un but d'optimisation
-        Map<Character, String> codes = new HashMap<>();
-        while ((c = rf.readChar()) != null) {
-            if (!codes.containsKey(c)) {
-                String code = this.getCharCode(c);
-
-                //Vérifier que le caractère existe dans l'arbre
-                if (!code.equals(""))
-                    codes.put(c, code);
-                else
-                    throw new UnsupportedOperationException("Tree does not contain the value " + c);
-            }
-
-            bw.write(codes.get(c));
-        }
-
-        String EOFCode = this.getCharCode(FrequencyReader.EOF);
-        if (!EOFCode.equals(""))
-            //Ajouter un EOF à la fin
-            bw.write(EOFCode);
-        else
-            throw new UnsupportedOperationException("Tree does not contain the value EOF");
-
-        //A la fin du fichier encodé, des 0 sont rajoutés si l'ensemble des bits écrits ne sont pas multiples de 8,
-        //cela permet d'écrire un octet.
-        //Les 0 rajoutés ne seront pas pris en compte puisqu'ils sont après le code de EOF.
-        //Ils permettent d'avoir une chaîne multiple de 8 et ainsi être sûr d'avoir la bonne séquence de bit à la décompression.
-        //En effet, transformer 101 en octet donne 00000101, ce qui change le contenu.
-        //Alors que si 101 est ou fait parti du codage de EOF, 10100000 ne change rien, les 5 deniers 0 étant ignorés
-        bw.close();
-    }
-
-    /**
-     * Décode l'arbre
-     * @param br lecteur du fichier compressé
-     * @return la racine de l'arbre
-     */
-    public static TreeElement decodeTree(BinaryReader br) {
-        if (br.readBit()) {
-            //Leaf
-            char v = Utils.binaryStringToChar(br.readChar());
-
-            return new Leaf(v);
-        } else {
-            //Node
-            TreeElement left = HuffmanTree.decodeTree(br);
-            TreeElement right = HuffmanTree.decodeTree(br);
-
-            return new Node(right.getValue(), left.getFrequency() + right.getFrequency(), left, right);
-        }
-    }
-
-    /**
-     * Décompresse le contenu d'un fichier compressé, à l'aide de {@link BinaryReader}
-     *
-     * @param br          écrivain
-     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
-     * @throws IllegalStateException si l'arbre vaut null
-     */
-    public void decompress(BinaryReader br, String destination) {
-        if (this.root == null)
-            throw new IllegalStateException("Tree is null");
-
-        WriteFile wf = new WriteFile(destination);
-        TreeElement current = this.root;
-
-        while (true) {
-            if (!br.readBit())
-                current = ((Node) current).getLeftChild();
-            else
-                current = ((Node) current).getRightChild();
-
-            if (current instanceof Leaf) {
-                if (current.getValue() == FrequencyReader.EOF)
-                    break;
-                else {
-                    wf.write(current.getValue());
-                    current = this.root;
-                }
-            }
-        }
-
-        wf.close();
-    }
-
-    /**
-     * Retroune l'arbre sous forme de chaîne de caractères
-     *
-     * @return l'arbre sous forme de chaîne de caractères
-     */
-    @Override
-    public String toString() {
-        if (this.root == null)
-            return "{}";
-
-        return this.root.toString();
-    }
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+import io.MappedFile;
+import io.ReadFile;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Gère l'arbre de Huffman
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class HuffmanTree {
+    /**
+     * Arbre à plat, null si les codes ont été définis sans arbre
+     */
+    private FlatTree tree;
+
+    /**
+     * Table des codes de l'arbre, construite à la demande ou lue dans un fichier compressé
+     */
+    private CodeTable codeTable;
+
+    /**
+     * Alphabet des symboles de l'arbre, {@link Format#CHARS} ou {@link Format#BYTES}
+     */
+    private int alphabet = Format.CHARS;
+
+    /**
+     * Longueur maximale d'un code
+     */
+    private int maxCodeLength = CodeTable.MAX_CODE_LENGTH;
+
+    /**
+     * Constructeur
+     * Construit un arbre vide
+     */
+    public HuffmanTree() {
+        this.tree = null;
+    }
+
+    /**
+     * Constructeur
+     *
+     * @param root racine, utilise {@link HuffmanTree#setTree(Node)}
+     **/
+    public HuffmanTree(Node root) {
+        this.setTree(root);
+    }
+
+    /**
+     * Constructeur
+     *
+     * @param heap tas, utilise {@link HuffmanTree#setTree(ArrayList)}
+     **/
+    public HuffmanTree(ArrayList<TreeElement> heap) {
+        this.setTree(heap);
+    }
+
+    /**
+     * Constructeur
+     * Calcule directement les codes canoniques, sans créer de noeud ({@link CodeLengths#compute(int[], int)}),
+     * sans dépasser {@link CodeTable#MAX_CODE_LENGTH} bits
+     *
+     * @param frequencies fréquence de chaque symbole, indexée par symbole.
+     *                    256 symboles pour l'alphabet {@link Format#BYTES}, 65536 pour {@link Format#CHARS}
+     * @throws IllegalArgumentException si la taille du tableau ne correspond à aucun alphabet
+     */
+    public HuffmanTree(int[] frequencies) {
+        this(frequencies, CodeTable.MAX_CODE_LENGTH);
+    }
+
+    /**
+     * Constructeur
+     * Calcule directement les codes canoniques, sans créer de noeud ({@link CodeLengths#compute(int[], int)})
+     *
+     * @param frequencies   fréquence de chaque symbole, indexée par symbole.
+     *                      256 symboles pour l'alphabet {@link Format#BYTES}, 65536 pour {@link Format#CHARS}
+     * @param maxCodeLength longueur maximale d'un code, par exemple 11, 12 ou 15 pour des tables de décodage plus petites
+     * @throws IllegalArgumentException si la taille du tableau ne correspond à aucun alphabet
+     *                                  ou si la longueur maximale ne permet pas de coder tous les symboles
+     */
+    public HuffmanTree(int[] frequencies, int maxCodeLength) {
+        this.setCodeTable(new CodeTable(CodeLengths.compute(frequencies, checkMaxCodeLength(maxCodeLength))));
+        this.maxCodeLength = maxCodeLength;
+    }
+
+    /**
+     * Constructeur
+     * Calcule directement les codes canoniques à partir de fréquences sur 64 bits ({@link CodeLengths#compute(long[], int)}),
+     * par exemple celles d'un fichier de plusieurs Go ({@link FrequencyReader#readBytes(MappedFile)}),
+     * sans dépasser {@link CodeTable#MAX_CODE_LENGTH} bits
+     *
+     * @param frequencies fréquence de chaque symbole, indexée par symbole.
+     *                    256 symboles pour l'alphabet {@link Format#BYTES}, 65536 pour {@link Format#CHARS}
+     * @throws IllegalArgumentException si la taille du tableau ne correspond à aucun alphabet
+     */
+    public HuffmanTree(long[] frequencies) {
+        this(frequencies, CodeTable.MAX_CODE_LENGTH);
+    }
+
+    /**
+     * Constructeur
+     * Calcule directement les codes canoniques à partir de fréquences sur 64 bits ({@link CodeLengths#compute(long[], int)})
+     *
+     * @param frequencies   fréquence de chaque symbole, indexée par symbole.
+     *                      256 symboles pour l'alphabet {@link Format#BYTES}, 65536 pour {@link Format#CHARS}
+     * @param maxCodeLength longueur maximale d'un code
+     * @throws IllegalArgumentException si la taille du tableau ne correspond à aucun alphabet
+     *                                  ou si la longueur maximale ne permet pas de coder tous les symboles
+     */
+    public HuffmanTree(long[] frequencies, int maxCodeLength) {
+        this.setCodeTable(new CodeTable(CodeLengths.compute(frequencies, checkMaxCodeLength(maxCodeLength))));
+        this.maxCodeLength = maxCodeLength;
+    }
+
+    /**
+     * Vérifie une longueur maximale de code
+     *
+     * @param maxCodeLength longueur maximale d'un code
+     * @return la longueur maximale
+     * @throws IllegalArgumentException si la longueur n'est pas comprise entre 1 et {@link CodeTable#MAX_CODE_LENGTH}
+     */
+    private static int checkMaxCodeLength(int maxCodeLength) {
+        if (maxCodeLength < 1 || maxCodeLength > CodeTable.MAX_CODE_LENGTH)
+            throw new IllegalArgumentException("Max code length must be between 1 and " + CodeTable.MAX_CODE_LENGTH);
+
+        return maxCodeLength;
+    }
+
+    /**
+     * Définir la longueur maximale d'un code
+     * Les codes de l'arbre qui dépassent cette longueur sont recalculés par package-merge ({@link CodeLengths#compute(long[], int)})
+     * N'a pas d'effet sur des codes déjà définis par {@link HuffmanTree#setCodeTable(CodeTable)}
+     *
+     * @param maxCodeLength longueur maximale d'un code, {@link CodeTable#MAX_CODE_LENGTH} par défaut
+     * @throws IllegalArgumentException si la longueur n'est pas comprise entre 1 et {@link CodeTable#MAX_CODE_LENGTH}
+     */
+    public void setMaxCodeLength(int maxCodeLength) {
+        this.maxCodeLength = checkMaxCodeLength(maxCodeLength);
+
+        if (this.tree != null)
+            this.codeTable = null;
+    }
+
+    /**
+     * Obtenir la longueur maximale d'un code
+     *
+     * @return la longueur maximale d'un code
+     */
+    public int getMaxCodeLength() {
+        return this.maxCodeLength;
+    }
+
+    /**
+     * Définir l'arbre
+     * L'arbre est converti en {@link FlatTree}, les objets donnés ne sont pas conservés
+     *
+     * @param root racine du nouvel arbre
+     * @throws NullPointerException si root vaut null
+     **/
+    public void setTree(Node root) {
+        this.setTree(FlatTree.of(root));
+    }
+
+    /**
+     * Définir l'arbre
+     *
+     * @param tree nouvel arbre
+     * @throws NullPointerException si tree vaut null
+     **/
+    public void setTree(FlatTree tree) {
+        if (tree == null)
+            throw new NullPointerException("Tree cannot be null");
+
+        this.tree = tree;
+        this.codeTable = null;
+        this.alphabet = Format.CHARS;
+    }
+
+    /**
+     * Contruit un arbre depuis un tas de {@link TreeElement}, voir {@link FlatTree#build(java.util.List)}
+     * Aucun {@link Node} n'est créé : l'arbre est construit dans des tableaux d'indices
+     *
+     * @param heap tas. Le tas n'est pas modifié
+     * @throws NullPointerException     si le tas est null
+     * @throws IllegalArgumentException si le tas contient 1 élément ou moins
+     * @see CodeLengths#compute(int[]) pour obtenir uniquement les longueurs des codes, sans créer d'arbre
+     **/
+    public void setTree(ArrayList<TreeElement> heap) {
+        long start = Metrics.start();
+
+        this.setTree(FlatTree.build(heap));
+
+        Metrics.phase(Phase.TREE_BUILD, start, 0, heap.size());
+    }
+
+    /**
+     * Obtenir l'arbre
+     *
+     * @return l'arbre à plat, null si les codes ont été définis sans arbre ({@link HuffmanTree#setCodeTable(CodeTable)})
+     */
+    public FlatTree getTree() {
+        return this.tree;
+    }
+
+    /**
+     * Retourne la valeur binaire d'un caractère
+     *
+     * @param c caractère
+     * @return une chaine de 0 et 1 correspondant à la valeur binaire de c,
+     * sinon une chaine vide si le caractère n'est pas présent dans l'arbre
+     * @throws NullPointerException pour tout noeud n'ayant pas 2 enfants ou si l'arbre est vide
+     */
+    public String getCharCode(char c) {
+        if (this.tree == null && this.codeTable == null)
+            throw new NullPointerException("Tree is null");
+
+        CodeTable table = this.getCodeTable();
+
+        if (!table.isUsable())
+            return this.tree.getCharCode(c);
+
+        return table.getCharCode(c);
+    }
+
+    /**
+     * Obtenir la table des codes de l'arbre
+     * Construite en un seul parcours de l'arbre lors du premier appel, les codes sont ensuite rendus canoniques
+     * Si un code dépasse la longueur maximale ({@link HuffmanTree#setMaxCodeLength(int)}), les longueurs sont recalculées
+     * à partir des fréquences des feuilles par package-merge
+     * Un arbre décodé d'un fichier n'a pas de fréquences : s'il a des codes de plus de {@link CodeTable#MAX_CODE_LENGTH} bits,
+     * la table garde les codes de l'arbre et n'est pas utilisable
+     *
+     * @return la table des codes, indexée par caractère
+     * @throws NullPointerException si l'arbre est vide
+     */
+    public CodeTable getCodeTable() {
+        if (this.codeTable == null) {
+            CodeTable table = new CodeTable(this.tree, Character.MAX_VALUE + 1);
+
+            if (table.getMaxLength() <= this.maxCodeLength) {
+                this.codeTable = table.toCanonical();
+                Metrics.codes(this.codeTable.getLengths());
+            } else if (this.tree.isFrequencySet()) {
+                long[] frequencies = new long[Character.MAX_VALUE + 1];
+                collectFrequencies(this.tree, frequencies);
+                this.codeTable = new CodeTable(CodeLengths.compute(frequencies, this.maxCodeLength));
+            } else {
+                this.codeTable = table;
+                Metrics.codes(table.getLengths());
+            }
+        }
+
+        return this.codeTable;
+    }
+
+    /**
+     * Additionne la fréquence de chaque feuille de l'arbre
+     *
+     * @param tree        arbre
+     * @param frequencies reçoit la fréquence de chaque feuille, indexée par sa valeur
+     */
+    private static void collectFrequencies(FlatTree tree, long[] frequencies) {
+        for (int i = 0; i < tree.size(); i++) {
+            //Une feuille de fréquence nulle doit tout de même recevoir un code
+            if (tree.isLeaf(i))
+                frequencies[tree.getValue(i)] += Math.max(tree.getFrequency(i), 1);
+        }
+    }
+
+    /**
+     * Définir les codes sans arbre, par exemple après lecture des longueurs des codes canoniques
+     * {@link CodeTable#readLengths(BinaryReader, int)}
+     *
+     * @param codeTable table des codes, de 256 symboles pour l'alphabet {@link Format#BYTES}, 65536 pour {@link Format#CHARS}
+     * @throws NullPointerException     si codeTable vaut null
+     * @throws IllegalArgumentException si la taille de la table ne correspond à aucun alphabet
+     */
+    public void setCodeTable(CodeTable codeTable) {
+        if (codeTable == null)
+            throw new NullPointerException("Code table cannot be null");
+
+        if (codeTable.getAlphabetSize() == Format.alphabetSize(Format.BYTES))
+            this.alphabet = Format.BYTES;
+        else if (codeTable.getAlphabetSize() == Format.alphabetSize(Format.CHARS))
+            this.alphabet = Format.CHARS;
+        else
+            throw new IllegalArgumentException("Code table must contain 256 or 65536 symbols");
+
+        this.tree = null;
+        this.codeTable = codeTable;
+    }
+
+    /**
+     * Obtenir l'alphabet des symboles de l'arbre
+     *
+     * @return {@link Format#CHARS} ou {@link Format#BYTES}
+     */
+    public int getAlphabet() {
+        return this.alphabet;
+    }
+
+    /**
+     * Compresse un contenu dans un fichier, à l'aide le l'arbre de Huffman et à l'aide de {@link BinaryWriter}
+     * Le fichier est au format {@link Format#SIZED} : seuls les longueurs des codes et le nombre de caractères précèdent le contenu
+     * Avec l'alphabet {@link Format#BYTES}, le fichier est lu octet par octet, sans décodage de caractères ({@link Format#CANONICAL})
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu encodé
+     * @throws IllegalStateException         si l'arbre vaut null ou si un code dépasse {@link CodeTable#MAX_CODE_LENGTH} bits
+     * @throws UnsupportedOperationException si le contenu à compresser contient un caractère unconnu de l'arbre
+     * @throws UncheckedIOException          si un fichier ne peut pas être lu ou écrit
+     */
+    public void compress(String source, String destination) {
+        if (this.tree == null && this.codeTable == null)
+            throw new IllegalStateException("Tree is null");
+
+        if (this.alphabet == Format.BYTES) {
+            this.compressBytes(source, destination);
+            return;
+        }
+
+        CodeTable table = this.getCodeTable();
+
+        if (!table.isUsable())
+            throw new IllegalStateException("Codes longer than " + CodeTable.MAX_CODE_LENGTH + " bits");
+
+        ReadFile rf = new ReadFile(source);
+        BinaryWriter bw = new BinaryWriter(destination);
+
+        //Encoder les longueurs des codes
+        new Format(Format.SIZED, Format.CHARS).write(bw);
+        table.writeLengths(bw);
+
+        //Réserver la place du nombre de caractères, connu seulement après l'encodage
+        bw.alignToByte();
+        long position = bw.getByteCount();
+        Format.writeLong(bw, 0);
+
+        //Convertir chaque caractère en une suite de bit grâce à la table des codes
+        long length = this.encode(rf, bw, table);
+        rf.close();
+
+        //A la fin du fichier encodé, des 0 sont rajoutés si l'ensemble des bits écrits ne sont pas multiples de 8,
+        //cela permet d'écrire un octet.
+        //Les 0 rajoutés ne seront pas décodés puisque le nombre de caractères est connu
+        bw.close();
+
+        writeLength(destination, position, length);
+    }
+
+    /**
+     * Ecrit le nombre de caractères à la place réservée dans un fichier compressé
+     * Les 64 bits sont écrits comme par {@link Format#writeLong(BinaryWriter, long)}
+     *
+     * @param destination chemin vers le fichier compressé
+     * @param position    position de la place réservée, en octets
+     * @param length      nombre de caractères
+     * @throws UncheckedIOException si le fichier ne peut pas être écrit
+     */
+    private static void writeLength(String destination, long position, long length) {
+        try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, length), position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while writing : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compresse un fichier octet par octet, avec l'alphabet {@link Format#BYTES}
+     *
+     * @param source      chemin vers le fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu encodé
+     * @throws UnsupportedOperationException si le contenu à compresser contient un octet unconnu de l'arbre
+     * @throws UncheckedIOException          si un fichier ne peut pas être lu ou écrit
+     */
+    private void compressBytes(String source, String destination) {
+        try (MappedFile mapped = new MappedFile(source)) {
+            this.compress(mapped, destination);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while compressing : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compresse un fichier projeté en mémoire octet par octet, avec l'alphabet {@link Format#BYTES}
+     * Les octets sont lus directement dans les pages projetées : si les fréquences ont été comptées sur le même
+     * {@link MappedFile} ({@link FrequencyReader#readBytes(MappedFile)}), ce second passage est servi par le cache du système
+     * Le nombre d'octets est écrit après les longueurs des codes, il n'y a donc pas de EOF
+     *
+     * @param source      fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu encodé
+     * @throws IOException                   si le fichier ne peut pas être projeté ou écrit
+     * @throws IllegalStateException         si l'arbre vaut null ou si son alphabet n'est pas {@link Format#BYTES}
+     * @throws UnsupportedOperationException si le contenu à compresser contient un octet unconnu de l'arbre
+     */
+    public void compress(MappedFile source, String destination) throws IOException {
+        this.checkBytes();
+        this.compress(source, new FileOutputStream(destination));
+    }
+
+    /**
+     * Compresse un fichier projeté en mémoire octet par octet dans un flux, comme {@link HuffmanTree#compress(MappedFile, String)}
+     *
+     * @param source fichier à compresser
+     * @param out    flux qui va recevoir le contenu encodé, fermé à la fin
+     * @throws IOException                   si le fichier ne peut pas être projeté ou si le flux ne peut pas être écrit
+     * @throws IllegalStateException         si l'arbre vaut null ou si son alphabet n'est pas {@link Format#BYTES}
+     * @throws UnsupportedOperationException si le contenu à compresser contient un octet unconnu de l'arbre
+     */
+    public void compress(MappedFile source, OutputStream out) throws IOException {
+        this.checkBytes();
+
+        BinaryWriter bw = new BinaryWriter(out);
+
+        try {
+            new Format(Format.CANONICAL, Format.BYTES).write(bw);
+            this.getCodeTable().writeLengths(bw);
+            Format.writeLong(bw, source.length());
+
+            for (int w = 0; w < source.getWindowCount(); w++)
+                this.encode(source.getWindow(w), bw);
+        } finally {
+            bw.close();
+        }
+    }
+
+    /**
+     * Vérifie que l'arbre peut compresser un fichier octet par octet
+     *
+     * @throws IllegalStateException si l'arbre vaut null ou si son alphabet n'est pas {@link Format#BYTES}
+     */
+    private void checkBytes() {
+        if (this.tree == null && this.codeTable == null)
+            throw new IllegalStateException("Tree is null");
+
+        if (this.alphabet != Format.BYTES)
+            throw new IllegalStateException("Mapped files are compressed with the bytes alphabet");
+    }
+
+    /**
+     * Encode les octets restants d'un tampon grâce à la table des codes, avec l'alphabet {@link Format#BYTES}
+     * Les octets sont lus avec des lectures absolues, sans copie ni déplacement de la position du tampon
+     *
+     * @param data octets à encoder, de la position à la limite du tampon
+     * @param bw   écrivain recevant les codes
+     * @throws UnsupportedOperationException si un octet est inconnu de l'arbre
+     */
+    public void encode(ByteBuffer data, BinaryWriter bw) {
+        long start = Metrics.start();
+        long written = bw.getByteCount();
+        CodeTable table = this.getCodeTable();
+        int[] codes = table.getCodes();
+        byte[] lengths = table.getLengths();
+
+        for (int i = data.position(); i < data.limit(); i++) {
+            int b = data.get(i) & 0xFF;
+
+            //Vérifier que l'octet existe dans l'arbre
+            if (lengths[b] == 0)
+                throw new UnsupportedOperationException("Tree does not contain the value " + b);
+
+            bw.writeBits(codes[b], lengths[b]);
+        }
+
+        Metrics.phase(Phase.PAYLOAD_ENCODE, start, bw.getByteCount() - written, data.remaining());
+    }
+
+    /**
+     * Encode des octets grâce à la table des codes, avec l'alphabet {@link Format#BYTES}
+     *
+     * @param data   octets à encoder
+     * @param offset position du premier octet
+     * @param length nombre d'octets
+     * @param bw     écrivain recevant les codes
+     * @throws UnsupportedOperationException si un octet est inconnu de l'arbre
+     */
+    public void encode(byte[] data, int offset, int length, BinaryWriter bw) {
+        long start = Metrics.start();
+        long written = bw.getByteCount();
+        CodeTable table = this.getCodeTable();
+        int[] codes = table.getCodes();
+        byte[] lengths = table.getLengths();
+
+        for (int i = offset; i < offset + length; i++) {
+            int b = data[i] & 0xFF;
+
+            //Vérifier que l'octet existe dans l'arbre
+            if (lengths[b] == 0)
+                throw new UnsupportedOperationException("Tree does not contain the value " + b);
+
+            bw.writeBits(codes[b], lengths[b]);
+        }
+
+        Metrics.phase(Phase.PAYLOAD_ENCODE, start, bw.getByteCount() - written, length);
+    }
+
+    /**
+     * Encode le contenu d'un fichier grâce à la table des codes
+     * Aucune recherche dans l'arbre, aucun objet ni aucune chaîne par caractère
+     *
+     * @param rf    lecteur du fichier à compresser
+     * @param bw    écrivain du fichier compressé
+     * @param table table des codes
+     * @return le nombre de caractères encodés
+     * @throws UnsupportedOperationException si le contenu à compresser contient un caractère unconnu de l'arbre
+     */
+    private long encode(ReadFile rf, BinaryWriter bw, CodeTable table) {
+        long start = Metrics.start();
+        long written = bw.getByteCount();
+        int[] codes = table.getCodes();
+        byte[] lengths = table.getLengths();
+        char[] buffer = new char[BinaryWriter.BUFFER_SIZE];
+        long symbols = 0;
+        int n;
+
+        while ((n = rf.read(buffer)) > 0) {
+            for (int i = 0; i < n; i++) {
+                char c = buffer[i];
+
+                //Vérifier que le caractère existe dans l'arbre
+                if (lengths[c] == 0)
+                    throw new UnsupportedOperationException("Tree does not contain the value " + c);
+
+                bw.writeBits(codes[c], lengths[c]);
+            }
+
+            symbols += n;
+        }
+
+        Metrics.phase(Phase.PAYLOAD_ENCODE, start, bw.getByteCount() - written, symbols);
+
+        return symbols;
+    }
+
+    /**
+     * Décode l'arbre, voir {@link FlatTree#decode(BinaryReader)}
+     * @param br lecteur du fichier compressé
+     * @return l'arbre
+     */
+    public static FlatTree decodeTree(BinaryReader br) {
+        return FlatTree.decode(br);
+    }
+
+    /**
+     * Décompresse le contenu d'un fichier compressé terminé par EOF ({@link Format#LEGACY} ou {@link Format#CANONICAL}), à l'aide de {@link BinaryReader}
+     * Les symboles sont décodés par {@link DecodingTable}, sauf si l'arbre contient des codes trop longs pour la table
+     * Si l'arbre a été décodé d'un fichier au format {@link Format#LEGACY}, ce sont les codes de l'arbre qui sont utilisés,
+     * sinon ceux définis par {@link HuffmanTree#setCodeTable(CodeTable)}
+     *
+     * @param br          écrivain
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @throws IOException           si le fichier décompressé ne peut pas être créé ou écrit
+     * @throws IllegalStateException si l'arbre vaut null
+     */
+    public void decompress(BinaryReader br, String destination) throws IOException {
+        if (this.tree == null && this.codeTable == null)
+            throw new IllegalStateException("Tree is null");
+
+        CodeTable codes = this.tree != null ? new CodeTable(this.tree, Character.MAX_VALUE + 1) : this.codeTable;
+
+        if (!codes.isUsable()) {
+            this.decompressByWalk(br, destination);
+            return;
+        }
+
+        long start = Metrics.start();
+        long read = br.getByteCount();
+        DecodingTable table = codes.toDecodingTable();
+        long symbols = 0;
+        int c;
+
+        try (Writer writer = new BufferedWriter(new FileWriter(destination))) {
+            while ((c = table.decode(br)) != FrequencyReader.EOF) {
+                writer.write((char) c);
+                symbols++;
+            }
+        }
+
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, br.getByteCount() - read, symbols);
+    }
+
+    /**
+     * Décompresse un contenu compressé avec l'alphabet {@link Format#BYTES}, à l'aide de {@link BinaryReader}
+     * La taille étant connue, le fichier décompressé est créé à sa taille finale et projeté en mémoire
+     * ({@link MappedFile#create(String, long)}) : les octets décodés sont écrits directement dans ses pages
+     *
+     * @param br          lecteur positionné au début du contenu
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @param length      nombre d'octets à décompresser
+     * @throws IOException           si le fichier décompressé ne peut pas être créé ou écrit
+     * @throws IllegalStateException si l'arbre vaut null
+     */
+    public void decompressBytes(BinaryReader br, String destination, long length) throws IOException {
+        if (this.codeTable == null)
+            throw new IllegalStateException("Tree is null");
+
+        long start = Metrics.start();
+        long read = br.getByteCount();
+        DecodingTable table = this.codeTable.toDecodingTable();
+
+        try (MappedFile output = MappedFile.create(destination, length)) {
+            for (int w = 0; w < output.getWindowCount(); w++) {
+                ByteBuffer window = output.getWindow(w);
+
+                for (int i = 0; i < window.limit(); i++)
+                    window.put(i, (byte) table.decode(br));
+            }
+        }
+
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, br.getByteCount() - read, length);
+    }
+
+    /**
+     * Décompresse un contenu compressé au format {@link Format#SIZED}, à l'aide de {@link BinaryReader}
+     * Le nombre de caractères étant connu, aucun EOF n'est cherché : les caractères nuls sont décodés comme les autres
+     *
+     * @param br          lecteur positionné au début du contenu
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @param length      nombre de caractères à décompresser
+     * @throws IOException           si le fichier décompressé ne peut pas être créé ou écrit
+     * @throws IllegalStateException si l'arbre vaut null
+     */
+    public void decompressChars(BinaryReader br, String destination, long length) throws IOException {
+        if (this.codeTable == null)
+            throw new IllegalStateException("Tree is null");
+
+        long start = Metrics.start();
+        long read = br.getByteCount();
+        DecodingTable table = this.codeTable.toDecodingTable();
+        char[] buffer = new char[(int) Math.min(BinaryReader.BUFFER_SIZE, Math.max(1, length))];
+        int n = 0;
+
+        try (Writer writer = new FileWriter(destination)) {
+            for (long i = 0; i < length; i++) {
+                buffer[n++] = (char) table.decode(br);
+
+                if (n == buffer.length) {
+                    writer.write(buffer, 0, n);
+                    n = 0;
+                }
+            }
+
+            writer.write(buffer, 0, n);
+        }
+
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, br.getByteCount() - read, length);
+    }
+
+    /**
+     * Décode des octets encodés par {@link HuffmanTree#encode(byte[], int, int, BinaryWriter)}
+     *
+     * @param br          lecteur positionné au début des codes
+     * @param destination reçoit les octets décodés
+     * @param offset      position du premier octet décodé
+     * @param length      nombre d'octets à décoder
+     * @throws IllegalStateException si l'arbre vaut null ou si un code est invalide
+     */
+    public void decode(BinaryReader br, byte[] destination, int offset, int length) {
+        if (this.codeTable == null)
+            throw new IllegalStateException("Tree is null");
+
+        long start = Metrics.start();
+        long read = br.getByteCount();
+        DecodingTable table = this.codeTable.toDecodingTable();
+
+        for (int i = offset; i < offset + length; i++)
+            destination[i] = (byte) table.decode(br);
+
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, br.getByteCount() - read, length);
+    }
+
+    /**
+     * Décompresse le contenu d'un fichier compressé en parcourant l'arbre bit par bit, d'indice en indice
+     *
+     * @param br          écrivain
+     * @param destination chemin vers le fichier qui va recevoir le contenu décompressé
+     * @throws IOException si le fichier décompressé ne peut pas être créé ou écrit
+     */
+    private void decompressByWalk(BinaryReader br, String destination) throws IOException {
+        long start = Metrics.start();
+        long read = br.getByteCount();
+        FlatTree tree = this.tree;
+        int root = tree.getRoot();
+        int current = root;
+        long symbols = 0;
+
+        try (Writer writer = new BufferedWriter(new FileWriter(destination))) {
+            while (true) {
+                if (!br.readBit())
+                    current = tree.getLeft(current);
+                else
+                    current = tree.getRight(current);
+
+                if (tree.isLeaf(current)) {
+                    if (tree.getValue(current) == FrequencyReader.EOF)
+                        break;
+                    else {
+                        writer.write(tree.getValue(current));
+                        current = root;
+                        symbols++;
+                    }
+                }
+            }
+        }
+
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, br.getByteCount() - read, symbols);
+    }
+
+    /**
+     * Retroune l'arbre sous forme de chaîne de caractères
+     *
+     * @return l'arbre sous forme de chaîne de caractères
+     */
+    @Override
+    public String toString() {
+        if (this.tree == null)
+            return "{}";
+
+        return this.tree.toElement().toString();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package huffman;
+
+import io.BinaryWriter;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Codes d'un bloc répartis sur {@link InterleavedStreams#STREAMS} flux de bits indépendants (mode {@link Format#INTERLEAVED})
+ * Dans un seul flux, la position du code suivant n'est connue qu'une fois le code en cours décodé : chaque symbole
+ * attend le précédent. L'octet i est ici codé dans le flux i % 4, et le décodage avance les 4 flux dans la même boucle :
+ * leurs 4 chaînes de dépendances sont indépendantes et le processeur les exécute en parallèle
+ *
+ * Format, aligné sur un octet : la table de sauts (nombre d'octets des 3 premiers flux, sur 32 bits chacun),
+ * puis les 4 flux, chacun complété jusqu'à l'octet suivant. La taille du dernier flux est le reste du bloc
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+class InterleavedStreams {
+    /**
+     * Nombre de flux
+     */
+    static final int STREAMS = 4;
+
+    /**
+     * Nombre d'octets de la table de sauts
+     */
+    static final int JUMP_TABLE_SIZE = (STREAMS - 1) * Integer.BYTES;
+
+    /**
+     * Encode des octets sur 4 flux, puis écrit la table de sauts et les flux
+     *
+     * @param data  octets à encoder, de la position à la limite
+     * @param table codes des octets
+     * @param bw    écrivain recevant la table de sauts et les flux, à partir de l'octet suivant
+     * @throws UnsupportedOperationException si un octet n'a pas de code
+     */
+    static void encode(ByteBuffer data, CodeTable table, BinaryWriter bw) {
+        long start = Metrics.start();
+        long written = bw.getByteCount();
+        int[] codes = table.getCodes();
+        byte[] lengths = table.getLengths();
+        ByteArrayOutputStream[] outs = new ByteArrayOutputStream[STREAMS];
+        BinaryWriter[] writers = new BinaryWriter[STREAMS];
+
+        for (int s = 0; s < STREAMS; s++) {
+            outs[s] = new ByteArrayOutputStream(data.remaining() / (2 * STREAMS) + 16);
+            writers[s] = new BinaryWriter(outs[s], data.remaining() / STREAMS + 16);
+        }
+
+        for (int i = data.position(); i < data.limit(); i++) {
+            int b = data.get(i) & 0xFF;
+
+            //Vérifier que l'octet a un code
+            if (lengths[b] == 0)
+                throw new UnsupportedOperationException("Tree does not contain the value " + b);
+
+            writers[(i - data.position()) % STREAMS].writeBits(codes[b], lengths[b]);
+        }
+
+        byte[][] streams = new byte[STREAMS][];
+
+        for (int s = 0; s < STREAMS; s++) {
+            writers[s].close();
+            streams[s] = outs[s].toByteArray();
+        }
+
+        bw.alignToByte();
+        for (int s = 0; s < STREAMS - 1; s++)
+            bw.writeBits(streams[s].length, Integer.SIZE);
+
+        for (byte[] stream : streams)
+            bw.writeBytes(stream, 0, stream.length);
+
+        Metrics.phase(Phase.PAYLOAD_ENCODE, start, bw.getByteCount() - written, data.remaining());
+    }
+
+    /**
+     * Lit la table de sauts, puis décode les 4 flux ensemble, directement dans le tableau du bloc compressé
+     * Chaque flux n'est qu'une position en bits : à chaque tour, 8 octets sont lus à cette position dans un accumulateur
+     * de 64 bits (au moins 57 bits utiles) et un code y est décodé par {@link DecodingTable#lookup(int)}, comme
+     * {@link DirectCodec#decode(DecodingTable, ByteBuffer, long, ByteBuffer)}. Les 8 octets peuvent déborder sur le flux
+     * suivant, dont les bits ne sont jamais utilisés par un code valide : seuls les derniers codes, près de la fin du
+     * bloc, sont lus octet par octet
+     *
+     * @param compressed  contenu compressé du bloc
+     * @param offset      position de la table de sauts dans compressed
+     * @param end         position suivant le dernier octet du dernier flux
+     * @param table       table de décodage
+     * @param destination reçoit les octets décodés
+     * @param length      nombre d'octets à décoder
+     * @throws IllegalStateException si la table de sauts ou un flux est invalide
+     */
+    static void decode(byte[] compressed, int offset, int end, DecodingTable table, byte[] destination, int length) {
+        long start = Metrics.start();
+        ByteBuffer in = ByteBuffer.wrap(compressed, 0, end);
+        long[] ends = new long[STREAMS];
+        int position = offset + JUMP_TABLE_SIZE;
+
+        if (position > end)
+            throw new IllegalStateException("Invalid jump table");
+
+        for (int s = 0; s < STREAMS - 1; s++) {
+            int size = in.getInt(offset + s * Integer.BYTES);
+
+            if (size < 0 || size > end - position)
+                throw new IllegalStateException("Invalid jump table");
+
+            position += size;
+            ends[s] = (long) position * Byte.SIZE;
+        }
+
+        ends[STREAMS - 1] = (long) end * Byte.SIZE;
+
+        //Position en bits du prochain code de chaque flux
+        long p0 = (long) (offset + JUMP_TABLE_SIZE) * Byte.SIZE;
+        long p1 = ends[0];
+        long p2 = ends[1];
+        long p3 = ends[2];
+        long fastLimit = (long) (end - Long.BYTES) * Byte.SIZE;
+        int last = length - length % STREAMS;
+        int i = 0;
+
+        //Les 4 décodages d'un tour ne dépendent pas les uns des autres
+        for (; i < last && Math.max(Math.max(p0, p1), Math.max(p2, p3)) <= fastLimit; i += STREAMS) {
+            int e0 = table.lookup((int) ((in.getLong((int) (p0 >>> 3)) << (p0 & 7)) >>> Integer.SIZE));
+            int e1 = table.lookup((int) ((in.getLong((int) (p1 >>> 3)) << (p1 & 7)) >>> Integer.SIZE));
+            int e2 = table.lookup((int) ((in.getLong((int) (p2 >>> 3)) << (p2 & 7)) >>> Integer.SIZE));
+            int e3 = table.lookup((int) ((in.getLong((int) (p3 >>> 3)) << (p3 & 7)) >>> Integer.SIZE));
+            destination[i] = (byte) (e0 >>> 8);
+            destination[i + 1] = (byte) (e1 >>> 8);
+            destination[i + 2] = (byte) (e2 >>> 8);
+            destination[i + 3] = (byte) (e3 >>> 8);
+            p0 += e0 & 0xFF;
+            p1 += e1 & 0xFF;
+            p2 += e2 & 0xFF;
+            p3 += e3 & 0xFF;
+        }
+
+        long[] positions = {p0, p1, p2, p3};
+
+        for (; i < length; i++) {
+            int s = i % STREAMS;
+            int entry = table.lookup(DirectCodec.peek(in, positions[s]));
+            destination[i] = (byte) (entry >>> 8);
+            positions[s] += entry & 0xFF;
+        }
+
+        for (int s = 0; s < STREAMS; s++)
+            if (positions[s] > ends[s])
+                throw new IllegalStateException("Not enough bits in stream " + s);
+
+        Metrics.phase(Phase.PAYLOAD_DECODE, start, end - offset, length);
+    }
+}
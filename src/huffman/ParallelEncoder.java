@@ -0,0 +1,320 @@
+package huffman;
+
+import io.MappedFile;
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Encode un seul flux de bits sur plusieurs threads, identique bit à bit à celui de {@link HuffmanTree#compress(MappedFile, String)}
+ * Le contenu est découpé en segments :
+ * - la longueur en bits des codes de chaque segment est calculée en parallèle
+ * - les sommes cumulées de ces longueurs donnent la position en bits du premier code de chaque segment
+ * - chaque segment est encodé en parallèle à sa position dans le tampon de sortie partagé ({@link DirectCodec#encode})
+ * - les octets à cheval sur deux segments, écrits par les deux threads, sont recousus à la fin
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class ParallelEncoder {
+    /**
+     * Taille des segments par défaut
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 18;
+
+    /**
+     * Taille minimale des segments : un segment couvre au moins 2 octets de sortie,
+     * un octet de sortie n'est donc jamais partagé par plus de 2 segments
+     */
+    public static final int MIN_SEGMENT_SIZE = 1 << 4;
+
+    /**
+     * Nombre de segments encodés par thread entre deux écritures dans le fichier
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    /**
+     * Taille des segments
+     */
+    private int segmentSize;
+
+    /**
+     * Nombre de threads encodant les segments
+     */
+    private int threads;
+
+    /**
+     * Constructeur
+     * Segments de {@link ParallelEncoder#DEFAULT_SEGMENT_SIZE} octets, un thread par coeur
+     */
+    public ParallelEncoder() {
+        this(DEFAULT_SEGMENT_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructeur
+     *
+     * @param segmentSize taille des segments, au moins {@link ParallelEncoder#MIN_SEGMENT_SIZE}
+     * @param threads     nombre de threads encodant les segments
+     * @throws IllegalArgumentException si la taille des segments ou le nombre de threads est invalide
+     */
+    public ParallelEncoder(int segmentSize, int threads) {
+        if (segmentSize < MIN_SEGMENT_SIZE)
+            throw new IllegalArgumentException("Segment size must be superior or equal to " + MIN_SEGMENT_SIZE);
+
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be superior or equal to 1");
+
+        this.segmentSize = segmentSize;
+        this.threads = threads;
+    }
+
+    /**
+     * Obtenir la taille des segments
+     *
+     * @return la taille des segments
+     */
+    public int getSegmentSize() {
+        return this.segmentSize;
+    }
+
+    /**
+     * Obtenir le nombre de threads
+     *
+     * @return le nombre de threads encodant les segments
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Encode les octets d'un tampon à la suite des bits déjà présents dans un autre tampon, comme {@link DirectCodec#encode}
+     *
+     * @param table       table des codes, avec l'alphabet {@link Format#BYTES}
+     * @param source      octets à encoder, de la position à la limite du tampon
+     * @param destination tampon recevant les codes, indexé à partir de 0 jusqu'à sa limite
+     * @param bitOffset   position en bits du premier code dans destination
+     * @return la position en bits suivant le dernier code
+     * @throws IOException                   si l'encodage est interrompu
+     * @throws UnsupportedOperationException si un octet est inconnu de la table
+     * @throws IndexOutOfBoundsException     si destination est trop petit
+     */
+    public long encode(CodeTable table, ByteBuffer source, ByteBuffer destination, long bitOffset) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+
+        try {
+            return this.encode(pool, table, source, destination, bitOffset);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Compresse un fichier projeté en mémoire au format {@link Format#CANONICAL} avec l'alphabet {@link Format#BYTES}
+     * Le fichier produit est identique à celui de {@link HuffmanTree#compress(MappedFile, String)}
+     * Les segments sont encodés par lots dans un tampon direct, vidé dans le fichier après chaque lot
+     *
+     * @param table       table des codes
+     * @param source      fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu encodé
+     * @throws IOException                   si le fichier ne peut pas être écrit ou si l'encodage est interrompu
+     * @throws UnsupportedOperationException si le contenu à compresser contient un octet inconnu de la table
+     */
+    public void compress(CodeTable table, MappedFile source, String destination) throws IOException {
+        long start = Metrics.start();
+        //Taille des lots, pour que leurs codes (au plus 32 bits par octet) tiennent dans un tampon
+        int batch = (int) Math.min((long) this.segmentSize * this.threads * SEGMENTS_PER_THREAD, Integer.MAX_VALUE / Byte.SIZE);
+        long capacity = (long) batch * Math.max(1, table.getMaxLength()) / Byte.SIZE + Long.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.max(DirectCodec.BUFFER_SIZE, capacity));
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        long written = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(destination), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = DirectCodec.flush(channel, buffer, DirectCodec.header(table, source.length(), buffer));
+
+            for (int w = 0; w < source.getWindowCount(); w++) {
+                ByteBuffer window = source.getWindow(w);
+
+                for (int i = 0; i < window.limit(); i += batch) {
+                    position = this.encode(pool, table, window.slice(i, Math.min(batch, window.limit() - i)), buffer, position);
+                    written += position >>> 3;
+                    position = DirectCodec.flush(channel, buffer, position);
+                }
+            }
+
+            written += DirectCodec.write(channel, buffer, (int) ((position + 7) >>> 3));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Metrics.phase(Phase.PAYLOAD_ENCODE, start, written, source.length());
+    }
+
+    /**
+     * Encode les octets d'un tampon sur les threads d'un groupe
+     *
+     * @param pool        groupe de threads
+     * @param table       table des codes
+     * @param source      octets à encoder, de la position à la limite du tampon
+     * @param destination tampon recevant les codes
+     * @param bitOffset   position en bits du premier code dans destination
+     * @return la position en bits suivant le dernier code
+     * @throws IOException si l'encodage est interrompu
+     */
+    private long encode(ExecutorService pool, CodeTable table, ByteBuffer source, ByteBuffer destination, long bitOffset) throws IOException {
+        int count = (int) (((long) source.remaining() + this.segmentSize - 1) / this.segmentSize);
+
+        if (count <= 1)
+            return DirectCodec.encode(table, source, destination, bitOffset);
+
+        ByteBuffer[] segments = new ByteBuffer[count];
+
+        for (int s = 0; s < count; s++) {
+            int from = source.position() + s * this.segmentSize;
+            segments[s] = source.slice(from, Math.min(this.segmentSize, source.limit() - from));
+        }
+
+        //Longueur en bits de chaque segment
+        ArrayList<Future<Long>> tasks = new ArrayList<>(count);
+
+        for (ByteBuffer segment : segments)
+            tasks.add(pool.submit(() -> length(table, segment)));
+
+        //Position du premier code de chaque segment
+        long[] offsets = new long[count + 1];
+        offsets[0] = bitOffset;
+
+        for (int s = 0; s < count; s++)
+            offsets[s + 1] = offsets[s] + waitFor(tasks.get(s));
+
+        if ((offsets[count] + 7) >>> 3 > destination.limit())
+            throw new IndexOutOfBoundsException("Destination is too small");
+
+        //Chaque segment est encodé à sa position ; l'octet qu'il partage avec le précédent est écrit par les deux threads
+        tasks.clear();
+
+        for (int s = 0; s < count; s++) {
+            ByteBuffer segment = segments[s];
+            long offset = offsets[s];
+            tasks.add(pool.submit(() -> DirectCodec.encode(table, segment, destination, offset)));
+        }
+
+        for (Future<Long> task : tasks)
+            waitFor(task);
+
+        //Recoud les octets partagés : fin du segment précédent suivie du début du segment
+        for (int s = 1; s < count; s++) {
+            int shared = (int) (offsets[s] & 7);
+
+            if (shared != 0)
+                destination.put((int) (offsets[s] >>> 3),
+                        (byte) (tail(table, segments[s - 1], shared) << (Byte.SIZE - shared) | head(table, segments[s], Byte.SIZE - shared)));
+        }
+
+        return offsets[count];
+    }
+
+    /**
+     * Calcule la longueur en bits des codes d'un segment
+     *
+     * @param table   table des codes
+     * @param segment octets du segment, de la position à la limite
+     * @return la longueur en bits
+     * @throws UnsupportedOperationException si un octet est inconnu de la table
+     */
+    private static long length(CodeTable table, ByteBuffer segment) {
+        byte[] lengths = table.getLengths();
+        long bits = 0;
+
+        for (int i = segment.position(); i < segment.limit(); i++) {
+            int length = lengths[segment.get(i) & 0xFF];
+
+            //Vérifier que l'octet existe dans l'arbre
+            if (length == 0)
+                throw new UnsupportedOperationException("Tree does not contain the value " + (segment.get(i) & 0xFF));
+
+            bits += length;
+        }
+
+        return bits;
+    }
+
+    /**
+     * Calcule les premiers bits des codes d'un segment
+     *
+     * @param table   table des codes
+     * @param segment octets du segment
+     * @param bits    nombre de bits, moins de 8
+     * @return les premiers bits, complétés par des 0 si le segment est plus court
+     */
+    private static int head(CodeTable table, ByteBuffer segment, int bits) {
+        int[] codes = table.getCodes();
+        byte[] lengths = table.getLengths();
+        long accumulator = 0;
+        int count = 0;
+
+        for (int i = segment.position(); i < segment.limit() && count < bits; i++) {
+            int b = segment.get(i) & 0xFF;
+            accumulator = (accumulator << lengths[b]) | (codes[b] & 0xFFFFFFFFL);
+            count += lengths[b];
+        }
+
+        return (int) (count >= bits ? accumulator >>> (count - bits) : accumulator << (bits - count));
+    }
+
+    /**
+     * Calcule les derniers bits des codes d'un segment
+     *
+     * @param table   table des codes
+     * @param segment octets du segment, couvrant au moins bits bits
+     * @param bits    nombre de bits, moins de 8
+     * @return les derniers bits
+     */
+    private static int tail(CodeTable table, ByteBuffer segment, int bits) {
+        int[] codes = table.getCodes();
+        byte[] lengths = table.getLengths();
+        long accumulator = 0;
+        int count = 0;
+
+        for (int i = segment.limit() - 1; count < bits; i--) {
+            int b = segment.get(i) & 0xFF;
+            accumulator |= (codes[b] & 0xFFFFFFFFL) << count;
+            count += lengths[b];
+        }
+
+        return (int) (accumulator & ((1 << bits) - 1));
+    }
+
+    /**
+     * Attend le résultat d'une tâche
+     *
+     * @param task tâche
+     * @param <T>  type du résultat
+     * @return le résultat
+     * @throws IOException si l'encodage est interrompu
+     */
+    private static <T> T waitFor(Future<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Compression interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package huffman;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+import io.MappedFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Table de codes entraînée sur un échantillon, partagée par de nombreux petits contenus (mode {@link Format#SHARED})
+ * Un contenu compressé ne porte que l'identifiant de la table, et non ses longueurs de codes : pour des messages
+ * de quelques Ko, l'en-tête ne coûte plus que quelques octets et aucun arbre n'est construit par message
+ * Tous les octets ont un code, même ceux absents de l'échantillon, pour que tout contenu puisse être compressé
+ *
+ * Format d'un fichier de table : en-tête ({@link Format#TABLE}), version sur 8 bits, identifiant sur 32 bits,
+ * puis les longueurs des codes ({@link CodeTable#writeLengths(BinaryWriter)})
+ * Format d'un contenu compressé : en-tête ({@link Format#SHARED}), identifiant de la table sur 32 bits,
+ * nombre d'octets + 1 en gamma d'Elias, puis les codes
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class SharedTable {
+    /**
+     * Version du format des fichiers de table
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Extension des fichiers de table
+     */
+    public static final String SUFFIX = ".hft";
+
+    /**
+     * Taille des tampons d'un message : assez pour un message courant, sans allouer les tampons par défaut
+     */
+    private static final int MESSAGE_BUFFER_SIZE = 1 << 12;
+
+    /**
+     * Identifiant : CRC-32 des longueurs des codes
+     */
+    private final int id;
+
+    /**
+     * Codes canoniques
+     */
+    private final CodeTable codeTable;
+
+    /**
+     * Codes de chaque octet, copiés de {@link SharedTable#codeTable}
+     */
+    private final int[] codes;
+
+    /**
+     * Longueur du code de chaque octet, copiées de {@link SharedTable#codeTable}
+     */
+    private final byte[] lengths;
+
+    /**
+     * Table de décodage, construite une seule fois
+     */
+    private final DecodingTable decodingTable;
+
+    /**
+     * Constructeur
+     *
+     * @param codeTable codes canoniques, tous les octets devant avoir un code
+     * @throws IllegalArgumentException si un octet n'a pas de code ou si un code est trop long pour la table de décodage
+     */
+    public SharedTable(CodeTable codeTable) {
+        if (codeTable.getAlphabetSize() != Format.alphabetSize(Format.BYTES) || !codeTable.isUsable())
+            throw new IllegalArgumentException("Shared tables need usable byte codes");
+
+        for (byte length : codeTable.getLengths())
+            if (length == 0)
+                throw new IllegalArgumentException("Shared tables need a code for every byte");
+
+        CRC32 crc = new CRC32();
+        crc.update(codeTable.getLengths());
+
+        this.id = (int) crc.getValue();
+        this.codeTable = codeTable;
+        this.codes = codeTable.getCodes();
+        this.lengths = codeTable.getLengths();
+        this.decodingTable = codeTable.toDecodingTable();
+    }
+
+    /**
+     * Entraîne une table sur des fréquences : chaque octet compte une fois de plus, pour avoir un code
+     *
+     * @param frequencies fréquence de chaque octet dans l'échantillon
+     * @return la table
+     */
+    public static SharedTable train(long[] frequencies) {
+        long[] counts = new long[Format.alphabetSize(Format.BYTES)];
+
+        for (int b = 0; b < counts.length; b++)
+            counts[b] = frequencies[b] + 1;
+
+        int[] lengths = CodeLengths.compute(counts, CodeTable.MAX_CODE_LENGTH);
+
+        return new SharedTable(new CodeTable(lengths));
+    }
+
+    /**
+     * Entraîne une table sur des fichiers d'échantillon
+     *
+     * @param samples chemins des fichiers
+     * @return la table
+     * @throws IOException si un fichier ne peut pas être lu
+     */
+    public static SharedTable train(List<String> samples) throws IOException {
+        FrequencyReader reader = new FrequencyReader();
+        long[] frequencies = new long[Format.alphabetSize(Format.BYTES)];
+
+        for (String sample : samples)
+            try (MappedFile mapped = new MappedFile(sample)) {
+                long[] counts = reader.readBytes(mapped);
+
+                for (int b = 0; b < counts.length; b++)
+                    frequencies[b] += counts[b];
+            }
+
+        return train(frequencies);
+    }
+
+    /**
+     * Obtenir l'identifiant
+     *
+     * @return le CRC-32 des longueurs des codes
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Obtenir l'identifiant en hexadécimal, tel qu'il apparait dans le nom des fichiers de table
+     *
+     * @return l'identifiant sur 8 chiffres hexadécimaux
+     */
+    public String getName() {
+        return name(this.id);
+    }
+
+    /**
+     * Obtenir le nom du fichier d'une table, dans un dossier de tables ({@link TableCache})
+     *
+     * @param id identifiant de la table
+     * @return le nom du fichier
+     */
+    public static String fileName(int id) {
+        return name(id) + SUFFIX;
+    }
+
+    /**
+     * Convertit un identifiant en hexadécimal
+     *
+     * @param id identifiant
+     * @return l'identifiant sur 8 chiffres hexadécimaux
+     */
+    private static String name(int id) {
+        return String.format("%08x", id);
+    }
+
+    /**
+     * Obtenir les codes
+     *
+     * @return les codes canoniques
+     */
+    public CodeTable getCodeTable() {
+        return this.codeTable;
+    }
+
+    /**
+     * Enregistre la table dans un fichier
+     *
+     * @param path chemin du fichier
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public void save(String path) throws IOException {
+        BinaryWriter bw = new BinaryWriter(new FileOutputStream(path));
+
+        new Format(Format.TABLE, Format.BYTES).write(bw);
+        bw.writeBits(VERSION, Byte.SIZE);
+        bw.writeBits(this.id, Integer.SIZE);
+        this.codeTable.writeLengths(bw);
+        bw.close();
+    }
+
+    /**
+     * Charge une table enregistrée par {@link SharedTable#save(String)}
+     *
+     * @param path chemin du fichier
+     * @return la table
+     * @throws IOException           si le fichier ne peut pas être lu
+     * @throws IllegalStateException si le fichier n'est pas une table, si sa version est inconnue ou s'il est corrompu
+     */
+    public static SharedTable load(String path) throws IOException {
+        BinaryReader br = new BinaryReader(new FileInputStream(path), MESSAGE_BUFFER_SIZE);
+
+        try {
+            if (Format.read(br).getMode() != Format.TABLE)
+                throw new IllegalStateException("Not a table file");
+
+            int version = br.readBits(Byte.SIZE);
+
+            if (version != VERSION)
+                throw new IllegalStateException("Unknown table version " + version);
+
+            int id = br.readBits(Integer.SIZE);
+            SharedTable table;
+
+            try {
+                table = new SharedTable(CodeTable.readLengths(br, Format.alphabetSize(Format.BYTES)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid table", e);
+            }
+
+            if (table.id != id)
+                throw new IllegalStateException("Corrupted table " + name(id));
+
+            return table;
+        } finally {
+            br.close();
+        }
+    }
+
+    /**
+     * Compresse un message
+     *
+     * @param data octets du message
+     * @return le message compressé
+     */
+    public byte[] compress(byte[] data) {
+        return this.compress(data, 0, data.length);
+    }
+
+    /**
+     * Compresse un message
+     *
+     * @param data   octets du message
+     * @param offset position du premier octet
+     * @param length nombre d'octets
+     * @return le message compressé
+     */
+    public byte[] compress(byte[] data, int offset, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 16);
+        BinaryWriter bw = new BinaryWriter(out, Math.min(MESSAGE_BUFFER_SIZE, length + 16));
+
+        this.writeHeader(bw, length);
+        for (int i = offset; i < offset + length; i++)
+            bw.writeBits(this.codes[data[i] & 0xFF], this.lengths[data[i] & 0xFF]);
+
+        bw.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * Compresse un fichier
+     *
+     * @param source      fichier à compresser
+     * @param destination chemin vers le fichier qui va recevoir le contenu compressé
+     * @throws IOException si le fichier ne peut pas être lu ou écrit
+     */
+    public void compress(MappedFile source, String destination) throws IOException {
+        this.compress(source, new FileOutputStream(destination));
+    }
+
+    /**
+     * Compresse un fichier dans un flux
+     *
+     * @param source fichier à compresser
+     * @param out    flux qui va recevoir le contenu compressé, fermé à la fin
+     * @throws IOException si le fichier ne peut pas être lu ou si le flux ne peut pas être écrit
+     */
+    public void compress(MappedFile source, OutputStream out) throws IOException {
+        BinaryWriter bw = new BinaryWriter(out);
+
+        try {
+            this.writeHeader(bw, source.length());
+
+            for (int w = 0; w < source.getWindowCount(); w++) {
+                ByteBuffer window = source.getWindow(w);
+
+                for (int i = window.position(); i < window.limit(); i++)
+                    bw.writeBits(this.codes[window.get(i) & 0xFF], this.lengths[window.get(i) & 0xFF]);
+            }
+        } finally {
+            bw.close();
+        }
+    }
+
+    /**
+     * Ecrit l'en-tête d'un contenu compressé
+     * Le nombre d'octets est codé en gamma d'Elias sur 64 bits : quelques bits pour un message, sans limite pour un fichier
+     *
+     * @param bw     écrivain
+     * @param length nombre d'octets du contenu
+     */
+    private void writeHeader(BinaryWriter bw, long length) {
+        new Format(Format.SHARED, Format.BYTES).write(bw);
+        bw.writeBits(this.id, Integer.SIZE);
+        bw.writeGamma(length + 1);
+    }
+
+    /**
+     * Décompresse un message compressé avec une table partagée
+     *
+     * @param compressed message compressé
+     * @param tables     tables connues
+     * @return les octets du message
+     * @throws IOException           si la table doit être chargée et ne peut pas être lue
+     * @throws IllegalStateException si le message est invalide ou si sa table est inconnue
+     */
+    public static byte[] decompress(byte[] compressed, TableCache tables) throws IOException {
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(compressed), Math.min(MESSAGE_BUFFER_SIZE, compressed.length));
+
+        if (Format.read(br).getMode() != Format.SHARED)
+            throw new IllegalStateException("Not compressed with a shared table");
+
+        SharedTable table = tables.get(br.readBits(Integer.SIZE));
+        long length = readLength(br);
+
+        if (length > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Message too large, decompress it to a stream");
+
+        byte[] data = new byte[(int) length];
+
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) table.decodingTable.decode(br);
+
+        return data;
+    }
+
+    /**
+     * Décompresse un contenu compressé avec une table partagée
+     *
+     * @param br     lecteur positionné après l'en-tête ({@link Format#read(BinaryReader)})
+     * @param tables tables connues
+     * @param out    flux recevant le contenu décompressé, qui n'est pas fermé
+     * @throws IOException           si la table ne peut pas être chargée ou si le flux ne peut pas être écrit
+     * @throws IllegalStateException si le contenu est invalide ou si sa table est inconnue
+     */
+    public static void decompress(BinaryReader br, TableCache tables, OutputStream out) throws IOException {
+        SharedTable table = tables.get(br.readBits(Integer.SIZE));
+        long length = readLength(br);
+        byte[] buffer = new byte[(int) Math.min(BinaryReader.BUFFER_SIZE, length)];
+        int n = 0;
+
+        for (long i = 0; i < length; i++) {
+            buffer[n++] = (byte) table.decodingTable.decode(br);
+
+            if (n == buffer.length) {
+                out.write(buffer, 0, n);
+                n = 0;
+            }
+        }
+
+        out.write(buffer, 0, n);
+        out.flush();
+    }
+
+    /**
+     * Lit le nombre d'octets d'un contenu
+     *
+     * @param br lecteur
+     * @return le nombre d'octets
+     * @throws IllegalStateException si le nombre est invalide
+     */
+    private static long readLength(BinaryReader br) {
+        long length = br.readLongGamma() - 1;
+
+        if (length < 0)
+            throw new IllegalStateException("Invalid length");
+
+        return length;
+    }
+}
@@ -0,0 +1,95 @@
+package huffman;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tables partagées connues, gardées en mémoire : une table n'est lue et préparée qu'une seule fois,
+ * puis chaque message ne coûte plus que son décodage
+ * Une table absente est cherchée dans un dossier, sous le nom {@link SharedTable#fileName(int)}
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class TableCache {
+    /**
+     * Dossier des fichiers de table, ou null si seules les tables ajoutées sont connues
+     */
+    private final File directory;
+
+    /**
+     * Tables chargées, par identifiant
+     */
+    private final Map<Integer, SharedTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Constructeur, sans dossier de tables
+     */
+    public TableCache() {
+        this.directory = null;
+    }
+
+    /**
+     * Constructeur
+     *
+     * @param directory dossier des fichiers de table
+     */
+    public TableCache(String directory) {
+        this.directory = new File(directory);
+    }
+
+    /**
+     * Ajoute une table
+     *
+     * @param table table
+     * @return ce cache
+     */
+    public TableCache add(SharedTable table) {
+        this.tables.put(table.getId(), table);
+        return this;
+    }
+
+    /**
+     * Obtenir une table, en la chargeant depuis le dossier si elle n'est pas encore en mémoire
+     *
+     * @param id identifiant de la table
+     * @return la table
+     * @throws IOException           si le fichier de la table ne peut pas être lu
+     * @throws IllegalStateException si la table est inconnue ou si son fichier est invalide
+     */
+    public SharedTable get(int id) throws IOException {
+        SharedTable table = this.tables.get(id);
+
+        if (table != null)
+            return table;
+
+        File file = this.directory == null ? null : new File(this.directory, SharedTable.fileName(id));
+
+        if (file == null || !file.isFile())
+            throw new IllegalStateException("Unknown table " + String.format("%08x", id));
+
+        try {
+            table = SharedTable.load(file.getPath());
+        } catch (FileNotFoundException e) {
+            throw new IllegalStateException("Unknown table " + String.format("%08x", id), e);
+        }
+
+        if (table.getId() != id)
+            throw new IllegalStateException("Table file " + file.getName() + " holds table " + table.getName());
+
+        //Deux threads peuvent charger la même table : la première enregistrée est gardée
+        SharedTable previous = this.tables.putIfAbsent(id, table);
+        return previous == null ? table : previous;
+    }
+
+    /**
+     * Obtenir le nombre de tables en mémoire
+     *
+     * @return le nombre de tables
+     */
+    public int size() {
+        return this.tables.size();
+    }
+}
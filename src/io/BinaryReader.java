@@ -1,128 +1,331 @@
-package io;
-
-import utils.Utils;
-
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-
-/**
- * Permet de lire des bits dans un fichier découpé en octets
- * S'occupe des exceptions
- * Les octets sont lus sous forme d'octets {@link FileInputStream#read()} et transformés en chaîne de bits
- * Lorsque le nombre bits demandés à être lu sont supérieur à ce que on a déjà récupéré, on continue la lecture du fichier
- * @see ReadFile pour une lecture plus rapide destinée aux fichiers classiques
- * @author louka DOZ, Wissam AIT KHEDDACHE
- */
-public class BinaryReader {
-    /**
-     * Lecteur
-     */
-    private FileInputStream reader;
-
-    /**
-     * Chaîne de bits récupérée
-     */
-    private StringBuilder content;
-
-    /**
-     * Constructeur
-     * @param path chemin du fichier
-     */
-    public BinaryReader(String path) {
-        try {
-            this.reader = new FileInputStream(path);
-            this.content = new StringBuilder();
-        } catch (FileNotFoundException e) {
-            System.out.println("Error occurs while opening the file : " + e.getMessage());
-            e.printStackTrace();
-            this.close();
-        }
-    }
-
-    /**
-     * Permet d'obtenir 1 bit du fichier
-     * @return true pour 1, false pour 0
-     * @throws IllegalStateException si le fichier ne contient pas assez de bits pour compléter la demande
-     */
-    public boolean readBit() {
-        this.tryRead(1);
-
-        if(this.content.length() < 1)
-            throw new IllegalStateException("Asked 1 but length is " + this.content.length());
-
-        char c = this.content.charAt(0);
-        this.content.deleteCharAt(0);
-
-        return c != '0';
-    }
-
-    /**
-     * Permet d'obtenir un caractère du fichier (16 bits)
-     * @return une chaîne de 0 et de 1 représentant le caractère
-     * @throws IllegalStateException si le fichier ne contient pas assez de bits pour compléter la demande
-     */
-    public String readChar() {
-        this.tryRead(Character.SIZE);
-
-        if(this.content.length() < Character.SIZE)
-            throw new IllegalStateException("Asked " + Character.SIZE + " but length is " + this.content.length());
-
-        String binary = this.content.substring(0, Character.SIZE);
-        this.content.delete(0, Character.SIZE);
-
-        return binary;
-    }
-
-    /**
-     * Récupère suffisament d'octets du fichier pour compléter la quantité demandée
-     * Ne récupère rien si on à déjà assez
-     * @param quantity nombre de bits à obtenir
-     */
-    private void tryRead(int quantity) {
-        int c;
-
-        try {
-            while (this.content.length() < quantity && (c = this.reader.read()) >= 0) {
-                StringBuilder sb = new StringBuilder(Utils.charToBinaryString((char) c));
-
-                Utils.completeBinaryStringBefore8(sb);
-                this.content.append(sb);
-            }
-        } catch (IOException e) {
-            System.out.println("Error occurs while reading : " + e.getMessage());
-            e.printStackTrace();
-            this.close();
-        }
-    }
-
-    /**
-     * Retourne le reste des bits lus
-     * Ne lis pas tout le reste du fichier
-     * @return le reste des bits déjà lus
-     */
-    public String flush() {
-        String binary = this.content.toString();
-        this.content.delete(0, this.content.length());
-
-        return binary;
-    }
-
-    /**
-     * Termine la lecture
-     * Retourne le reste des bits déjà lus {@link BinaryReader#flush()}
-     * @return le reste des bits déjà lus
-     */
-    public String close() {
-        String binary = this.flush();
-
-        try {
-            this.reader.close();
-        } catch (IOException e) {
-            System.out.println("Error occurs while closing : " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        return binary;
-    }
-}
+package io;
+
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Permet de lire des bits dans un fichier découpé en octets
+ * Les erreurs de lecture ne sont pas affichées mais remontées par {@link UncheckedIOException}
+ * Les octets sont lus par blocs de {@link BinaryReader#BUFFER_SIZE} grâce à {@link InputStream#read(byte[], int, int)}
+ * puis empilés (poids fort en premier) dans un accumulateur de 64 bits, rechargé jusqu'à 7 octets à la fois
+ * Les bits peuvent être consultés sans être consommés ({@link BinaryReader#peekBits(int)}), ce qui permet un décodage par table
+ * Aucune allocation n'est faite par bit lu : objectif >= 100 Mo/s de flux lu sur un seul coeur
+ * @see ReadFile pour une lecture plus rapide destinée aux fichiers classiques
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class BinaryReader {
+    /**
+     * Taille du tampon d'octets
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Nombre maximal de bits consultés en une fois
+     */
+    public static final int MAX_PEEK_LENGTH = Integer.SIZE;
+
+    /**
+     * Lecteur
+     */
+    private InputStream reader;
+
+    /**
+     * Octets lus mais pas encore placés dans l'accumulateur
+     */
+    private byte[] buffer;
+
+    /**
+     * Position du prochain octet à placer dans l'accumulateur
+     */
+    private int position;
+
+    /**
+     * Nombre d'octets valides dans le tampon
+     */
+    private int limit;
+
+    /**
+     * Bits lus, les bitCount bits de poids faible sont les seuls valides
+     */
+    private long accumulator;
+
+    /**
+     * Nombre de bits valides dans l'accumulateur
+     */
+    private int bitCount;
+
+    /**
+     * Nombre d'octets lus depuis le flux, y compris ceux encore dans le tampon
+     */
+    private long filled;
+
+    /**
+     * true si les lectures sont mesurées ({@link Phase#IO_WAIT}) : un flux en mémoire n'est pas une attente
+     */
+    private boolean measured;
+
+    /**
+     * Constructeur
+     * @param path chemin du fichier
+     * @throws UncheckedIOException si le fichier ne peut pas être ouvert
+     */
+    public BinaryReader(String path) {
+        this.buffer = new byte[BUFFER_SIZE];
+        this.measured = true;
+
+        try {
+            this.reader = new FileInputStream(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while opening the file : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Constructeur
+     * @param reader flux fournissant les octets, fermé par {@link BinaryReader#close()}
+     */
+    public BinaryReader(InputStream reader) {
+        this(reader, BUFFER_SIZE);
+    }
+
+    /**
+     * Constructeur
+     * Un petit tampon évite d'allouer {@link BinaryReader#BUFFER_SIZE} octets pour lire quelques centaines d'octets
+     * @param reader flux fournissant les octets, fermé par {@link BinaryReader#close()}
+     * @param bufferSize taille du tampon, au moins 1 octet
+     */
+    public BinaryReader(InputStream reader, int bufferSize) {
+        this.buffer = new byte[Math.max(1, bufferSize)];
+        this.reader = reader;
+        this.measured = !(reader instanceof ByteArrayInputStream);
+    }
+
+    /**
+     * Recharge le tampon d'octets depuis le flux
+     * @return true si au moins un octet a été lu, false en fin de fichier
+     * @throws UncheckedIOException si le flux ne peut pas être lu
+     */
+    private boolean fillBuffer() {
+        if (this.reader == null)
+            return false;
+
+        long start = Metrics.start();
+
+        try {
+            this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while reading : " + e.getMessage(), e);
+        }
+
+        this.position = 0;
+
+        if (this.limit < 0) {
+            this.limit = 0;
+            return false;
+        }
+
+        this.filled += this.limit;
+
+        if (this.measured)
+            Metrics.phase(Phase.IO_WAIT, start, this.limit, 0);
+
+        return true;
+    }
+
+    /**
+     * Complète l'accumulateur avec autant d'octets que possible (jusqu'à 56 bits ou plus)
+     */
+    private void refill() {
+        //Cas courant : assez d'octets dans le tampon, aucune vérification par octet
+        if (this.position + Long.BYTES <= this.limit) {
+            int bytes = (Long.SIZE - this.bitCount) >>> 3;
+
+            for (int i = 0; i < bytes; i++)
+                this.accumulator = (this.accumulator << Byte.SIZE) | (this.buffer[this.position++] & 0xFF);
+
+            this.bitCount += bytes * Byte.SIZE;
+            return;
+        }
+
+        while (this.bitCount <= Long.SIZE - Byte.SIZE) {
+            if (this.position >= this.limit && !this.fillBuffer())
+                return;
+
+            this.accumulator = (this.accumulator << Byte.SIZE) | (this.buffer[this.position++] & 0xFF);
+            this.bitCount += Byte.SIZE;
+        }
+    }
+
+    /**
+     * Consulte les prochains bits sans les consommer
+     * Si la fin de fichier est atteinte, les bits manquants valent 0
+     * @param length nombre de bits, entre 0 et {@link BinaryReader#MAX_PEEK_LENGTH}
+     * @return les bits demandés, le premier bit lu étant celui de poids fort
+     */
+    public int peekBits(int length) {
+        if (this.bitCount < length)
+            this.refill();
+
+        if (this.bitCount >= length)
+            return (int) ((this.accumulator >>> (this.bitCount - length)) & ((1L << length) - 1));
+
+        return (int) ((this.accumulator << (length - this.bitCount)) & ((1L << length) - 1));
+    }
+
+    /**
+     * Consomme des bits
+     * @param length nombre de bits à consommer
+     * @throws IllegalStateException si le fichier ne contient pas assez de bits pour compléter la demande
+     */
+    public void skipBits(int length) {
+        if (this.bitCount < length)
+            this.refill();
+
+        if (this.bitCount < length)
+            throw new IllegalStateException("Asked " + length + " but length is " + this.bitCount);
+
+        this.bitCount -= length;
+    }
+
+    /**
+     * Lit des bits
+     * @param length nombre de bits, entre 0 et {@link BinaryReader#MAX_PEEK_LENGTH}
+     * @return les bits lus, le premier bit lu étant celui de poids fort
+     * @throws IllegalStateException si le fichier ne contient pas assez de bits pour compléter la demande
+     */
+    public int readBits(int length) {
+        int bits = this.peekBits(length);
+        this.skipBits(length);
+
+        return bits;
+    }
+
+    /**
+     * Permet d'obtenir 1 bit du fichier
+     * @return true pour 1, false pour 0
+     * @throws IllegalStateException si le fichier ne contient pas assez de bits pour compléter la demande
+     */
+    public boolean readBit() {
+        return this.readBits(1) != 0;
+    }
+
+    /**
+     * Permet d'obtenir un caractère du fichier (16 bits)
+     * @return le caractère
+     * @throws IllegalStateException si le fichier ne contient pas assez de bits pour compléter la demande
+     */
+    public char readChar() {
+        return (char) this.readBits(Character.SIZE);
+    }
+
+    /**
+     * Lit un entier codé en gamma d'Elias
+     * @see BinaryWriter#writeGamma(int)
+     * @return l'entier lu
+     * @throws IllegalStateException si le fichier ne contient pas assez de bits ou si le code est invalide
+     */
+    public int readGamma() {
+        int zeros = 0;
+
+        while (!this.readBit())
+            if (++zeros >= Integer.SIZE - 1)
+                throw new IllegalStateException("Invalid gamma code");
+
+        return (1 << zeros) | this.readBits(zeros);
+    }
+
+    /**
+     * Lit un entier sur 64 bits codé en gamma d'Elias
+     * @see BinaryWriter#writeGamma(long)
+     * @return l'entier lu
+     * @throws IllegalStateException si le fichier ne contient pas assez de bits ou si le code est invalide
+     */
+    public long readLongGamma() {
+        int zeros = 0;
+
+        while (!this.readBit())
+            if (++zeros >= Long.SIZE - 1)
+                throw new IllegalStateException("Invalid gamma code");
+
+        if (zeros < Integer.SIZE)
+            return (1L << zeros) | (this.readBits(zeros) & 0xFFFFFFFFL);
+
+        long high = this.readBits(zeros - Integer.SIZE) & 0xFFFFFFFFL;
+
+        return (1L << zeros) | (high << Integer.SIZE) | (this.readBits(Integer.SIZE) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Lit des octets tels quels
+     * Les bits restants de l'octet en cours sont d'abord ignorés ({@link BinaryReader#alignToByte()})
+     * @param bytes reçoit les octets lus
+     * @param offset position du premier octet
+     * @param length nombre d'octets
+     * @throws IllegalStateException si le fichier ne contient pas assez d'octets pour compléter la demande
+     */
+    public void readBytes(byte[] bytes, int offset, int length) {
+        this.alignToByte();
+        int read = 0;
+
+        //Octets déjà placés dans l'accumulateur
+        while (this.bitCount > 0 && read < length) {
+            this.bitCount -= Byte.SIZE;
+            bytes[offset + read++] = (byte) (this.accumulator >>> this.bitCount);
+        }
+
+        while (read < length) {
+            if (this.position >= this.limit && !this.fillBuffer())
+                throw new IllegalStateException("Asked " + length + " bytes but length is " + read);
+
+            int n = Math.min(length - read, this.limit - this.position);
+            System.arraycopy(this.buffer, this.position, bytes, offset + read, n);
+            this.position += n;
+            read += n;
+        }
+    }
+
+    /**
+     * Obtenir le nombre d'octets consommés depuis la création du lecteur
+     * Un octet entamé est compté comme consommé, voir {@link BinaryReader#alignToByte()}
+     * @return le nombre d'octets consommés
+     */
+    public long getByteCount() {
+        return this.filled - (this.limit - this.position) - this.bitCount / Byte.SIZE;
+    }
+
+    /**
+     * Obtenir le nombre de bits consommés depuis la création du lecteur
+     * @return le nombre de bits consommés
+     */
+    public long getBitCount() {
+        return (this.filled - (this.limit - this.position)) * Byte.SIZE - this.bitCount;
+    }
+
+    /**
+     * Ignore les bits restants de l'octet en cours
+     */
+    public void alignToByte() {
+        this.bitCount -= this.bitCount % Byte.SIZE;
+    }
+
+    /**
+     * Termine la lecture
+     * @throws UncheckedIOException si le flux ne peut pas être fermé
+     */
+    public void close() {
+        if (this.reader == null)
+            return;
+
+        try {
+            this.reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while closing : " + e.getMessage(), e);
+        }
+    }
+}
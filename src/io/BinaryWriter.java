@@ -1,94 +1,363 @@
-package io;
-
-import utils.Utils;
-
-import java.io.FileOutputStream;
-import java.io.IOException;
-
-/**
- * Permet d'écrire des bits dans un fichier en les découpants en octets
- * S'occupe des exceptions
- * Les octets sont grâce à {@link FileOutputStream#write(int)}
- * Les bits à écrire sont stockés dans une chaîne de caractères et dès que la chaîne contient au moins 8 bits,
- * les n * 8 premiers bits sont écrits
- * @see WriteFile pour une écriture plus rapide destinée aux fichiers classiques
- * @author louka DOZ, Wissam AIT KHEDDACHE
- */
-public class BinaryWriter {
-    /**
-     * Ecrivain
-     */
-    private FileOutputStream writer;
-
-    /**
-     * Bits à écrire
-     */
-    private StringBuilder content;
-
-    /**
-     * Constructeur
-     * @param path chemin du fichier
-     */
-    public BinaryWriter(String path) {
-        try {
-            this.writer = new FileOutputStream(path);
-            this.content = new StringBuilder();
-        } catch (IOException e) {
-            System.out.println("Error occurs while opening the file : " + e.getMessage());
-            e.printStackTrace();
-            this.close();
-        }
-    }
-
-    /**
-     * Ajoute une suite binaire à écrire
-     * @param binary liste de 0 et de 1 à écrire
-     */
-    public void write(String binary) {
-        this.content.append(binary);
-        this.tryWrite();
-    }
-
-    /**
-     * Essaye d'écrire autant de bits que possible si la chaîne contient au moins 8 bits
-     * Ecrit 8 bits par 8 bits tant que la chaîne contient assez de bits
-     * Supprime les bits écrits de la chaîne
-     */
-    private void tryWrite() {
-        try {
-            while(this.content.length() >= Byte.SIZE) {
-                this.writer.write((byte) Utils.binaryStringToChar( this.content.substring(0, Byte.SIZE) ));
-                this.content.delete(0, Byte.SIZE);
-            }
-        } catch (IOException e) {
-            System.out.println("Error occurs while writing : " + e.getMessage());
-            e.printStackTrace();
-            this.close();
-        }
-    }
-
-    /**
-     * Ecrit le reste de la chaîne
-     * Complète avec des 0 à la fin pour faire une suite parfaitement multiple de 8
-     * @see Utils#completeBinaryStringAfter8(StringBuilder)
-     */
-    public void flush() {
-        Utils.completeBinaryStringAfter8(this.content);
-        this.tryWrite();
-    }
-
-    /**
-     * Termine l'écriture
-     * Flush {@link BinaryWriter#flush()} avant la fermeture
-     */
-    public void close() {
-        this.flush();
-
-        try {
-            this.writer.close();
-        } catch (IOException e) {
-            System.out.println("Error occurs while closing : " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-}
+package io;
+
+import metrics.Metrics;
+import metrics.Phase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Permet d'écrire des bits dans un fichier en les découpants en octets
+ * Les erreurs d'écriture ne sont pas affichées mais remontées par {@link UncheckedIOException}
+ * Les bits sont empilés (poids fort en premier) dans un accumulateur de 64 bits, sous forme de couples (code, longueur).
+ * Dès que l'accumulateur contient au moins 32 bits, 4 octets sont recopiés dans un tampon de {@link BinaryWriter#BUFFER_SIZE}
+ * octets, lui même écrit d'un bloc grâce à {@link OutputStream#write(byte[], int, int)}
+ * Aucune allocation n'est faite par bit ou par code écrit : objectif >= 150 Mo/s de flux produit sur un seul coeur
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class BinaryWriter {
+    /**
+     * Taille du tampon d'octets
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Longueur maximale d'un code écrit en une fois
+     */
+    public static final int MAX_CODE_LENGTH = Integer.SIZE;
+
+    /**
+     * Ecrivain
+     */
+    private OutputStream writer;
+
+    /**
+     * Octets en attente d'écriture
+     */
+    private byte[] buffer;
+
+    /**
+     * Nombre d'octets du tampon en attente d'écriture
+     */
+    private int position;
+
+    /**
+     * Bits en attente, les bitCount bits de poids faible sont les seuls valides
+     */
+    private long accumulator;
+
+    /**
+     * Nombre de bits valides dans l'accumulateur, toujours < 32 entre deux appels
+     */
+    private int bitCount;
+
+    /**
+     * Nombre d'octets déjà transmis au flux
+     */
+    private long flushed;
+
+    /**
+     * true si les écritures sont mesurées ({@link Phase#IO_WAIT}) : un flux en mémoire n'est pas une attente
+     */
+    private boolean measured;
+
+    /**
+     * Constructeur
+     * @param path chemin du fichier
+     * @throws UncheckedIOException si le fichier ne peut pas être ouvert
+     */
+    public BinaryWriter(String path) {
+        this.buffer = new byte[BUFFER_SIZE];
+        this.measured = true;
+
+        try {
+            this.writer = new FileOutputStream(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while opening the file : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Constructeur
+     * @param writer flux recevant les octets, fermé par {@link BinaryWriter#close()}
+     */
+    public BinaryWriter(OutputStream writer) {
+        this(writer, BUFFER_SIZE);
+    }
+
+    /**
+     * Constructeur
+     * Un petit tampon évite d'allouer {@link BinaryWriter#BUFFER_SIZE} octets pour écrire quelques centaines d'octets
+     * @param writer flux recevant les octets, fermé par {@link BinaryWriter#close()}
+     * @param bufferSize taille du tampon, au moins {@link Integer#BYTES} octets
+     */
+    public BinaryWriter(OutputStream writer, int bufferSize) {
+        this.buffer = new byte[Math.max(Integer.BYTES, bufferSize)];
+        this.writer = writer;
+        this.measured = !(writer instanceof ByteArrayOutputStream);
+    }
+
+    /**
+     * Ajoute un code à écrire
+     * @param code bits à écrire, seuls les length bits de poids faible sont pris en compte
+     * @param length nombre de bits à écrire, entre 0 et {@link BinaryWriter#MAX_CODE_LENGTH}
+     * @throws IllegalArgumentException si la longueur n'est pas comprise entre 0 et 32
+     */
+    public void writeBits(int code, int length) {
+        if (length < 0 || length > MAX_CODE_LENGTH)
+            throw new IllegalArgumentException("Length must be between 0 and " + MAX_CODE_LENGTH);
+
+        //bitCount < 32 et length <= 32 : l'accumulateur ne déborde jamais
+        this.accumulator = (this.accumulator << length) | (code & ((1L << length) - 1));
+        this.bitCount += length;
+
+        if (this.bitCount >= Integer.SIZE) {
+            this.bitCount -= Integer.SIZE;
+            int word = (int) (this.accumulator >>> this.bitCount);
+
+            if (this.position + Integer.BYTES > this.buffer.length)
+                this.flushBuffer();
+
+            this.buffer[this.position++] = (byte) (word >>> 24);
+            this.buffer[this.position++] = (byte) (word >>> 16);
+            this.buffer[this.position++] = (byte) (word >>> 8);
+            this.buffer[this.position++] = (byte) word;
+        }
+    }
+
+    /**
+     * Ajoute un bit à écrire
+     * @param bit true pour 1, false pour 0
+     */
+    public void writeBit(boolean bit) {
+        this.writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Ajoute un caractère à écrire (16 bits)
+     * @param c caractère
+     */
+    public void writeChar(char c) {
+        this.writeBits(c, Character.SIZE);
+    }
+
+    /**
+     * Ajoute un entier strictement positif codé en gamma d'Elias :
+     * autant de 0 que le nombre de bits de l'entier moins 1, suivis de l'entier en binaire
+     * Les petites valeurs prennent peu de place : 1 = 1, 2 = 010, 3 = 011, 4 = 00100...
+     * @param n entier à écrire
+     * @throws IllegalArgumentException si n <= 0
+     */
+    public void writeGamma(int n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("Gamma code requires a positive integer");
+
+        int bits = Integer.SIZE - Integer.numberOfLeadingZeros(n);
+        this.writeBits(0, bits - 1);
+        this.writeBits(n, bits);
+    }
+
+    /**
+     * Ajoute un entier strictement positif sur 64 bits codé en gamma d'Elias, comme {@link BinaryWriter#writeGamma(int)} :
+     * un entier de moins de 2^31 donne les mêmes bits
+     * @param n entier à écrire
+     * @throws IllegalArgumentException si n <= 0
+     */
+    public void writeGamma(long n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("Gamma code requires a positive integer");
+
+        int bits = Long.SIZE - Long.numberOfLeadingZeros(n);
+
+        if (bits > Integer.SIZE) {
+            this.writeBits(0, Integer.SIZE);
+            this.writeBits(0, bits - 1 - Integer.SIZE);
+            this.writeBits((int) (n >>> Integer.SIZE), bits - Integer.SIZE);
+            this.writeBits((int) n, Integer.SIZE);
+        } else {
+            this.writeBits(0, bits - 1);
+            this.writeBits((int) n, bits);
+        }
+    }
+
+    /**
+     * Ajoute une suite binaire à écrire
+     * Conservé par compatibilité, préférer {@link BinaryWriter#writeBits(int, int)}
+     * @param binary liste de 0 et de 1 à écrire
+     */
+    public void write(String binary) {
+        int code = 0;
+        int length = 0;
+
+        for (int i = 0; i < binary.length(); i++) {
+            code = (code << 1) | (binary.charAt(i) != '0' ? 1 : 0);
+            length++;
+
+            if (length == MAX_CODE_LENGTH) {
+                this.writeBits(code, length);
+                code = 0;
+                length = 0;
+            }
+        }
+
+        this.writeBits(code, length);
+    }
+
+    /**
+     * Ajoute des octets à écrire tels quels
+     * Les bits en attente sont d'abord complétés avec des 0 jusqu'à l'octet suivant
+     * @param bytes octets à écrire
+     * @param offset position du premier octet
+     * @param length nombre d'octets
+     * @throws UncheckedIOException si le flux ne peut pas être écrit
+     */
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        this.alignToByte();
+
+        //Les grands tableaux sont écrits directement, sans passer par le tampon
+        if (length > this.buffer.length - this.position) {
+            this.flushBuffer();
+
+            if (length >= this.buffer.length) {
+                long start = Metrics.start();
+
+                try {
+                    this.writer.write(bytes, offset, length);
+                    this.flushed += length;
+
+                    if (this.measured)
+                        Metrics.phase(Phase.IO_WAIT, start, length, 0);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error occurs while writing : " + e.getMessage(), e);
+                }
+
+                return;
+            }
+        }
+
+        System.arraycopy(bytes, offset, this.buffer, this.position, length);
+        this.position += length;
+    }
+
+    /**
+     * Ecrit le tampon d'octets dans le flux
+     * @throws UncheckedIOException si le flux ne peut pas être écrit
+     */
+    private void flushBuffer() {
+        long start = Metrics.start();
+
+        try {
+            this.writer.write(this.buffer, 0, this.position);
+            this.flushed += this.position;
+
+            if (this.measured)
+                Metrics.phase(Phase.IO_WAIT, start, this.position, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while writing : " + e.getMessage(), e);
+        }
+
+        this.position = 0;
+    }
+
+    /**
+     * Complète les bits en attente avec des 0 jusqu'à l'octet suivant
+     * L'écriture suivante commence alors sur un nouvel octet, à la position {@link BinaryWriter#getByteCount()}
+     */
+    public void alignToByte() {
+        if (this.bitCount % Byte.SIZE != 0)
+            this.writeBits(0, Byte.SIZE - this.bitCount % Byte.SIZE);
+
+        this.moveBytes();
+    }
+
+    /**
+     * Recopie les octets complets de l'accumulateur dans le tampon, seuls les bits d'un octet incomplet y restent
+     */
+    private void moveBytes() {
+        while (this.bitCount >= Byte.SIZE) {
+            if (this.position == this.buffer.length)
+                this.flushBuffer();
+
+            this.bitCount -= Byte.SIZE;
+            this.buffer[this.position++] = (byte) (this.accumulator >>> this.bitCount);
+        }
+    }
+
+    /**
+     * Obtenir le nombre d'octets écrits depuis la création de l'écrivain, y compris ceux encore dans le tampon
+     * Les bits d'un octet incomplet ne sont pas comptés, voir {@link BinaryWriter#alignToByte()}
+     * @return le nombre d'octets écrits
+     */
+    public long getByteCount() {
+        return this.flushed + this.position + this.bitCount / Byte.SIZE;
+    }
+
+    /**
+     * Obtenir le nombre de bits écrits depuis la création de l'écrivain, y compris ceux en attente
+     * @return le nombre de bits écrits
+     */
+    public long getBitCount() {
+        return (this.flushed + this.position) * Byte.SIZE + this.bitCount;
+    }
+
+    /**
+     * Ecrit les octets complets dans le flux, sans toucher à l'octet en cours
+     * Contrairement à {@link BinaryWriter#flush()}, aucun 0 n'est ajouté : les bits de l'octet incomplet restent en attente
+     * et la suite de bits produite est la même que sans cet appel, ce qui permet de vider un flux continu au fil de l'eau
+     * @throws UncheckedIOException si le flux ne peut pas être écrit
+     */
+    public void flushBytes() {
+        this.moveBytes();
+
+        this.flushBuffer();
+
+        try {
+            this.writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while writing : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ecrit le reste des bits
+     * Complète avec des 0 à la fin pour faire une suite parfaitement multiple de 8
+     * @throws UncheckedIOException si le flux ne peut pas être écrit
+     */
+    public void flush() {
+        this.alignToByte();
+
+        this.flushBuffer();
+
+        try {
+            this.writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error occurs while writing : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Termine l'écriture
+     * Flush {@link BinaryWriter#flush()} avant la fermeture ; le flux est fermé même si l'écriture échoue
+     * @throws UncheckedIOException si le reste des bits ne peut pas être écrit ou si le flux ne peut pas être fermé
+     */
+    public void close() {
+        if (this.writer == null)
+            return;
+
+        try {
+            this.flush();
+        } finally {
+            OutputStream writer = this.writer;
+            this.writer = null;
+
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error occurs while closing : " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Permet de lire un fichier projeté en mémoire ({@link FileChannel#map}), sans copie
+ * ou d'écrire un fichier de taille connue à l'avance ({@link MappedFile#create(String, long)})
+ * Un {@link MappedByteBuffer} ne dépassant pas 2 Go, le fichier est découpé en fenêtres de {@link MappedFile#WINDOW_SIZE} octets,
+ * projetées à la demande puis conservées : les passages successifs (fréquences puis encodage) lisent les mêmes pages,
+ * servies directement par le cache du système
+ * Les tampons retournés sont des copies indépendantes (position, limite) des fenêtres et peuvent être lus par plusieurs threads
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class MappedFile implements Closeable {
+    /**
+     * Taille des fenêtres par défaut
+     */
+    public static final int WINDOW_SIZE = 1 << 30;
+
+    /**
+     * Fichier
+     */
+    private FileChannel channel;
+
+    /**
+     * Taille du fichier
+     */
+    private long length;
+
+    /**
+     * Taille des fenêtres
+     */
+    private int windowSize;
+
+    /**
+     * Fenêtres déjà projetées, null tant qu'une fenêtre n'a pas été demandée
+     */
+    private MappedByteBuffer[] windows;
+
+    /**
+     * Mode de projection des fenêtres, en lecture seule ou en lecture et écriture
+     */
+    private FileChannel.MapMode mode;
+
+    /**
+     * Constructeur
+     * @param path chemin du fichier
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    public MappedFile(String path) throws IOException {
+        this(path, WINDOW_SIZE);
+    }
+
+    /**
+     * Constructeur
+     * @param path chemin du fichier
+     * @param windowSize taille des fenêtres
+     * @throws IOException si le fichier ne peut pas être ouvert
+     * @throws IllegalArgumentException si la taille des fenêtres est négative ou nulle
+     */
+    public MappedFile(String path, int windowSize) throws IOException {
+        this(path, windowSize, FileChannel.MapMode.READ_ONLY);
+    }
+
+    /**
+     * Constructeur
+     * @param path chemin du fichier
+     * @param windowSize taille des fenêtres
+     * @param mode {@link FileChannel.MapMode#READ_ONLY} ou {@link FileChannel.MapMode#READ_WRITE}
+     * @throws IOException si le fichier ne peut pas être ouvert
+     * @throws IllegalArgumentException si la taille des fenêtres est négative ou nulle
+     */
+    private MappedFile(String path, int windowSize, FileChannel.MapMode mode) throws IOException {
+        if (windowSize <= 0)
+            throw new IllegalArgumentException("Window size must be superior to 0");
+
+        if (mode == FileChannel.MapMode.READ_WRITE)
+            this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        else
+            this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+
+        this.length = this.channel.size();
+        this.windowSize = windowSize;
+        this.windows = new MappedByteBuffer[(int) ((this.length + windowSize - 1) / windowSize)];
+        this.mode = mode;
+    }
+
+    /**
+     * Crée un fichier d'une taille donnée, projeté en lecture et écriture
+     * La taille est réservée dès la création, le contenu étant ensuite écrit directement dans les fenêtres
+     * @param path chemin du fichier, remplacé s'il existe
+     * @param length taille du fichier en octets
+     * @return le fichier, rempli de 0
+     * @throws IOException si le fichier ne peut pas être créé
+     * @throws IllegalArgumentException si la taille est négative
+     */
+    public static MappedFile create(String path, long length) throws IOException {
+        return create(path, length, WINDOW_SIZE);
+    }
+
+    /**
+     * Crée un fichier d'une taille donnée, projeté en lecture et écriture
+     * @param path chemin du fichier, remplacé s'il existe
+     * @param length taille du fichier en octets
+     * @param windowSize taille des fenêtres
+     * @return le fichier, rempli de 0
+     * @throws IOException si le fichier ne peut pas être créé
+     * @throws IllegalArgumentException si la taille ou la taille des fenêtres est invalide
+     */
+    public static MappedFile create(String path, long length, int windowSize) throws IOException {
+        if (length < 0)
+            throw new IllegalArgumentException("Length must be superior or equal to 0");
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            //Ecrire le dernier octet fixe la taille du fichier, sans écrire les précédents
+            if (length > 0)
+                channel.write(ByteBuffer.allocate(1), length - 1);
+        }
+
+        return new MappedFile(path, windowSize, FileChannel.MapMode.READ_WRITE);
+    }
+
+    /**
+     * Obtenir la taille du fichier
+     * @return la taille du fichier en octets
+     */
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     * Obtenir le nombre de fenêtres
+     * @return le nombre de fenêtres, 0 pour un fichier vide
+     */
+    public int getWindowCount() {
+        return this.windows.length;
+    }
+
+    /**
+     * Obtenir une fenêtre, projetée lors du premier appel
+     * @param index numéro de la fenêtre
+     * @return la fenêtre, de position 0 et de limite sa taille, modifiable si le fichier a été créé par {@link MappedFile#create(String, long)}
+     * @throws IOException si la fenêtre ne peut pas être projetée
+     */
+    public ByteBuffer getWindow(int index) throws IOException {
+        MappedByteBuffer window;
+
+        synchronized (this.windows) {
+            window = this.windows[index];
+
+            if (window == null) {
+                long position = (long) index * this.windowSize;
+                window = this.channel.map(this.mode, position, Math.min(this.windowSize, this.length - position));
+                this.windows[index] = window;
+            }
+        }
+
+        return window.duplicate();
+    }
+
+    /**
+     * Obtenir une partie du fichier
+     * Si elle est contenue dans une fenêtre, c'est une vue de cette fenêtre, sinon elle est projetée à part
+     * @param position position du premier octet
+     * @param length nombre d'octets
+     * @return la partie du fichier, de position 0 et de limite length
+     * @throws IOException si la partie ne peut pas être projetée
+     * @throws IndexOutOfBoundsException si la partie dépasse du fichier
+     */
+    public ByteBuffer slice(long position, int length) throws IOException {
+        if (position < 0 || length < 0 || position + length > this.length)
+            throw new IndexOutOfBoundsException("Slice is out of the file");
+
+        int index = (int) (position / this.windowSize);
+        int offset = (int) (position % this.windowSize);
+
+        if (length == 0 || offset + length <= this.windowSize) {
+            ByteBuffer window = index < this.windows.length ? this.getWindow(index) : ByteBuffer.allocate(0);
+            window.position(offset).limit(offset + length);
+
+            return window.slice();
+        }
+
+        return this.channel.map(this.mode, position, length);
+    }
+
+    /**
+     * Termine la lecture
+     * Les fenêtres restent lisibles jusqu'à ce qu'elles soient libérées par le ramasse-miettes
+     * @throws IOException si le fichier ne peut pas être fermé
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
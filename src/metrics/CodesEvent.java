@@ -0,0 +1,38 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evénement JFR publié quand des codes sont calculés ou lus
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+@Name("huffman.Codes")
+@Label("Huffman Codes")
+@Category("Huffman")
+@Description("Code lengths computed or read")
+@StackTrace(false)
+class CodesEvent extends Event {
+    /**
+     * Nombre de symboles ayant un code
+     */
+    @Label("Alphabet Size")
+    int alphabetSize;
+
+    /**
+     * Longueur du plus long code
+     */
+    @Label("Max Code Length")
+    int maxLength;
+
+    /**
+     * Longueur moyenne des codes
+     */
+    @Label("Average Code Length")
+    double averageLength;
+}
@@ -0,0 +1,221 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ecouteur cumulant les mesures de toutes les étapes, lisible par JMX (jconsole, jcmd, agents de supervision)
+ * Les compteurs ne se bloquent pas entre threads : les blocs compressés en parallèle ne s'attendent pas
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class CompressionStats implements MetricsListener, CompressionStatsMXBean {
+    /**
+     * Nom sous lequel les compteurs sont enregistrés sur le serveur de MBeans de la plateforme
+     */
+    public static final String OBJECT_NAME = "huffman:type=CompressionStats";
+
+    /**
+     * Compteurs enregistrés par {@link CompressionStats#register()}
+     */
+    private static CompressionStats registered;
+
+    /**
+     * Nombre d'exécutions, indexé par étape
+     */
+    private final LongAdder[] calls = counters();
+
+    /**
+     * Durées en nanosecondes, indexées par étape
+     */
+    private final LongAdder[] nanos = counters();
+
+    /**
+     * Nombres d'octets, indexés par étape
+     */
+    private final LongAdder[] bytes = counters();
+
+    /**
+     * Nombres de symboles, indexés par étape
+     */
+    private final LongAdder[] symbols = counters();
+
+    /**
+     * Nombre de tables de codes
+     */
+    private final LongAdder codeTables = new LongAdder();
+
+    /**
+     * Somme des nombres de symboles ayant un code
+     */
+    private final LongAdder alphabetSizes = new LongAdder();
+
+    /**
+     * Plus long code
+     */
+    private final LongAccumulator maxCodeLength = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Somme des longueurs moyennes
+     */
+    private final DoubleAdder averageCodeLengths = new DoubleAdder();
+
+    /**
+     * Enregistre des compteurs sur le serveur de MBeans de la plateforme et les ajoute aux écouteurs de {@link Metrics}
+     * Les appels suivants retournent les mêmes compteurs
+     *
+     * @return les compteurs enregistrés
+     * @throws IllegalStateException si les compteurs ne peuvent pas être enregistrés
+     */
+    public static synchronized CompressionStats register() {
+        if (registered != null)
+            return registered;
+
+        CompressionStats stats = new CompressionStats();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+
+            server.registerMBean(stats, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Error occurs while registering " + OBJECT_NAME, e);
+        }
+
+        Metrics.addListener(stats);
+        registered = stats;
+
+        return stats;
+    }
+
+    /**
+     * Crée un compteur par étape
+     *
+     * @return les compteurs, indexés par étape
+     */
+    private static LongAdder[] counters() {
+        LongAdder[] counters = new LongAdder[Phase.values().length];
+
+        for (int p = 0; p < counters.length; p++)
+            counters[p] = new LongAdder();
+
+        return counters;
+    }
+
+    /**
+     * Lit des compteurs par étape
+     *
+     * @param counters compteurs, indexés par étape
+     * @return les valeurs, par nom d'étape, dans l'ordre des étapes
+     */
+    private static Map<String, Long> snapshot(LongAdder[] counters) {
+        Map<String, Long> values = new LinkedHashMap<>();
+
+        for (Phase phase : Phase.values())
+            values.put(phase.name(), counters[phase.ordinal()].sum());
+
+        return values;
+    }
+
+    /**
+     * Cumule les mesures d'une étape
+     *
+     * @param phase   étape
+     * @param nanos   durée de l'étape en nanosecondes
+     * @param bytes   nombre d'octets
+     * @param symbols nombre de symboles
+     */
+    @Override
+    public void onPhase(Phase phase, long nanos, long bytes, long symbols) {
+        int p = phase.ordinal();
+
+        this.calls[p].increment();
+        this.nanos[p].add(nanos);
+        this.bytes[p].add(bytes);
+        this.symbols[p].add(symbols);
+    }
+
+    /**
+     * Cumule les statistiques d'une table de codes
+     *
+     * @param alphabetSize  nombre de symboles ayant un code
+     * @param maxLength     longueur du plus long code
+     * @param averageLength longueur moyenne des codes
+     */
+    @Override
+    public void onCodes(int alphabetSize, int maxLength, double averageLength) {
+        this.codeTables.increment();
+        this.alphabetSizes.add(alphabetSize);
+        this.maxCodeLength.accumulate(maxLength);
+        this.averageCodeLengths.add(averageLength);
+    }
+
+    @Override
+    public Map<String, Long> getCalls() {
+        return snapshot(this.calls);
+    }
+
+    @Override
+    public Map<String, Long> getNanos() {
+        return snapshot(this.nanos);
+    }
+
+    @Override
+    public Map<String, Long> getBytes() {
+        return snapshot(this.bytes);
+    }
+
+    @Override
+    public Map<String, Long> getSymbols() {
+        return snapshot(this.symbols);
+    }
+
+    @Override
+    public long getCodeTables() {
+        return this.codeTables.sum();
+    }
+
+    @Override
+    public double getAverageAlphabetSize() {
+        long tables = this.codeTables.sum();
+
+        return tables == 0 ? 0 : (double) this.alphabetSizes.sum() / tables;
+    }
+
+    @Override
+    public int getMaxCodeLength() {
+        return (int) this.maxCodeLength.get();
+    }
+
+    @Override
+    public double getAverageCodeLength() {
+        long tables = this.codeTables.sum();
+
+        return tables == 0 ? 0 : this.averageCodeLengths.sum() / tables;
+    }
+
+    @Override
+    public void reset() {
+        for (int p = 0; p < this.calls.length; p++) {
+            this.calls[p].reset();
+            this.nanos[p].reset();
+            this.bytes[p].reset();
+            this.symbols[p].reset();
+        }
+
+        this.codeTables.reset();
+        this.alphabetSizes.reset();
+        this.maxCodeLength.reset();
+        this.averageCodeLengths.reset();
+    }
+}
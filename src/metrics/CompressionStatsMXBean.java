@@ -0,0 +1,73 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * Compteurs cumulés exposés par JMX, sous le nom {@link CompressionStats#OBJECT_NAME}
+ * Les tables sont indexées par nom d'étape ({@link Phase})
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public interface CompressionStatsMXBean {
+    /**
+     * Obtenir le nombre d'exécutions de chaque étape
+     *
+     * @return le nombre d'exécutions, par étape
+     */
+    Map<String, Long> getCalls();
+
+    /**
+     * Obtenir la durée cumulée de chaque étape
+     * {@link Phase#IO_WAIT} est aussi comptée dans l'étape qui l'a attendue : la somme dépasse la durée totale
+     *
+     * @return la durée en nanosecondes, par étape
+     */
+    Map<String, Long> getNanos();
+
+    /**
+     * Obtenir le nombre cumulé d'octets de chaque étape
+     *
+     * @return le nombre d'octets, par étape
+     */
+    Map<String, Long> getBytes();
+
+    /**
+     * Obtenir le nombre cumulé de symboles de chaque étape
+     *
+     * @return le nombre de symboles, par étape
+     */
+    Map<String, Long> getSymbols();
+
+    /**
+     * Obtenir le nombre de tables de codes calculées ou lues
+     *
+     * @return le nombre de tables
+     */
+    long getCodeTables();
+
+    /**
+     * Obtenir le nombre moyen de symboles ayant un code, par table
+     *
+     * @return le nombre moyen de symboles, 0 sans table
+     */
+    double getAverageAlphabetSize();
+
+    /**
+     * Obtenir la longueur du plus long code vu
+     *
+     * @return la longueur du plus long code, 0 sans table
+     */
+    int getMaxCodeLength();
+
+    /**
+     * Obtenir la longueur moyenne des codes, moyenne des longueurs moyennes de chaque table
+     *
+     * @return la longueur moyenne, 0 sans table
+     */
+    double getAverageCodeLength();
+
+    /**
+     * Remet tous les compteurs à 0
+     */
+    void reset();
+}
@@ -0,0 +1,52 @@
+package metrics;
+
+/**
+ * Publie les mesures sous forme d'événements JFR "huffman.Phase" et "huffman.Codes"
+ * Les événements ne sont créés que si un enregistrement les active, par exemple
+ * {@code java -XX:StartFlightRecording:filename=huffman.jfr ...}
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public class JfrListener implements MetricsListener {
+    /**
+     * Publie un événement {@link PhaseEvent}
+     *
+     * @param phase   étape
+     * @param nanos   durée de l'étape en nanosecondes
+     * @param bytes   nombre d'octets
+     * @param symbols nombre de symboles
+     */
+    @Override
+    public void onPhase(Phase phase, long nanos, long bytes, long symbols) {
+        PhaseEvent event = new PhaseEvent();
+
+        if (!event.isEnabled())
+            return;
+
+        event.phase = phase.name();
+        event.elapsed = nanos;
+        event.bytes = bytes;
+        event.symbols = symbols;
+        event.commit();
+    }
+
+    /**
+     * Publie un événement {@link CodesEvent}
+     *
+     * @param alphabetSize  nombre de symboles ayant un code
+     * @param maxLength     longueur du plus long code
+     * @param averageLength longueur moyenne des codes
+     */
+    @Override
+    public void onCodes(int alphabetSize, int maxLength, double averageLength) {
+        CodesEvent event = new CodesEvent();
+
+        if (!event.isEnabled())
+            return;
+
+        event.alphabetSize = alphabetSize;
+        event.maxLength = maxLength;
+        event.averageLength = averageLength;
+        event.commit();
+    }
+}
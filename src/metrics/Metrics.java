@@ -0,0 +1,163 @@
+package metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Point de publication des mesures des étapes de la compression ({@link Phase})
+ * Sans écouteur, une étape ne coûte qu'une lecture de champ volatile au début et à la fin : aucune horloge n'est lue.
+ * Les mesures sont prises par étape (fichier, bloc ou tampon), jamais par symbole
+ *
+ * Utilisation dans une étape :
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.phase(Phase.PAYLOAD_ENCODE, start, bytes, symbols);
+ * </pre>
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ * @see JfrListener
+ * @see CompressionStats
+ */
+public final class Metrics {
+    /**
+     * Ecouteurs, parcourus sans verrou
+     */
+    private static final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Y a-t-il au moins un écouteur
+     */
+    private static volatile boolean enabled;
+
+    /**
+     * Pas d'instance
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Ajoute un écouteur
+     *
+     * @param listener écouteur
+     * @throws NullPointerException si listener vaut null
+     */
+    public static void addListener(MetricsListener listener) {
+        if (listener == null)
+            throw new NullPointerException("Listener cannot be null");
+
+        listeners.add(listener);
+        enabled = true;
+    }
+
+    /**
+     * Retire un écouteur
+     *
+     * @param listener écouteur
+     */
+    public static void removeListener(MetricsListener listener) {
+        listeners.remove(listener);
+        enabled = !listeners.isEmpty();
+    }
+
+    /**
+     * Les mesures sont-elles publiées
+     *
+     * @return true si au moins un écouteur est enregistré
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Début d'une étape
+     *
+     * @return l'instant de début en nanosecondes, 0 si les mesures ne sont pas publiées
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Fin d'une étape
+     * Une étape commencée avant l'ajout du premier écouteur n'est pas publiée
+     *
+     * @param phase   étape
+     * @param start   instant de début retourné par {@link Metrics#start()}
+     * @param bytes   nombre d'octets, voir {@link Phase}
+     * @param symbols nombre de symboles, voir {@link Phase}
+     */
+    public static void phase(Phase phase, long start, long bytes, long symbols) {
+        if (!enabled || start == 0)
+            return;
+
+        long nanos = System.nanoTime() - start;
+
+        for (MetricsListener listener : listeners)
+            listener.onPhase(phase, nanos, bytes, symbols);
+    }
+
+    /**
+     * Publie les statistiques de codes calculés ou lus
+     *
+     * @param lengths longueur du code de chaque symbole, 0 si le symbole est absent
+     */
+    public static void codes(int[] lengths) {
+        if (!enabled)
+            return;
+
+        int count = 0;
+        int max = 0;
+        long total = 0;
+
+        for (int length : lengths) {
+            if (length == 0)
+                continue;
+
+            count++;
+            max = Math.max(max, length);
+            total += length;
+        }
+
+        codes(count, max, total);
+    }
+
+    /**
+     * Publie les statistiques de codes calculés ou lus
+     *
+     * @param lengths longueur du code de chaque symbole, 0 si le symbole est absent
+     */
+    public static void codes(byte[] lengths) {
+        if (!enabled)
+            return;
+
+        int count = 0;
+        int max = 0;
+        long total = 0;
+
+        for (byte length : lengths) {
+            if (length == 0)
+                continue;
+
+            count++;
+            max = Math.max(max, length);
+            total += length;
+        }
+
+        codes(count, max, total);
+    }
+
+    /**
+     * Transmet les statistiques de codes aux écouteurs
+     *
+     * @param count nombre de symboles ayant un code
+     * @param max   longueur du plus long code
+     * @param total somme des longueurs
+     */
+    private static void codes(int count, int max, long total) {
+        double average = count == 0 ? 0 : (double) total / count;
+
+        for (MetricsListener listener : listeners)
+            listener.onCodes(count, max, average);
+    }
+}
@@ -0,0 +1,28 @@
+package metrics;
+
+/**
+ * Reçoit les mesures publiées par {@link Metrics}
+ * Les méthodes sont appelées par le thread qui a exécuté l'étape, parfois par plusieurs threads à la fois
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public interface MetricsListener {
+    /**
+     * Une étape vient de se terminer
+     *
+     * @param phase   étape
+     * @param nanos   durée de l'étape en nanosecondes
+     * @param bytes   nombre d'octets, voir {@link Phase}
+     * @param symbols nombre de symboles, voir {@link Phase}
+     */
+    void onPhase(Phase phase, long nanos, long bytes, long symbols);
+
+    /**
+     * Des codes viennent d'être calculés ou lus
+     *
+     * @param alphabetSize  nombre de symboles ayant un code
+     * @param maxLength     longueur du plus long code
+     * @param averageLength longueur moyenne des codes, chaque symbole comptant une fois
+     */
+    void onCodes(int alphabetSize, int maxLength, double averageLength);
+}
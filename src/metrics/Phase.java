@@ -0,0 +1,52 @@
+package metrics;
+
+/**
+ * Etapes mesurées de la compression et de la décompression
+ * Une étape peut en contenir une autre : l'encodage du contenu comprend l'attente des écritures ({@link Phase#IO_WAIT})
+ * et le décodage celle des lectures. Les durées des étapes se recouvrent donc et ne s'additionnent pas
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+public enum Phase {
+    /**
+     * Comptage des fréquences : octets lus, symboles comptés
+     */
+    FREQUENCY_COUNT,
+
+    /**
+     * Tri par tas des éléments de l'arbre : éléments triés
+     */
+    HEAP_SORT,
+
+    /**
+     * Construction de l'arbre ou calcul des longueurs des codes : symboles présents
+     */
+    TREE_BUILD,
+
+    /**
+     * Ecriture des longueurs des codes : octets écrits, symboles ayant un code
+     */
+    HEADER_ENCODE,
+
+    /**
+     * Lecture des longueurs des codes ou de l'arbre : octets lus, symboles ayant un code
+     */
+    HEADER_DECODE,
+
+    /**
+     * Encodage du contenu : octets compressés écrits, symboles encodés
+     */
+    PAYLOAD_ENCODE,
+
+    /**
+     * Décodage du contenu : octets compressés lus, symboles décodés
+     */
+    PAYLOAD_DECODE,
+
+    /**
+     * Attente d'une lecture ou d'une écriture du flux sous-jacent (fichier, canal, entrée ou sortie standard,
+     * mais pas un tableau en mémoire) : octets transférés
+     * Comptée aussi dans l'étape en cours, l'en-tête ou le contenu
+     */
+    IO_WAIT
+}
@@ -0,0 +1,49 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evénement JFR publié à la fin d'une étape ({@link Phase})
+ * La durée est mesurée par {@link Metrics}, l'événement est donc instantané et sa durée est dans {@link PhaseEvent#elapsed}
+ *
+ * @author louka DOZ, Wissam AIT KHEDDACHE
+ */
+@Name("huffman.Phase")
+@Label("Huffman Phase")
+@Category("Huffman")
+@Description("End of a compression or decompression phase")
+@StackTrace(false)
+class PhaseEvent extends Event {
+    /**
+     * Etape
+     */
+    @Label("Phase")
+    String phase;
+
+    /**
+     * Durée de l'étape
+     */
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    /**
+     * Nombre d'octets
+     */
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Nombre de symboles
+     */
+    @Label("Symbols")
+    long symbols;
+}
@@ -0,0 +1,88 @@
+package test;
+
+import huffman.AdaptiveHuffman;
+import huffman.Format;
+import io.BinaryReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+public class AdaptiveHuffmanTest {
+
+    @Test
+    public void should_return_same_bytes_when_decompressing_adaptive() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = new byte[20000];
+        Random random = new Random(5);
+        for (int i = 0; i < expectedResult.length; i++)
+            expectedResult[i] = (byte) (i < 10000 ? 'a' + random.nextInt(3) : random.nextInt(256));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteArrayOutputStream actualResult = new ByteArrayOutputStream();
+
+        //ACT
+        AdaptiveHuffman.compress(new ByteArrayInputStream(expectedResult), compressed);
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(compressed.toByteArray()));
+        Format format = Format.read(br);
+        AdaptiveHuffman.decompress(br, actualResult);
+
+        //ASSERT
+        Assert.assertEquals(Format.ADAPTIVE, format.getMode());
+        Assert.assertArrayEquals(expectedResult, actualResult.toByteArray());
+    }
+
+    @Test
+    public void should_write_compressed_bytes_when_stream_is_not_closed_yet() throws IOException {
+        //ARRANGE
+        byte[] content = new byte[5000];
+        Random random = new Random(7);
+        for (int i = 0; i < content.length; i++)
+            content[i] = (byte) ('a' + random.nextInt(26));
+
+        ByteArrayOutputStream expectedResult = new ByteArrayOutputStream();
+        AdaptiveHuffman.compress(new ByteArrayInputStream(content), expectedResult);
+
+        ByteArrayOutputStream actualResult = new ByteArrayOutputStream();
+        long[] writtenBeforeEnd = new long[1];
+
+        //Flux continu : 100 octets par lecture, la taille de la sortie est relevée avant la fin
+        InputStream live = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                return this.position < content.length ? content[this.position++] & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (this.position == content.length) {
+                    writtenBeforeEnd[0] = actualResult.size();
+                    return -1;
+                }
+
+                int n = Math.min(Math.min(length, 100), content.length - this.position);
+                System.arraycopy(content, this.position, bytes, offset, n);
+                this.position += n;
+                return n;
+            }
+        };
+
+        //ACT
+        AdaptiveHuffman.compress(live, actualResult);
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(actualResult.toByteArray()));
+        Format.read(br);
+        AdaptiveHuffman.decompress(br, decompressed);
+
+        //ASSERT
+        Assert.assertTrue(writtenBeforeEnd[0] > 0);
+        Assert.assertArrayEquals(expectedResult.toByteArray(), actualResult.toByteArray());
+        Assert.assertArrayEquals(content, decompressed.toByteArray());
+    }
+}
@@ -0,0 +1,78 @@
+package test;
+
+import huffman.Archive;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ArchiveTest {
+
+    @Test
+    public void should_share_tables_and_extract_single_entry_when_archiving_similar_files() throws IOException {
+        //ARRANGE
+        Random random = new Random(11);
+        List<File> files = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<byte[]> contents = new ArrayList<>();
+
+        for (int f = 0; f < 20; f++) {
+            byte[] content = new byte[f == 0 ? 0 : 500 + random.nextInt(500)];
+            for (int i = 0; i < content.length; i++)
+                content[i] = (byte) ('a' + Math.min(random.nextInt(8), random.nextInt(8)));
+
+            File file = File.createTempFile("archive", ".txt");
+            Files.write(file.toPath(), content);
+            files.add(file);
+            sources.add(file.getPath());
+            names.add("dir/file" + f + ".txt");
+            contents.add(content);
+        }
+
+        File destination = File.createTempFile("archive", ".har");
+        ByteArrayOutputStream actualResult = new ByteArrayOutputStream();
+        ByteArrayOutputStream emptyResult = new ByteArrayOutputStream();
+        int tableCount;
+
+        //ACT
+        Archive.create(destination.getPath(), sources, names);
+
+        try (Archive archive = new Archive(destination.getPath())) {
+            archive.extract(archive.getEntry("dir/file13.txt"), actualResult);
+            archive.extract(archive.getEntry("dir/file0.txt"), emptyResult);
+            tableCount = archive.getTableCount();
+        }
+
+        //ASSERT
+        Assert.assertArrayEquals(contents.get(13), actualResult.toByteArray());
+        Assert.assertEquals(0, emptyResult.size());
+        Assert.assertTrue(tableCount < names.size() / 2);
+
+        destination.delete();
+        for (File file : files)
+            file.delete();
+    }
+
+    @Test(expected = IOException.class)
+    public void should_throw_when_destination_is_a_directory() throws IOException {
+        //ARRANGE
+        File source = File.createTempFile("archive", ".txt");
+        File destination = Files.createTempDirectory("archive").toFile();
+        Files.write(source.toPath(), "abracadabra".getBytes());
+
+        //ACT
+        try {
+            Archive.create(destination.getPath(), List.of(source.getPath()), List.of("file.txt"));
+        } finally {
+            source.delete();
+            destination.delete();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package test;
+
+import cli.BatchCompressor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class BatchCompressorTest {
+
+    @Test
+    public void should_restore_directory_when_compressing_and_decompressing_in_parallel() throws IOException {
+        //ARRANGE
+        File root = Files.createTempDirectory("batch").toFile();
+        File input = new File(root, "input");
+        File compressed = new File(root, "compressed");
+        File output = new File(root, "output");
+        new File(input, "sub").mkdirs();
+
+        byte[] first = new byte[3000];
+        byte[] second = new byte[1000];
+        Random random = new Random(7);
+        for (int i = 0; i < first.length; i++)
+            first[i] = (byte) ('a' + random.nextInt(1 + i % 26));
+        random.nextBytes(second);
+
+        Files.write(new File(input, "first.txt").toPath(), first);
+        Files.write(new File(input, "sub/second.bin").toPath(), second);
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+        BatchCompressor cli = new BatchCompressor(new ByteArrayInputStream(new byte[0]), new PrintStream(summary), System.err);
+
+        //ACT
+        int compressCode = cli.run(new String[]{"compress", "-j", "2", "-o", compressed.getPath(), input.getPath()});
+        int decompressCode = cli.run(new String[]{"decompress", "-j", "2", "-o", output.getPath(), compressed.getPath()});
+
+        //ASSERT
+        Assert.assertEquals(BatchCompressor.SUCCESS, compressCode);
+        Assert.assertEquals(BatchCompressor.SUCCESS, decompressCode);
+        Assert.assertTrue(new File(compressed, "sub/second.bin.huf").isFile());
+        Assert.assertArrayEquals(first, Files.readAllBytes(new File(output, "first.txt").toPath()));
+        Assert.assertArrayEquals(second, Files.readAllBytes(new File(output, "sub/second.bin").toPath()));
+
+        String[] lines = summary.toString().split("\n");
+        Assert.assertEquals(6, lines.length);
+        Assert.assertTrue(lines[2].startsWith("{\"total\":true,\"files\":2,\"failed\":0,\"bytes_in\":4000,"));
+
+        try (Stream<File> files = Files.walk(root.toPath()).map(p -> p.toFile())) {
+            files.sorted(Comparator.reverseOrder()).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void should_restore_bytes_when_compressing_standard_input() {
+        //ARRANGE
+        byte[] expectedResult = new byte[5000];
+        new Random(9).nextBytes(expectedResult);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteArrayOutputStream actualResult = new ByteArrayOutputStream();
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+
+        //ACT
+        int compressCode = new BatchCompressor(new ByteArrayInputStream(expectedResult), new PrintStream(compressed),
+                new PrintStream(summary)).run(new String[]{"compress"});
+        int decompressCode = new BatchCompressor(new ByteArrayInputStream(compressed.toByteArray()),
+                new PrintStream(actualResult), new PrintStream(summary)).run(new String[]{"decompress", "-"});
+
+        //ASSERT
+        Assert.assertEquals(BatchCompressor.SUCCESS, compressCode);
+        Assert.assertEquals(BatchCompressor.SUCCESS, decompressCode);
+        Assert.assertArrayEquals(expectedResult, actualResult.toByteArray());
+        Assert.assertTrue(summary.toString().startsWith("{\"file\":\"-\",\"output\":\"-\",\"status\":\"ok\",\"bytes_in\":5000,"));
+    }
+
+    @Test
+    public void should_restore_bytes_when_compressing_standard_input_with_adaptive_codes() {
+        //ARRANGE
+        byte[] expectedResult = new byte[5000];
+        Random random = new Random(11);
+        for (int i = 0; i < expectedResult.length; i++)
+            expectedResult[i] = (byte) ('a' + random.nextInt(4));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteArrayOutputStream actualResult = new ByteArrayOutputStream();
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+
+        //ACT
+        int compressCode = new BatchCompressor(new ByteArrayInputStream(expectedResult), new PrintStream(compressed),
+                new PrintStream(summary)).run(new String[]{"compress", "-a", "-"});
+        int decompressCode = new BatchCompressor(new ByteArrayInputStream(compressed.toByteArray()),
+                new PrintStream(actualResult), new PrintStream(summary)).run(new String[]{"decompress", "-"});
+        int mixedCode = new BatchCompressor(new ByteArrayInputStream(expectedResult), new PrintStream(compressed),
+                new PrintStream(summary)).run(new String[]{"compress", "-a", "-i", "file"});
+
+        //ASSERT
+        Assert.assertEquals(BatchCompressor.SUCCESS, compressCode);
+        Assert.assertEquals(BatchCompressor.SUCCESS, decompressCode);
+        Assert.assertEquals(BatchCompressor.USAGE, mixedCode);
+        Assert.assertTrue(compressed.size() < expectedResult.length / 3);
+        Assert.assertArrayEquals(expectedResult, actualResult.toByteArray());
+    }
+
+    @Test
+    public void should_leave_no_output_when_decompressing_a_truncated_file() throws IOException {
+        //ARRANGE
+        File root = Files.createTempDirectory("batch").toFile();
+        File input = new File(root, "data.bin");
+        File compressed = new File(root, "data.bin.huf");
+        File output = new File(root, "output");
+        byte[] expectedResult = new byte[20000];
+        new Random(13).nextBytes(expectedResult);
+        Files.write(input.toPath(), expectedResult);
+
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+        BatchCompressor cli = new BatchCompressor(new ByteArrayInputStream(new byte[0]), new PrintStream(summary),
+                new PrintStream(new ByteArrayOutputStream()));
+        cli.run(new String[]{"compress", input.getPath()});
+        byte[] full = Files.readAllBytes(compressed.toPath());
+        Files.write(compressed.toPath(), Arrays.copyOf(full, full.length / 2));
+
+        //ACT
+        int truncatedCode = cli.run(new String[]{"decompress", "-o", output.getPath(), compressed.getPath()});
+        String[] leftovers = output.list();
+        Files.write(compressed.toPath(), full);
+        int retryCode = cli.run(new String[]{"decompress", "-o", output.getPath(), compressed.getPath()});
+
+        //ASSERT
+        Assert.assertEquals(BatchCompressor.FAILURE, truncatedCode);
+        Assert.assertArrayEquals(new String[0], leftovers);
+        Assert.assertEquals(BatchCompressor.SUCCESS, retryCode);
+        Assert.assertArrayEquals(expectedResult, Files.readAllBytes(new File(output, "data.bin").toPath()));
+
+        try (Stream<File> files = Files.walk(root.toPath()).map(p -> p.toFile())) {
+            files.sorted(Comparator.reverseOrder()).forEach(File::delete);
+        }
+    }
+}
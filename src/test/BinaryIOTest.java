@@ -0,0 +1,138 @@
+package test;
+
+import io.BinaryReader;
+import io.BinaryWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+public class BinaryIOTest {
+
+    @Test
+    public void should_return_same_bits_when_reading_codes_of_0_to_32_bits_across_buffers() {
+        //ARRANGE
+        Random random = new Random(3);
+        int count = 10000;
+        int[] codes = new int[count];
+        int[] lengths = new int[count];
+        long expectedBits = 0;
+
+        for (int i = 0; i < count; i++) {
+            codes[i] = random.nextInt();
+            lengths[i] = random.nextInt(BinaryWriter.MAX_CODE_LENGTH + 1);
+            expectedBits += lengths[i];
+        }
+
+        //Tampons de quelques octets : les mots de 32 bits et les rechargements de 64 bits chevauchent leurs fins
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out, 5);
+
+        //ACT
+        for (int i = 0; i < count; i++)
+            bw.writeBits(codes[i], lengths[i]);
+
+        long actualBits = bw.getBitCount();
+        bw.close();
+
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(out.toByteArray()), 3);
+
+        //ASSERT
+        Assert.assertEquals(expectedBits, actualBits);
+        Assert.assertEquals((expectedBits + 7) / 8, out.size());
+
+        for (int i = 0; i < count; i++) {
+            long mask = (1L << lengths[i]) - 1;
+            Assert.assertEquals("code " + i, codes[i] & mask, br.readBits(lengths[i]) & mask);
+        }
+
+        Assert.assertEquals(expectedBits, br.getBitCount());
+    }
+
+    @Test
+    public void should_return_same_values_when_reading_long_gamma_codes_above_2_pow_32() {
+        //ARRANGE
+        long[] expectedResult = {1, 2, 3, (1L << 31) - 1, 1L << 31, (1L << 32) - 1, 1L << 32, (1L << 32) + 1,
+                0x123456789AL, 1L << 62, Long.MAX_VALUE};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out, 7);
+
+        //Décaler les codes d'un bit pour qu'ils ne commencent pas sur un octet
+        bw.writeBit(true);
+        for (long value : expectedResult)
+            bw.writeGamma(value);
+
+        bw.close();
+
+        //ACT
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(out.toByteArray()), 2);
+        boolean first = br.readBit();
+        long[] actualResult = new long[expectedResult.length];
+
+        for (int i = 0; i < actualResult.length; i++)
+            actualResult[i] = br.readLongGamma();
+
+        //ASSERT
+        Assert.assertTrue(first);
+        Assert.assertArrayEquals(expectedResult, actualResult);
+    }
+
+    @Test
+    public void should_count_bits_and_bytes_when_aligning_to_byte() {
+        //ARRANGE
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out, 4);
+        byte[] bytes = {0x00, (byte) 0xFF, 0x42};
+
+        //ACT
+        bw.writeBits(0b101, 3);
+        long writtenBits = bw.getBitCount();
+        long writtenBytes = bw.getByteCount();
+        bw.alignToByte();
+        long alignedBits = bw.getBitCount();
+        long alignedBytes = bw.getByteCount();
+        bw.writeBits(0x1ABC, 13);
+        bw.writeBytes(bytes, 0, bytes.length);
+        long endBytes = bw.getByteCount();
+        bw.close();
+
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(out.toByteArray()), 1);
+        int first = br.readBits(3);
+        long readBits = br.getBitCount();
+        long readBytes = br.getByteCount();
+        br.alignToByte();
+        long skippedBits = br.getBitCount();
+        int second = br.readBits(13);
+        byte[] actualBytes = new byte[bytes.length];
+        br.readBytes(actualBytes, 0, actualBytes.length);
+
+        //ASSERT
+        Assert.assertEquals(3, writtenBits);
+        Assert.assertEquals(0, writtenBytes);
+        Assert.assertEquals(8, alignedBits);
+        Assert.assertEquals(1, alignedBytes);
+        Assert.assertEquals(6, endBytes);
+        Assert.assertEquals(6, out.size());
+
+        Assert.assertEquals(0b101, first);
+        Assert.assertEquals(3, readBits);
+        Assert.assertEquals(1, readBytes);
+        Assert.assertEquals(8, skippedBits);
+        Assert.assertEquals(0x1ABC, second);
+        Assert.assertArrayEquals(bytes, actualBytes);
+        Assert.assertEquals(6, br.getByteCount());
+        Assert.assertEquals(48, br.getBitCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_throw_when_skipping_bits_past_end_of_file() {
+        //ARRANGE
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(new byte[] {0x12, 0x34}), 1);
+        br.skipBits(9);
+
+        //ACT
+        br.skipBits(8);
+    }
+}
@@ -0,0 +1,116 @@
+package test;
+
+import huffman.BlockCompressor;
+import huffman.Format;
+import huffman.HuffmanInputStream;
+import io.BinaryReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class BlockCompressorTest {
+
+    @Test
+    public void should_return_same_bytes_when_decompressing_blocks() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = new byte[5000];
+        Random random = new Random(42);
+        for (int i = 0; i < expectedResult.length; i++)
+            expectedResult[i] = (byte) (i < 2500 ? 'a' + random.nextInt(4) : random.nextInt(256));
+
+        File source = File.createTempFile("blocks", ".bin");
+        File compressed = File.createTempFile("blocks", ".huf");
+        File destination = File.createTempFile("blocks", ".out");
+        Files.write(source.toPath(), expectedResult);
+
+        //ACT
+        new BlockCompressor(1024, 3).compress(source.getPath(), compressed.getPath());
+        BinaryReader br = new BinaryReader(compressed.getPath());
+        Format format = Format.read(br);
+        BlockCompressor.decompress(br, destination.getPath());
+        br.close();
+        byte[] actualResult = Files.readAllBytes(destination.toPath());
+
+        //ASSERT
+        Assert.assertEquals(Format.BLOCKS, format.getMode());
+        Assert.assertArrayEquals(expectedResult, actualResult);
+
+        source.delete();
+        compressed.delete();
+        destination.delete();
+    }
+
+    @Test
+    public void should_return_same_bytes_when_decompressing_blocks_with_index() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = new byte[10000];
+        Random random = new Random(7);
+        for (int i = 0; i < expectedResult.length; i++)
+            expectedResult[i] = (byte) (random.nextInt(16) * random.nextInt(16));
+
+        File source = File.createTempFile("blocks", ".bin");
+        File compressed = File.createTempFile("blocks", ".huf");
+        File destination = File.createTempFile("blocks", ".out");
+        Files.write(source.toPath(), expectedResult);
+        BlockCompressor compressor = new BlockCompressor(1024, 4);
+
+        //ACT
+        compressor.compress(source.getPath(), compressed.getPath());
+        compressor.decompress(compressed.getPath(), destination.getPath());
+        byte[] actualResult = Files.readAllBytes(destination.toPath());
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+
+        source.delete();
+        compressed.delete();
+        destination.delete();
+    }
+
+    @Test
+    public void should_return_same_bytes_when_decompressing_interleaved_blocks() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = new byte[10003];
+        Random random = new Random(13);
+        for (int i = 0; i < expectedResult.length; i++)
+            expectedResult[i] = (byte) (i < 5000 ? 'a' + random.nextInt(1 + i % 20) : random.nextInt(256));
+
+        File source = File.createTempFile("blocks", ".bin");
+        File compressed = File.createTempFile("blocks", ".huf");
+        File destination = File.createTempFile("blocks", ".out");
+        Files.write(source.toPath(), expectedResult);
+        BlockCompressor compressor = new BlockCompressor(1024, 2, 4);
+
+        //ACT
+        compressor.compress(source.getPath(), compressed.getPath());
+        compressor.decompress(compressed.getPath(), destination.getPath());
+        byte[] indexResult = Files.readAllBytes(destination.toPath());
+
+        BinaryReader br = new BinaryReader(compressed.getPath());
+        Format format = Format.read(br);
+        BlockCompressor.decompress(br, format, destination.getPath());
+        br.close();
+        byte[] sequentialResult = Files.readAllBytes(destination.toPath());
+
+        byte[] streamResult;
+        try (InputStream in = new HuffmanInputStream(new FileInputStream(compressed))) {
+            streamResult = in.readAllBytes();
+        }
+
+        //ASSERT
+        Assert.assertEquals(Format.INTERLEAVED, format.getMode());
+        Assert.assertArrayEquals(expectedResult, indexResult);
+        Assert.assertArrayEquals(expectedResult, sequentialResult);
+        Assert.assertArrayEquals(expectedResult, streamResult);
+
+        source.delete();
+        compressed.delete();
+        destination.delete();
+    }
+}
@@ -0,0 +1,69 @@
+package test;
+
+import huffman.CodeLengths;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CodeLengthsTest {
+
+    @Test
+    public void should_return_huffman_lengths_when_calling_compute() {
+        //ARRANGE
+        int[] frequencies = new int[128];
+        frequencies['a'] = 5;
+        frequencies['b'] = 1;
+        frequencies['c'] = 3;
+        frequencies['d'] = 1;
+        frequencies['e'] = 2;
+
+        int[] expectedResult = new int[128];
+        expectedResult['a'] = 1;
+        expectedResult['b'] = 4;
+        expectedResult['c'] = 2;
+        expectedResult['d'] = 4;
+        expectedResult['e'] = 3;
+
+        //ACT
+        int[] actualResult = CodeLengths.compute(frequencies);
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+    }
+
+    @Test
+    public void should_return_one_bit_when_calling_compute_with_one_symbol() {
+        //ARRANGE
+        int[] frequencies = new int[4];
+        frequencies[2] = 42;
+
+        //ACT
+        int[] actualResult = CodeLengths.compute(frequencies);
+
+        //ASSERT
+        Assert.assertArrayEquals(new int[]{0, 0, 1, 0}, actualResult);
+    }
+
+    @Test
+    public void should_return_optimal_limited_lengths_when_calling_compute_with_max_length() {
+        //ARRANGE
+        //Fréquences de Fibonacci : les codes de Huffman vont de 1 à 7 bits
+        int[] frequencies = {1, 1, 2, 3, 5, 8, 13, 21};
+        int[] expectedResult = {4, 4, 4, 4, 3, 3, 2, 2};
+
+        //ACT
+        int[] actualResult = CodeLengths.compute(frequencies, 4);
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+        Assert.assertEquals(7, CodeLengths.compute(frequencies)[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_when_max_length_cannot_code_all_symbols() {
+        //ARRANGE
+        int[] frequencies = {1, 2, 3, 4, 5};
+
+        //ACT
+        CodeLengths.compute(frequencies, 2);
+    }
+}
@@ -0,0 +1,155 @@
+package test;
+
+import huffman.CodeTable;
+import huffman.FlatTree;
+import huffman.Format;
+import huffman.FrequencyReader;
+import huffman.HuffmanTree;
+import huffman.Leaf;
+import huffman.TreeElement;
+import io.BinaryReader;
+import io.BinaryWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+public class CodeTableTest {
+
+    @Test
+    public void should_return_canonical_codes_when_building_from_lengths() {
+        //ARRANGE
+        byte[] lengths = new byte[8];
+        lengths['a' % 8] = 2;
+        lengths['b' % 8] = 1;
+        lengths['c' % 8] = 3;
+        lengths['d' % 8] = 3;
+
+        //ACT
+        CodeTable table = new CodeTable(lengths);
+
+        //ASSERT
+        Assert.assertEquals("0", table.getCharCode('b' % 8));
+        Assert.assertEquals("10", table.getCharCode('a' % 8));
+        Assert.assertEquals("110", table.getCharCode('c' % 8));
+        Assert.assertEquals("111", table.getCharCode('d' % 8));
+        Assert.assertEquals("", table.getCharCode(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_when_lengths_are_not_a_prefix_code() {
+        //ARRANGE
+        byte[] lengths = new byte[3];
+        lengths[0] = 1;
+        lengths[1] = 1;
+        lengths[2] = 1;
+
+        //ACT
+        new CodeTable(lengths);
+    }
+
+    @Test
+    public void should_read_same_lengths_when_calling_write_lengths() {
+        //ARRANGE
+        byte[] lengths = new byte[Character.MAX_VALUE + 1];
+        lengths[0] = 4;
+        lengths['\n'] = 4;
+        lengths[' '] = 2;
+        lengths['e'] = 3;
+        lengths['s'] = 3;
+        lengths['t'] = 4;
+        lengths['é'] = 4;
+        lengths[Character.MAX_VALUE] = 2;
+
+        CodeTable expectedResult = new CodeTable(lengths);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out);
+
+        //ACT
+        expectedResult.writeLengths(bw);
+        bw.close();
+        CodeTable actualResult = CodeTable.readLengths(new BinaryReader(new ByteArrayInputStream(out.toByteArray())), lengths.length);
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult.getLengths(), actualResult.getLengths());
+        Assert.assertArrayEquals(expectedResult.getCodes(), actualResult.getCodes());
+    }
+
+    @Test
+    public void should_return_tree_codes_when_building_table_from_tree() {
+        //ARRANGE
+        ArrayList<TreeElement> heap = new ArrayList<>();
+        long previous = 1;
+        long frequency = 1;
+
+        //Fréquences de Fibonacci : l'arbre est un peigne, ses codes vont de 1 à 19 bits
+        for (char c = 'a'; c <= 't'; c++) {
+            heap.add(new Leaf(c, frequency));
+            frequency += previous;
+            previous = frequency - previous;
+        }
+        HuffmanTree tree = new HuffmanTree(heap);
+        FlatTree flat = tree.getTree();
+
+        //ACT
+        CodeTable actualResult = new CodeTable(flat, Character.MAX_VALUE + 1);
+        CodeTable canonical = tree.getCodeTable();
+
+        //ASSERT
+        Assert.assertEquals(19, actualResult.getMaxLength());
+
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            String expectedCode = flat.getCharCode((char) c);
+
+            Assert.assertEquals(expectedCode, actualResult.getCharCode(c));
+            Assert.assertEquals(expectedCode.length(), actualResult.getLengths()[c]);
+            Assert.assertEquals(expectedCode.length(), canonical.getLengths()[c]);
+
+            if (!expectedCode.isEmpty()) {
+                Assert.assertEquals(Integer.parseInt(expectedCode, 2), actualResult.getCodes()[c]);
+                Assert.assertEquals(tree.getCharCode((char) c), canonical.getCharCode(c));
+                Assert.assertEquals(Integer.parseInt(canonical.getCharCode(c), 2), canonical.getCodes()[c]);
+            }
+        }
+    }
+
+    @Test
+    public void should_return_same_file_when_encoding_with_table_or_string_codes() throws IOException {
+        //ARRANGE
+        String content = "abracadabra, le chat mange la souris\nzzz\tABC";
+        File source = File.createTempFile("table", ".txt");
+        File compressed = File.createTempFile("table", ".huf");
+        Files.write(source.toPath(), content.getBytes(Charset.defaultCharset()));
+        HuffmanTree tree = new HuffmanTree(new FrequencyReader().readFile(source.getPath()));
+
+        //Encodage caractère par caractère avec les codes sous forme de chaines, comme avant la table
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out);
+        new Format(Format.SIZED, Format.CHARS).write(bw);
+        tree.getCodeTable().writeLengths(bw);
+        bw.alignToByte();
+        Format.writeLong(bw, content.length());
+
+        for (char c : content.toCharArray())
+            bw.write(tree.getCharCode(c));
+
+        bw.close();
+        byte[] expectedResult = out.toByteArray();
+
+        //ACT
+        tree.compress(source.getPath(), compressed.getPath());
+        byte[] actualResult = Files.readAllBytes(compressed.toPath());
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+
+        source.delete();
+        compressed.delete();
+    }
+}
@@ -0,0 +1,81 @@
+package test;
+
+import huffman.Codec;
+import huffman.ContextHuffman;
+import huffman.Format;
+import io.BinaryReader;
+import io.MappedFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class ContextHuffmanTest {
+
+    @Test
+    public void should_be_smaller_than_single_table_when_compressing_text() throws IOException {
+        //ARRANGE
+        String[] words = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "and", "then", "sleeps"};
+        Random random = new Random(3);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 100000)
+            sb.append(words[random.nextInt(words.length)]).append(random.nextInt(10) == 0 ? ".\n" : " ");
+
+        byte[] expectedResult = sb.toString().getBytes(StandardCharsets.UTF_8);
+        File source = File.createTempFile("context", ".txt");
+        File contextFile = File.createTempFile("context", ".huf");
+        File canonicalFile = File.createTempFile("canonical", ".huf");
+        Files.write(source.toPath(), expectedResult);
+        ByteArrayOutputStream actualResult = new ByteArrayOutputStream();
+        int tableCount;
+
+        //ACT
+        try (MappedFile mapped = new MappedFile(source.getPath())) {
+            tableCount = ContextHuffman.compress(mapped, contextFile.getPath()).getTableCount();
+        }
+        Codec.compress(source.getPath(), canonicalFile.getPath(), 1);
+
+        BinaryReader br = new BinaryReader(contextFile.getPath());
+        Format format = Format.read(br);
+        ContextHuffman.decompress(br, actualResult);
+        br.close();
+
+        //ASSERT
+        Assert.assertEquals(Format.CONTEXT, format.getMode());
+        Assert.assertArrayEquals(expectedResult, actualResult.toByteArray());
+        Assert.assertTrue(tableCount > 1);
+        Assert.assertTrue(contextFile.length() < canonicalFile.length() * 3 / 4);
+
+        source.delete();
+        contextFile.delete();
+        canonicalFile.delete();
+    }
+
+    @Test
+    public void should_restore_file_when_file_is_empty_or_single_byte() throws IOException {
+        //ARRANGE
+        File source = File.createTempFile("context", ".bin");
+        File compressed = File.createTempFile("context", ".huf");
+        File output = File.createTempFile("context", ".out");
+
+        for (byte[] expectedResult : new byte[][]{new byte[0], new byte[]{42}, new byte[]{0, 0, 0}}) {
+            Files.write(source.toPath(), expectedResult);
+
+            //ACT
+            Codec.compressContext(source.getPath(), compressed.getPath());
+            Codec.decompress(compressed.getPath(), output.getPath(), 1);
+
+            //ASSERT
+            Assert.assertArrayEquals(expectedResult, Files.readAllBytes(output.toPath()));
+        }
+
+        source.delete();
+        compressed.delete();
+        output.delete();
+    }
+}
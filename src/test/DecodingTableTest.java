@@ -0,0 +1,52 @@
+package test;
+
+import huffman.DecodingTable;
+import io.BinaryReader;
+import io.BinaryWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class DecodingTableTest {
+
+    @Test
+    public void should_decode_long_codes_when_calling_decode() {
+        //ARRANGE
+        //Codes 0, 10, 110, ..., 1...10 (29 bits) et 1...1 (29 bits) : plusieurs niveaux de sous-tables
+        int n = 30;
+        int[] codes = new int[Character.MAX_VALUE + 1];
+        byte[] lengths = new byte[Character.MAX_VALUE + 1];
+
+        for (int i = 0; i < n; i++) {
+            int length = Math.min(i + 1, n - 1);
+            int symbol = 0x4E00 + i;
+
+            lengths[symbol] = (byte) length;
+            codes[symbol] = (i == n - 1) ? (1 << length) - 1 : ((1 << length) - 1) & ~1;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out);
+        int[] expectedResult = new int[1000];
+
+        for (int i = 0; i < expectedResult.length; i++) {
+            expectedResult[i] = 0x4E00 + (i * 7) % n;
+            bw.writeBits(codes[expectedResult[i]], lengths[expectedResult[i]]);
+        }
+
+        bw.close();
+
+        //ACT
+        DecodingTable table = new DecodingTable(codes, lengths);
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(out.toByteArray()));
+        int[] actualResult = new int[expectedResult.length];
+
+        for (int i = 0; i < actualResult.length; i++)
+            actualResult[i] = table.decode(br);
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+    }
+}
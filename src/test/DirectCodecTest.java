@@ -0,0 +1,163 @@
+package test;
+
+import huffman.Codec;
+import huffman.CodeTable;
+import huffman.DirectCodec;
+import huffman.Format;
+import huffman.FrequencyReader;
+import huffman.HuffmanTree;
+import io.BinaryReader;
+import io.BinaryWriter;
+import io.MappedFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+public class DirectCodecTest {
+
+    /**
+     * Crée un contenu très déséquilibré, dont certains codes dépassent la table principale de décodage
+     *
+     * @param length nombre d'octets
+     * @return le contenu
+     */
+    private static byte[] createContent(int length) {
+        Random random = new Random(42);
+        byte[] content = new byte[length];
+
+        for (int i = 0; i < length; i++)
+            content[i] = (byte) Math.min(255, Integer.numberOfTrailingZeros(random.nextInt() | 1 << 30) * 9 + random.nextInt(3));
+
+        return content;
+    }
+
+    @Test
+    public void should_return_same_bits_as_binary_writer_when_encoding_after_existing_bits() {
+        //ARRANGE
+        byte[] content = createContent(10000);
+        long[] frequencies = new long[256];
+
+        for (byte b : content)
+            frequencies[b & 0xFF]++;
+
+        HuffmanTree tree = new HuffmanTree(frequencies);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out);
+        bw.writeBits(0b10110, 5);
+        tree.encode(ByteBuffer.wrap(content), bw);
+        long expectedLength = bw.getBitCount();
+        bw.close();
+        byte[] expectedResult = out.toByteArray();
+
+        ByteBuffer destination = ByteBuffer.allocateDirect(expectedResult.length).order(ByteOrder.LITTLE_ENDIAN);
+        destination.put(0, (byte) 0b10110000);
+        ByteBuffer source = ByteBuffer.allocateDirect(content.length);
+        source.put(content).flip();
+
+        //ACT
+        long actualLength = DirectCodec.encode(tree.getCodeTable(), source, destination, 5);
+        byte[] actualResult = new byte[expectedResult.length];
+        destination.get(actualResult);
+
+        //ASSERT
+        Assert.assertTrue(tree.getCodeTable().getMaxLength() > 11);
+        Assert.assertEquals(expectedLength, actualLength);
+        Assert.assertArrayEquals(expectedResult, actualResult);
+    }
+
+    @Test
+    public void should_return_same_bytes_when_encoding_then_decoding_direct_buffers() {
+        //ARRANGE
+        byte[] expectedResult = createContent(100000);
+        long[] frequencies = new long[256];
+
+        for (byte b : expectedResult)
+            frequencies[b & 0xFF]++;
+
+        CodeTable table = new HuffmanTree(frequencies).getCodeTable();
+        ByteBuffer source = ByteBuffer.allocateDirect(expectedResult.length);
+        source.put(expectedResult).flip();
+        ByteBuffer compressed = ByteBuffer.allocateDirect(expectedResult.length * 4);
+        ByteBuffer destination = ByteBuffer.allocateDirect(expectedResult.length);
+
+        //ACT
+        long end = DirectCodec.encode(table, source, compressed, 3);
+        compressed.limit((int) ((end + 7) / 8));
+        long actualEnd = DirectCodec.decode(table.toDecodingTable(), compressed, 3, destination);
+        byte[] actualResult = new byte[expectedResult.length];
+        destination.get(actualResult);
+
+        //ASSERT
+        Assert.assertEquals(end, actualEnd);
+        Assert.assertArrayEquals(expectedResult, actualResult);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_throw_when_decoding_truncated_buffer() {
+        //ARRANGE
+        byte[] content = createContent(1000);
+        long[] frequencies = new long[256];
+
+        for (byte b : content)
+            frequencies[b & 0xFF]++;
+
+        CodeTable table = new HuffmanTree(frequencies).getCodeTable();
+        ByteBuffer compressed = ByteBuffer.allocateDirect(content.length * 4);
+        long end = DirectCodec.encode(table, ByteBuffer.wrap(content), compressed, 0);
+        compressed.limit((int) (end / 8) - 2);
+
+        //ACT
+        DirectCodec.decode(table.toDecodingTable(), compressed, 0, ByteBuffer.allocateDirect(content.length));
+    }
+
+    @Test
+    public void should_return_same_file_as_huffman_tree_when_compressing_mapped_file() throws IOException {
+        //ARRANGE
+        byte[] content = createContent(3 * DirectCodec.BUFFER_SIZE + 12345);
+        File source = File.createTempFile("direct", ".bin");
+        File expected = File.createTempFile("direct", ".huf");
+        File compressed = File.createTempFile("direct", ".huf");
+        File destination = File.createTempFile("direct", ".out");
+        Files.write(source.toPath(), content);
+        CodeTable table;
+
+        //ACT
+        try (MappedFile mapped = new MappedFile(source.getPath(), 1 << 20)) {
+            HuffmanTree tree = new HuffmanTree(new FrequencyReader().readBytes(mapped));
+            tree.compress(mapped, expected.getPath());
+            table = tree.getCodeTable();
+            DirectCodec.compress(table, mapped, compressed.getPath());
+        }
+
+        BinaryReader br = new BinaryReader(compressed.getPath());
+        Format.read(br);
+        CodeTable.readLengths(br, 256);
+        long length = Format.readLong(br);
+        long bitOffset = br.getBitCount();
+        br.close();
+
+        DirectCodec.decompress(table, compressed.getPath(), bitOffset, destination.getPath(), length);
+        byte[] actualResult = Files.readAllBytes(destination.toPath());
+
+        //ASSERT
+        Assert.assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(compressed.toPath()));
+        Assert.assertEquals(content.length, length);
+        Assert.assertTrue(Arrays.equals(content, actualResult));
+
+        Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+        Assert.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+
+        source.delete();
+        expected.delete();
+        compressed.delete();
+        destination.delete();
+    }
+}
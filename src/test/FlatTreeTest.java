@@ -0,0 +1,95 @@
+package test;
+
+import huffman.Codec;
+import huffman.FlatTree;
+import huffman.FrequencyReader;
+import huffman.Leaf;
+import huffman.Node;
+import huffman.TreeElement;
+import io.BinaryReader;
+import io.BinaryWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class FlatTreeTest {
+
+    @Test
+    public void should_return_same_tree_as_nodes_when_building_from_leaves() {
+        //ARRANGE
+        Leaf a = new Leaf('a', 1);
+        Leaf b = new Leaf('b', 1);
+        Leaf c = new Leaf('c', 2);
+        Node expectedResult = new Node('c', 4, new Node('b', 2, a, b), c);
+
+        //ACT
+        FlatTree actualResult = FlatTree.build(new ArrayList<>(Arrays.asList(c, b, a)));
+
+        //ASSERT
+        Assert.assertEquals(5, actualResult.size());
+        Assert.assertEquals(FlatTree.NONE, actualResult.getParent(actualResult.getRoot()));
+        Assert.assertEquals(expectedResult.toString(), actualResult.toElement().toString());
+    }
+
+    @Test
+    public void should_return_same_tree_when_encoding_then_decoding() {
+        //ARRANGE
+        ArrayList<TreeElement> leaves = new ArrayList<>();
+
+        for (char c = 'a'; c <= 'z'; c++)
+            leaves.add(new Leaf(c, c * c % 97));
+
+        FlatTree expectedResult = FlatTree.build(leaves);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out);
+
+        //ACT
+        expectedResult.encode(bw);
+        bw.close();
+        FlatTree actualResult = FlatTree.decode(new BinaryReader(new ByteArrayInputStream(out.toByteArray())));
+
+        //ASSERT
+        Assert.assertEquals(expectedResult.size(), actualResult.size());
+        Assert.assertFalse(actualResult.isFrequencySet());
+
+        for (char c = 'a'; c <= 'z'; c++)
+            Assert.assertEquals(expectedResult.getCharCode(c), actualResult.getCharCode(c));
+    }
+
+    @Test
+    public void should_return_same_chars_when_decompressing_legacy_file() throws IOException {
+        //ARRANGE
+        String expectedResult = "abracadabra";
+        ArrayList<TreeElement> leaves = new ArrayList<>(Arrays.asList(new Leaf('a', 5), new Leaf('b', 2),
+                new Leaf('r', 2), new Leaf('c', 1), new Leaf('d', 1), new Leaf(FrequencyReader.EOF, 1)));
+        FlatTree tree = FlatTree.build(leaves);
+        File compressed = File.createTempFile("flat", ".huf");
+        File destination = File.createTempFile("flat", ".out");
+        BinaryWriter bw = new BinaryWriter(compressed.getPath());
+        tree.encode(bw);
+
+        for (char c : (expectedResult + FrequencyReader.EOF).toCharArray())
+            for (char bit : tree.getCharCode(c).toCharArray())
+                bw.writeBit(bit == '1');
+
+        bw.close();
+
+        //ACT
+        Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+        String actualResult = new String(Files.readAllBytes(destination.toPath()), Charset.defaultCharset());
+
+        //ASSERT
+        Assert.assertEquals(expectedResult, actualResult);
+
+        compressed.delete();
+        destination.delete();
+    }
+}
@@ -0,0 +1,89 @@
+package test;
+
+import huffman.BlockCompressor;
+import huffman.HuffmanInputStream;
+import huffman.HuffmanOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class HuffmanStreamTest {
+
+    @Test
+    public void should_read_written_bytes_when_flushing_before_close() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = new byte[3000];
+        Random random = new Random(1);
+        for (int i = 0; i < expectedResult.length; i++)
+            expectedResult[i] = (byte) ('a' + random.nextInt(1 + i % 26));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        HuffmanOutputStream out = new HuffmanOutputStream(compressed, 1024);
+
+        //ACT
+        out.write(expectedResult, 0, 100);
+        out.flush();
+        byte[] flushed = compressed.toByteArray();
+        out.write(expectedResult[100]);
+        out.write(expectedResult, 101, expectedResult.length - 101);
+        out.close();
+
+        byte[] partialResult = readAll(new HuffmanInputStream(new ByteArrayInputStream(flushed)), 100);
+        byte[] actualResult = readAll(new HuffmanInputStream(new ByteArrayInputStream(compressed.toByteArray())), -1);
+
+        //ASSERT
+        byte[] expectedPartialResult = new byte[100];
+        System.arraycopy(expectedResult, 0, expectedPartialResult, 0, 100);
+        Assert.assertArrayEquals(expectedPartialResult, partialResult);
+        Assert.assertArrayEquals(expectedResult, actualResult);
+    }
+
+    @Test
+    public void should_decompress_with_index_when_writing_with_stream() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = new byte[5000];
+        new Random(3).nextBytes(expectedResult);
+
+        File compressed = File.createTempFile("stream", ".huf");
+        File destination = File.createTempFile("stream", ".out");
+        HuffmanOutputStream out = new HuffmanOutputStream(Files.newOutputStream(compressed.toPath()), 2048);
+
+        //ACT
+        out.write(expectedResult);
+        out.close();
+        new BlockCompressor(2048, 2).decompress(compressed.getPath(), destination.getPath());
+        byte[] actualResult = Files.readAllBytes(destination.toPath());
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+
+        compressed.delete();
+        destination.delete();
+    }
+
+    /**
+     * Lit un flux
+     * @param in flux
+     * @param length nombre d'octets à lire, -1 pour lire jusqu'à la fin
+     * @return les octets lus
+     */
+    private static byte[] readAll(InputStream in, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[700];
+        int n;
+
+        while ((length < 0 || out.size() < length)
+                && (n = in.read(buffer, 0, length < 0 ? buffer.length : Math.min(buffer.length, length - out.size()))) > 0)
+            out.write(buffer, 0, n);
+
+        in.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,174 @@
+package test;
+
+import huffman.Codec;
+import huffman.Format;
+import huffman.FrequencyReader;
+import huffman.HuffmanTree;
+import io.BinaryReader;
+import io.MappedFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+public class HuffmanTreeTest {
+
+    @Test
+    public void should_return_same_chars_when_decompressing_content_with_nul() throws IOException {
+        //ARRANGE
+        String expectedResult = "ab\0\0c\0abracadabra\0";
+        File source = File.createTempFile("tree", ".txt");
+        File compressed = File.createTempFile("tree", ".huf");
+        File destination = File.createTempFile("tree", ".out");
+        Files.write(source.toPath(), expectedResult.getBytes(Charset.defaultCharset()));
+
+        //ACT
+        new HuffmanTree(new FrequencyReader().readFile(source.getPath())).compress(source.getPath(), compressed.getPath());
+        BinaryReader br = new BinaryReader(compressed.getPath());
+        Format format = Format.read(br);
+        br.close();
+        Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+        String actualResult = new String(Files.readAllBytes(destination.toPath()), Charset.defaultCharset());
+
+        //ASSERT
+        Assert.assertEquals(Format.SIZED, format.getMode());
+        Assert.assertEquals(expectedResult, actualResult);
+
+        source.delete();
+        compressed.delete();
+        destination.delete();
+    }
+
+    @Test
+    public void should_return_same_chars_when_decompressing_a_single_character() throws IOException {
+        //ARRANGE
+        String expectedResult = "zzzzzzzz";
+        File source = File.createTempFile("tree", ".txt");
+        File compressed = File.createTempFile("tree", ".huf");
+        File destination = File.createTempFile("tree", ".out");
+        Files.write(source.toPath(), expectedResult.getBytes(Charset.defaultCharset()));
+
+        //ACT
+        new HuffmanTree(new FrequencyReader().readFile(source.getPath())).compress(source.getPath(), compressed.getPath());
+        Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+        String actualResult = new String(Files.readAllBytes(destination.toPath()), Charset.defaultCharset());
+
+        //ASSERT
+        Assert.assertEquals(expectedResult, actualResult);
+
+        source.delete();
+        compressed.delete();
+        destination.delete();
+    }
+
+    /**
+     * Compresse un contenu octet par octet ({@link Format#BYTES}) depuis un fichier projeté en mémoire puis le décompresse
+     *
+     * @param content    octets à compresser
+     * @param compressed fichier qui reçoit le contenu compressé
+     * @return les octets décompressés
+     * @throws IOException si un fichier temporaire ne peut pas être lu ou écrit
+     */
+    private static byte[] roundTripBytes(byte[] content, File compressed) throws IOException {
+        File source = File.createTempFile("tree", ".bin");
+        File destination = File.createTempFile("tree", ".out");
+        Files.write(source.toPath(), content);
+
+        try (MappedFile mapped = new MappedFile(source.getPath())) {
+            new HuffmanTree(new FrequencyReader().readBytes(mapped)).compress(mapped, compressed.getPath());
+        }
+
+        Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+        byte[] result = Files.readAllBytes(destination.toPath());
+
+        source.delete();
+        destination.delete();
+
+        return result;
+    }
+
+    @Test
+    public void should_return_same_bytes_when_decompressing_random_binary_content() throws IOException {
+        //ARRANGE
+        Random random = new Random(13);
+        byte[] expectedResult = new byte[100000];
+        random.nextBytes(expectedResult);
+        //Des suites de 0x00 et de 0xFF, comme dans les fichiers binaires
+        for (int i = 0; i < 1000; i++) {
+            expectedResult[i] = 0x00;
+            expectedResult[expectedResult.length - 1 - i] = (byte) 0xFF;
+        }
+
+        File compressed = File.createTempFile("tree", ".huf");
+
+        //ACT
+        byte[] actualResult = roundTripBytes(expectedResult, compressed);
+        BinaryReader br = new BinaryReader(compressed.getPath());
+        Format format = Format.read(br);
+        br.close();
+
+        //ASSERT
+        Assert.assertEquals(Format.CANONICAL, format.getMode());
+        Assert.assertEquals(Format.BYTES, format.getAlphabet());
+        Assert.assertArrayEquals(expectedResult, actualResult);
+
+        compressed.delete();
+    }
+
+    @Test
+    public void should_return_empty_file_when_decompressing_empty_binary_content() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = new byte[0];
+        File compressed = File.createTempFile("tree", ".huf");
+
+        //ACT
+        byte[] actualResult = roundTripBytes(expectedResult, compressed);
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+
+        compressed.delete();
+    }
+
+    @Test
+    public void should_return_same_bytes_when_decompressing_a_single_byte_value() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = new byte[5000];
+        Arrays.fill(expectedResult, (byte) 0xFF);
+        File compressed = File.createTempFile("tree", ".huf");
+
+        //ACT
+        byte[] actualResult = roundTripBytes(expectedResult, compressed);
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+        Assert.assertTrue(compressed.length() < expectedResult.length / 4);
+
+        compressed.delete();
+    }
+
+    @Test(expected = IOException.class)
+    public void should_throw_when_decompressing_chars_to_an_unwritable_destination() throws IOException {
+        //ARRANGE
+        File source = File.createTempFile("tree", ".txt");
+        File compressed = File.createTempFile("tree", ".huf");
+        File destination = Files.createTempDirectory("tree").toFile();
+        Files.write(source.toPath(), "abracadabra".getBytes(Charset.defaultCharset()));
+        new HuffmanTree(new FrequencyReader().readFile(source.getPath())).compress(source.getPath(), compressed.getPath());
+
+        //ACT
+        try {
+            //Un dossier ne peut pas être ouvert en écriture
+            Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+        } finally {
+            source.delete();
+            compressed.delete();
+            destination.delete();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package test;
+
+import huffman.Codec;
+import huffman.FlatTree;
+import huffman.FrequencyReader;
+import huffman.HuffmanTree;
+import huffman.Leaf;
+import huffman.TreeElement;
+import io.BinaryReader;
+import io.BinaryWriter;
+import io.MappedFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class LargeFileTest {
+    /**
+     * Taille des fichiers creux : plus de 2^31 octets nuls
+     */
+    private static final long SIZE = (1L << 31) + (1 << 20);
+
+    /**
+     * Crée un fichier creux de {@link LargeFileTest#SIZE} octets nuls, sauf quelques octets après 2 Go
+     *
+     * @return le fichier
+     * @throws IOException si le fichier ne peut pas être créé
+     */
+    private static File createSparseFile() throws IOException {
+        File file = File.createTempFile("large", ".bin");
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(SIZE);
+            raf.seek(SIZE - 3);
+            raf.write(new byte[]{'a', 'b', 'a'});
+        }
+
+        return file;
+    }
+
+    @Test
+    public void should_count_more_than_int_max_when_reading_sparse_file() throws IOException {
+        //ARRANGE
+        File source = createSparseFile();
+
+        //ACT
+        long[] actualResult = new FrequencyReader().readBytes(source.getPath());
+
+        //ASSERT
+        Assert.assertEquals(SIZE - 3, actualResult[0]);
+        Assert.assertEquals(2, actualResult['a']);
+        Assert.assertEquals(1, actualResult['b']);
+        Assert.assertEquals(SIZE, Arrays.stream(actualResult).sum());
+
+        source.delete();
+    }
+
+    @Test
+    public void should_return_same_content_when_compressing_sparse_file_in_one_stream() throws IOException {
+        //ARRANGE
+        File source = createSparseFile();
+        File compressed = File.createTempFile("large", ".huf");
+        File destination = File.createTempFile("large", ".out");
+
+        //ACT
+        try (MappedFile mapped = new MappedFile(source.getPath())) {
+            new HuffmanTree(new FrequencyReader().readBytes(mapped)).compress(mapped, compressed.getPath());
+        }
+
+        Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+
+        //ASSERT
+        Assert.assertEquals(SIZE, destination.length());
+
+        try (MappedFile expected = new MappedFile(source.getPath()); MappedFile actual = new MappedFile(destination.getPath())) {
+            for (int w = 0; w < expected.getWindowCount(); w++) {
+                ByteBuffer expectedWindow = expected.getWindow(w);
+                ByteBuffer actualWindow = actual.getWindow(w);
+
+                Assert.assertEquals(expectedWindow, actualWindow);
+            }
+        }
+
+        source.delete();
+        compressed.delete();
+        destination.delete();
+    }
+
+    @Test
+    public void should_return_same_codes_when_frequencies_exceed_int() {
+        //ARRANGE
+        ArrayList<TreeElement> leaves = new ArrayList<>(Arrays.asList(
+                new Leaf('a', 5L << 40), new Leaf('b', 3L << 33), new Leaf('c', 3L << 33), new Leaf('d', 1)));
+
+        long[] frequencies = new long[256];
+        frequencies['a'] = 5L << 40;
+        frequencies['b'] = 3L << 33;
+        frequencies['c'] = 3L << 33;
+        frequencies['d'] = 1;
+
+        //ACT
+        FlatTree tree = FlatTree.build(leaves);
+        byte[] lengths = new HuffmanTree(frequencies).getCodeTable().getLengths();
+
+        //ASSERT
+        Assert.assertEquals((5L << 40) + (6L << 33) + 1, tree.getFrequency(tree.getRoot()));
+        Assert.assertEquals("1", tree.getCharCode('a'));
+        Assert.assertEquals(3, tree.getCharCode('d').length());
+        Assert.assertEquals(1, lengths['a']);
+        Assert.assertEquals(3, lengths['d']);
+    }
+
+    @Test
+    public void should_return_same_length_when_writing_gamma_beyond_int() {
+        //ARRANGE
+        long[] expectedResult = {1, 5, Integer.MAX_VALUE, 1L << 31, (1L << 31) + 7, 5L << 40, Long.MAX_VALUE};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter bw = new BinaryWriter(out);
+
+        //ACT
+        for (long n : expectedResult)
+            bw.writeGamma(n);
+
+        bw.close();
+        BinaryReader br = new BinaryReader(new ByteArrayInputStream(out.toByteArray()));
+        long[] actualResult = new long[expectedResult.length];
+
+        for (int i = 0; i < actualResult.length; i++)
+            actualResult[i] = br.readLongGamma();
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+    }
+}
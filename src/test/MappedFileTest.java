@@ -0,0 +1,66 @@
+package test;
+
+import io.MappedFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+public class MappedFileTest {
+
+    @Test
+    public void should_return_same_bytes_when_calling_slice_across_windows() throws IOException {
+        //ARRANGE
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++)
+            content[i] = (byte) (i * 7);
+
+        File file = File.createTempFile("mapped", ".bin");
+        Files.write(file.toPath(), content);
+
+        byte[] expectedResult = new byte[300];
+        System.arraycopy(content, 250, expectedResult, 0, expectedResult.length);
+        byte[] actualResult = new byte[300];
+
+        //ACT
+        try (MappedFile mapped = new MappedFile(file.getPath(), 256)) {
+            ByteBuffer slice = mapped.slice(250, 300);
+            slice.get(actualResult);
+
+            //ASSERT
+            Assert.assertEquals(4, mapped.getWindowCount());
+            Assert.assertEquals(1000 - 768, mapped.getWindow(3).remaining());
+        }
+
+        Assert.assertArrayEquals(expectedResult, actualResult);
+
+        file.delete();
+    }
+
+    @Test
+    public void should_write_bytes_when_calling_create() throws IOException {
+        //ARRANGE
+        File file = File.createTempFile("mapped", ".bin");
+        Files.write(file.toPath(), new byte[5000]);
+
+        byte[] expectedResult = new byte[1000];
+        for (int i = 0; i < expectedResult.length; i++)
+            expectedResult[i] = (byte) (i * 13);
+
+        //ACT
+        try (MappedFile mapped = MappedFile.create(file.getPath(), expectedResult.length, 256)) {
+            for (int w = 0; w < mapped.getWindowCount(); w++)
+                mapped.getWindow(w).put(expectedResult, w * 256, mapped.getWindow(w).remaining());
+        }
+
+        byte[] actualResult = Files.readAllBytes(file.toPath());
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+
+        file.delete();
+    }
+}
@@ -0,0 +1,274 @@
+package test;
+
+import huffman.AdaptiveHuffman;
+import huffman.BlockCompressor;
+import huffman.CodeLengths;
+import huffman.Codec;
+import huffman.SharedTable;
+import io.BinaryWriter;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import metrics.CompressionStats;
+import metrics.JfrListener;
+import metrics.Metrics;
+import metrics.MetricsListener;
+import metrics.Phase;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class MetricsTest {
+
+    @Test
+    public void should_report_every_phase_when_compressing_with_a_listener() throws IOException {
+        //ARRANGE
+        byte[] content = randomText(20000, 1);
+        File source = File.createTempFile("metrics", ".txt");
+        File compressed = File.createTempFile("metrics", ".huf");
+        File destination = File.createTempFile("metrics", ".out");
+        Files.write(source.toPath(), content);
+
+        Set<Phase> actualResult = EnumSet.noneOf(Phase.class);
+        long[] encodedSymbols = new long[1];
+        int[] maxLength = new int[1];
+        MetricsListener listener = new MetricsListener() {
+            @Override
+            public synchronized void onPhase(Phase phase, long nanos, long bytes, long symbols) {
+                actualResult.add(phase);
+
+                if (phase == Phase.PAYLOAD_ENCODE)
+                    encodedSymbols[0] += symbols;
+            }
+
+            @Override
+            public synchronized void onCodes(int alphabetSize, int length, double averageLength) {
+                maxLength[0] = Math.max(maxLength[0], length);
+            }
+        };
+
+        //ACT
+        Metrics.addListener(listener);
+        try {
+            new BlockCompressor(4096, 1).compress(source.getPath(), compressed.getPath());
+            Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+        } finally {
+            Metrics.removeListener(listener);
+        }
+
+        //ASSERT
+        Assert.assertEquals(EnumSet.complementOf(EnumSet.of(Phase.HEAP_SORT)), actualResult);
+        Assert.assertEquals(content.length, encodedSymbols[0]);
+        Assert.assertTrue(maxLength[0] > 0 && maxLength[0] <= 12);
+        Assert.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+
+        source.delete();
+        compressed.delete();
+        destination.delete();
+    }
+
+    @Test
+    public void should_accumulate_counters_when_reading_compression_stats() throws IOException {
+        //ARRANGE
+        byte[] content = randomText(10000, 2);
+        File source = File.createTempFile("metrics", ".txt");
+        File compressed = File.createTempFile("metrics", ".huf");
+        Files.write(source.toPath(), content);
+        CompressionStats stats = new CompressionStats();
+
+        //ACT
+        Metrics.addListener(stats);
+        try {
+            Codec.compress(source.getPath(), compressed.getPath(), 1);
+            Codec.compress(source.getPath(), compressed.getPath(), 1);
+        } finally {
+            Metrics.removeListener(stats);
+        }
+
+        Map<String, Long> calls = stats.getCalls();
+        Map<String, Long> symbols = stats.getSymbols();
+
+        //ASSERT
+        Assert.assertEquals(Phase.values().length, calls.size());
+        Assert.assertEquals(2, (long) calls.get(Phase.FREQUENCY_COUNT.name()));
+        Assert.assertEquals(2L * content.length, (long) symbols.get(Phase.PAYLOAD_ENCODE.name()));
+        Assert.assertEquals(2, stats.getCodeTables());
+        Assert.assertEquals(12, stats.getAverageAlphabetSize(), 0);
+        Assert.assertTrue(stats.getNanos().get(Phase.PAYLOAD_ENCODE.name()) > 0);
+
+        stats.reset();
+        Assert.assertEquals(0, (long) stats.getCalls().get(Phase.FREQUENCY_COUNT.name()));
+        Assert.assertEquals(0, stats.getMaxCodeLength());
+
+        source.delete();
+        compressed.delete();
+    }
+
+    @Test
+    public void should_record_jfr_events_when_recording() throws IOException {
+        //ARRANGE
+        File source = File.createTempFile("metrics", ".txt");
+        File compressed = File.createTempFile("metrics", ".huf");
+        File dump = File.createTempFile("metrics", ".jfr");
+        Files.write(source.toPath(), randomText(5000, 3));
+        JfrListener listener = new JfrListener();
+
+        //ACT
+        Metrics.addListener(listener);
+        try (Recording recording = new Recording()) {
+            recording.enable("huffman.Phase");
+            recording.enable("huffman.Codes");
+            recording.start();
+            Codec.compress(source.getPath(), compressed.getPath(), 1);
+            recording.stop();
+            recording.dump(dump.toPath());
+        } finally {
+            Metrics.removeListener(listener);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump.toPath());
+
+        //ASSERT
+        Assert.assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("huffman.Phase")
+                && e.getString("phase").equals(Phase.PAYLOAD_ENCODE.name()) && e.getLong("symbols") == 5000));
+        Assert.assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("huffman.Codes")
+                && e.getInt("alphabetSize") == 12));
+
+        source.delete();
+        compressed.delete();
+        dump.delete();
+    }
+
+    @Test
+    public void should_report_present_symbols_when_computing_code_lengths() {
+        //ARRANGE
+        long[] frequencies = new long[256];
+        for (byte b : randomText(5000, 4))
+            frequencies[b]++;
+
+        long[] actualResult = new long[1];
+        MetricsListener listener = new MetricsListener() {
+            @Override
+            public synchronized void onPhase(Phase phase, long nanos, long bytes, long symbols) {
+                if (phase == Phase.TREE_BUILD)
+                    actualResult[0] = symbols;
+            }
+
+            @Override
+            public void onCodes(int alphabetSize, int length, double averageLength) {
+            }
+        };
+
+        //ACT
+        Metrics.addListener(listener);
+        try {
+            CodeLengths.compute(frequencies, 15);
+        } finally {
+            Metrics.removeListener(listener);
+        }
+
+        //ASSERT
+        Assert.assertEquals(12, actualResult[0]);
+    }
+
+    @Test
+    public void should_report_payload_phases_when_compressing_streams() throws IOException {
+        //ARRANGE
+        byte[] content = randomText(300000, 5);
+        long[] actualResult = new long[Phase.values().length];
+        MetricsListener listener = new MetricsListener() {
+            @Override
+            public synchronized void onPhase(Phase phase, long nanos, long bytes, long symbols) {
+                actualResult[phase.ordinal()] += symbols;
+            }
+
+            @Override
+            public void onCodes(int alphabetSize, int length, double averageLength) {
+            }
+        };
+
+        //ACT
+        Metrics.addListener(listener);
+        try {
+            //Flux en blocs (HuffmanOutputStream, HuffmanInputStream) puis codage adaptatif
+            ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+            Codec.compress(new ByteArrayInputStream(content), blocks);
+            Codec.decompress(new ByteArrayInputStream(blocks.toByteArray()), new ByteArrayOutputStream(), 1);
+
+            ByteArrayOutputStream adaptive = new ByteArrayOutputStream();
+            AdaptiveHuffman.compress(new ByteArrayInputStream(content), adaptive);
+            Codec.decompress(new ByteArrayInputStream(adaptive.toByteArray()), new ByteArrayOutputStream(), 1);
+        } finally {
+            Metrics.removeListener(listener);
+        }
+
+        //ASSERT
+        Assert.assertEquals(2L * content.length, actualResult[Phase.PAYLOAD_ENCODE.ordinal()]);
+        Assert.assertEquals(2L * content.length, actualResult[Phase.PAYLOAD_DECODE.ordinal()]);
+    }
+
+    @Test
+    public void should_report_io_wait_only_for_files_when_writing_bits() throws IOException {
+        //ARRANGE
+        byte[] content = randomText(100000, 7);
+        long[] frequencies = new long[256];
+        for (byte b : content)
+            frequencies[b & 0xFF]++;
+
+        SharedTable table = SharedTable.train(frequencies);
+        File file = File.createTempFile("metrics", ".bin");
+        long[] ioBytes = new long[2];
+        int[] step = new int[1];
+        MetricsListener listener = new MetricsListener() {
+            @Override
+            public synchronized void onPhase(Phase phase, long nanos, long bytes, long symbols) {
+                if (phase == Phase.IO_WAIT)
+                    ioBytes[step[0]] += bytes;
+            }
+
+            @Override
+            public void onCodes(int alphabetSize, int length, double averageLength) {
+            }
+        };
+
+        //ACT
+        Metrics.addListener(listener);
+        try {
+            //En mémoire : aucune attente, puis dans un fichier : chaque octet écrit est une attente
+            table.compress(content);
+            step[0] = 1;
+            BinaryWriter bw = new BinaryWriter(file.getPath());
+            bw.writeBytes(content, 0, content.length);
+            bw.close();
+        } finally {
+            Metrics.removeListener(listener);
+        }
+
+        //ASSERT
+        Assert.assertEquals(0, ioBytes[0]);
+        Assert.assertEquals(content.length, ioBytes[1]);
+
+        file.delete();
+    }
+
+    //Texte aléatoire de 12 lettres au plus
+    private static byte[] randomText(int length, long seed) {
+        byte[] content = new byte[length];
+        Random random = new Random(seed);
+
+        for (int i = 0; i < content.length; i++)
+            content[i] = (byte) ('a' + random.nextInt(1 + random.nextInt(12)));
+
+        return content;
+    }
+}
@@ -0,0 +1,118 @@
+package test;
+
+import huffman.Codec;
+import huffman.CodeTable;
+import huffman.DirectCodec;
+import huffman.FrequencyReader;
+import huffman.HuffmanTree;
+import huffman.ParallelEncoder;
+import io.MappedFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class ParallelEncoderTest {
+
+    /**
+     * Crée un contenu dont les codes ont des longueurs variées, pour que les segments commencent au milieu d'un octet
+     *
+     * @param length nombre d'octets
+     * @return le contenu
+     */
+    private static byte[] createContent(int length) {
+        Random random = new Random(7);
+        byte[] content = new byte[length];
+
+        for (int i = 0; i < length; i++)
+            content[i] = (byte) Math.min(255, Math.abs(random.nextGaussian() * 40));
+
+        return content;
+    }
+
+    @Test
+    public void should_return_same_bits_as_direct_codec_when_encoding_segments_in_parallel() throws IOException {
+        //ARRANGE
+        byte[] content = createContent(100003);
+        long[] frequencies = new long[256];
+
+        for (byte b : content)
+            frequencies[b & 0xFF]++;
+
+        CodeTable table = new HuffmanTree(frequencies).getCodeTable();
+        ByteBuffer expectedResult = ByteBuffer.allocate(content.length * 4);
+        ByteBuffer actualResult = ByteBuffer.allocate(content.length * 4);
+        expectedResult.put(0, (byte) 0xA0);
+        actualResult.put(0, (byte) 0xA0);
+
+        //ACT
+        long expectedEnd = DirectCodec.encode(table, ByteBuffer.wrap(content), expectedResult, 3);
+        long actualEnd = new ParallelEncoder(ParallelEncoder.MIN_SEGMENT_SIZE * 61, 4).encode(table, ByteBuffer.wrap(content), actualResult, 3);
+
+        //ASSERT
+        Assert.assertEquals(expectedEnd, actualEnd);
+        Assert.assertEquals(expectedResult, actualResult);
+    }
+
+    @Test
+    public void should_return_same_file_as_huffman_tree_when_compressing_in_parallel() throws IOException {
+        //ARRANGE
+        byte[] content = createContent(3 * ParallelEncoder.DEFAULT_SEGMENT_SIZE + 777);
+        File source = File.createTempFile("parallel", ".bin");
+        File expected = File.createTempFile("parallel", ".huf");
+        File actual = File.createTempFile("parallel", ".huf");
+        Files.write(source.toPath(), content);
+
+        try (MappedFile mapped = new MappedFile(source.getPath())) {
+            new HuffmanTree(new FrequencyReader().readBytes(mapped)).compress(mapped, expected.getPath());
+        }
+
+        byte[] expectedResult = Files.readAllBytes(expected.toPath());
+
+        for (int threads = 1; threads <= 3; threads++) {
+            //ACT
+            try (MappedFile mapped = new MappedFile(source.getPath(), 1 << 20)) {
+                CodeTable table = new HuffmanTree(new FrequencyReader().readBytes(mapped)).getCodeTable();
+                new ParallelEncoder(1000 + threads, threads).compress(table, mapped, actual.getPath());
+            }
+
+            //ASSERT
+            Assert.assertArrayEquals(expectedResult, Files.readAllBytes(actual.toPath()));
+        }
+
+        source.delete();
+        expected.delete();
+        actual.delete();
+    }
+
+    @Test
+    public void should_return_same_content_when_decompressing_single_stream() throws IOException {
+        //ARRANGE
+        byte[] expectedResult = createContent(2 * ParallelEncoder.DEFAULT_SEGMENT_SIZE + 5);
+        File source = File.createTempFile("parallel", ".bin");
+        File compressed = File.createTempFile("parallel", ".huf");
+        File destination = File.createTempFile("parallel", ".out");
+        Files.write(source.toPath(), expectedResult);
+
+        //ACT
+        Codec.compressSingleStream(source.getPath(), compressed.getPath(), 4);
+        Codec.decompress(compressed.getPath(), destination.getPath(), 1);
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, Files.readAllBytes(destination.toPath()));
+
+        source.delete();
+        compressed.delete();
+        destination.delete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_when_segment_size_is_too_small() {
+        //ACT
+        new ParallelEncoder(ParallelEncoder.MIN_SEGMENT_SIZE - 1, 1);
+    }
+}
@@ -0,0 +1,102 @@
+package test;
+
+import huffman.Codec;
+import huffman.SharedTable;
+import huffman.TableCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class SharedTableTest {
+
+    @Test
+    public void should_restore_message_when_table_is_loaded_from_directory() throws IOException {
+        //ARRANGE
+        Random random = new Random(5);
+        File directory = Files.createTempDirectory("tables").toFile();
+        List<String> samples = new ArrayList<>();
+
+        for (int f = 0; f < 10; f++) {
+            File sample = new File(directory, "sample" + f + ".json");
+            Files.write(sample.toPath(), message(random).getBytes(StandardCharsets.UTF_8));
+            samples.add(sample.getPath());
+        }
+
+        SharedTable trained = SharedTable.train(samples);
+        trained.save(new File(directory, SharedTable.fileName(trained.getId())).getPath());
+
+        byte[] expectedResult = (message(random) + "é\u0000").getBytes(StandardCharsets.UTF_8);
+        TableCache tables = new TableCache(directory.getPath());
+
+        //ACT
+        byte[] compressed = trained.compress(expectedResult);
+        byte[] actualResult = SharedTable.decompress(compressed, tables);
+        byte[] emptyResult = SharedTable.decompress(trained.compress(new byte[0]), tables);
+
+        //ASSERT
+        Assert.assertArrayEquals(expectedResult, actualResult);
+        Assert.assertEquals(0, emptyResult.length);
+        Assert.assertEquals(1, tables.size());
+
+        for (File file : directory.listFiles())
+            file.delete();
+        directory.delete();
+    }
+
+    @Test
+    public void should_be_smaller_than_embedded_table_when_message_is_small() throws IOException {
+        //ARRANGE
+        Random random = new Random(6);
+        long[] frequencies = new long[256];
+
+        for (int m = 0; m < 50; m++)
+            for (byte b : message(random).getBytes(StandardCharsets.UTF_8))
+                frequencies[b & 0xFF]++;
+
+        SharedTable table = SharedTable.train(frequencies);
+        byte[] data = message(random).getBytes(StandardCharsets.UTF_8);
+        File source = File.createTempFile("message", ".json");
+        File destination = File.createTempFile("message", ".huf");
+        Files.write(source.toPath(), data);
+
+        //ACT
+        int sharedSize = table.compress(data).length;
+        Codec.compress(source.getPath(), destination.getPath(), 1);
+
+        //ASSERT
+        Assert.assertTrue(sharedSize < destination.length());
+        Assert.assertArrayEquals(data, SharedTable.decompress(table.compress(data), new TableCache().add(table)));
+
+        source.delete();
+        destination.delete();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_throw_when_table_is_unknown() throws IOException {
+        //ARRANGE
+        SharedTable table = SharedTable.train(new long[256]);
+        byte[] compressed = table.compress(new byte[]{1, 2, 3});
+
+        //ACT
+        SharedTable.decompress(compressed, new TableCache());
+    }
+
+    private static String message(Random random) {
+        StringBuilder sb = new StringBuilder("{\"events\":[");
+
+        for (int i = 0; i < 30; i++)
+            sb.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(random.nextInt(100000))
+                    .append(",\"type\":\"").append(random.nextBoolean() ? "click" : "view")
+                    .append("\",\"ok\":").append(random.nextBoolean()).append('}');
+
+        return sb.append("]}").toString();
+    }
+}